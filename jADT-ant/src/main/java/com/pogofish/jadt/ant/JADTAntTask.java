@@ -15,27 +15,56 @@ limitations under the License.
 */
 package com.pogofish.jadt.ant;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
+import org.apache.tools.ant.types.AbstractFileSet;
+import org.apache.tools.ant.types.DirSet;
+import org.apache.tools.ant.types.FileSet;
 
 import com.pogofish.jadt.JADT;
+import com.pogofish.jadt.checker.StandardChecker;
+import com.pogofish.jadt.daemon.DaemonClient;
+import com.pogofish.jadt.source.FileSourceFactory;
+import com.pogofish.jadt.util.Util;
 
 
 /**
- * Task for running jADT during an Ant build
+ * Task for running jADT during an Ant build.  The sources are the srcPath, if there is one, plus the files of any 
+ * nested filesets and the files in the directories of any nested dirsets.  The includes and excludes attributes pick the
+ * files in the srcPath directory and the dirset directories, by default only the .jadt files directly in them.  Nothing is generated when 
+ * the output is already up to date with all of the sources, and otherwise only the sources that changed since the last 
+ * run are regenerated.
  *
  * @author jiry
  */
 public class JADTAntTask extends Task {
     /**
-     * This is the driver that will be executed.  It's made accessible for unit testing
+     * This is the driver that will be executed, or null to use a standard driver with the configured number of 
+     * threads.  It's made accessible for unit testing
+     */
+    JADT jadt = null;
+    /**
+     * Client used to reach a running daemon.  It's made accessible for unit testing
      */
-    JADT jadt = JADT.standardConfigDriver();
+    DaemonClient daemonClient = new DaemonClient(DaemonClient.defaultFile());
     private String srcPath;
     private String destDir;
+    private boolean daemon = false;
+    private boolean force = false;
+    private int threads = 1;
+    private String includes = null;
+    private String excludes = null;
+    private final List<AbstractFileSet> sets = new ArrayList<AbstractFileSet>();
     
     /**
-     * Set by ant as a property, this is the name of the source file that will be parsed
+     * Set by ant as a property, this is the name of the source file or directory that will be parsed
      */
     public void setSrcPath(String srcPath) {
         this.srcPath = srcPath;
@@ -48,12 +77,134 @@ public class JADTAntTask extends Task {
         this.destDir = destDir;
     }
     
+    /**
+     * Set by ant as a property, true to hand the work to a running jADT daemon if there is one
+     */
+    public void setDaemon(boolean daemon) {
+        this.daemon = daemon;
+    }
+    
+    /**
+     * Set by ant as a property, true to generate even when the output is up to date
+     */
+    public void setForce(boolean force) {
+        this.force = force;
+    }
+    
+    /**
+     * Set by ant as a property, the number of threads used to parse, check, and emit.  Defaults to 1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new BuildException("threads must be at least 1 but was " + threads);
+        }
+        this.threads = threads;
+    }
+    
+    /**
+     * Set by ant as a property, comma separated patterns for the files in source directories to generate from, by 
+     * default "*.jadt".  "**&#47;*.jadt" finds .jadt files at any depth.  See com.pogofish.jadt.source.Glob for the syntax
+     */
+    public void setIncludes(String includes) {
+        this.includes = includes;
+    }
+    
+    /**
+     * Set by ant as a property, comma separated patterns for files in source directories to leave out
+     */
+    public void setExcludes(String excludes) {
+        this.excludes = excludes;
+    }
+    
+    /**
+     * Nested fileset of .jadt files to be parsed
+     */
+    public void addFileset(FileSet fileSet) {
+        sets.add(fileSet);
+    }
+    
+    /**
+     * Nested dirset of directories whose .jadt files are to be parsed
+     */
+    public void addDirset(DirSet dirSet) {
+        sets.add(dirSet);
+    }
+    
     @Override
     public void execute() throws BuildException {
+        if (destDir == null) {
+            throw new BuildException("destDir must be set");
+        }
+        if (srcPath == null && sets.isEmpty()) {
+            throw new BuildException("srcPath or a nested fileset or dirset must be set");
+        }
         try {
-            jadt.parseAndEmit(srcPath, destDir);
+            final JADT driver = jadt != null ? jadt : standardDriver();
+            if (sets.isEmpty()) {
+                if (!force && driver.isUpToDate(srcPath, destDir)) {
+                    log("jADT output in " + destDir + " is up to date.", Project.MSG_VERBOSE);
+                } else if (daemon) {
+                    daemonClient.parseAndEmit(driver, new File(srcPath).getAbsolutePath(), new File(destDir).getAbsolutePath(), settings());
+                } else {
+                    driver.parseAndEmit(srcPath, destDir);
+                }
+                return;
+            }
+            
+            final List<String> srcPaths = srcPaths();
+            final String dest = new File(destDir).getAbsolutePath();
+            if (!force && driver.isUpToDate(srcPaths, dest)) {
+                log("jADT output in " + dest + " is up to date.", Project.MSG_VERBOSE);
+            } else if (daemon) {
+                daemonClient.parseAndEmit(driver, srcPaths, dest, settings());
+            } else {
+                driver.parseAndEmit(srcPaths, dest);
+            }
         } catch (RuntimeException e) {
             throw new BuildException(e);
         }
     }
+    
+    /**
+     * A standard driver with the configured threads and patterns
+     */
+    JADT standardDriver() {
+        if (includes == null && excludes == null) {
+            return JADT.standardConfigDriver(threads);
+        }
+        return JADT.standardConfigDriver(threads, JADT.configuredStreaming(), JADT.configuredParseCache(), new StandardChecker(), 
+                includes == null ? Util.list(FileSourceFactory.DEFAULT_INCLUDE) : JADT.patterns(includes), 
+                excludes == null ? Collections.<String>emptyList() : JADT.patterns(excludes));
+    }
+    
+    /**
+     * The settings a daemon generates with, the same ones standardDriver() uses
+     */
+    Properties settings() {
+        final Properties settings = JADT.configuredSettings();
+        if (includes != null || excludes != null) {
+            settings.setProperty(JADT.INCLUDES_PROPERTY, includes == null ? FileSourceFactory.DEFAULT_INCLUDE : includes);
+            settings.setProperty(JADT.EXCLUDES_PROPERTY, excludes == null ? "" : excludes);
+        }
+        return settings;
+    }
+    
+    /**
+     * Full names of the srcPath and of everything included by the nested sets
+     */
+    List<String> srcPaths() {
+        final List<String> srcPaths = new ArrayList<String>();
+        if (srcPath != null) {
+            srcPaths.add(new File(srcPath).getAbsolutePath());
+        }
+        for (AbstractFileSet set : sets) {
+            final File dir = set.getDir(getProject());
+            final String[] names = set instanceof DirSet ? set.getDirectoryScanner(getProject()).getIncludedDirectories() 
+                    : set.getDirectoryScanner(getProject()).getIncludedFiles();
+            for (String name : names) {
+                srcPaths.add(new File(dir, name).getAbsolutePath());
+            }
+        }
+        return srcPaths;
+    }
 }
@@ -16,16 +16,30 @@ limitations under the License.
 package com.pogofish.jadt.ant;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collections;
 
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.apache.tools.ant.types.DirSet;
+import org.apache.tools.ant.types.FileSet;
 import org.junit.Test;
 
 import com.pogofish.jadt.JADT;
+import com.pogofish.jadt.daemon.DaemonClient;
+import com.pogofish.jadt.daemon.JADTDaemon;
 import com.pogofish.jadt.errors.SemanticError;
 import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.manifest.FileManifestStore;
 import com.pogofish.jadt.sink.StringSinkFactoryFactory;
 
 
@@ -52,6 +66,27 @@ public class JADTAntTaskTest {
         assertEquals(JADT.TEST_SRC_INFO, result);
     }
     
+    /**
+     * Make sure the task falls back to its own driver when asked to use a daemon that isn't there
+     */
+    @Test
+    public void testDaemonFallback() {
+        final JADTAntTask antTask = new JADTAntTask();
+        final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();        
+        final File srcFile = new File(JADT.TEST_SRC_INFO);
+        final File destDir = new File(JADT.TEST_DIR);
+        antTask.jadt = JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), srcFile.getAbsolutePath(), factory);
+        antTask.daemonClient = new DaemonClient(new File(destDir, "no such daemon.properties"));
+        
+        antTask.setSrcPath(JADT.TEST_SRC_INFO);
+        antTask.setDestDir(JADT.TEST_DIR);
+        antTask.setDaemon(true);
+        antTask.execute();
+        
+        final String result = factory.results().get(destDir.getAbsolutePath()).get(0).getResults().get(JADT.TEST_CLASS_NAME);
+        assertEquals(JADT.TEST_SRC_INFO, result);
+    }
+    
     /**
      * Make sure exceptions are handled properly
      */
@@ -73,4 +108,221 @@ public class JADTAntTaskTest {
         }
     }
     
+    /**
+     * Make sure nested filesets and dirsets are generated together, on several threads, and that only what changed is 
+     * generated again
+     */
+    @Test
+    public void testSets() throws IOException {
+        final File srcDir = createTmpDir();
+        final File destDir = createTmpDir();
+        try {
+            new File(srcDir, "a").mkdirs();
+            new File(srcDir, "b").mkdirs();
+            new File(srcDir, "c").mkdirs();
+            final File srcA = new File(srcDir, "a/A.jadt");
+            writeFile(srcA, "Foo = Foo");
+            writeFile(new File(srcDir, "b/B.jadt"), "Bar = Bar");
+            writeFile(new File(srcDir, "c/C.jadt"), "Baz = Baz");
+            final long old = System.currentTimeMillis() - 10000;
+            for (File dir : srcDir.listFiles()) {
+                for (File file : dir.listFiles()) {
+                    file.setLastModified(old);
+                }
+            }
+            final File foo = new File(destDir, "Foo.java");
+            final File bar = new File(destDir, "Bar.java");
+            final File manifest = new File(destDir, FileManifestStore.MANIFEST_NAME);
+            
+            final JADTAntTask antTask = createSetsTask(srcDir, destDir);
+            antTask.execute();
+            assertTrue(foo.exists());
+            assertTrue(bar.exists());
+            assertFalse(new File(destDir, "Baz.java").exists());
+            assertEquals(2, antTask.srcPaths().size());
+            
+            // up to date so the manifest isn't even saved
+            assertTrue(manifest.setLastModified(old));
+            createSetsTask(srcDir, destDir).execute();
+            assertEquals(old - old % 1000, manifest.lastModified() - manifest.lastModified() % 1000);
+            
+            // only the changed source is generated
+            writeFile(bar, "marker");
+            writeFile(srcA, "Foo = Foo2(int x)");
+            createSetsTask(srcDir, destDir).execute();
+            assertEquals("marker", readFile(bar));
+            assertTrue(readFile(foo).contains("Foo2"));
+            
+            // unless forced
+            final JADTAntTask forced = createSetsTask(srcDir, destDir);
+            forced.setForce(true);
+            bar.delete();
+            forced.execute();
+            assertTrue(bar.exists());
+        } finally {
+            deleteRecursively(srcDir);
+            deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Nested sets are handed to a daemon too
+     */
+    @Test
+    public void testDaemonSets() throws Exception {
+        final File srcDir = createTmpDir();
+        final File destDir = createTmpDir();
+        try {
+            new File(srcDir, "a").mkdirs();
+            new File(srcDir, "b").mkdirs();
+            writeFile(new File(srcDir, "a/A.jadt"), "Foo = Foo");
+            writeFile(new File(srcDir, "b/B.jadt"), "Bar = Bar");
+            
+            final File file = new File(destDir, "daemon.properties");
+            final JADTDaemon daemon = new JADTDaemon(1, file);
+            daemon.start();
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    daemon.serve();
+                }
+            }, "JADTAntTaskTest");
+            thread.setDaemon(true);
+            thread.start();
+            try {
+                final JADTAntTask antTask = createSetsTask(srcDir, destDir);
+                final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();
+                antTask.jadt = JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), JADT.TEST_SRC_INFO, factory);
+                antTask.daemonClient = new DaemonClient(file);
+                antTask.setDaemon(true);
+                antTask.execute();
+                assertTrue(new File(destDir, "Foo.java").exists());
+                assertTrue(new File(destDir, "Bar.java").exists());
+                assertTrue("Fell back to the task's own driver", factory.results().isEmpty());
+            } finally {
+                daemon.stop();
+                thread.join(10000);
+            }
+        } finally {
+            deleteRecursively(srcDir);
+            deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Make sure includes and excludes pick the sources in the srcPath directory
+     */
+    @Test
+    public void testPatterns() throws IOException {
+        final File srcDir = createTmpDir();
+        final File destDir = createTmpDir();
+        try {
+            new File(srcDir, "sub/test").mkdirs();
+            writeFile(new File(srcDir, "Foo.jadt"), "Foo = Foo");
+            writeFile(new File(srcDir, "sub/Bar.jadt"), "Bar = Bar");
+            writeFile(new File(srcDir, "sub/test/Baz.jadt"), "Baz = Baz");
+            
+            final JADTAntTask antTask = new JADTAntTask();
+            antTask.setSrcPath(srcDir.getAbsolutePath());
+            antTask.setDestDir(destDir.getAbsolutePath());
+            antTask.setIncludes("**/*.jadt");
+            antTask.setExcludes("**/test/**, Foo.jadt");
+            antTask.execute();
+            assertFalse(new File(destDir, "Foo.java").exists());
+            assertTrue(new File(destDir, "Bar.java").exists());
+            assertFalse(new File(destDir, "Baz.java").exists());
+            
+            // a daemon would be sent the same patterns
+            assertEquals("**/*.jadt", antTask.settings().getProperty(JADT.INCLUDES_PROPERTY));
+            assertEquals("**/test/**, Foo.jadt", antTask.settings().getProperty(JADT.EXCLUDES_PROPERTY));
+        } finally {
+            deleteRecursively(srcDir);
+            deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Make sure a task with no sources or bad settings fails
+     */
+    @Test
+    public void testBadSettings() {
+        final JADTAntTask antTask = new JADTAntTask();
+        antTask.setDestDir(JADT.TEST_DIR);
+        try {
+            antTask.execute();
+            fail("Did not get exception without sources");
+        } catch (BuildException e) {
+            // yay
+        }
+        try {
+            antTask.setThreads(0);
+            fail("Did not get exception with no threads");
+        } catch (BuildException e) {
+            // yay
+        }
+    }
+    
+    /**
+     * A task with a fileset of a/*.jadt and a dirset of b, running on 2 threads
+     */
+    private static JADTAntTask createSetsTask(File srcDir, File destDir) {
+        final Project project = new Project();
+        final JADTAntTask antTask = new JADTAntTask();
+        antTask.setProject(project);
+        antTask.setDestDir(destDir.getAbsolutePath());
+        antTask.setThreads(2);
+        
+        final FileSet fileSet = new FileSet();
+        fileSet.setProject(project);
+        fileSet.setDir(srcDir);
+        fileSet.setIncludes("a/*.jadt");
+        antTask.addFileset(fileSet);
+        
+        final DirSet dirSet = new DirSet();
+        dirSet.setProject(project);
+        dirSet.setDir(srcDir);
+        dirSet.setIncludes("b");
+        antTask.addDirset(dirSet);
+        return antTask;
+    }
+    
+    private static void writeFile(File file, String contents) throws IOException {
+        final OutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(contents.getBytes("UTF-8"));
+        } finally {
+            stream.close();
+        }
+    }
+    
+    private static String readFile(File file) throws IOException {
+        final InputStream stream = new FileInputStream(file);
+        try {
+            final byte[] bytes = new byte[(int)file.length()];
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset += stream.read(bytes, offset, bytes.length - offset);
+            }
+            return new String(bytes, "UTF-8");
+        } finally {
+            stream.close();
+        }
+    }
+    
+    private static File createTmpDir() throws IOException {
+        final File dir = File.createTempFile("jadt", "test");
+        dir.delete();
+        dir.mkdirs();
+        return dir;
+    }
+    
+    private static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
 }
@@ -0,0 +1,88 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.apt;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.tools.JavaFileObject;
+
+import com.pogofish.jadt.sink.Sink;
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Sink that writes a source file created by an annotation processor's Filer.  Everything written is buffered in memory
+ * and handed to the Filer in one go when the sink is closed, so javac never sees a half written file.
+ */
+public class FilerSink implements Sink {
+    private final StringBuilder buffer = new StringBuilder(4096);
+    final JavaFileObject file;
+    
+    /**
+     * Creates a FilerSink that writes to the given file
+     * 
+     * @param file JavaFileObject created by a Filer
+     */
+    public FilerSink(JavaFileObject file) {
+        super();
+        this.file = file;
+    }
+
+    @Override
+    public String getInfo() {
+        return file.toUri().toString();
+    }
+
+    @Override
+    public void write(String data) {
+        buffer.append(data);
+    }
+
+    @Override
+    public Sink append(CharSequence csq) {
+        buffer.append(csq);
+        return this;
+    }
+
+    @Override
+    public Sink append(CharSequence csq, int start, int end) {
+        buffer.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public Sink append(char c) {
+        buffer.append(c);
+        return this;
+    }
+
+    @Override
+    public void close() {
+        Util.execute(new ExceptionAction<Void>() {
+            @Override
+            public Void doAction() throws IOException {
+                final Writer writer = file.openWriter();
+                try {
+                    writer.append(buffer);
+                } finally {
+                    writer.close();
+                }
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,80 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.apt;
+
+import java.util.logging.Logger;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.tools.JavaFileObject;
+
+import com.pogofish.jadt.sink.Sink;
+import com.pogofish.jadt.sink.SinkFactory;
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Factory that creates FilerSinks for the source files of an annotation processor.  Every file is created with the 
+ * same originating elements so that build tools know which sources the generated files came from.
+ * 
+ * javac owns whatever the Filer generates, so this factory can't see or delete output from earlier compilations and 
+ * leaves that to the build tool.
+ */
+public class FilerSinkFactory implements SinkFactory {
+    private static final Logger logger = Logger.getLogger(FilerSinkFactory.class.toString());
+    
+    final Filer filer;
+    final Element[] originatingElements;
+    
+    /**
+     * Creates a FilerSinkFactory that creates source files with the given Filer
+     * 
+     * @param filer Filer from the annotation processing environment
+     * @param originatingElements the elements the generated files come from, if any
+     */
+    public FilerSinkFactory(Filer filer, Element... originatingElements) {
+        super();
+        this.filer = filer;
+        this.originatingElements = originatingElements;
+    }
+
+    @Override
+    public Sink createSink(final String className) {
+        return Util.execute(new ExceptionAction<Sink>() {
+            @Override
+            public Sink doAction() throws Throwable {
+                final JavaFileObject file = filer.createSourceFile(className, originatingElements);
+                return new FilerSink(file);
+            }
+        });
+    }
+
+    /**
+     * Always false, the Filer has no way to look at files from an earlier compilation
+     */
+    @Override
+    public boolean exists(String className) {
+        return false;
+    }
+
+    /**
+     * Does nothing but log, output from an earlier compilation is cleaned up by the build tool
+     */
+    @Override
+    public void delete(String className) {
+        logger.fine("Not deleting " + className + ", the build tool cleans up output from earlier compilations.");
+    }
+}
@@ -0,0 +1,45 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.apt;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+
+import com.pogofish.jadt.sink.SinkFactory;
+import com.pogofish.jadt.sink.SinkFactoryFactory;
+
+/**
+ * Factory for FilerSinkFactories.  The Filer decides where generated files go so the base directory is ignored.
+ */
+public class FilerSinkFactoryFactory implements SinkFactoryFactory {
+    private final Filer filer;
+    private final Element[] originatingElements;
+
+    /**
+     * @param filer Filer from the annotation processing environment
+     * @param originatingElements the elements the generated files come from, if any
+     */
+    public FilerSinkFactoryFactory(Filer filer, Element... originatingElements) {
+        super();
+        this.filer = filer;
+        this.originatingElements = originatingElements;
+    }
+
+    @Override
+    public SinkFactory createSinkFactory(String baseDir) {
+        return new FilerSinkFactory(filer, originatingElements);
+    }
+}
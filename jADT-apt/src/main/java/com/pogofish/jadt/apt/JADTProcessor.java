@@ -0,0 +1,207 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.apt;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.StandardLocation;
+
+import com.pogofish.jadt.JADT;
+import com.pogofish.jadt.JADTUserErrorsException;
+import com.pogofish.jadt.checker.Checker;
+import com.pogofish.jadt.checker.StandardChecker;
+import com.pogofish.jadt.emitter.ClassBodyEmitter;
+import com.pogofish.jadt.emitter.ConstructorEmitter;
+import com.pogofish.jadt.emitter.DataTypeEmitter;
+import com.pogofish.jadt.emitter.DocEmitter;
+import com.pogofish.jadt.emitter.StandardClassBodyEmitter;
+import com.pogofish.jadt.emitter.StandardConstructorEmitter;
+import com.pogofish.jadt.emitter.StandardDataTypeEmitter;
+import com.pogofish.jadt.emitter.StandardDocEmitter;
+import com.pogofish.jadt.errors.UserError;
+import com.pogofish.jadt.parser.Parser;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.printer.UserErrorPrinter;
+import com.pogofish.jadt.source.FileSourceFactory;
+import com.pogofish.jadt.source.SourceFactory;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Annotation processor that generates Java from jADT sources while javac runs, so no separate build step or extra JVM 
+ * is needed.  The generated classes are written through the Filer and compiled along with everything else.
+ * 
+ * Sources are named either by JADTSource annotations or by the jadt.sources processor option, a list of .jadt files
+ * and directories separated by the path separator.  Relative names are resolved against the jadt.baseDir option,
+ * or the current directory if it isn't set.  The jadt.includes and jadt.excludes options are comma separated patterns 
+ * that pick the files in source directories, by default only the .jadt files directly in them.  The sources named by 
+ * one annotation are generated together, and so are the sources named by the option, so data types defined by more 
+ * than one of them are found.  Errors are reported as compiler errors on the annotated class.
+ * 
+ * The processor is registered with Gradle as isolating: each generated file has the annotated class as its only 
+ * originating element.  Files generated from the option have no originating element, so Gradle recompiles everything
+ * when they're involved.
+ */
+public class JADTProcessor extends AbstractProcessor {
+    /**
+     * Processor option with .jadt files and directories to generate from regardless of annotations
+     */
+    public static final String SOURCES_OPTION = "jadt.sources";
+    
+    /**
+     * Processor option with the directory that relative source names are resolved against
+     */
+    public static final String BASE_DIR_OPTION = "jadt.baseDir";
+    
+    /**
+     * Processor option with comma separated patterns for the files in source directories to generate from, by default 
+     * only the .jadt files directly in them
+     */
+    public static final String INCLUDES_OPTION = "jadt.includes";
+    
+    /**
+     * Processor option with comma separated patterns for files in source directories to leave out
+     */
+    public static final String EXCLUDES_OPTION = "jadt.excludes";
+    
+    /**
+     * The Filer decides where output goes, this is only used to describe it
+     */
+    private static final String DEST_DIR = StandardLocation.SOURCE_OUTPUT.getName();
+    
+    private SourceFactory sourceFactory;
+    private Parser parser;
+    private Checker checker;
+    private DocEmitter emitter;
+    /**
+     * Whether the sources named by the option have been generated yet, they're only generated in the first round
+     */
+    private boolean optionDone = false;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        final ClassBodyEmitter classBodyEmitter = new StandardClassBodyEmitter();
+        final ConstructorEmitter constructorEmitter = new StandardConstructorEmitter(classBodyEmitter);
+        final DataTypeEmitter dataTypeEmitter = new StandardDataTypeEmitter(classBodyEmitter, constructorEmitter);
+        final String includes = processingEnv.getOptions().get(INCLUDES_OPTION);
+        final String excludes = processingEnv.getOptions().get(EXCLUDES_OPTION);
+        sourceFactory = new FileSourceFactory(includes == null ? Util.list(FileSourceFactory.DEFAULT_INCLUDE) : JADT.patterns(includes), 
+                excludes == null ? Collections.<String>emptyList() : JADT.patterns(excludes), null);
+        parser = new StandardParser(new JavaCCParserImplFactory());
+        checker = new StandardChecker();
+        emitter = new StandardDocEmitter(dataTypeEmitter);
+    }
+    
+    /**
+     * JADTSource, or everything if the option names sources so that the processor runs even when nothing is annotated
+     */
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        if (processingEnv != null && processingEnv.getOptions().containsKey(SOURCES_OPTION)) {
+            return Collections.singleton("*");
+        }
+        return Collections.singleton(JADTSource.class.getName());
+    }
+    
+    @Override
+    public Set<String> getSupportedOptions() {
+        return new HashSet<String>(Arrays.asList(SOURCES_OPTION, BASE_DIR_OPTION, INCLUDES_OPTION, EXCLUDES_OPTION));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (!optionDone) {
+            optionDone = true;
+            final String sources = processingEnv.getOptions().get(SOURCES_OPTION);
+            if (sources != null) {
+                generate(sources.split(File.pathSeparator), null);
+            }
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(JADTSource.class)) {
+            generate(element.getAnnotation(JADTSource.class).value(), element);
+        }
+        // other processors are welcome to look at the same classes
+        return false;
+    }
+    
+    /**
+     * Generate Java from the named sources, reporting any errors against the element
+     * 
+     * @param names the .jadt files and directories
+     * @param element the element that named them, or null if they came from the option
+     */
+    void generate(String[] names, Element element) {
+        final List<String> srcPaths = srcPaths(names);
+        if (srcPaths.isEmpty()) {
+            error("No jADT sources named.", element);
+            return;
+        }
+        final JADT driver = new JADT(sourceFactory, parser, checker, emitter, 
+                element == null ? new FilerSinkFactoryFactory(processingEnv.getFiler()) : new FilerSinkFactoryFactory(processingEnv.getFiler(), element));
+        try {
+            driver.parseAndEmit(srcPaths, DEST_DIR);
+        } catch (JADTUserErrorsException e) {
+            for (UserError error : e.getErrors()) {
+                error(UserErrorPrinter.print(error), element);
+            }
+        } catch (RuntimeException e) {
+            error("Error in processing jADT " + srcPaths + ": " + (e.getCause() != null ? e.getCause() : e), element);
+        }
+    }
+    
+    /**
+     * Full names of the named sources, resolved against the base directory
+     */
+    List<String> srcPaths(String[] names) {
+        final String baseDir = processingEnv.getOptions().get(BASE_DIR_OPTION);
+        final List<String> srcPaths = new ArrayList<String>(names.length);
+        for (String name : names) {
+            final String trimmed = name.trim();
+            if (trimmed.length() > 0) {
+                final File file = new File(trimmed);
+                srcPaths.add((file.isAbsolute() || baseDir == null ? file : new File(baseDir, trimmed)).getAbsolutePath());
+            }
+        }
+        return srcPaths;
+    }
+    
+    private void error(String message, Element element) {
+        if (element == null) {
+            processingEnv.getMessager().printMessage(Kind.ERROR, message);
+        } else {
+            processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+        }
+    }
+}
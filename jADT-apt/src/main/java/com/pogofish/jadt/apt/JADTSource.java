@@ -0,0 +1,42 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.apt;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class whose compilation should generate Java from the named jADT sources.  The JADTProcessor generates the 
+ * Java while javac runs and the generated classes are compiled along with everything else.  Each name is a .jadt file 
+ * or a directory of them.  Relative names are resolved against the jadt.baseDir processor option, or the current 
+ * directory if it isn't set.
+ * 
+ * The generated classes belong to the marked class, so a build tool that compiles incrementally regenerates them 
+ * when the marked class is recompiled.  The annotation is kept in the class file, as Gradle's incremental annotation
+ * processing requires.  Build tools don't know the .jadt files are inputs to the marked class though, so an edit to 
+ * one is only picked up by a full recompilation, e.g. a clean build, or in Gradle by declaring the .jadt files as 
+ * inputs of the compile task, which makes Gradle recompile everything when they change.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface JADTSource {
+    /**
+     * Names of the .jadt files or directories to generate from
+     */
+    String[] value();
+}
@@ -0,0 +1,215 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.apt;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Run javac with the JADTProcessor and make sure the generated classes get compiled
+ */
+public class JADTProcessorTest {
+    private static final String SHAPES = "package shapes\nShape = Circle(int radius) | Square(int side)\n";
+    
+    private File dir;
+    private File srcDir;
+    private File genDir;
+    private File classesDir;
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+    
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("jadt", "apt");
+        dir.delete();
+        srcDir = new File(dir, "src");
+        genDir = new File(dir, "gen");
+        classesDir = new File(dir, "classes");
+        genDir.mkdirs();
+        classesDir.mkdirs();
+        diagnostics = new DiagnosticCollector<JavaFileObject>();
+    }
+    
+    @After
+    public void tearDown() {
+        deleteRecursively(dir);
+    }
+    
+    /**
+     * Sources named by an annotation are generated and compiled along with the annotated class
+     */
+    @Test
+    public void testAnnotation() throws IOException {
+        write(new File(dir, "jadt/Shapes.jadt"), SHAPES);
+        final File holder = write(new File(srcDir, "shapes/Holder.java"), 
+                "package shapes;\n@com.pogofish.jadt.apt.JADTSource(\"jadt\")\npublic class Holder {\n  Shape shape = Shape._Circle(1);\n}\n");
+        assertTrue(diagnostics.getDiagnostics().toString(), compile(holder, "-Ajadt.baseDir=" + dir.getAbsolutePath()));
+        assertTrue(new File(genDir, "shapes/Shape.java").exists());
+        assertTrue(new File(classesDir, "shapes/Shape.class").exists());
+        assertTrue(new File(classesDir, "shapes/Holder.class").exists());
+    }
+
+    /**
+     * Sources named by the option are generated even when nothing is annotated
+     */
+    @Test
+    public void testOption() throws IOException {
+        final File shapes = write(new File(dir, "Shapes.jadt"), SHAPES);
+        final File user = write(new File(srcDir, "shapes/User.java"), 
+                "package shapes;\npublic class User {\n  Shape shape = Shape._Square(2);\n}\n");
+        assertTrue(diagnostics.getDiagnostics().toString(), compile(user, "-Ajadt.sources=" + shapes.getAbsolutePath()));
+        assertTrue(new File(classesDir, "shapes/Shape.class").exists());
+        assertTrue(new File(classesDir, "shapes/User.class").exists());
+    }
+    
+    /**
+     * The includes and excludes options pick the files in source directories
+     */
+    @Test
+    public void testPatterns() throws IOException {
+        write(new File(dir, "jadt/sub/Shapes.jadt"), SHAPES);
+        write(new File(dir, "jadt/sub/test/Broken.jadt"), "this isn't jADT");
+        final File holder = write(new File(srcDir, "shapes/Holder.java"), 
+                "package shapes;\n@com.pogofish.jadt.apt.JADTSource(\"jadt\")\npublic class Holder {\n  Shape shape = Shape._Circle(1);\n}\n");
+        assertTrue(diagnostics.getDiagnostics().toString(), compile(holder, "-Ajadt.baseDir=" + dir.getAbsolutePath(), 
+                "-Ajadt.includes=**/*.jadt", "-Ajadt.excludes=**/test/**"));
+        assertTrue(new File(classesDir, "shapes/Shape.class").exists());
+    }
+    
+    /**
+     * Without the option or an annotation nothing happens
+     */
+    @Test
+    public void testNothing() throws IOException {
+        final File plain = write(new File(srcDir, "Plain.java"), "public class Plain {}\n");
+        assertTrue(diagnostics.getDiagnostics().toString(), compile(plain));
+        assertEquals(0, genDir.list().length);
+    }
+    
+    /**
+     * jADT errors and missing sources are compiler errors on the annotated class
+     */
+    @Test
+    public void testErrors() throws IOException {
+        write(new File(dir, "Bad.jadt"), "package shapes\nShape = Circle(int radius) | Circle(int radius)\n");
+        final File bad = write(new File(srcDir, "Bad.java"), "@com.pogofish.jadt.apt.JADTSource(\"Bad.jadt\")\npublic class Bad {}\n");
+        assertFalse(compile(bad, "-Ajadt.baseDir=" + dir.getAbsolutePath()));
+        assertEquals(Arrays.asList("Bad.java: Data type Shape cannot have multiple constructors named Circle."), errors());
+        
+        diagnostics = new DiagnosticCollector<JavaFileObject>();
+        final File missing = write(new File(srcDir, "Missing.java"), "@com.pogofish.jadt.apt.JADTSource(\"Missing.jadt\")\npublic class Missing {}\n");
+        assertFalse(compile(missing, "-Ajadt.baseDir=" + dir.getAbsolutePath()));
+        assertEquals(1, errors().size());
+        assertTrue(errors().get(0), errors().get(0).startsWith("Missing.java: Error in processing jADT"));
+    }
+    
+    private boolean compile(File source, String... options) throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null);
+        try {
+            final List<String> allOptions = new ArrayList<String>(Arrays.asList("-d", classesDir.getAbsolutePath(), "-s", 
+                    genDir.getAbsolutePath(), "-classpath", classpath()));
+            allOptions.addAll(Arrays.asList(options));
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, allOptions, null, 
+                    fileManager.getJavaFileObjects(source));
+            task.setProcessors(Arrays.asList(new JADTProcessor()));
+            return task.call();
+        } finally {
+            fileManager.close();
+        }
+    }
+    
+    /**
+     * Where JADTSource was loaded from, java.class.path may only have surefire's booter jar
+     */
+    private static String classpath() {
+        return new File(JADTSource.class.getProtectionDomain().getCodeSource().getLocation().getPath()).getAbsolutePath();
+    }
+    
+    /**
+     * The errors that were reported, each prefixed by the name of the file it was reported against
+     */
+    private List<String> errors() {
+        final List<String> errors = new ArrayList<String>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add((diagnostic.getSource() == null ? "" : new File(diagnostic.getSource().toUri()).getName() + ": ") + diagnostic.getMessage(null));
+            }
+        }
+        return errors;
+    }
+    
+    private static File write(File file, String contents) throws IOException {
+        file.getParentFile().mkdirs();
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+    
+    /**
+     * The annotation is kept in class files, which Gradle needs to process annotations incrementally
+     */
+    @Test
+    public void testRetention() {
+        assertEquals(RetentionPolicy.CLASS, JADTSource.class.getAnnotation(Retention.class).value());
+    }
+    
+    /**
+     * Deleting through a Filer does nothing rather than failing the compilation
+     */
+    @Test
+    public void testDelete() {
+        final FilerSinkFactory factory = new FilerSinkFactory(null);
+        factory.delete("shapes.Shape");
+        assertFalse(factory.exists("shapes.Shape"));
+    }
+    
+    private static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
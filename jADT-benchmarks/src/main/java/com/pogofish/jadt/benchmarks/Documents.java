@@ -0,0 +1,46 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.benchmarks;
+
+/**
+ * Generates jADT documents for benchmarking
+ */
+public final class Documents {
+    private Documents() {
+        // no instances
+    }
+
+    /**
+     * A document with a package, some imports, and the given number of data types that use most of the syntax
+     */
+    public static String generate(int dataTypes) {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("/*\n * A generated document\n */\npackage com.example.generated\n\n");
+        builder.append("import java.util.List\nimport java.util.Map\nimport java.io.*\n\n");
+        for (int i = 0; i < dataTypes; i++) {
+            builder.append("# data type ").append(i).append('\n');
+            builder.append("/**\n * Data type number ").append(i).append("\n * @param <A> some type\n */\n");
+            builder.append("@SuppressWarnings(\"unchecked\")\n@Level(value = 1 << 4 | 0x1F, name = \"x\\\"y\")\n");
+            builder.append("Type").append(i).append("<A, B> extends Base<A> implements java.io.Serializable =\n");
+            builder.append("    // the first constructor\n");
+            builder.append("    First").append(i).append("(final int x, List<Map<A, B> > values, double[][] matrix)\n");
+            builder.append("    /**\n     * The second constructor\n     * @param flag a flag\n     * @param name the name\n     */\n");
+            builder.append("  | Second").append(i).append("(boolean flag, byte b, char c, short s, long l, float f, String name)\n");
+            builder.append("  | Third").append(i).append("(transient Object o, volatile int shift, String s)\n\n");
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.emitter.ClassBodyEmitter;
+import com.pogofish.jadt.emitter.DocEmitter;
+import com.pogofish.jadt.emitter.StandardClassBodyEmitter;
+import com.pogofish.jadt.emitter.StandardConstructorEmitter;
+import com.pogofish.jadt.emitter.StandardDataTypeEmitter;
+import com.pogofish.jadt.emitter.StandardDocEmitter;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.sink.StringSinkFactory;
+import com.pogofish.jadt.source.StringSource;
+
+/**
+ * Emits Java for an already parsed document into memory.  Run with -prof gc to see allocation per emitted document.
+ * 
+ * mvn -Dbenchmarks=true package then java -jar jADT-benchmarks/target/benchmarks.jar Emitter -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmitterBenchmark {
+    /**
+     * Number of data types in the document
+     */
+    @Param({"10", "1000"})
+    public int dataTypes;
+
+    private Doc doc;
+    
+    private DocEmitter emitter;
+
+    @Setup
+    public void setup() {
+        doc = new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource("benchmark", Documents.generate(dataTypes))).doc;
+        final ClassBodyEmitter classBodyEmitter = new StandardClassBodyEmitter();
+        emitter = new StandardDocEmitter(new StandardDataTypeEmitter(classBodyEmitter, new StandardConstructorEmitter(classBodyEmitter)));
+    }
+
+    @Benchmark
+    public int emit() {
+        final StringSinkFactory factory = new StringSinkFactory("benchmark");
+        emitter.emit(factory, doc);
+        return factory.getResults().size();
+    }
+}
@@ -0,0 +1,77 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pogofish.jadt.cache.ASTCodec;
+import com.pogofish.jadt.parser.Parser;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.StringSource;
+
+/**
+ * Compares parsing a document with decoding the ASTCodec encoding a parse cache would load instead.
+ * 
+ * mvn -Dbenchmarks=true package then java -jar jADT-benchmarks/target/benchmarks.jar ParseCache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseCacheBenchmark {
+    /**
+     * Number of data types in the document
+     */
+    @Param({"10", "1000"})
+    public int dataTypes;
+
+    private String document;
+    
+    private byte[] encoded;
+    
+    private final Parser parser = new StandardParser(new JavaCCParserImplFactory());
+
+    @Setup
+    public void setup() {
+        document = Documents.generate(dataTypes);
+        encoded = ASTCodec.encode(parser.parse(new StringSource("benchmark", document)));
+    }
+
+    @Benchmark
+    public int parse() {
+        return parser.parse(new StringSource("benchmark", document)).doc.dataTypes.size();
+    }
+
+    @Benchmark
+    public int decode() {
+        return ASTCodec.decode(encoded, "benchmark").doc.dataTypes.size();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pogofish.jadt.parser.ParallelParser;
+import com.pogofish.jadt.parser.Parser;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.StringSource;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Parses one big document (about 50,000 lines) with a sequential StandardParser for 1 thread and a ParallelParser 
+ * otherwise.
+ * 
+ * mvn -Dbenchmarks=true package then java -jar jADT-benchmarks/target/benchmarks.jar Parser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    /**
+     * Number of threads to parse with
+     */
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private String document;
+    
+    private ExecutorService executor;
+    
+    private Parser parser;
+
+    @Setup
+    public void setup() {
+        document = Documents.generate(3000);
+        if (threads == 1) {
+            parser = new StandardParser(new JavaCCParserImplFactory());
+        } else {
+            executor = Util.daemonPool("benchmark", threads);
+            parser = new ParallelParser(new JavaCCParserImplFactory(), executor, threads);
+        }
+    }
+    
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public int parse() {
+        return parser.parse(new StringSource("benchmark", document)).doc.dataTypes.size();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.benchmarks;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pogofish.jadt.parser.javacc.JADTTokenizer;
+import com.pogofish.jadt.parser.javacc.generated.BaseJavaCCParserImplConstants;
+import com.pogofish.jadt.parser.javacc.generated.BaseJavaCCParserImplTokenManager;
+import com.pogofish.jadt.parser.javacc.generated.JavaCharStream;
+import com.pogofish.jadt.parser.javacc.generated.Token;
+
+/**
+ * Compares the hand written JADTTokenizer with the token manager JavaCC generates from jADT.jj by tokenizing a
+ * whole document, comments included.
+ * 
+ * mvn -Dbenchmarks=true package then java -jar jADT-benchmarks/target/benchmarks.jar Tokenizer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+    /**
+     * Number of data types in the document
+     */
+    @Param({"10", "1000"})
+    public int dataTypes;
+
+    private String document;
+
+    @Setup
+    public void setup() {
+        document = Documents.generate(dataTypes);
+    }
+
+    @Benchmark
+    public int javaCC() {
+        return count(new BaseJavaCCParserImplTokenManager(new JavaCharStream(new StringReader(document))));
+    }
+
+    @Benchmark
+    public int handWritten() {
+        return count(new JADTTokenizer(document));
+    }
+
+    /**
+     * Pull every token and comment, returning a count so the work can't be optimized away
+     */
+    private static int count(BaseJavaCCParserImplTokenManager tokenizer) {
+        int count = 0;
+        Token token;
+        do {
+            token = tokenizer.getNextToken();
+            count += token.image.length();
+            for (Token special = token.specialToken; special != null; special = special.specialToken) {
+                count += special.image.length();
+            }
+        } while (token.kind != BaseJavaCCParserImplConstants.EOF);
+        return count;
+    }
+}
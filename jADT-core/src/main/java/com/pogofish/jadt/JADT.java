@@ -17,8 +17,17 @@ package com.pogofish.jadt;
 
 import static com.pogofish.jadt.ast.ASTConstants.NO_COMMENTS;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import com.pogofish.jadt.ast.DataType;
@@ -26,9 +35,17 @@ import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.ast.Imprt;
 import com.pogofish.jadt.ast.ParseResult;
 import com.pogofish.jadt.ast.Pkg;
+import com.pogofish.jadt.cache.CachingParser;
+import com.pogofish.jadt.cache.FileParseCache;
+import com.pogofish.jadt.cache.ParseCache;
 import com.pogofish.jadt.checker.Checker;
 import com.pogofish.jadt.checker.DummyChecker;
 import com.pogofish.jadt.checker.StandardChecker;
+import com.pogofish.jadt.checker.SymbolIndex;
+import com.pogofish.jadt.checker.TypeResolver;
+import com.pogofish.jadt.checker.TypeResolver.Unresolved;
+import com.pogofish.jadt.classpath.ClasspathIndexer;
+import com.pogofish.jadt.daemon.DaemonClient;
 import com.pogofish.jadt.emitter.ClassBodyEmitter;
 import com.pogofish.jadt.emitter.ConstructorEmitter;
 import com.pogofish.jadt.emitter.DataTypeEmitter;
@@ -41,16 +58,27 @@ import com.pogofish.jadt.emitter.StandardDocEmitter;
 import com.pogofish.jadt.errors.SemanticError;
 import com.pogofish.jadt.errors.SyntaxError;
 import com.pogofish.jadt.errors.UserError;
+import com.pogofish.jadt.manifest.FileManifestStore;
+import com.pogofish.jadt.manifest.Manifest;
+import com.pogofish.jadt.manifest.ManifestStore;
+import com.pogofish.jadt.parser.DocHandler;
 import com.pogofish.jadt.parser.DummyParser;
+import com.pogofish.jadt.parser.ParallelParser;
 import com.pogofish.jadt.parser.Parser;
 import com.pogofish.jadt.parser.StandardParser;
 import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
 import com.pogofish.jadt.sink.FileSinkFactoryFactory;
+import com.pogofish.jadt.sink.RecordingSinkFactory;
+import com.pogofish.jadt.sink.SinkFactory;
 import com.pogofish.jadt.sink.SinkFactoryFactory;
+import com.pogofish.jadt.sink.WriteCounts;
+import com.pogofish.jadt.source.CharBufferSource;
 import com.pogofish.jadt.source.FileSourceFactory;
 import com.pogofish.jadt.source.Source;
 import com.pogofish.jadt.source.SourceFactory;
+import com.pogofish.jadt.source.Sources;
 import com.pogofish.jadt.source.StringSourceFactory;
+import com.pogofish.jadt.util.ExceptionAction;
 import com.pogofish.jadt.util.Util;
 
 
@@ -72,7 +100,72 @@ public class JADT {
     final Checker checker;
     final SourceFactory sourceFactory;
     final SinkFactoryFactory factoryFactory;
+    /**
+     * Executor used to parse and check sources concurrently, null means everything is done on the calling thread
+     */
+    final ExecutorService executor;
+    /**
+     * Store for the manifest used to skip unchanged sources, null means every source is always generated
+     */
+    final ManifestStore manifestStore;
+    /**
+     * Whether each DataType is checked and emitted as soon as it is parsed instead of after its whole document has been parsed
+     */
+    final boolean streaming;
+    /**
+     * Resolves the class types data types refer to, null if they aren't checked
+     */
+    final TypeResolver typeResolver;
 
+    /**
+     * System property that, when true, makes main hand the work to a running JADTDaemon if there is one
+     */
+    public static final String DAEMON_PROPERTY = "jadt.daemon";
+    
+    /**
+     * System property naming a directory where the standard configuration caches parsed sources, see CachingParser
+     */
+    public static final String PARSE_CACHE_PROPERTY = "jadt.parseCache";
+    
+    /**
+     * System property that, when true, makes the standard configuration stream each document a DataType at a time
+     */
+    public static final String STREAMING_PROPERTY = "jadt.streaming";
+    
+    /**
+     * System property with a classpath, separated the platform's way, that the standard configuration resolves class 
+     * types against, see TypeResolver
+     */
+    public static final String CLASSPATH_PROPERTY = "jadt.classpath";
+    
+    /**
+     * System property with comma separated Glob patterns for the files in a source directory that the standard 
+     * configuration generates from, by default only the .jadt files directly in the directory, see FileSourceFactory
+     */
+    public static final String INCLUDES_PROPERTY = "jadt.includes";
+    
+    /**
+     * System property with comma separated Glob patterns for files in a source directory that the standard configuration
+     * leaves out even though they're included
+     */
+    public static final String EXCLUDES_PROPERTY = "jadt.excludes";
+    
+    /**
+     * System property naming the directory where the class names in classpath jars are cached, by default .jadt/classes 
+     * in the user's home directory
+     */
+    public static final String CLASS_CACHE_PROPERTY = "jadt.classCache";
+    
+    /**
+     * The system properties, read by configuredSettings(), that configure a standard driver
+     */
+    private static final String[] SETTINGS = {STREAMING_PROPERTY, PARSE_CACHE_PROPERTY, CLASSPATH_PROPERTY, INCLUDES_PROPERTY, EXCLUDES_PROPERTY};
+    
+    /**
+     * Command line argument that keeps regenerating whenever the sources change, see SourceWatcher
+     */
+    public static final String WATCH_ARG = "--watch";
+    
     /**
      * Takes the names of a source file and output directory and does the jADT thing to them
      * 
@@ -80,7 +173,11 @@ public class JADT {
      * @throws Exception
      */
     public static void main(String[] args) {
-        standardConfigDriver().parseAndEmit(args);
+        if (Boolean.getBoolean(DAEMON_PROPERTY) && args.length == 2) {
+            new DaemonClient(DaemonClient.defaultFile()).parseAndEmit(standardConfigDriver(), new File(args[0]).getAbsolutePath(), new File(args[1]).getAbsolutePath());
+        } else {
+            standardConfigDriver().parseAndEmit(args);
+        }
     }
     
     /**
@@ -89,19 +186,177 @@ public class JADT {
      * @return Driver configured with all the Standard bits
      */
     public static JADT standardConfigDriver() {
-    	logger.fine("Using standard configuration.");
-        final SourceFactory sourceFactory = new FileSourceFactory();
+        return standardConfigDriver(1);
+    }
+    
+    /**
+     * Convenient factory method to create a complete standard configuration that uses up to the given number of 
+     * threads to parse, check, and emit.  1 thread means everything happens on the calling thread.  The driver streams
+     * if the STREAMING_PROPERTY system property is true.
+     * 
+     * @param threads maximum number of worker threads, must be at least 1
+     * @return Driver configured with all the Standard bits
+     */
+    public static JADT standardConfigDriver(int threads) {
+        return standardConfigDriver(threads, configuredStreaming());
+    }
+    
+    /**
+     * Convenient factory method to create a complete standard configuration that uses up to the given number of 
+     * threads and optionally streams each document a DataType at a time.  If the PARSE_CACHE_PROPERTY system property 
+     * names a directory then parsed sources are cached there.  If the CLASSPATH_PROPERTY system property is set then
+     * class types are resolved against that classpath.
+     * 
+     * @param threads maximum number of worker threads, must be at least 1
+     * @param streaming true to check and emit each DataType as soon as it's parsed
+     * @return Driver configured with all the Standard bits
+     * @see #JADT(SourceFactory, Parser, Checker, DocEmitter, SinkFactoryFactory, ExecutorService, ManifestStore, boolean)
+     */
+    public static JADT standardConfigDriver(int threads, boolean streaming) {
+        return standardConfigDriver(threads, streaming, configuredParseCache(), new StandardChecker());
+    }
+    
+    /**
+     * Convenient factory method to create a standard configuration that parses through the given ParseCache and checks 
+     * with the given Checker.  Several drivers can share a MemoryParseCache and a CachingChecker so that a source they 
+     * all read is only parsed and checked once.  If the CLASSPATH_PROPERTY system property is set then class types are
+     * resolved against that classpath.
+     * 
+     * @param threads maximum number of worker threads, must be at least 1
+     * @param streaming true to check and emit each DataType as soon as it's parsed
+     * @param parseCache ParseCache to keep parsed sources in, or null to parse every source
+     * @param checker Checker for the parsed sources
+     * @return Driver configured with all the Standard bits
+     */
+    public static JADT standardConfigDriver(int threads, boolean streaming, ParseCache parseCache, Checker checker) {
+        return standardConfigDriver(threads, streaming, parseCache, checker, configuredPatterns(INCLUDES_PROPERTY, FileSourceFactory.DEFAULT_INCLUDE), 
+                configuredPatterns(EXCLUDES_PROPERTY, null));
+    }
+    
+    /**
+     * Convenient factory method to create a standard configuration that finds the sources in a source directory with the
+     * given Glob patterns.  "**&#47;*.jadt" finds .jadt files at any depth.
+     * 
+     * @param threads maximum number of worker threads, must be at least 1
+     * @param streaming true to check and emit each DataType as soon as it's parsed
+     * @param parseCache ParseCache to keep parsed sources in, or null to parse every source
+     * @param checker Checker for the parsed sources
+     * @param includes patterns, relative to a source directory, for the files to generate from
+     * @param excludes patterns, relative to a source directory, for files to leave out
+     * @return Driver configured with all the Standard bits
+     * @see FileSourceFactory#FileSourceFactory(List, List, ExecutorService)
+     */
+    public static JADT standardConfigDriver(int threads, boolean streaming, ParseCache parseCache, Checker checker, List<String> includes, List<String> excludes) {
+        return standardConfigDriver(threads, streaming, parseCache, checker, includes, excludes, System.getProperty(CLASSPATH_PROPERTY));
+    }
+    
+    /**
+     * Convenient factory method to create a standard configuration from settings named like the system properties 
+     * that configure standard drivers: STREAMING_PROPERTY, PARSE_CACHE_PROPERTY, CLASSPATH_PROPERTY, INCLUDES_PROPERTY 
+     * and EXCLUDES_PROPERTY.  A setting that's missing means the same as a system property that isn't set.
+     * 
+     * @param threads maximum number of worker threads, must be at least 1
+     * @param settings the settings, e.g. from configuredSettings()
+     * @return Driver configured with all the Standard bits
+     */
+    public static JADT standardConfigDriver(int threads, Properties settings) {
+        final String parseCache = settings.getProperty(PARSE_CACHE_PROPERTY);
+        return standardConfigDriver(threads, Boolean.parseBoolean(settings.getProperty(STREAMING_PROPERTY)), 
+                parseCache == null ? null : new FileParseCache(new File(parseCache)), new StandardChecker(), 
+                configuredPatterns(settings, INCLUDES_PROPERTY, FileSourceFactory.DEFAULT_INCLUDE), 
+                configuredPatterns(settings, EXCLUDES_PROPERTY, null), settings.getProperty(CLASSPATH_PROPERTY));
+    }
+    
+    private static JADT standardConfigDriver(int threads, boolean streaming, ParseCache parseCache, Checker checker, List<String> includes, List<String> excludes, String classpath) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1 but was " + threads);
+        }
+    	logger.fine("Using standard configuration with " + threads + " thread(s)" + (streaming ? ", streaming." : "."));
+        final ExecutorService executor = threads == 1 ? null : Util.daemonPool("jADT", threads);
+        final SourceFactory sourceFactory = new FileSourceFactory(includes, excludes, null);
         final ClassBodyEmitter classBodyEmitter = new StandardClassBodyEmitter();
         final ConstructorEmitter constructorEmitter = new StandardConstructorEmitter(classBodyEmitter);
         final DataTypeEmitter dataTypeEmitter = new StandardDataTypeEmitter(classBodyEmitter, constructorEmitter);
-        final DocEmitter docEmitter = new StandardDocEmitter(dataTypeEmitter);      
-        final Parser parser = new StandardParser(new JavaCCParserImplFactory());
-        final Checker checker = new StandardChecker();
-        final SinkFactoryFactory factoryFactory = new FileSinkFactoryFactory();
+        final DocEmitter docEmitter = new StandardDocEmitter(dataTypeEmitter, executor);      
+        final Parser uncachedParser = executor == null ? new StandardParser(new JavaCCParserImplFactory()) : new ParallelParser(new JavaCCParserImplFactory(), executor, threads);
+        final Parser parser = parseCache == null ? uncachedParser : new CachingParser(uncachedParser, parseCache);
+        final SinkFactoryFactory factoryFactory = new FileSinkFactoryFactory(new WriteCounts());
+        final ManifestStore manifestStore = new FileManifestStore();
+        final TypeResolver typeResolver = classpath == null ? null : new TypeResolver(new ClasspathIndexer(classCache()), ClasspathIndexer.split(classpath));
         
-        return new JADT(sourceFactory, parser, checker, docEmitter, factoryFactory);
+        return new JADT(sourceFactory, parser, checker, docEmitter, factoryFactory, executor, manifestStore, streaming, typeResolver);
     }
     
+    /**
+     * The system properties that configure standard drivers, the ones that are set anyway, so that they can be handed to
+     * standardConfigDriver(int, Properties) somewhere else such as a JADTDaemon
+     */
+    public static Properties configuredSettings() {
+        final Properties settings = new Properties();
+        for (String property : SETTINGS) {
+            final String value = System.getProperty(property);
+            if (value != null) {
+                settings.setProperty(property, value);
+            }
+        }
+        return settings;
+    }
+    
+    /**
+     * Whether the STREAMING_PROPERTY system property asks for streaming
+     */
+    public static boolean configuredStreaming() {
+        return Boolean.getBoolean(STREAMING_PROPERTY);
+    }
+    
+    /**
+     * The ParseCache in the directory named by the PARSE_CACHE_PROPERTY system property, or null if it isn't set
+     */
+    public static ParseCache configuredParseCache() {
+        final String parseCache = System.getProperty(PARSE_CACHE_PROPERTY);
+        return parseCache == null ? null : new FileParseCache(new File(parseCache));
+    }
+    
+    /**
+     * The patterns in a system property, or just the given default if it isn't set
+     * 
+     * @param property name of the system property
+     * @param defaultPattern pattern used if the property isn't set, or null for none
+     */
+    static List<String> configuredPatterns(String property, String defaultPattern) {
+        return configuredPatterns(System.getProperties(), property, defaultPattern);
+    }
+    
+    private static List<String> configuredPatterns(Properties settings, String property, String defaultPattern) {
+        final String patterns = settings.getProperty(property);
+        if (patterns != null) {
+            return patterns(patterns);
+        }
+        return defaultPattern == null ? Collections.<String>emptyList() : Util.list(defaultPattern);
+    }
+    
+    /**
+     * Split comma separated Glob patterns, ignoring blanks around them
+     */
+    public static List<String> patterns(String patterns) {
+        final List<String> result = new ArrayList<String>();
+        for (String pattern : patterns.split(",")) {
+            if (pattern.trim().length() > 0) {
+                result.add(pattern.trim());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Where the standard configuration caches the class names in classpath jars
+     */
+    static File classCache() {
+        final String classCache = System.getProperty(CLASS_CACHE_PROPERTY);
+        return classCache != null ? new File(classCache) : new File(new File(System.getProperty("user.home"), ".jadt"), "classes");
+    }
+
+    
     /**
      * Constructs a driver with the given components.
      * 
@@ -110,27 +365,89 @@ public class JADT {
      * @param emitter Emitter to spit out java files
      */
     public JADT(SourceFactory sourceFactory, Parser parser, Checker checker, DocEmitter emitter, SinkFactoryFactory factoryFactory) {
+        this(sourceFactory, parser, checker, emitter, factoryFactory, null);
+    }
+    
+    /**
+     * Constructs a driver with the given components that parses and checks sources concurrently on the given executor.
+     * Sources are still emitted in order and errors are reported for the first bad source in order, so the
+     * results are the same as for a sequential driver.
+     * 
+     * @param executor ExecutorService used to parse and check sources, or null to do everything on the calling thread
+     */
+    public JADT(SourceFactory sourceFactory, Parser parser, Checker checker, DocEmitter emitter, SinkFactoryFactory factoryFactory, ExecutorService executor) {
+        this(sourceFactory, parser, checker, emitter, factoryFactory, executor, null);
+    }
+    
+    /**
+     * Constructs a driver with the given components that uses a manifest in the output directory to skip sources that
+     * haven't changed since the last run and to delete generated classes that are no longer produced by any source.
+     * 
+     * @param executor ExecutorService used to parse and check sources, or null to do everything on the calling thread
+     * @param manifestStore ManifestStore used to load and save the manifest, or null to always generate everything
+     */
+    public JADT(SourceFactory sourceFactory, Parser parser, Checker checker, DocEmitter emitter, SinkFactoryFactory factoryFactory, ExecutorService executor, ManifestStore manifestStore) {
+        this(sourceFactory, parser, checker, emitter, factoryFactory, executor, manifestStore, false);
+    }
+    
+    /**
+     * Constructs a driver that can stream documents.  When streaming, the parser hands each DataType to the checker and emitter 
+     * as soon as it has been parsed and then forgets it, so memory use doesn't grow with the size of a document.  Only the 
+     * names needed to find duplicates are kept.
+     * 
+     * Errors are still reported for the whole document, but once a document has an error none of its remaining 
+     * DataTypes are emitted.  DataTypes emitted before the first error stay emitted.  With an executor, each source 
+     * streams on its own worker thread.  A data type defined by more than one source can only be found once every source 
+     * has been streamed, so it is reported after it has been emitted.
+     * 
+     * @param executor ExecutorService used to parse and check sources, or null to do everything on the calling thread
+     * @param manifestStore ManifestStore used to load and save the manifest, or null to always generate everything
+     * @param streaming true to check and emit each DataType as soon as it's parsed
+     */
+    public JADT(SourceFactory sourceFactory, Parser parser, Checker checker, DocEmitter emitter, SinkFactoryFactory factoryFactory, ExecutorService executor, ManifestStore manifestStore, boolean streaming) {
+        this(sourceFactory, parser, checker, emitter, factoryFactory, executor, manifestStore, streaming, null);
+    }
+    
+    /**
+     * Constructs a driver that also resolves the class types that data types refer to, reporting the ones that aren't 
+     * on the classpath or generated from any of the sources as semantic errors before anything is emitted.  When 
+     * streaming they're reported after the data types have been emitted.
+     * 
+     * @param typeResolver TypeResolver used to resolve class types, or null to leave them to javac
+     */
+    public JADT(SourceFactory sourceFactory, Parser parser, Checker checker, DocEmitter emitter, SinkFactoryFactory factoryFactory, ExecutorService executor, ManifestStore manifestStore, boolean streaming, TypeResolver typeResolver) {
         super();
         this.sourceFactory = sourceFactory;
         this.parser = parser;
         this.emitter = emitter;
         this.checker = checker;
         this.factoryFactory = factoryFactory;
+        this.executor = executor;
+        this.manifestStore = manifestStore;
+        this.streaming = streaming;
+        this.typeResolver = typeResolver;
     }
     
     /**
-     * Do the jADT thing based on an array of String args.  There must be 2 and the must be the source file and destination directory
+     * Do the jADT thing based on an array of String args.  There must be 2 and the must be the source file and destination directory,
+     * optionally preceded by --watch to keep regenerating as the sources change
      * 
      * @param args
      */
     public void parseAndEmit(String[] args) {
     	logger.finest("Checking command line arguments.");
-        if (args.length != 2) {
+        final boolean watch = args.length == 3 && WATCH_ARG.equals(args[0]);
+        if (args.length != 2 && !watch) {
         	final String version = new Version().getVersion();
         	logger.info("jADT version " + version + ".");
         	logger.info("Not enough arguments provided to jADT");
-        	logger.info("usage: java sfdc.adt.JADT [source file or directory with .jadt files] [output directory]");
-            throw new IllegalArgumentException("\njADT version " + version + "\nusage: java sfdc.adt.JADT [source file or directory with .jadt files] [output directory]");
+        	logger.info("usage: java sfdc.adt.JADT [--watch] [source file or directory with .jadt files] [output directory]");
+            throw new IllegalArgumentException("\njADT version " + version + "\nusage: java sfdc.adt.JADT [--watch] [source file or directory with .jadt files] [output directory]");
+        }
+        
+        if (watch) {
+            new SourceWatcher(this, args[1], args[2]).watch();
+            return;
         }
         
         final String srcPath = args[0];
@@ -140,33 +457,455 @@ public class JADT {
     }
 
     /**
-     * Do the jADT thing given the srceFileName and destination directory
+     * Do the jADT thing given the srceFileName and destination directory.  Every source is parsed and checked, including 
+     * for data types that more than one source defines, before anything is emitted.
      * 
      * @param srcPath full name of the source directory or file
      * @param destDir full name of the destination directory (trailing slash is optional)
      */
     public void parseAndEmit(String srcPath, final String destDir) {    	
+        parseAndEmit(Util.list(srcPath), destDir);
+    }
+    
+    /**
+     * Do the jADT thing given several source directories or files and a destination directory.  The sources from all
+     * of them are generated together, as if they were in one source directory.  A source that is named more than once is 
+     * only generated once.  Several runs with different source directories or files can share a destination directory: a 
+     * run only deletes the output of sources that used to be under its own source paths.
+     * 
+     * @param srcPaths full names of the source directories or files
+     * @param destDir full name of the destination directory (trailing slash is optional)
+     */
+    public void parseAndEmit(List<String> srcPaths, final String destDir) {
     	final String version = new Version().getVersion();
     	logger.info("jADT version " + version + ".");
-    	logger.info("Will read from source " + srcPath);
+    	logger.info("Will read from source " + (srcPaths.size() == 1 ? srcPaths.get(0) : srcPaths.toString()));
     	logger.info("Will write to destDir " + destDir);
    	
-        final List<? extends Source> sources = sourceFactory.createSources(srcPath);
-        for (Source source : sources) {
-            final List<UserError> errors = new ArrayList<UserError>();
-                 
-            final ParseResult result = parser.parse(source);
-            for (SyntaxError error : result.errors) {
-                errors.add(UserError._Syntactic(error));
-            }               
-            final List<SemanticError> semanticErrors = checker.check(result.doc);
-            for (SemanticError error : semanticErrors) {
+        // rounded down to a whole second because some file systems only keep modification times that precisely
+        final long now = System.currentTimeMillis();
+        final long started = now - now % 1000;
+        final Iterable<? extends Source> sources = createSources(srcPaths);
+        final Manifest manifest = manifestStore == null ? null : manifestStore.load(destDir);
+        final long since = manifest == null ? 0 : manifest.getStarted();
+        // only used to see whether previously generated classes are still there
+        final SinkFactory existing = manifest == null ? null : factoryFactory.createSinkFactory(destDir);
+        final Set<String> previousClassNames = manifest == null ? new HashSet<String>() : manifest.classNames();
+        final Set<String> srcInfos = new HashSet<String>();
+        // filled in as sources are checked, so that data types defined by more than one source can be found
+        final SymbolIndex index = new SymbolIndex();
+        final List<CheckedSource> checkedSources = new ArrayList<CheckedSource>();
+        if (typeResolver != null) {
+            typeResolver.refresh();
+        }
+        final WriteCounts counts = writeCounts();
+        if (counts != null) {
+            // anything left over from an earlier run that failed
+            counts.reset();
+        }
+        
+        if (executor == null) {
+            for (Source source : sources) {
+                srcInfos.add(source.getSrcInfo());
+                checkedSources.add(check(source, version, previous(manifest, source), since, existing, streamingSinkFactory(destDir), index));
+            }
+        } else {
+            logger.fine("Parsing and checking sources concurrently.");
+            final List<Future<CheckedSource>> futures = new ArrayList<Future<CheckedSource>>();
+            try {
+                // sources may be discovered lazily so tasks start as soon as each source is found
+                for (final Source source : sources) {
+                    srcInfos.add(source.getSrcInfo());
+                    final Manifest.Entry previous = previous(manifest, source);
+                    // each source gets its own SinkFactory so factories are never shared between threads
+                    final RecordingSinkFactory sinkFactory = streamingSinkFactory(destDir);
+                    futures.add(Util.submit(executor, new ExceptionAction<CheckedSource>() {
+                        @Override
+                        public CheckedSource doAction() throws Throwable {
+                            return check(source, version, previous, since, existing, sinkFactory, index);
+                        }
+                    }));
+                }
+                // results are consumed in source order so that output and errors don't depend on scheduling
+                for (Future<CheckedSource> future : futures) {
+                    checkedSources.add(Util.get(future));
+                }
+            } finally {
+                for (Future<CheckedSource> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+        
+        // nothing is emitted until all sources have been checked against each other
+        final List<UserError> errors = new ArrayList<UserError>();
+        for (CheckedSource checked : checkedSources) {
+            for (SemanticError error : index.check(checked.srcInfo)) {
                 errors.add(UserError._Semantic(error));
-            }            
-            if (!errors.isEmpty()) {
-                throw new JADTUserErrorsException(errors);
             }
-            emitter.emit(factoryFactory.createSinkFactory(destDir), result.doc);
+            for (SemanticError error : TypeResolver.check(checked.unresolved, index)) {
+                errors.add(UserError._Semantic(error));
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new JADTUserErrorsException(errors);
+        }
+        for (CheckedSource checked : checkedSources) {
+            emit(destDir, version, manifest, checked);
+        }
+        
+        if (manifest != null) {
+            // other source roots may share the destination directory, so only their own sources can have been removed
+            for (String srcInfo : new ArrayList<String>(manifest.srcInfos())) {
+                if (!srcInfos.contains(srcInfo) && under(srcInfo, srcPaths)) {
+                    logger.info("Source " + srcInfo + " has been removed.");
+                    manifest.remove(srcInfo);
+                }
+            }
+            previousClassNames.removeAll(manifest.classNames());
+            for (String className : previousClassNames) {
+                logger.info("Deleting " + className + " which is no longer generated by any source.");
+                existing.delete(className);
+            }
+            manifest.setStarted(started);
+            manifestStore.save(destDir, manifest);
+        }
+        if (counts != null) {
+            logger.info(counts.reset() + " in " + destDir + ".");
+        }
+    }
+    
+    /**
+     * The counts of files written and left unchanged by the sinks, or null if the sinks don't count them
+     */
+    private WriteCounts writeCounts() {
+        return factoryFactory instanceof FileSinkFactoryFactory ? ((FileSinkFactoryFactory)factoryFactory).getWriteCounts() : null;
+    }
+    
+    /**
+     * True if running with the same source and destination would have nothing to do: there is a manifest, the sources are 
+     * exactly the ones it records under the source path, none of them has been modified since the run that saved it started, this version of 
+     * jADT generated them, and all of their output still exists.  Only modification times are compared, so this is much 
+     * cheaper than a run, which reads and hashes every source.  Without a ManifestStore nothing is ever up to date.
+     * 
+     * @param srcPath full name of the source directory or file
+     * @param destDir full name of the destination directory
+     */
+    public boolean isUpToDate(String srcPath, String destDir) {
+        return isUpToDate(Util.list(srcPath), destDir);
+    }
+    
+    /**
+     * True if running with the same sources and destination would have nothing to do, see isUpToDate(String, String)
+     * 
+     * @param srcPaths full names of the source directories or files
+     * @param destDir full name of the destination directory
+     */
+    public boolean isUpToDate(List<String> srcPaths, String destDir) {
+        if (manifestStore == null) {
+            return false;
+        }
+        final Manifest manifest = manifestStore.load(destDir);
+        final long started = manifest.getStarted();
+        if (started == 0) {
+            logger.fine("No usable manifest in " + destDir);
+            return false;
+        }
+        final String version = new Version().getVersion();
+        final SinkFactory existing = factoryFactory.createSinkFactory(destDir);
+        int count = 0;
+        for (Source source : createSources(srcPaths)) {
+            final Manifest.Entry entry = manifest.get(source.getSrcInfo());
+            if (!unmodified(source, entry, started) || !entry.version.equals(version) || !allExist(existing, entry.classNames)) {
+                logger.fine("Source " + source.getSrcInfo() + " is out of date.");
+                return false;
+            }
+            count++;
+        }
+        int recorded = 0;
+        for (String srcInfo : manifest.srcInfos()) {
+            if (under(srcInfo, srcPaths)) {
+                recorded++;
+            }
+        }
+        if (count != recorded) {
+            logger.fine("Sources have been removed since the last run.");
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * True if a source recorded in the manifest is one of the source paths or is in one of their directories, meaning a 
+     * run over those source paths would have found it if it still existed
+     */
+    private static boolean under(String srcInfo, List<String> srcPaths) {
+        for (String srcPath : srcPaths) {
+            final String root = new File(srcPath).getAbsolutePath();
+            if (srcInfo.equals(srcPath) || srcInfo.equals(root) || srcInfo.startsWith(root.endsWith(File.separator) ? root : root + File.separator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * The sources found in all of the source paths, each one only once, found lazily as the result is iterated
+     */
+    private Iterable<Source> createSources(final List<String> srcPaths) {
+        return new Iterable<Source>() {
+            @Override
+            public Iterator<Source> iterator() {
+                return new Iterator<Source>() {
+                    private final Iterator<String> paths = srcPaths.iterator();
+                    private final Set<String> srcInfos = new HashSet<String>();
+                    private Iterator<? extends Source> current = Collections.<Source>emptyList().iterator();
+                    private Source next = null;
+
+                    @Override
+                    public boolean hasNext() {
+                        while (next == null) {
+                            if (current.hasNext()) {
+                                final Source source = current.next();
+                                if (srcInfos.add(source.getSrcInfo())) {
+                                    next = source;
+                                }
+                            } else if (paths.hasNext()) {
+                                current = sourceFactory.createSources(paths.next()).iterator();
+                            } else {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+
+                    @Override
+                    public Source next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        final Source source = next;
+                        next = null;
+                        return source;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+    
+    /**
+     * The manifest entry from a previous run for the given source, or null if there isn't one
+     */
+    private static Manifest.Entry previous(Manifest manifest, Source source) {
+        return manifest == null ? null : manifest.get(source.getSrcInfo());
+    }
+    
+    /**
+     * The SinkFactory a source streams into, or null if not streaming
+     */
+    private RecordingSinkFactory streamingSinkFactory(String destDir) {
+        return streaming ? new RecordingSinkFactory(factoryFactory.createSinkFactory(destDir)) : null;
+    }
+    
+    /**
+     * Parse and check a single source unless the previous manifest entry shows it is unchanged and its output still exists
+     * 
+     * @param source Source to be checked
+     * @param version current version of jADT
+     * @param previous the manifest entry from the previous run, or null if there isn't one
+     * @param since when the previous run started, 0 if not known.  A source that hasn't been modified since then isn't 
+     * read to see whether it changed
+     * @param existing SinkFactory used to see if previous output still exists, may be null if previous is null
+     * @param sinkFactory RecordingSinkFactory to stream into, null if not streaming
+     * @param index SymbolIndex that gets the data types of the source
+     * @return CheckedSource with a null doc and class names if the source can be skipped
+     */
+    private CheckedSource check(Source source, String version, Manifest.Entry previous, long since, SinkFactory existing, RecordingSinkFactory sinkFactory, SymbolIndex index) {
+        Source content = source;
+        final String hash;
+        if (unmodified(source, previous, since)) {
+            hash = previous.hash;
+        } else if (manifestStore == null) {
+            hash = null;
+        } else {
+            // read once, the same content is hashed and then parsed
+            final CharBufferSource buffered = Sources.buffered(source);
+            hash = Manifest.hash(buffered.getCharBuffer());
+            content = buffered;
+        }
+        final List<Unresolved> unresolved = new ArrayList<Unresolved>();
+        if (previous != null && previous.matches(hash, version) && allExist(existing, previous.classNames)) {
+            // every data type generates exactly one class, so the manifest knows what the source defines
+            index.update(source.getSrcInfo(), previous.classNames);
+            return new CheckedSource(source.getSrcInfo(), hash, null, null, unresolved);
+        }
+        if (sinkFactory != null) {
+            parseCheckAndStream(content, sinkFactory, index, unresolved);
+            return new CheckedSource(source.getSrcInfo(), hash, null, sinkFactory.getClassNames(), unresolved);
+        }
+        return new CheckedSource(source.getSrcInfo(), hash, parseAndCheck(content, index, unresolved), null, unresolved);
+    }
+    
+    /**
+     * True if the source has a manifest entry and hasn't been modified since the run that made the entry started
+     */
+    private static boolean unmodified(Source source, Manifest.Entry previous, long since) {
+        final long modified = source.lastModified();
+        // a source modified in the second the run started might have been modified after it was read
+        return previous != null && since != 0 && modified != 0 && modified < since;
+    }
+    
+    /**
+     * True if the factory already has output for all of the class names
+     */
+    private static boolean allExist(SinkFactory factory, List<String> classNames) {
+        for (String className : classNames) {
+            if (!factory.exists(className)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Emit a checked source, recording what was generated in the manifest if there is one
+     */
+    private void emit(String destDir, String version, Manifest manifest, CheckedSource checked) {
+        if (checked.classNames != null) {
+            // already streamed out while parsing
+            if (manifest != null) {
+                manifest.put(checked.srcInfo, new Manifest.Entry(checked.hash, version, checked.classNames));
+            }
+            return;
+        }
+        if (checked.doc == null) {
+            logger.info("Skipping unchanged source " + checked.srcInfo);
+            return;
+        }
+        final SinkFactory sinkFactory = factoryFactory.createSinkFactory(destDir);
+        if (manifest == null) {
+            emitter.emit(sinkFactory, checked.doc);
+        } else {
+            final RecordingSinkFactory recorder = new RecordingSinkFactory(sinkFactory);
+            emitter.emit(recorder, checked.doc);
+            manifest.put(checked.srcInfo, new Manifest.Entry(checked.hash, version, recorder.getClassNames()));
+        }
+    }
+    
+    /**
+     * The result of checking a single source
+     */
+    private static final class CheckedSource {
+        final String srcInfo;
+        /**
+         * hash of the source content, null if there is no manifest
+         */
+        final String hash;
+        /**
+         * the parsed and checked Doc, null if the source is unchanged and can be skipped
+         */
+        final Doc doc;
+        /**
+         * the classes generated while streaming the source, null if the source wasn't streamed
+         */
+        final List<String> classNames;
+        /**
+         * class types that aren't on the classpath, to be looked for among the data types of all the sources
+         */
+        final List<Unresolved> unresolved;
+        
+        CheckedSource(String srcInfo, String hash, Doc doc, List<String> classNames, List<Unresolved> unresolved) {
+            super();
+            this.srcInfo = srcInfo;
+            this.hash = hash;
+            this.doc = doc;
+            this.classNames = classNames;
+            this.unresolved = unresolved;
+        }
+    }
+
+    /**
+     * Parse and check a single source
+     * 
+     * @param source Source to be parsed
+     * @param index SymbolIndex that gets the data types of the source
+     * @param unresolved gets the class types that aren't on the classpath
+     * @return the parsed Doc
+     * @throws JADTUserErrorsException if there were any syntax or semantic errors
+     */
+    private Doc parseAndCheck(Source source, SymbolIndex index, List<Unresolved> unresolved) {
+        final List<UserError> errors = new ArrayList<UserError>();
+        
+        final ParseResult result = parser.parse(source);
+        index.update(source.getSrcInfo(), result.doc);
+        for (SyntaxError error : result.errors) {
+            errors.add(UserError._Syntactic(error));
+        }               
+        final List<SemanticError> semanticErrors = checker.check(result.doc);
+        if (typeResolver != null) {
+            for (DataType dataType : result.doc.dataTypes) {
+                unresolved.addAll(typeResolver.resolve(result.doc, dataType));
+            }
+        }
+        for (SemanticError error : semanticErrors) {
+            errors.add(UserError._Semantic(error));
+        }            
+        if (!errors.isEmpty()) {
+            throw new JADTUserErrorsException(errors);
+        }
+        return result.doc;
+    }
+
+    /**
+     * Parse a single source, checking and emitting each DataType as soon as it's parsed.  Emitting stops at the first
+     * syntax or semantic error but parsing and checking go on so that all the errors are reported.
+     * 
+     * @param source Source to be parsed
+     * @param sinkFactory SinkFactory to emit to
+     * @param index SymbolIndex that gets the data types of the source
+     * @param unresolved gets the class types that aren't on the classpath
+     * @throws JADTUserErrorsException if there were any syntax or semantic errors
+     */
+    private void parseCheckAndStream(final Source source, final SinkFactory sinkFactory, final SymbolIndex index, final List<Unresolved> unresolved) {
+        final List<SemanticError> semanticErrors = new ArrayList<SemanticError>();
+        final Set<String> dataTypeNames = new HashSet<String>();
+        
+        final ParseResult result = parser.parse(source, new DocHandler() {
+            private Doc doc;
+            
+            @Override
+            public void start(Doc doc) {
+                this.doc = doc;
+                index.remove(source.getSrcInfo());
+            }
+
+            @Override
+            public void dataType(DataType dataType, List<SyntaxError> syntaxErrors) {
+                index.add(source.getSrcInfo(), SymbolIndex.qualifiedName(doc.pkg.name, dataType.name));
+                semanticErrors.addAll(checker.check(dataType, dataTypeNames));
+                if (typeResolver != null) {
+                    unresolved.addAll(typeResolver.resolve(doc, dataType));
+                }
+                if (syntaxErrors.isEmpty() && semanticErrors.isEmpty()) {
+                    emitter.emit(sinkFactory, doc, dataType);
+                }
+            }
+        });
+        
+        final List<UserError> errors = new ArrayList<UserError>();
+        for (SyntaxError error : result.errors) {
+            errors.add(UserError._Syntactic(error));
+        }               
+        for (SemanticError error : semanticErrors) {
+            errors.add(UserError._Semantic(error));
+        }            
+        if (!errors.isEmpty()) {
+            throw new JADTUserErrorsException(errors);
         }
     }
 
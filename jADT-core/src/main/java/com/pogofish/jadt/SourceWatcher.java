@@ -0,0 +1,163 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.source.Source;
+
+/**
+ * Keeps the output of a driver up to date with its sources by regenerating whenever a source is added, changed, or removed.
+ * 
+ * The sources are polled rather than watched with native file system notifications, which keeps this working everywhere
+ * jADT does.  A source counts as changed when its length or last modified time changes.  Bursts of changes, like an editor
+ * saving several files, are gathered up by waiting until the sources have been quiet for a moment before regenerating.
+ * 
+ * Each regeneration runs the whole driver, so it is only cheap when the driver has a manifest to skip the sources that 
+ * haven't changed, as the standard configuration does.  Errors are logged and the watcher carries on waiting for the next 
+ * change.
+ */
+public class SourceWatcher {
+    private static final Logger logger = Logger.getLogger(SourceWatcher.class.toString());
+
+    /**
+     * Default time between polls
+     */
+    public static final long DEFAULT_POLL_MILLIS = 100;
+    /**
+     * Default time sources must stay unchanged before regenerating
+     */
+    public static final long DEFAULT_QUIET_MILLIS = 100;
+    
+    private final JADT jadt;
+    private final String srcPath;
+    private final String destDir;
+    private final long pollMillis;
+    private final long quietMillis;
+    
+    /**
+     * The state of the sources as of the last regeneration
+     */
+    private Map<String, String> last = null;
+    private volatile boolean stopped = false;
+
+    /**
+     * Watch with the default poll and quiet times
+     * 
+     * @param jadt driver that does the regenerating
+     * @param srcPath full name of the source directory or file
+     * @param destDir full name of the destination directory
+     */
+    public SourceWatcher(JADT jadt, String srcPath, String destDir) {
+        this(jadt, srcPath, destDir, DEFAULT_POLL_MILLIS, DEFAULT_QUIET_MILLIS);
+    }
+    
+    /**
+     * @param jadt driver that does the regenerating
+     * @param srcPath full name of the source directory or file
+     * @param destDir full name of the destination directory
+     * @param pollMillis time between polls
+     * @param quietMillis time sources must stay unchanged before regenerating
+     */
+    public SourceWatcher(JADT jadt, String srcPath, String destDir, long pollMillis, long quietMillis) {
+        super();
+        this.jadt = jadt;
+        this.srcPath = srcPath;
+        this.destDir = destDir;
+        this.pollMillis = pollMillis;
+        this.quietMillis = quietMillis;
+    }
+
+    /**
+     * Generate everything and then regenerate on every change until stopped or interrupted
+     */
+    public void watch() {
+        logger.info("Watching " + srcPath + " for changes.");
+        generate(snapshot());
+        try {
+            while (!stopped) {
+                Thread.sleep(pollMillis);
+                poll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Stopped watching " + srcPath + ".");
+    }
+
+    /**
+     * Make watch() return after its current poll
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Check the sources once and, if anything changed, wait for them to settle and regenerate
+     * 
+     * @return true if the sources changed and were regenerated
+     */
+    boolean poll() throws InterruptedException {
+        Map<String, String> current = snapshot();
+        if (last != null && current.equals(last)) {
+            return false;
+        }
+        Map<String, String> previous;
+        do {
+            Thread.sleep(quietMillis);
+            previous = current;
+            current = snapshot();
+        } while (!current.equals(previous) && !stopped);
+        generate(current);
+        return true;
+    }
+    
+    /**
+     * Regenerate, remembering the state of the sources even if it fails so the same failure isn't reported over and over
+     */
+    private void generate(Map<String, String> snapshot) {
+        last = snapshot;
+        final long start = System.currentTimeMillis();
+        try {
+            jadt.parseAndEmit(srcPath, destDir);
+            logger.info("Regenerated in " + (System.currentTimeMillis() - start) + " ms.");
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Could not regenerate from " + srcPath + ", waiting for the next change.\n" + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * The length and last modified time of every source, keyed by srcInfo.  File sources use the file's full name as
+     * their srcInfo, other sources are assumed to always be the same.
+     */
+    private Map<String, String> snapshot() {
+        final Map<String, String> snapshot = new HashMap<String, String>();
+        try {
+            for (Source source : jadt.sourceFactory.createSources(srcPath)) {
+                final File file = new File(source.getSrcInfo());
+                snapshot.put(source.getSrcInfo(), file.length() + "@" + file.lastModified());
+            }
+        } catch (RuntimeException e) {
+            // e.g. the source directory was removed, whatever it was will show up as a change 
+            logger.log(Level.FINE, "Could not list sources in " + srcPath + ".", e);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.ast;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.pogofish.jadt.ast.RefType.ArrayType;
+import com.pogofish.jadt.ast.RefType.ClassType;
+import com.pogofish.jadt.ast.Type.Primitive;
+import com.pogofish.jadt.ast.Type.Ref;
+
+/**
+ * Hash conses bits of AST that show up over and over in a document, like common types, empty lists of modifiers, and 
+ * identifiers, so that every occurrence shares one instance, and a big document parses into a much smaller heap.  The
+ * lists inside interned things, a ClassType's type arguments or a list of modifiers, are copied into unmodifiable lists 
+ * first, so nothing that's shared or used as a key here can be changed afterwards.
+ * 
+ * An Interner is safe to use from several threads at once, so one can be shared by all the parsers in a build.  It 
+ * holds on to everything it has ever seen, so it should live no longer than the documents it interns.
+ */
+public final class Interner {
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<String, String>();
+    private final ConcurrentMap<Type, Type> types = new ConcurrentHashMap<Type, Type>();
+    private final ConcurrentMap<RefType, RefType> refTypes = new ConcurrentHashMap<RefType, RefType>();
+    private final ConcurrentMap<List<ArgModifier>, List<ArgModifier>> argModifiers = new ConcurrentHashMap<List<ArgModifier>, List<ArgModifier>>();
+    
+    /**
+     * The shared String equal to string
+     */
+    public String intern(String string) {
+        return intern(strings, string);
+    }
+    
+    /**
+     * The shared Type equal to type
+     */
+    public Type intern(Type type) {
+        final Type existing = types.get(type);
+        if (existing != null) {
+            return existing;
+        }
+        return intern(types, type.match(new Type.MatchBlock<Type>() {
+            @Override
+            public Type _case(Ref x) {
+                final RefType refType = intern(x.type);
+                return refType == x.type ? x : Type._Ref(refType);
+            }
+
+            @Override
+            public Type _case(Primitive x) {
+                return x;
+            }
+        }));
+    }
+    
+    /**
+     * The shared RefType equal to refType, with its type arguments, if it has any, in an unmodifiable list
+     */
+    public RefType intern(RefType refType) {
+        final RefType existing = refTypes.get(refType);
+        if (existing != null) {
+            return existing;
+        }
+        return intern(refTypes, refType.match(new RefType.MatchBlock<RefType>() {
+            @Override
+            public RefType _case(ClassType x) {
+                final List<RefType> typeArguments = new ArrayList<RefType>(x.typeArguments.size());
+                for (RefType typeArgument : x.typeArguments) {
+                    typeArguments.add(intern(typeArgument));
+                }
+                return RefType._ClassType(x.baseName, typeArguments.isEmpty() ? Collections.<RefType>emptyList() : Collections.unmodifiableList(typeArguments));
+            }
+
+            @Override
+            public RefType _case(ArrayType x) {
+                final Type heldType = intern(x.heldType);
+                return heldType == x.heldType ? x : RefType._ArrayType(heldType);
+            }
+        }));
+    }
+    
+    /**
+     * The shared, unmodifiable list equal to modifiers
+     */
+    public List<ArgModifier> intern(List<ArgModifier> modifiers) {
+        final List<ArgModifier> existing = argModifiers.get(modifiers);
+        if (existing != null) {
+            return existing;
+        }
+        final List<ArgModifier> copy = modifiers.isEmpty() ? Collections.<ArgModifier>emptyList() : Collections.unmodifiableList(new ArrayList<ArgModifier>(modifiers));
+        return intern(argModifiers, copy);
+    }
+    
+    /**
+     * How many distinct things have been interned
+     */
+    public int size() {
+        return strings.size() + types.size() + refTypes.size() + argModifiers.size();
+    }
+    
+    private static <T> T intern(ConcurrentMap<T, T> map, T value) {
+        final T existing = map.putIfAbsent(value, value);
+        return existing == null ? value : existing;
+    }
+}
@@ -0,0 +1,882 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.pogofish.jadt.ast.Annotation;
+import com.pogofish.jadt.ast.AnnotationElement;
+import com.pogofish.jadt.ast.AnnotationElement.ElementValue;
+import com.pogofish.jadt.ast.AnnotationElement.ElementValuePairs;
+import com.pogofish.jadt.ast.AnnotationKeyValue;
+import com.pogofish.jadt.ast.AnnotationValue;
+import com.pogofish.jadt.ast.AnnotationValue.AnnotationValueAnnotation;
+import com.pogofish.jadt.ast.AnnotationValue.AnnotationValueArray;
+import com.pogofish.jadt.ast.AnnotationValue.AnnotationValueExpression;
+import com.pogofish.jadt.ast.Arg;
+import com.pogofish.jadt.ast.ArgModifier;
+import com.pogofish.jadt.ast.BinaryOperator;
+import com.pogofish.jadt.ast.BlockToken;
+import com.pogofish.jadt.ast.BlockToken.BlockEOL;
+import com.pogofish.jadt.ast.BlockToken.BlockWhiteSpace;
+import com.pogofish.jadt.ast.BlockToken.BlockWord;
+import com.pogofish.jadt.ast.Constructor;
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.Expression;
+import com.pogofish.jadt.ast.Expression.BinaryExpression;
+import com.pogofish.jadt.ast.Expression.ClassReference;
+import com.pogofish.jadt.ast.Expression.LiteralExpression;
+import com.pogofish.jadt.ast.Expression.NestedExpression;
+import com.pogofish.jadt.ast.Expression.TernaryExpression;
+import com.pogofish.jadt.ast.Expression.VariableExpression;
+import com.pogofish.jadt.ast.Imprt;
+import com.pogofish.jadt.ast.JDTagSection;
+import com.pogofish.jadt.ast.JDToken;
+import com.pogofish.jadt.ast.JDToken.JDAsterisk;
+import com.pogofish.jadt.ast.JDToken.JDEOL;
+import com.pogofish.jadt.ast.JDToken.JDTag;
+import com.pogofish.jadt.ast.JDToken.JDWhiteSpace;
+import com.pogofish.jadt.ast.JDToken.JDWord;
+import com.pogofish.jadt.ast.JavaComment;
+import com.pogofish.jadt.ast.JavaComment.JavaBlockComment;
+import com.pogofish.jadt.ast.JavaComment.JavaDocComment;
+import com.pogofish.jadt.ast.JavaComment.JavaEOLComment;
+import com.pogofish.jadt.ast.Literal;
+import com.pogofish.jadt.ast.Literal.BooleanLiteral;
+import com.pogofish.jadt.ast.Literal.CharLiteral;
+import com.pogofish.jadt.ast.Literal.FloatingPointLiteral;
+import com.pogofish.jadt.ast.Literal.IntegerLiteral;
+import com.pogofish.jadt.ast.Literal.NullLiteral;
+import com.pogofish.jadt.ast.Literal.StringLiteral;
+import com.pogofish.jadt.ast.Optional;
+import com.pogofish.jadt.ast.Optional.None;
+import com.pogofish.jadt.ast.Optional.Some;
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.ast.Pkg;
+import com.pogofish.jadt.ast.PrimitiveType;
+import com.pogofish.jadt.ast.RefType;
+import com.pogofish.jadt.ast.RefType.ArrayType;
+import com.pogofish.jadt.ast.RefType.ClassType;
+import com.pogofish.jadt.ast.Type;
+import com.pogofish.jadt.ast.Type.Primitive;
+import com.pogofish.jadt.ast.Type.Ref;
+import com.pogofish.jadt.errors.SyntaxError;
+
+/**
+ * Compact binary form of a ParseResult.  Each distinct string is written once and referred to by number after that,
+ * numbers are variable length, and each case of a sum type is a one byte tag.  The srcInfo isn't written, so the same 
+ * encoding can be decoded for any source with the same content.
+ * 
+ * The encoding starts with a magic number and FORMAT, which changes whenever the encoding or the AST does.
+ */
+public final class ASTCodec {
+    private static final int MAGIC = 0x4A414454;
+    
+    /**
+     * Version of the encoding
+     */
+    public static final int FORMAT = 1;
+    
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    private static final PrimitiveType[] PRIMITIVE_TYPES = {PrimitiveType._BooleanType(), PrimitiveType._ByteType(), 
+        PrimitiveType._CharType(), PrimitiveType._DoubleType(), PrimitiveType._FloatType(), PrimitiveType._IntType(), 
+        PrimitiveType._LongType(), PrimitiveType._ShortType()};
+    
+    private static final ArgModifier[] ARG_MODIFIERS = {ArgModifier._Final(), ArgModifier._Volatile(), ArgModifier._Transient()};
+    
+    private static final BinaryOperator[] BINARY_OPERATORS = {BinaryOperator._LogicalOr(), BinaryOperator._LogicalAnd(), 
+        BinaryOperator._BitwiseOr(), BinaryOperator._BitwiseAnd(), BinaryOperator._BitwiseXor(), BinaryOperator._Multiply(), 
+        BinaryOperator._Divide(), BinaryOperator._Add(), BinaryOperator._Subtract(), BinaryOperator._Mod(), 
+        BinaryOperator._DoubleEqual(), BinaryOperator._NotEqual(), BinaryOperator._LessThan(), BinaryOperator._GreaterThan(), 
+        BinaryOperator._LessThanEqual(), BinaryOperator._GreaterThanEqual(), BinaryOperator._RightShift(), 
+        BinaryOperator._LeftShift(), BinaryOperator._ZeroExtendedRightShift()};
+
+    private ASTCodec() {
+        // no instances
+    }
+    
+    /**
+     * Encode a ParseResult
+     */
+    public static byte[] encode(ParseResult result) {
+        final Encoder encoder = new Encoder();
+        encoder.number(MAGIC);
+        encoder.number(FORMAT);
+        encoder.parseResult(result);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Decode a ParseResult that was encoded with encode
+     * 
+     * @param bytes the encoding
+     * @param srcInfo srcInfo to give the decoded Doc
+     * @throws IllegalArgumentException if the bytes aren't an encoding in the current FORMAT
+     */
+    public static ParseResult decode(byte[] bytes, String srcInfo) {
+        final Decoder decoder = new Decoder(bytes);
+        try {
+            if (decoder.number() != MAGIC) {
+                throw new IllegalArgumentException("Not an encoded ParseResult");
+            }
+            final int format = decoder.number();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("Encoded in format " + format + " but the current format is " + FORMAT);
+            }
+            final ParseResult result = decoder.parseResult(srcInfo);
+            if (decoder.pos != bytes.length) {
+                throw new IllegalArgumentException((bytes.length - decoder.pos) + " extra bytes after the encoded ParseResult");
+            }
+            return result;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated or corrupt encoding", e);
+        } catch (NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Corrupt encoding", e);
+        }
+    }
+    
+    private static <A> int indexOf(A[] values, A value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value " + value);
+    }
+    
+    private static final class Encoder {
+        private byte[] bytes = new byte[1024];
+        private int size = 0;
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+        
+        byte[] toByteArray() {
+            final byte[] result = new byte[size];
+            System.arraycopy(bytes, 0, result, 0, size);
+            return result;
+        }
+        
+        void number(int n) {
+            // 7 bits at a time, high bit set on all but the last byte
+            while ((n & ~0x7F) != 0) {
+                write((n & 0x7F) | 0x80);
+                n >>>= 7;
+            }
+            write(n);
+        }
+        
+        void write(int b) {
+            if (size == bytes.length) {
+                final byte[] newBytes = new byte[size * 2];
+                System.arraycopy(bytes, 0, newBytes, 0, size);
+                bytes = newBytes;
+            }
+            bytes[size++] = (byte)b;
+        }
+        
+        void string(String string) {
+            final Integer index = strings.get(string);
+            if (index != null) {
+                number(index + 1);
+            } else {
+                strings.put(string, strings.size());
+                number(0);
+                final byte[] encoded = string.getBytes(UTF8);
+                number(encoded.length);
+                for (byte b : encoded) {
+                    write(b);
+                }
+            }
+        }
+        
+        void strings(List<String> strings) {
+            number(strings.size());
+            for (String string : strings) {
+                string(string);
+            }
+        }
+        
+        void parseResult(ParseResult result) {
+            doc(result.doc);
+            number(result.errors.size());
+            for (SyntaxError error : result.errors) {
+                string(error.expected);
+                string(error.found);
+                number(error.line);
+            }
+        }
+        
+        void doc(Doc doc) {
+            comments(doc.pkg.comments);
+            string(doc.pkg.name);
+            number(doc.imports.size());
+            for (Imprt imprt : doc.imports) {
+                comments(imprt.comments);
+                string(imprt.name);
+            }
+            number(doc.dataTypes.size());
+            for (DataType dataType : doc.dataTypes) {
+                dataType(dataType);
+            }
+        }
+        
+        void dataType(DataType dataType) {
+            comments(dataType.comments);
+            annotations(dataType.annotations);
+            string(dataType.name);
+            strings(dataType.typeArguments);
+            dataType.extendedType._switch(new Optional.SwitchBlock<RefType>() {
+                @Override
+                public void _case(Some<RefType> x) {
+                    write(1);
+                    refType(x.value);
+                }
+
+                @Override
+                public void _case(None<RefType> x) {
+                    write(0);
+                }
+            });
+            refTypes(dataType.implementedTypes);
+            number(dataType.constructors.size());
+            for (Constructor constructor : dataType.constructors) {
+                comments(constructor.comments);
+                string(constructor.name);
+                number(constructor.args.size());
+                for (Arg arg : constructor.args) {
+                    number(arg.modifiers.size());
+                    for (ArgModifier modifier : arg.modifiers) {
+                        write(indexOf(ARG_MODIFIERS, modifier));
+                    }
+                    type(arg.type);
+                    string(arg.name);
+                }
+            }
+        }
+        
+        void type(Type type) {
+            type._switch(new Type.SwitchBlock() {
+                @Override
+                public void _case(Ref x) {
+                    write(0);
+                    refType(x.type);
+                }
+
+                @Override
+                public void _case(Primitive x) {
+                    write(1 + indexOf(PRIMITIVE_TYPES, x.type));
+                }
+            });
+        }
+        
+        void refTypes(List<RefType> refTypes) {
+            number(refTypes.size());
+            for (RefType refType : refTypes) {
+                refType(refType);
+            }
+        }
+        
+        void refType(RefType refType) {
+            refType._switch(new RefType.SwitchBlock() {
+                @Override
+                public void _case(ClassType x) {
+                    write(0);
+                    string(x.baseName);
+                    refTypes(x.typeArguments);
+                }
+
+                @Override
+                public void _case(ArrayType x) {
+                    write(1);
+                    type(x.heldType);
+                }
+            });
+        }
+        
+        void annotations(List<Annotation> annotations) {
+            number(annotations.size());
+            for (Annotation annotation : annotations) {
+                annotation(annotation);
+            }
+        }
+        
+        void annotation(Annotation annotation) {
+            string(annotation.name);
+            annotation.element._switch(new Optional.SwitchBlock<AnnotationElement>() {
+                @Override
+                public void _case(Some<AnnotationElement> x) {
+                    x.value._switch(new AnnotationElement.SwitchBlock() {
+                        @Override
+                        public void _case(ElementValue x) {
+                            write(1);
+                            annotationValue(x.value);
+                        }
+
+                        @Override
+                        public void _case(ElementValuePairs x) {
+                            write(2);
+                            number(x.keyValues.size());
+                            for (AnnotationKeyValue keyValue : x.keyValues) {
+                                string(keyValue.key);
+                                annotationValue(keyValue.value);
+                            }
+                        }
+                    });
+                }
+
+                @Override
+                public void _case(None<AnnotationElement> x) {
+                    write(0);
+                }
+            });
+        }
+        
+        void annotationValue(AnnotationValue value) {
+            value._switch(new AnnotationValue.SwitchBlock() {
+                @Override
+                public void _case(AnnotationValueAnnotation x) {
+                    write(0);
+                    annotation(x.annotation);
+                }
+
+                @Override
+                public void _case(AnnotationValueExpression x) {
+                    write(1);
+                    expression(x.expression);
+                }
+
+                @Override
+                public void _case(AnnotationValueArray x) {
+                    write(2);
+                    number(x.values.size());
+                    for (AnnotationValue value : x.values) {
+                        annotationValue(value);
+                    }
+                }
+            });
+        }
+        
+        void expression(Expression expression) {
+            expression._switch(new Expression.SwitchBlock() {
+                @Override
+                public void _case(TernaryExpression x) {
+                    write(0);
+                    expression(x.cond);
+                    expression(x.trueExpression);
+                    expression(x.falseExpression);
+                }
+
+                @Override
+                public void _case(BinaryExpression x) {
+                    write(1);
+                    expression(x.left);
+                    write(indexOf(BINARY_OPERATORS, x.op));
+                    expression(x.right);
+                }
+
+                @Override
+                public void _case(LiteralExpression x) {
+                    write(2);
+                    literal(x.literal);
+                }
+
+                @Override
+                public void _case(VariableExpression x) {
+                    write(3);
+                    x.selector._switch(new Optional.SwitchBlock<Expression>() {
+                        @Override
+                        public void _case(Some<Expression> x) {
+                            write(1);
+                            expression(x.value);
+                        }
+
+                        @Override
+                        public void _case(None<Expression> x) {
+                            write(0);
+                        }
+                    });
+                    string(x.identifier);
+                }
+
+                @Override
+                public void _case(NestedExpression x) {
+                    write(4);
+                    expression(x.expression);
+                }
+
+                @Override
+                public void _case(ClassReference x) {
+                    write(5);
+                    type(x.type);
+                }
+            });
+        }
+        
+        void literal(Literal literal) {
+            literal._switch(new Literal.SwitchBlock() {
+                @Override
+                public void _case(StringLiteral x) {
+                    write(0);
+                    string(x.content);
+                }
+
+                @Override
+                public void _case(FloatingPointLiteral x) {
+                    write(1);
+                    string(x.content);
+                }
+
+                @Override
+                public void _case(IntegerLiteral x) {
+                    write(2);
+                    string(x.content);
+                }
+
+                @Override
+                public void _case(CharLiteral x) {
+                    write(3);
+                    string(x.content);
+                }
+
+                @Override
+                public void _case(BooleanLiteral x) {
+                    write(4);
+                    string(x.content);
+                }
+
+                @Override
+                public void _case(NullLiteral x) {
+                    write(5);
+                }
+            });
+        }
+        
+        void comments(List<JavaComment> comments) {
+            number(comments.size());
+            for (JavaComment comment : comments) {
+                comment._switch(new JavaComment.SwitchBlock() {
+                    @Override
+                    public void _case(JavaDocComment x) {
+                        write(0);
+                        string(x.start);
+                        jdTokens(x.generalSection);
+                        number(x.tagSections.size());
+                        for (JDTagSection tagSection : x.tagSections) {
+                            string(tagSection.name);
+                            jdTokens(tagSection.tokens);
+                        }
+                        string(x.end);
+                    }
+
+                    @Override
+                    public void _case(JavaBlockComment x) {
+                        write(1);
+                        number(x.lines.size());
+                        for (List<BlockToken> line : x.lines) {
+                            number(line.size());
+                            for (BlockToken token : line) {
+                                blockToken(token);
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void _case(JavaEOLComment x) {
+                        write(2);
+                        string(x.comment);
+                    }
+                });
+            }
+        }
+        
+        void jdTokens(List<JDToken> tokens) {
+            number(tokens.size());
+            for (JDToken token : tokens) {
+                token._switch(new JDToken.SwitchBlock() {
+                    @Override
+                    public void _case(JDAsterisk x) {
+                        write(0);
+                    }
+
+                    @Override
+                    public void _case(JDEOL x) {
+                        write(1);
+                        string(x.content);
+                    }
+
+                    @Override
+                    public void _case(JDTag x) {
+                        write(2);
+                        string(x.name);
+                    }
+
+                    @Override
+                    public void _case(JDWhiteSpace x) {
+                        write(3);
+                        string(x.ws);
+                    }
+
+                    @Override
+                    public void _case(JDWord x) {
+                        write(4);
+                        string(x.word);
+                    }
+                });
+            }
+        }
+        
+        void blockToken(BlockToken token) {
+            token._switch(new BlockToken.SwitchBlock() {
+                @Override
+                public void _case(BlockWhiteSpace x) {
+                    write(0);
+                    string(x.ws);
+                }
+
+                @Override
+                public void _case(BlockEOL x) {
+                    write(1);
+                    string(x.content);
+                }
+
+                @Override
+                public void _case(BlockWord x) {
+                    write(2);
+                    string(x.word);
+                }
+            });
+        }
+    }
+    
+    private static final class Decoder {
+        private final byte[] bytes;
+        int pos = 0;
+        private final List<String> strings = new ArrayList<String>();
+        
+        Decoder(byte[] bytes) {
+            this.bytes = bytes;
+        }
+        
+        int read() {
+            return bytes[pos++] & 0xFF;
+        }
+        
+        int number() {
+            int n = 0;
+            int shift = 0;
+            int b = read();
+            while ((b & 0x80) != 0) {
+                n |= (b & 0x7F) << shift;
+                shift += 7;
+                b = read();
+            }
+            return n | (b << shift);
+        }
+        
+        /**
+         * A size, which can't be more than the number of bytes left
+         */
+        int size() {
+            final int size = number();
+            if (size < 0 || size > bytes.length - pos) {
+                throw new IllegalArgumentException("Corrupt encoding, bad size " + size);
+            }
+            return size;
+        }
+        
+        String string() {
+            final int index = number();
+            if (index != 0) {
+                return strings.get(index - 1);
+            }
+            final int length = size();
+            final String string = new String(bytes, pos, length, UTF8);
+            pos += length;
+            strings.add(string);
+            return string;
+        }
+        
+        List<String> strings() {
+            final int size = size();
+            final List<String> strings = new ArrayList<String>(size);
+            for (int i = 0; i < size; i++) {
+                strings.add(string());
+            }
+            return strings;
+        }
+        
+        ParseResult parseResult(String srcInfo) {
+            final Doc doc = doc(srcInfo);
+            final int size = size();
+            final List<SyntaxError> errors = new ArrayList<SyntaxError>(size);
+            for (int i = 0; i < size; i++) {
+                final String expected = string();
+                final String found = string();
+                errors.add(SyntaxError._UnexpectedToken(expected, found, number()));
+            }
+            return ParseResult._ParseResult(doc, errors);
+        }
+        
+        Doc doc(String srcInfo) {
+            final List<JavaComment> pkgComments = comments();
+            final Pkg pkg = Pkg._Pkg(pkgComments, string());
+            int size = size();
+            final List<Imprt> imports = new ArrayList<Imprt>(size);
+            for (int i = 0; i < size; i++) {
+                final List<JavaComment> comments = comments();
+                imports.add(Imprt._Imprt(comments, string()));
+            }
+            size = size();
+            final List<DataType> dataTypes = new ArrayList<DataType>(size);
+            for (int i = 0; i < size; i++) {
+                dataTypes.add(dataType());
+            }
+            return Doc._Doc(srcInfo, pkg, imports, dataTypes);
+        }
+        
+        DataType dataType() {
+            final List<JavaComment> comments = comments();
+            final List<Annotation> annotations = annotations();
+            final String name = string();
+            final List<String> typeArguments = strings();
+            final Optional<RefType> extendedType = read() == 0 ? Optional.<RefType>_None() : Optional._Some(refType());
+            final List<RefType> implementedTypes = refTypes();
+            final int size = size();
+            final List<Constructor> constructors = new ArrayList<Constructor>(size);
+            for (int i = 0; i < size; i++) {
+                final List<JavaComment> constructorComments = comments();
+                final String constructorName = string();
+                final int argsSize = size();
+                final List<Arg> args = new ArrayList<Arg>(argsSize);
+                for (int j = 0; j < argsSize; j++) {
+                    final int modifiersSize = size();
+                    final List<ArgModifier> modifiers = new ArrayList<ArgModifier>(modifiersSize);
+                    for (int k = 0; k < modifiersSize; k++) {
+                        modifiers.add(ARG_MODIFIERS[read()]);
+                    }
+                    final Type type = type();
+                    args.add(Arg._Arg(modifiers, type, string()));
+                }
+                constructors.add(Constructor._Constructor(constructorComments, constructorName, args));
+            }
+            return DataType._DataType(comments, annotations, name, typeArguments, extendedType, implementedTypes, constructors);
+        }
+        
+        Type type() {
+            final int tag = read();
+            return tag == 0 ? Type._Ref(refType()) : Type._Primitive(PRIMITIVE_TYPES[tag - 1]);
+        }
+        
+        List<RefType> refTypes() {
+            final int size = size();
+            final List<RefType> refTypes = new ArrayList<RefType>(size);
+            for (int i = 0; i < size; i++) {
+                refTypes.add(refType());
+            }
+            return refTypes;
+        }
+        
+        RefType refType() {
+            switch (read()) {
+            case 0:
+                final String baseName = string();
+                return RefType._ClassType(baseName, refTypes());
+            case 1:
+                return RefType._ArrayType(type());
+            default:
+                throw corrupt("RefType");
+            }
+        }
+        
+        List<Annotation> annotations() {
+            final int size = size();
+            final List<Annotation> annotations = new ArrayList<Annotation>(size);
+            for (int i = 0; i < size; i++) {
+                annotations.add(annotation());
+            }
+            return annotations;
+        }
+        
+        Annotation annotation() {
+            final String name = string();
+            switch (read()) {
+            case 0:
+                return Annotation._Annotation(name, Optional.<AnnotationElement>_None());
+            case 1:
+                return Annotation._Annotation(name, Optional._Some(AnnotationElement._ElementValue(annotationValue())));
+            case 2:
+                final int size = size();
+                final List<AnnotationKeyValue> keyValues = new ArrayList<AnnotationKeyValue>(size);
+                for (int i = 0; i < size; i++) {
+                    final String key = string();
+                    keyValues.add(AnnotationKeyValue._AnnotationKeyValue(key, annotationValue()));
+                }
+                return Annotation._Annotation(name, Optional._Some(AnnotationElement._ElementValuePairs(keyValues)));
+            default:
+                throw corrupt("AnnotationElement");
+            }
+        }
+        
+        AnnotationValue annotationValue() {
+            switch (read()) {
+            case 0:
+                return AnnotationValue._AnnotationValueAnnotation(annotation());
+            case 1:
+                return AnnotationValue._AnnotationValueExpression(expression());
+            case 2:
+                final int size = size();
+                final List<AnnotationValue> values = new ArrayList<AnnotationValue>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(annotationValue());
+                }
+                return AnnotationValue._AnnotationValueArray(values);
+            default:
+                throw corrupt("AnnotationValue");
+            }
+        }
+        
+        Expression expression() {
+            switch (read()) {
+            case 0:
+                final Expression cond = expression();
+                final Expression trueExpression = expression();
+                return Expression._TernaryExpression(cond, trueExpression, expression());
+            case 1:
+                final Expression left = expression();
+                final BinaryOperator op = BINARY_OPERATORS[read()];
+                return Expression._BinaryExpression(left, op, expression());
+            case 2:
+                return Expression._LiteralExpression(literal());
+            case 3:
+                final Optional<Expression> selector = read() == 0 ? Optional.<Expression>_None() : Optional._Some(expression());
+                return Expression._VariableExpression(selector, string());
+            case 4:
+                return Expression._NestedExpression(expression());
+            case 5:
+                return Expression._ClassReference(type());
+            default:
+                throw corrupt("Expression");
+            }
+        }
+        
+        Literal literal() {
+            switch (read()) {
+            case 0:
+                return Literal._StringLiteral(string());
+            case 1:
+                return Literal._FloatingPointLiteral(string());
+            case 2:
+                return Literal._IntegerLiteral(string());
+            case 3:
+                return Literal._CharLiteral(string());
+            case 4:
+                return Literal._BooleanLiteral(string());
+            case 5:
+                return Literal._NullLiteral();
+            default:
+                throw corrupt("Literal");
+            }
+        }
+        
+        List<JavaComment> comments() {
+            final int size = size();
+            final List<JavaComment> comments = new ArrayList<JavaComment>(size);
+            for (int i = 0; i < size; i++) {
+                switch (read()) {
+                case 0:
+                    final String start = string();
+                    final List<JDToken> generalSection = jdTokens();
+                    final int tagSectionsSize = size();
+                    final List<JDTagSection> tagSections = new ArrayList<JDTagSection>(tagSectionsSize);
+                    for (int j = 0; j < tagSectionsSize; j++) {
+                        final String name = string();
+                        tagSections.add(JDTagSection._JDTagSection(name, jdTokens()));
+                    }
+                    comments.add(JavaComment._JavaDocComment(start, generalSection, tagSections, string()));
+                    break;
+                case 1:
+                    final int linesSize = size();
+                    final List<List<BlockToken>> lines = new ArrayList<List<BlockToken>>(linesSize);
+                    for (int j = 0; j < linesSize; j++) {
+                        final int lineSize = size();
+                        final List<BlockToken> line = new ArrayList<BlockToken>(lineSize);
+                        for (int k = 0; k < lineSize; k++) {
+                            line.add(blockToken());
+                        }
+                        lines.add(line);
+                    }
+                    comments.add(JavaComment._JavaBlockComment(lines));
+                    break;
+                case 2:
+                    comments.add(JavaComment._JavaEOLComment(string()));
+                    break;
+                default:
+                    throw corrupt("JavaComment");
+                }
+            }
+            return comments;
+        }
+        
+        List<JDToken> jdTokens() {
+            final int size = size();
+            final List<JDToken> tokens = new ArrayList<JDToken>(size);
+            for (int i = 0; i < size; i++) {
+                switch (read()) {
+                case 0:
+                    tokens.add(JDToken._JDAsterisk());
+                    break;
+                case 1:
+                    tokens.add(JDToken._JDEOL(string()));
+                    break;
+                case 2:
+                    tokens.add(JDToken._JDTag(string()));
+                    break;
+                case 3:
+                    tokens.add(JDToken._JDWhiteSpace(string()));
+                    break;
+                case 4:
+                    tokens.add(JDToken._JDWord(string()));
+                    break;
+                default:
+                    throw corrupt("JDToken");
+                }
+            }
+            return tokens;
+        }
+        
+        BlockToken blockToken() {
+            switch (read()) {
+            case 0:
+                return BlockToken._BlockWhiteSpace(string());
+            case 1:
+                return BlockToken._BlockEOL(string());
+            case 2:
+                return BlockToken._BlockWord(string());
+            default:
+                throw corrupt("BlockToken");
+            }
+        }
+        
+        private IllegalArgumentException corrupt(String what) {
+            return new IllegalArgumentException("Corrupt encoding, bad " + what + " tag at " + (pos - 1));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import java.util.Collections;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.Version;
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.manifest.Manifest;
+import com.pogofish.jadt.parser.DocHandler;
+import com.pogofish.jadt.parser.Parser;
+import com.pogofish.jadt.source.CharBufferSource;
+import com.pogofish.jadt.source.Source;
+import com.pogofish.jadt.source.Sources;
+
+/**
+ * Parser that keeps what another Parser produces in a ParseCache, keyed by a hash of the source's content, the 
+ * version of jADT, and ASTCodec.FORMAT.  A source whose content was parsed before, under any name, isn't parsed again.
+ * 
+ * When streaming, a cached result is handed to the DocHandler a DataType at a time just as the parser would have.  A 
+ * cached result with syntax errors is only used when not streaming since it doesn't say which errors came before 
+ * which DataType.  A streamed parse isn't cached since that would mean holding the whole document in memory, which is
+ * what streaming avoids.  Failing to write to the cache is logged but doesn't fail the parse.
+ */
+public class CachingParser implements Parser {
+    private static final Logger logger = Logger.getLogger(CachingParser.class.toString());
+    
+    final Parser parser;
+    final ParseCache cache;
+    private final String version;
+
+    public CachingParser(Parser parser, ParseCache cache) {
+        super();
+        this.parser = parser;
+        this.cache = cache;
+        this.version = new Version().getVersion();
+    }
+
+    @Override
+    public ParseResult parse(Source source) {
+        return parse(source, null);
+    }
+
+    @Override
+    public ParseResult parse(Source source, final DocHandler handler) {
+        final String srcInfo = source.getSrcInfo();
+        // read once, the same content is hashed and then parsed
+        final CharBufferSource buffered = Sources.buffered(source);
+        final String key = key(buffered.getCharBuffer());
+        final ParseResult cached = cache.get(key, srcInfo);
+        if (cached != null && (handler == null || cached.errors.isEmpty())) {
+            logger.fine("Using cached parse of " + srcInfo);
+            return handler == null ? cached : replay(cached, handler);
+        }
+        
+        if (handler == null) {
+            final ParseResult result = parser.parse(buffered);
+            put(key, result);
+            return result;
+        }
+        // streaming is for documents too big to hold, so the parse isn't collected up to be cached
+        return parser.parse(buffered, handler);
+    }
+    
+    /**
+     * Hand a cached result to a DocHandler the way a streaming parse would
+     */
+    private static ParseResult replay(ParseResult cached, DocHandler handler) {
+        final Doc doc = cached.doc;
+        final Doc start = Doc._Doc(doc.srcInfo, doc.pkg, doc.imports, Collections.<DataType>emptyList());
+        handler.start(start);
+        for (DataType dataType : doc.dataTypes) {
+            handler.dataType(dataType, cached.errors);
+        }
+        return ParseResult._ParseResult(start, cached.errors);
+    }
+    
+    private void put(String key, ParseResult result) {
+        try {
+            cache.put(key, result);
+        } catch (RuntimeException e) {
+            logger.warning("Could not cache the parse of " + result.doc.srcInfo + ": " + e);
+        }
+    }
+    
+    /**
+     * The cache key for some source text
+     */
+    String key(CharSequence text) {
+        return Manifest.hash(version + "\n" + ASTCodec.FORMAT + "\n", text);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * ParseCache that keeps each ParseResult in its own file in a directory, encoded with ASTCodec.  Several processes can 
+ * share the directory: each file is written under a temporary name and renamed into place, so a file that is there is 
+ * complete.  A file that can't be read or decoded is treated as missing.  Nothing is ever removed, but the directory 
+ * can be deleted at any time.
+ */
+public class FileParseCache implements ParseCache {
+    private static final Logger logger = Logger.getLogger(FileParseCache.class.toString());
+    
+    private static final String SUFFIX = ".ast";
+    
+    final File directory;
+
+    public FileParseCache(File directory) {
+        super();
+        this.directory = directory;
+    }
+
+    @Override
+    public ParseResult get(String key, String srcInfo) {
+        final File file = file(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return ASTCodec.decode(read(file), srcInfo);
+        } catch (RuntimeException e) {
+            logger.warning("Ignoring unreadable parse cache entry " + file + ": " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String key, ParseResult result) {
+        final byte[] bytes = ASTCodec.encode(result);
+        final File file = file(key);
+        Util.execute(new ExceptionAction<Void>() {
+            @Override
+            public Void doAction() throws IOException {
+                directory.mkdirs();
+                final File temp = File.createTempFile(file.getName(), ".tmp", directory);
+                try {
+                    final OutputStream stream = new FileOutputStream(temp);
+                    try {
+                        stream.write(bytes);
+                    } finally {
+                        stream.close();
+                    }
+                    // on some platforms rename won't replace an existing file
+                    if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)) && !file.isFile()) {
+                        throw new IOException("Could not rename " + temp + " to " + file);
+                    }
+                } finally {
+                    temp.delete();
+                }
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * The file for a key
+     */
+    File file(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+    
+    private static byte[] read(final File file) {
+        return Util.execute(new ExceptionAction<byte[]>() {
+            @Override
+            public byte[] doAction() throws IOException {
+                final InputStream stream = new FileInputStream(file);
+                try {
+                    final byte[] bytes = new byte[(int)file.length()];
+                    int offset = 0;
+                    while (offset < bytes.length) {
+                        final int read = stream.read(bytes, offset, bytes.length - offset);
+                        if (read < 0) {
+                            throw new IOException("Unexpected end of " + file);
+                        }
+                        offset += read;
+                    }
+                    return bytes;
+                } finally {
+                    stream.close();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,86 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.ParseResult;
+
+/**
+ * ParseCache that keeps ParseResults in memory, optionally in front of another ParseCache such as a FileParseCache.  
+ * Meant to be shared by every run in a build, so that a source several runs read is only parsed once.  Two runs that 
+ * parse the same source at the same moment may both parse it.  Nothing is ever removed, so a MemoryParseCache should 
+ * be dropped when the build is done.
+ */
+public class MemoryParseCache implements ParseCache {
+    private final ConcurrentMap<String, ParseResult> results = new ConcurrentHashMap<String, ParseResult>();
+    /**
+     * ParseCache to look in when a result isn't in memory and to pass new results on to, or null if there isn't one
+     */
+    final ParseCache backing;
+    
+    /**
+     * Creates a MemoryParseCache with nothing behind it
+     */
+    public MemoryParseCache() {
+        this(null);
+    }
+
+    /**
+     * Creates a MemoryParseCache in front of another ParseCache
+     * 
+     * @param backing ParseCache to look in when a result isn't in memory, or null to only use memory
+     */
+    public MemoryParseCache(ParseCache backing) {
+        super();
+        this.backing = backing;
+    }
+
+    @Override
+    public ParseResult get(String key, String srcInfo) {
+        ParseResult result = results.get(key);
+        if (result == null) {
+            if (backing == null) {
+                return null;
+            }
+            result = backing.get(key, srcInfo);
+            if (result == null) {
+                return null;
+            }
+            results.putIfAbsent(key, result);
+        }
+        final Doc doc = result.doc;
+        // a result for the same srcInfo is shared as is
+        return doc.srcInfo.equals(srcInfo) ? result : ParseResult._ParseResult(Doc._Doc(srcInfo, doc.pkg, doc.imports, doc.dataTypes), result.errors);
+    }
+
+    @Override
+    public void put(String key, ParseResult result) {
+        results.put(key, result);
+        if (backing != null) {
+            backing.put(key, result);
+        }
+    }
+    
+    /**
+     * The number of results in memory
+     */
+    public int size() {
+        return results.size();
+    }
+}
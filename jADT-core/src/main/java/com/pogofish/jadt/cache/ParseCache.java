@@ -0,0 +1,37 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import com.pogofish.jadt.ast.ParseResult;
+
+/**
+ * Somewhere to keep ParseResults so that sources that haven't changed don't have to be parsed again, see CachingParser.
+ * Implementations must be safe to use from multiple threads.
+ */
+public interface ParseCache {
+    /**
+     * The ParseResult cached under a key, or null if there isn't one
+     * 
+     * @param key identifies the content that was parsed
+     * @param srcInfo srcInfo to give the cached Doc, which may have come from a different source with the same content
+     */
+    public abstract ParseResult get(String key, String srcInfo);
+    
+    /**
+     * Cache a ParseResult under a key, replacing anything already there
+     */
+    public abstract void put(String key, ParseResult result);
+}
@@ -0,0 +1,68 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.checker;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.errors.SemanticError;
+
+/**
+ * Checker that remembers what another Checker found for each document so that a document with the same content isn't 
+ * checked again.  Semantic errors don't depend on where a document came from, so documents are compared without their 
+ * srcInfo.  Meant to be shared, along with a MemoryParseCache, by every run in a build.  Data types checked one at a 
+ * time depend on what was checked before them so they are always passed through.  Nothing is ever removed.
+ */
+public class CachingChecker implements Checker {
+    private static final String NO_SRC_INFO = "";
+    
+    final Checker checker;
+    private final ConcurrentMap<Doc, List<SemanticError>> results = new ConcurrentHashMap<Doc, List<SemanticError>>();
+
+    public CachingChecker(Checker checker) {
+        super();
+        this.checker = checker;
+    }
+
+    @Override
+    public List<SemanticError> check(Doc doc) {
+        final Doc key = Doc._Doc(NO_SRC_INFO, doc.pkg, doc.imports, doc.dataTypes);
+        final List<SemanticError> cached = results.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final List<SemanticError> errors = Collections.unmodifiableList(checker.check(doc));
+        results.putIfAbsent(key, errors);
+        return errors;
+    }
+
+    @Override
+    public List<SemanticError> check(DataType dataType, Set<String> dataTypeNames) {
+        return checker.check(dataType, dataTypeNames);
+    }
+    
+    /**
+     * The number of documents whose results are remembered
+     */
+    public int size() {
+        return results.size();
+    }
+}
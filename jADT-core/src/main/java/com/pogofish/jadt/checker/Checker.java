@@ -16,7 +16,9 @@ limitations under the License.
 package com.pogofish.jadt.checker;
 
 import java.util.List;
+import java.util.Set;
 
+import com.pogofish.jadt.ast.DataType;
 import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.errors.SemanticError;
 
@@ -36,4 +38,14 @@ public interface Checker {
      */
     public List<SemanticError> check(Doc doc);
 
+    /**
+     * Checks a single data type of a document that is being checked one data type at a time.  Checking every data type 
+     * of a document this way, in order and with the same set of names, finds the same errors as check(Doc).
+     * 
+     * @param dataType DataType to check
+     * @param dataTypeNames names of the data types already checked in the same document.  The name of dataType is added to it.
+     * @return A set of SemanticErrors - empty set if none
+     */
+    public List<SemanticError> check(DataType dataType, Set<String> dataTypeNames);
+
 }
@@ -15,8 +15,11 @@ limitations under the License.
 */
 package com.pogofish.jadt.checker;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
+import com.pogofish.jadt.ast.DataType;
 import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.errors.SemanticError;
 
@@ -46,4 +49,14 @@ public class DummyChecker implements Checker {
     public List<SemanticError> check(Doc doc) {
         return errors;
     }
+
+    /**
+     * returns the set of exceptions specified in the constructor for the first data type in a document and nothing for the rest
+     */
+    @Override
+    public List<SemanticError> check(DataType dataType, Set<String> dataTypeNames) {
+        final boolean first = dataTypeNames.isEmpty();
+        dataTypeNames.add(dataType.name);
+        return first ? errors : Collections.<SemanticError>emptyList();
+    }
 }
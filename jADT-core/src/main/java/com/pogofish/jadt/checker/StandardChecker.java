@@ -56,14 +56,28 @@ public class StandardChecker implements Checker {
         final List<SemanticError> errors = new ArrayList<SemanticError>();
         final Set<String> dataTypeNames = new HashSet<String>();
         for (DataType dataType : doc.dataTypes) {
-            if (dataTypeNames.contains(dataType.name)) {
-            	logger.info("Duplicate data type name " + dataType.name + ".");
-                errors.add(_DuplicateDataType(dataType.name));
-            } else {
-                dataTypeNames.add(dataType.name);
-            }
-            errors.addAll(check(dataType));
+            errors.addAll(check(dataType, dataTypeNames));
+        }
+        return errors;
+    }
+    
+    /**
+     * Checks a data type for a duplicate name and calls check(DataType) on it
+     * 
+     * @param dataType DataType to check
+     * @param dataTypeNames names of the data types already checked in the same document
+     * @return List of SemanticErrors with the problems or an empty list if there are none
+     */
+    @Override
+    public List<SemanticError> check(DataType dataType, Set<String> dataTypeNames) {
+        final List<SemanticError> errors = new ArrayList<SemanticError>();
+        if (dataTypeNames.contains(dataType.name)) {
+        	logger.info("Duplicate data type name " + dataType.name + ".");
+            errors.add(_DuplicateDataType(dataType.name));
+        } else {
+            dataTypeNames.add(dataType.name);
         }
+        errors.addAll(check(dataType));
         return errors;
     }
 
@@ -0,0 +1,181 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.checker;
+
+import static com.pogofish.jadt.errors.SemanticError._DuplicateDataTypeInSources;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.errors.SemanticError;
+
+/**
+ * Project wide index of the data types defined by each source, used to find data types that more than one source 
+ * defines in the same package.  Those would silently overwrite each other's generated class, something a Checker 
+ * can't see because it only looks at one document.
+ * 
+ * Sources can be added, replaced, and removed one at a time from any number of threads, so the index can be filled in 
+ * while sources are parsed concurrently and kept up to date as only some sources change.  Only data type names are 
+ * indexed because constructors are generated as nested classes of their data type and can't collide across sources.
+ * 
+ * Any one source should only be updated by one thread at a time.
+ */
+public class SymbolIndex {
+    private static final Logger logger = Logger.getLogger(SymbolIndex.class.toString());
+    
+    /**
+     * Fully qualified data type names defined by each source
+     */
+    private final ConcurrentMap<String, Set<String>> namesBySource = new ConcurrentHashMap<String, Set<String>>();
+    
+    /**
+     * Sources that define each fully qualified data type name
+     */
+    private final ConcurrentMap<String, Set<String>> sourcesByName = new ConcurrentHashMap<String, Set<String>>();
+    
+    /**
+     * Replace everything a source defines with the data types of a Doc
+     */
+    public void update(String srcInfo, Doc doc) {
+        final List<String> names = new ArrayList<String>(doc.dataTypes.size());
+        for (DataType dataType : doc.dataTypes) {
+            names.add(qualifiedName(doc.pkg.name, dataType.name));
+        }
+        update(srcInfo, names);
+    }
+    
+    /**
+     * Replace everything a source defines with the given fully qualified data type names
+     */
+    public void update(String srcInfo, Collection<String> qualifiedNames) {
+        final Set<String> names = concurrentSet();
+        names.addAll(qualifiedNames);
+        final Set<String> previous = namesBySource.put(srcInfo, names);
+        if (previous != null) {
+            for (String name : previous) {
+                if (!names.contains(name)) {
+                    unindex(srcInfo, name);
+                }
+            }
+        }
+        for (String name : names) {
+            index(srcInfo, name);
+        }
+    }
+    
+    /**
+     * Add one more data type to what a source defines, e.g. while the source is being streamed
+     */
+    public void add(String srcInfo, String qualifiedName) {
+        Set<String> names = namesBySource.get(srcInfo);
+        if (names == null) {
+            final Set<String> created = concurrentSet();
+            names = namesBySource.putIfAbsent(srcInfo, created);
+            if (names == null) {
+                names = created;
+            }
+        }
+        names.add(qualifiedName);
+        index(srcInfo, qualifiedName);
+    }
+    
+    /**
+     * Forget a source, e.g. because it was deleted
+     */
+    public void remove(String srcInfo) {
+        final Set<String> previous = namesBySource.remove(srcInfo);
+        if (previous != null) {
+            for (String name : previous) {
+                unindex(srcInfo, name);
+            }
+        }
+    }
+    
+    /**
+     * Find the data types of a source that other sources define as well
+     * 
+     * @param srcInfo the source to check
+     * @return one DuplicateDataTypeInSources per duplicated data type, naming the first other source that defines it, 
+     * in order of data type name.  Empty if there are none.
+     */
+    public List<SemanticError> check(String srcInfo) {
+        final Set<String> names = namesBySource.get(srcInfo);
+        if (names == null) {
+            return Collections.emptyList();
+        }
+        final List<SemanticError> errors = new ArrayList<SemanticError>();
+        for (String name : new TreeSet<String>(names)) {
+            final Set<String> sources = sourcesByName.get(name);
+            if (sources != null) {
+                final Set<String> others = new TreeSet<String>(sources);
+                others.remove(srcInfo);
+                if (!others.isEmpty()) {
+                    logger.info("Data type " + name + " is defined in " + srcInfo + " and " + others + ".");
+                    errors.add(_DuplicateDataTypeInSources(name, srcInfo, others.iterator().next()));
+                }
+            }
+        }
+        return errors;
+    }
+    
+    /**
+     * True if some source defines a data type with the fully qualified name
+     */
+    public boolean contains(String qualifiedName) {
+        final Set<String> sources = sourcesByName.get(qualifiedName);
+        return sources != null && !sources.isEmpty();
+    }
+    
+    /**
+     * The fully qualified name of a data type, which is also the name of the class generated for it
+     */
+    public static String qualifiedName(String pkg, String dataTypeName) {
+        return pkg.isEmpty() ? dataTypeName : pkg + "." + dataTypeName;
+    }
+    
+    private void index(String srcInfo, String name) {
+        Set<String> sources = sourcesByName.get(name);
+        if (sources == null) {
+            final Set<String> created = concurrentSet();
+            sources = sourcesByName.putIfAbsent(name, created);
+            if (sources == null) {
+                sources = created;
+            }
+        }
+        sources.add(srcInfo);
+    }
+    
+    private void unindex(String srcInfo, String name) {
+        final Set<String> sources = sourcesByName.get(name);
+        if (sources != null) {
+            sources.remove(srcInfo);
+            // an emptied set is left behind rather than racing another source that's adding the same name
+        }
+    }
+    
+    private static Set<String> concurrentSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+}
@@ -0,0 +1,259 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.checker;
+
+import static com.pogofish.jadt.errors.SemanticError._UnresolvedType;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.pogofish.jadt.ast.Arg;
+import com.pogofish.jadt.ast.Constructor;
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.Imprt;
+import com.pogofish.jadt.ast.Optional;
+import com.pogofish.jadt.ast.Optional.None;
+import com.pogofish.jadt.ast.Optional.Some;
+import com.pogofish.jadt.ast.RefType;
+import com.pogofish.jadt.ast.RefType.ArrayType;
+import com.pogofish.jadt.ast.RefType.ClassType;
+import com.pogofish.jadt.ast.Type;
+import com.pogofish.jadt.ast.Type.Primitive;
+import com.pogofish.jadt.ast.Type.Ref;
+import com.pogofish.jadt.classpath.ClassIndex;
+import com.pogofish.jadt.classpath.ClasspathIndexer;
+import com.pogofish.jadt.errors.SemanticError;
+
+/**
+ * Resolves the class types a data type refers to the way javac will once the data type has been generated, so that a 
+ * misspelled type is reported against the .jadt file instead of as a compile error in generated code.
+ * 
+ * A name resolves if it's the data type itself, one of its type parameters, or one of its constructors, or if it names a class in the 
+ * ClassIndex after applying the document's imports, its package, and java.lang.  Names that don't resolve may still 
+ * be data types generated from other sources, which aren't known until every source has been parsed.  So resolving 
+ * is done in two steps: resolve finds what isn't on the classpath, remembering every class it could have been, and 
+ * check looks for those in the SymbolIndex once it's complete.
+ */
+public class TypeResolver {
+    private static final String ON_DEMAND = ".*";
+    private static final String JAVA_LANG = "java.lang.";
+    
+    /**
+     * Indexes the classpath again on each refresh, null if the index never changes
+     */
+    private final ClasspathIndexer indexer;
+    private final List<File> classpath;
+    private volatile ClassIndex index;
+    
+    /**
+     * A resolver that always uses the same index
+     */
+    public TypeResolver(ClassIndex index) {
+        super();
+        this.indexer = null;
+        this.classpath = null;
+        this.index = index;
+    }
+    
+    /**
+     * A resolver that indexes a classpath, and indexes it again whenever it's refreshed
+     */
+    public TypeResolver(ClasspathIndexer indexer, List<File> classpath) {
+        super();
+        this.indexer = indexer;
+        this.classpath = classpath;
+        this.index = indexer.index(classpath);
+    }
+    
+    /**
+     * Pick up changes to the classpath, e.g. before each build of a long running driver.  Only what changed is read again.
+     */
+    public void refresh() {
+        if (indexer != null) {
+            index = indexer.index(classpath);
+        }
+    }
+    
+    /**
+     * Find the class types a data type refers to that aren't on the classpath
+     * 
+     * @param doc the document the data type is in.  Only its package and imports are used
+     * @param dataType DataType whose types are to be resolved
+     * @return the names that didn't resolve, each only once, in the order they were found
+     */
+    public List<Unresolved> resolve(final Doc doc, final DataType dataType) {
+        final Set<String> local = new HashSet<String>(dataType.typeArguments);
+        local.add(dataType.name);
+        for (Constructor constructor : dataType.constructors) {
+            local.add(constructor.name);
+        }
+        final Map<String, Unresolved> unresolved = new LinkedHashMap<String, Unresolved>();
+        final RefType.SwitchBlock refTypes = new RefType.SwitchBlock() {
+            @Override
+            public void _case(ClassType x) {
+                if (!unresolved.containsKey(x.baseName)) {
+                    final List<String> candidates = candidates(doc, local, x.baseName);
+                    if (candidates != null && !anyIndexed(candidates)) {
+                        unresolved.put(x.baseName, new Unresolved(dataType.name, x.baseName, candidates));
+                    }
+                }
+                for (RefType typeArgument : x.typeArguments) {
+                    typeArgument._switch(this);
+                }
+            }
+
+            @Override
+            public void _case(ArrayType x) {
+                resolve(x.heldType, this);
+            }
+        };
+        
+        dataType.extendedType._switch(new Optional.SwitchBlock<RefType>() {
+            @Override
+            public void _case(Some<RefType> x) {
+                x.value._switch(refTypes);
+            }
+
+            @Override
+            public void _case(None<RefType> x) {
+            }
+        });
+        for (RefType implementedType : dataType.implementedTypes) {
+            implementedType._switch(refTypes);
+        }
+        for (Constructor constructor : dataType.constructors) {
+            for (Arg arg : constructor.args) {
+                resolve(arg.type, refTypes);
+            }
+        }
+        return new ArrayList<Unresolved>(unresolved.values());
+    }
+    
+    private static void resolve(Type type, final RefType.SwitchBlock refTypes) {
+        type._switch(new Type.SwitchBlock() {
+            @Override
+            public void _case(Ref x) {
+                x.type._switch(refTypes);
+            }
+
+            @Override
+            public void _case(Primitive x) {
+            }
+        });
+    }
+    
+    /**
+     * Turn the references that still don't resolve once every data type in the project is known into errors
+     * 
+     * @param unresolved what resolve found
+     * @param symbols SymbolIndex of every source in the project
+     */
+    public static List<SemanticError> check(List<Unresolved> unresolved, SymbolIndex symbols) {
+        final List<SemanticError> errors = new ArrayList<SemanticError>();
+        for (Unresolved reference : unresolved) {
+            if (!anyDataType(reference.candidates, symbols)) {
+                errors.add(_UnresolvedType(reference.dataTypeName, reference.typeName));
+            }
+        }
+        return errors;
+    }
+    
+    /**
+     * Every fully qualified class a name might refer to, or null if it's local to the data type
+     */
+    private static List<String> candidates(Doc doc, Set<String> local, String name) {
+        final int dot = name.indexOf('.');
+        final String first = dot < 0 ? name : name.substring(0, dot);
+        if (local.contains(first)) {
+            return null;
+        }
+        final List<String> candidates = new ArrayList<String>();
+        for (Imprt imprt : doc.imports) {
+            if (imprt.name.endsWith("." + first)) {
+                // a single type import hides everything else
+                candidates.add(imprt.name);
+            }
+        }
+        if (candidates.isEmpty()) {
+            candidates.add(SymbolIndex.qualifiedName(doc.pkg.name, first));
+            for (Imprt imprt : doc.imports) {
+                if (imprt.name.endsWith(ON_DEMAND)) {
+                    candidates.add(imprt.name.substring(0, imprt.name.length() - 1) + first);
+                }
+            }
+            candidates.add(JAVA_LANG + first);
+        }
+        if (dot >= 0) {
+            final String rest = name.substring(dot);
+            for (int i = 0; i < candidates.size(); i++) {
+                candidates.set(i, candidates.get(i) + rest);
+            }
+            // or it was fully qualified all along
+            candidates.add(name);
+        }
+        return candidates;
+    }
+    
+    private boolean anyIndexed(List<String> candidates) {
+        for (String candidate : candidates) {
+            if (index.contains(candidate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * True if a candidate is a data type, or a constructor nested in one
+     */
+    private static boolean anyDataType(List<String> candidates, SymbolIndex symbols) {
+        for (String candidate : candidates) {
+            for (int end = candidate.length(); end > 0; end = candidate.lastIndexOf('.', end - 1)) {
+                if (symbols.contains(candidate.substring(0, end))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * A class type name that isn't on the classpath, with every fully qualified class it could have meant
+     */
+    public static final class Unresolved {
+        public final String dataTypeName;
+        public final String typeName;
+        public final List<String> candidates;
+        
+        public Unresolved(String dataTypeName, String typeName, List<String> candidates) {
+            super();
+            this.dataTypeName = dataTypeName;
+            this.typeName = typeName;
+            this.candidates = candidates;
+        }
+
+        @Override
+        public String toString() {
+            return "Unresolved(" + dataTypeName + ", " + typeName + ", " + candidates + ")";
+        }
+    }
+}
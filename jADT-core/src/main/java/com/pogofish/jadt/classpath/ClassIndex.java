@@ -0,0 +1,107 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.classpath;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The names of the classes that can be referred to from generated code: everything found on a classpath plus the 
+ * classes of the Java platform itself.  Names are canonical, so nested classes are separated from the class they're 
+ * nested in by '.' rather than '$'.
+ * 
+ * Platform classes aren't indexed up front.  They're looked up through the platform class loader as they are asked 
+ * about and the answers are remembered.  A ClassIndex is safe to use from several threads at once.
+ */
+public class ClassIndex {
+    /**
+     * An index with nothing but the platform classes
+     */
+    public static final ClassIndex PLATFORM = new ClassIndex(Collections.<String>emptySet(), Collections.<String>emptySet());
+    
+    /**
+     * Names of compiled classes on the classpath
+     */
+    private final Set<String> classNames;
+    
+    /**
+     * Names of classes that only exist as source files so far, whose nested classes can't be known
+     */
+    private final Set<String> sourceNames;
+    
+    private final ClassLoader platform = platformLoader();
+    
+    private final ConcurrentMap<String, Boolean> platformNames = new ConcurrentHashMap<String, Boolean>();
+    
+    public ClassIndex(Set<String> classNames, Set<String> sourceNames) {
+        super();
+        this.classNames = classNames;
+        this.sourceNames = sourceNames;
+    }
+    
+    /**
+     * True if the fully qualified canonical name is the name of a known class
+     */
+    public boolean contains(String className) {
+        if (classNames.contains(className) || sourceNames.contains(className)) {
+            return true;
+        }
+        // anything nested inside a class that's only known from its source might exist
+        for (int dot = className.lastIndexOf('.'); dot > 0; dot = className.lastIndexOf('.', dot - 1)) {
+            if (sourceNames.contains(className.substring(0, dot))) {
+                return true;
+            }
+        }
+        return isPlatformClass(className);
+    }
+    
+    /**
+     * How many classes were found on the classpath
+     */
+    public int size() {
+        return classNames.size() + sourceNames.size();
+    }
+    
+    private boolean isPlatformClass(String className) {
+        final Boolean known = platformNames.get(className);
+        if (known != null) {
+            return known;
+        }
+        boolean found = false;
+        if (platform != null) {
+            // try each way of splitting the name into a top level class and the classes nested in it
+            String binaryName = className;
+            int dot = binaryName.lastIndexOf('.');
+            while (!found && dot > 0) {
+                found = platform.getResource(binaryName.replace('.', '/') + ".class") != null;
+                binaryName = binaryName.substring(0, dot) + '$' + binaryName.substring(dot + 1);
+                dot = binaryName.lastIndexOf('.', dot - 1);
+            }
+        }
+        platformNames.put(className, found);
+        return found;
+    }
+    
+    /**
+     * The class loader that sees the platform classes but not the application's own classpath
+     */
+    private static ClassLoader platformLoader() {
+        final ClassLoader system = ClassLoader.getSystemClassLoader();
+        return system == null ? null : system.getParent();
+    }
+}
@@ -0,0 +1,388 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.classpath;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Builds ClassIndexes from classpaths of jars and directories.  Directories are cheap to scan so they're scanned every 
+ * time, and may hold .java source files as well as .class files.  Jars are only read when they've changed: the class 
+ * names found in each jar are kept in memory and, if there's a cache directory, on disk in a file named after the SHA-1 
+ * of the jar, so an unchanged jar costs a file stat and a changed one that has been seen before costs reading its 
+ * checksum.  Jars that are checksummed and cached are looked up by path, length, and modification time in a stamps 
+ * file in the cache directory.
+ * 
+ * A ClasspathIndexer is safe to use from several threads at once.
+ */
+public class ClasspathIndexer {
+    private static final Logger logger = Logger.getLogger(ClasspathIndexer.class.toString());
+    
+    private static final String CLASS_SUFFIX = ".class";
+    private static final String JAVA_SUFFIX = ".java";
+    private static final String VERSIONS_PREFIX = "META-INF/versions/";
+    
+    /**
+     * Name of the file in the cache directory that maps each jar's path, length, and modification time to its checksum
+     */
+    static final String STAMPS_NAME = "stamps";
+    
+    /**
+     * Directory where class names are cached, null if they're only cached in memory
+     */
+    final File cacheDir;
+    
+    /**
+     * What's known about each jar by absolute path
+     */
+    private final Map<String, Jar> jars = new HashMap<String, Jar>();
+    
+    /**
+     * Checksums by "path length modified", loaded from the stamps file the first time they're needed
+     */
+    private Map<String, String> stamps = null;
+    
+    /**
+     * @param cacheDir directory where class names found in jars are cached, or null to only cache them in memory
+     */
+    public ClasspathIndexer(File cacheDir) {
+        super();
+        this.cacheDir = cacheDir;
+    }
+    
+    /**
+     * Split a classpath string on the platform's path separator
+     */
+    public static List<File> split(String classpath) {
+        final List<File> files = new ArrayList<File>();
+        for (String path : classpath.split(File.pathSeparator)) {
+            if (!path.isEmpty()) {
+                files.add(new File(path));
+            }
+        }
+        return files;
+    }
+    
+    /**
+     * Index the classes in a list of jars and directories.  Entries that don't exist are ignored.
+     */
+    public synchronized ClassIndex index(List<File> classpath) {
+        final long start = System.nanoTime();
+        final Set<String> classNames = new HashSet<String>();
+        final Set<String> sourceNames = new HashSet<String>();
+        boolean stampsChanged = false;
+        for (File file : classpath) {
+            if (file.isDirectory()) {
+                scan(file, "", classNames, sourceNames);
+            } else if (file.isFile()) {
+                final Jar jar = jar(file);
+                stampsChanged |= jar.newStamp;
+                jar.newStamp = false;
+                classNames.addAll(jar.classNames);
+            } else {
+                logger.fine("Ignoring missing classpath entry " + file);
+            }
+        }
+        if (stampsChanged) {
+            saveStamps();
+        }
+        logger.fine("Indexed " + (classNames.size() + sourceNames.size()) + " classes in " + (System.nanoTime() - start) / 1000000 + " ms.");
+        return new ClassIndex(classNames, sourceNames);
+    }
+    
+    /**
+     * Everything known about a jar, reading it only if it has changed since it was last looked at
+     */
+    private Jar jar(File file) {
+        final String path = file.getAbsolutePath();
+        final long length = file.length();
+        final long modified = file.lastModified();
+        final Jar known = jars.get(path);
+        if (known != null && known.length == length && known.modified == modified) {
+            return known;
+        }
+        
+        final String stamp = path + " " + length + " " + modified;
+        String checksum = stamps().get(stamp);
+        final boolean newStamp = checksum == null;
+        if (checksum == null) {
+            checksum = checksum(file);
+        }
+        Set<String> classNames = load(checksum);
+        if (classNames == null) {
+            logger.fine("Reading classes from " + file);
+            classNames = read(file);
+            store(checksum, classNames);
+        }
+        final Jar jar = new Jar(length, modified, classNames);
+        jar.newStamp = newStamp && cacheDir != null;
+        if (jar.newStamp) {
+            stamps.put(stamp, checksum);
+        }
+        jars.put(path, jar);
+        return jar;
+    }
+    
+    /**
+     * Collect the names of classes and source files under a directory
+     */
+    private static void scan(File dir, String pkg, Set<String> classNames, Set<String> sourceNames) {
+        final File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            final String name = file.getName();
+            if (file.isDirectory()) {
+                scan(file, pkg + name + ".", classNames, sourceNames);
+            } else if (name.endsWith(CLASS_SUFFIX)) {
+                addClass(classNames, pkg + name.substring(0, name.length() - CLASS_SUFFIX.length()));
+            } else if (name.endsWith(JAVA_SUFFIX)) {
+                sourceNames.add(pkg + name.substring(0, name.length() - JAVA_SUFFIX.length()));
+            }
+        }
+    }
+    
+    /**
+     * The names of all the classes in a jar
+     */
+    static Set<String> read(final File file) {
+        return Util.execute(new ExceptionAction<Set<String>>() {
+            @Override
+            public Set<String> doAction() throws IOException {
+                final Set<String> classNames = new HashSet<String>();
+                final ZipFile zip = new ZipFile(file);
+                try {
+                    final Enumeration<? extends ZipEntry> entries = zip.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(VERSIONS_PREFIX)) {
+                            // classes for specific Java versions are also in the base directory
+                            continue;
+                        }
+                        if (name.endsWith(CLASS_SUFFIX)) {
+                            addClass(classNames, name.substring(0, name.length() - CLASS_SUFFIX.length()).replace('/', '.'));
+                        }
+                    }
+                } finally {
+                    zip.close();
+                }
+                return classNames;
+            }
+        });
+    }
+    
+    /**
+     * Add the canonical form of a binary class name, skipping anonymous and local classes and module and package info
+     */
+    private static void addClass(Set<String> classNames, String binaryName) {
+        if (binaryName.endsWith("-info")) {
+            return;
+        }
+        final String[] parts = binaryName.split("\\$", -1);
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].isEmpty() || Character.isDigit(parts[i].charAt(0))) {
+                return;
+            }
+        }
+        classNames.add(binaryName.replace('$', '.'));
+    }
+    
+    /**
+     * Hex SHA-1 of a file's content
+     */
+    static String checksum(final File file) {
+        return Util.execute(new ExceptionAction<String>() {
+            @Override
+            public String doAction() throws Throwable {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                final InputStream stream = new FileInputStream(file);
+                try {
+                    final byte[] buffer = new byte[64 * 1024];
+                    int read = stream.read(buffer);
+                    while (read >= 0) {
+                        digest.update(buffer, 0, read);
+                        read = stream.read(buffer);
+                    }
+                } finally {
+                    stream.close();
+                }
+                final String hex = new BigInteger(1, digest.digest()).toString(16);
+                final StringBuilder builder = new StringBuilder();
+                for (int i = hex.length(); i < 40; i++) {
+                    builder.append('0');
+                }
+                return builder.append(hex).toString();
+            }
+        });
+    }
+    
+    /**
+     * The cached class names for a jar checksum, or null if they aren't cached or can't be read
+     */
+    private Set<String> load(String checksum) {
+        if (cacheDir == null) {
+            return null;
+        }
+        final File file = new File(cacheDir, checksum);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            final Set<String> classNames = new HashSet<String>();
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            try {
+                String line = reader.readLine();
+                while (line != null) {
+                    if (!line.isEmpty()) {
+                        classNames.add(line);
+                    }
+                    line = reader.readLine();
+                }
+            } finally {
+                reader.close();
+            }
+            return classNames;
+        } catch (IOException e) {
+            logger.warning("Could not read cached class names from " + file + ", " + e);
+            return null;
+        }
+    }
+    
+    /**
+     * Cache the class names of a jar, if there's a cache directory.  Failing to do so isn't fatal.
+     */
+    private void store(String checksum, Set<String> classNames) {
+        if (cacheDir == null) {
+            return;
+        }
+        final List<String> sorted = new ArrayList<String>(classNames);
+        Collections.sort(sorted);
+        final StringBuilder builder = new StringBuilder();
+        for (String className : sorted) {
+            builder.append(className).append('\n');
+        }
+        write(new File(cacheDir, checksum), builder.toString());
+    }
+    
+    private Map<String, String> stamps() {
+        if (stamps == null) {
+            stamps = new HashMap<String, String>();
+            if (cacheDir != null) {
+                final File file = new File(cacheDir, STAMPS_NAME);
+                if (file.isFile()) {
+                    try {
+                        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+                        try {
+                            String line = reader.readLine();
+                            while (line != null) {
+                                // the checksum comes first because paths may have spaces in them
+                                final int space = line.indexOf(' ');
+                                if (space > 0) {
+                                    stamps.put(line.substring(space + 1), line.substring(0, space));
+                                }
+                                line = reader.readLine();
+                            }
+                        } finally {
+                            reader.close();
+                        }
+                    } catch (IOException e) {
+                        logger.warning("Could not read " + file + ", " + e);
+                    }
+                }
+            }
+        }
+        return stamps;
+    }
+    
+    private void saveStamps() {
+        final StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, String> entry : stamps.entrySet()) {
+            builder.append(entry.getValue()).append(' ').append(entry.getKey()).append('\n');
+        }
+        write(new File(cacheDir, STAMPS_NAME), builder.toString());
+    }
+    
+    /**
+     * Write a cache file by way of a temporary file so that nobody ever sees half of it.  Failing to do so isn't fatal.
+     */
+    private void write(File file, String contents) {
+        try {
+            cacheDir.mkdirs();
+            final File tmp = File.createTempFile(file.getName(), ".tmp", cacheDir);
+            final OutputStream stream = new FileOutputStream(tmp);
+            try {
+                final Writer writer = new OutputStreamWriter(stream, "UTF-8");
+                writer.write(contents);
+                writer.flush();
+            } finally {
+                stream.close();
+            }
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                if (!tmp.renameTo(file)) {
+                    tmp.delete();
+                    logger.warning("Could not write " + file);
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Could not write " + file + ", " + e);
+        }
+    }
+    
+    /**
+     * The class names in a jar along with how the jar looked when they were read
+     */
+    private static final class Jar {
+        final long length;
+        final long modified;
+        final Set<String> classNames;
+        /**
+         * true if the jar's stamp still needs to be saved
+         */
+        boolean newStamp = false;
+        
+        Jar(long length, long modified, Set<String> classNames) {
+            this.length = length;
+            this.modified = modified;
+            this.classNames = Collections.unmodifiableSet(classNames);
+        }
+    }
+}
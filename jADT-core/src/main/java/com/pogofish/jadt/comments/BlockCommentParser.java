@@ -24,19 +24,27 @@ import com.pogofish.jadt.util.ExceptionAction;
 import com.pogofish.jadt.util.Util;
 
 /**
- * Parser for BlockComment.
+ * Parser for BlockComment.  Each thread reuses one underlying parser, re-initialized for each comment,
+ * so parsing lots of little comments doesn't keep building new parsers and their buffers.
  * 
  * @author jiry
  */
 public class BlockCommentParser {
+    private final ThreadLocal<BlockCommentParserImpl> impls = new ThreadLocal<BlockCommentParserImpl>();
+    
     public JavaComment parse(final Reader BlockComment) {
         return Util.execute(new ExceptionAction<JavaComment>() {
 
             @Override
             public JavaComment doAction() throws Throwable {
-
-                BlockCommentParserImpl impl = new BlockCommentParserImpl(
-                        new JavaCCReader(BlockComment));
+                final JavaCCReader reader = new JavaCCReader(BlockComment);
+                BlockCommentParserImpl impl = impls.get();
+                if (impl == null) {
+                    impl = new BlockCommentParserImpl(reader);
+                    impls.set(impl);
+                } else {
+                    impl.ReInit(reader);
+                }
                 return impl.blockComment();
             }
         });
@@ -24,7 +24,9 @@ import static com.pogofish.jadt.ast.JavaComment._JavaBlockComment;
 import static com.pogofish.jadt.ast.JavaComment._JavaDocComment;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.pogofish.jadt.ast.BlockToken;
@@ -124,7 +126,24 @@ public class CommentProcessor {
      * param tag
      */
     public List<JavaComment> paramDoc(final String paramName, List<JavaComment> originals) {
-        final List<JavaComment> results = new ArrayList<JavaComment>(originals.size());
+        final List<JavaComment> results = paramDocs(paramName, originals).get(paramName);
+        return results == null ? new ArrayList<JavaComment>(0) : results;
+    }
+    
+    /**
+     * Like paramDoc, but pulls out the docs for every parameter in a single pass over the comments.  The result maps 
+     * each documented parameter name to what paramDoc would have returned for that name, so a constructor with many 
+     * arguments doesn't have to rescan its comments once per argument
+     */
+    public Map<String, List<JavaComment>> paramDocs(List<JavaComment> originals) {
+        return paramDocs(null, originals);
+    }
+
+    /**
+     * Pull out param docs for the named parameter or, if paramName is null, for all parameters
+     */
+    private Map<String, List<JavaComment>> paramDocs(final String paramName, List<JavaComment> originals) {
+        final Map<String, List<JavaComment>> results = new HashMap<String, List<JavaComment>>();
         for (JavaComment original : originals) {
             original._switch(new JavaComment.SwitchBlock() {
                 @Override
@@ -148,7 +167,7 @@ public class CommentProcessor {
     
 
     private void paramDocSections(String paramName,
-            List<JDTagSection> tagSections, List<JavaComment> results) {
+            List<JDTagSection> tagSections, Map<String, List<JavaComment>> results) {
         for (JDTagSection section : tagSections) {
             if (section.name.equals("@param")) {
                 paramDocSection(paramName, section.tokens, results);
@@ -161,8 +180,9 @@ public class CommentProcessor {
     }
 
     private void paramDocSection(final String paramName, final List<JDToken> tokens,
-            List<JavaComment> results) {
+            Map<String, List<JavaComment>> results) {
         final ParamState state[] = new ParamState[]{ParamState.BEGIN};
+        final String name[] = new String[1];
         @SuppressWarnings("unchecked")
         final List<JDToken>[] accum = new List[1];
         
@@ -183,8 +203,9 @@ public class CommentProcessor {
                         accum[0].add(x);
                         break;
                     case TAGGED: 
-                        if (x.word.equals(paramName)) {
+                        if (paramName == null || x.word.equals(paramName)) {
                             state[0] = ParamState.ACCUMULATING;
+                            name[0] = x.word;
                             accum[0] = new ArrayList<JDToken>(tokens.size() - 1);
                             accum[0].add(_JDEOL("\n"));
                             accum[0].add(_JDWhiteSpace(" "));
@@ -242,7 +263,12 @@ public class CommentProcessor {
         }
         
         if(state[0] == ParamState.ACCUMULATING) {
-            results.add(_JavaDocComment("/**", accum[0], Util.<JDTagSection>list(), "*/"));
+            List<JavaComment> paramResults = results.get(name[0]);
+            if (paramResults == null) {
+                paramResults = new ArrayList<JavaComment>(1);
+                results.put(name[0], paramResults);
+            }
+            paramResults.add(_JavaDocComment("/**", accum[0], Util.<JDTagSection>list(), "*/"));
         }
         
     }
@@ -0,0 +1,58 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.comments;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import com.pogofish.jadt.ast.JavaComment;
+
+/**
+ * An immutable list of the comments on a Constructor that remembers its ConstructorComments, so
+ * the comments are only processed once no matter how many emitters look at them.
+ * 
+ * Safe to share between threads.
+ */
+public final class ConstructorCommentList extends AbstractList<JavaComment> {
+    private final List<JavaComment> comments;
+    
+    private ConstructorComments processed;
+
+    public ConstructorCommentList(List<JavaComment> comments) {
+        super();
+        this.comments = comments;
+    }
+
+    @Override
+    public JavaComment get(int index) {
+        return comments.get(index);
+    }
+
+    @Override
+    public int size() {
+        return comments.size();
+    }
+    
+    /**
+     * The processed comments, computed the first time they're asked for
+     */
+    synchronized ConstructorComments processed() {
+        if (processed == null) {
+            processed = new ConstructorComments(comments);
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,93 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.comments;
+
+import static com.pogofish.jadt.util.Util.set;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.pogofish.jadt.ast.JavaComment;
+
+/**
+ * The comments of a Constructor already processed into all the shapes the emitters need.  Everything is
+ * computed once up front, so emitting a constructor's factory, class, fields, and constructor method
+ * doesn't redo the same left aligning and tag stripping over and over, and finding the doc for each 
+ * argument is a map lookup instead of a scan of the whole JavaDoc.
+ */
+public final class ConstructorComments {
+    private static final CommentProcessor commentProcessor = new CommentProcessor();
+    
+    private static final Set<String> CLASS_STRIP = set("@return", "@param");
+    
+    private static final Set<String> METHOD_STRIP = set("@return");
+    
+    /**
+     * All the comments, left aligned
+     */
+    public final List<JavaComment> aligned;
+    
+    /**
+     * Only the JavaDoc comments, left aligned
+     */
+    public final List<JavaComment> javaDoc;
+    
+    /**
+     * All the comments with @param and @return removed, left aligned
+     */
+    public final List<JavaComment> classDoc;
+    
+    /**
+     * Only the JavaDoc comments with @return removed, left aligned
+     */
+    public final List<JavaComment> constructorDoc;
+    
+    /**
+     * Param name to the doc for that param
+     */
+    private final Map<String, List<JavaComment>> paramDocs;
+
+    /**
+     * Process a list of comments.  If the list is a ConstructorCommentList, as produced by the parser, then
+     * the processing is only done the first time and shared after that
+     */
+    public static ConstructorComments of(List<JavaComment> comments) {
+        if (comments instanceof ConstructorCommentList) {
+            return ((ConstructorCommentList)comments).processed();
+        }
+        return new ConstructorComments(comments);
+    }
+    
+    ConstructorComments(List<JavaComment> comments) {
+        super();
+        final List<JavaComment> javaDocOnly = commentProcessor.javaDocOnly(comments);
+        this.aligned = commentProcessor.leftAlign(comments);
+        this.javaDoc = commentProcessor.leftAlign(javaDocOnly);
+        this.classDoc = commentProcessor.leftAlign(commentProcessor.stripTags(CLASS_STRIP, comments));
+        this.constructorDoc = commentProcessor.leftAlign(commentProcessor.stripTags(METHOD_STRIP, javaDocOnly));
+        this.paramDocs = commentProcessor.paramDocs(javaDoc);
+    }
+
+    /**
+     * The doc for a single param, pulled out of the left aligned JavaDoc
+     */
+    public List<JavaComment> paramDoc(String paramName) {
+        final List<JavaComment> result = paramDocs.get(paramName);
+        return result == null ? Collections.<JavaComment>emptyList() : result;
+    }
+}
@@ -24,18 +24,27 @@ import com.pogofish.jadt.util.ExceptionAction;
 import com.pogofish.jadt.util.Util;
 
 /**
- * Parser for JavaDoc.
+ * Parser for JavaDoc.  Each thread reuses one underlying parser, re-initialized for each comment,
+ * so parsing lots of little comments doesn't keep building new parsers and their buffers.
  * 
  * @author jiry
  */
 public class JavaDocParser {
+    private final ThreadLocal<JavaDocParserImpl> impls = new ThreadLocal<JavaDocParserImpl>();
+    
     public JavaComment parse(final Reader javaDoc) {
         return Util.execute(new ExceptionAction<JavaComment>() {
 
             @Override
             public JavaComment doAction() throws Throwable {
-                JavaDocParserImpl impl = new JavaDocParserImpl(
-                        new JavaCCReader(javaDoc));
+                final JavaCCReader reader = new JavaCCReader(javaDoc);
+                JavaDocParserImpl impl = impls.get();
+                if (impl == null) {
+                    impl = new JavaDocParserImpl(reader);
+                    impls.set(impl);
+                } else {
+                    impl.ReInit(reader);
+                }
                 return impl.javaDoc();
             }
         });
@@ -0,0 +1,280 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.JADT;
+import com.pogofish.jadt.JADTUserErrorsException;
+import com.pogofish.jadt.Version;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Client that asks a running JADTDaemon to do the generating.  If there is no daemon, or it can't be reached, or it is a 
+ * different version of jADT, the client says so and the caller is expected to generate in process instead.  Once a 
+ * daemon has been reached, though, it may already be writing the output, so a connection that fails or a daemon that 
+ * doesn't answer in time is reported as a DaemonException rather than being treated as no daemon.
+ */
+public class DaemonClient {
+    private static final Logger logger = Logger.getLogger(DaemonClient.class.toString());
+    
+    /**
+     * System property that overrides where the daemon's file lives
+     */
+    public static final String FILE_PROPERTY = "jadt.daemon.file";
+    
+    /**
+     * How long to wait to connect to a daemon that has left its file around
+     */
+    static final int CONNECT_TIMEOUT_MILLIS = 2000;
+    
+    /**
+     * How long to wait for a daemon to answer a request by default
+     */
+    public static final int DEFAULT_READ_TIMEOUT_MILLIS = 10 * 60 * 1000;
+    
+    private final File file;
+    private final int readTimeoutMillis;
+    
+    /**
+     * The daemon's file named by the jadt.daemon.file system property, or .jadt/daemon.properties in the user's home directory
+     */
+    public static File defaultFile() {
+        final String fileName = System.getProperty(FILE_PROPERTY);
+        return fileName != null ? new File(fileName) : new File(new File(System.getProperty("user.home"), ".jadt"), "daemon.properties");
+    }
+
+    /**
+     * @param file the file the daemon wrote its port and key to
+     */
+    public DaemonClient(File file) {
+        this(file, DEFAULT_READ_TIMEOUT_MILLIS);
+    }
+    
+    /**
+     * @param file the file the daemon wrote its port and key to
+     * @param readTimeoutMillis how long to wait for the daemon to answer a request before giving up on it
+     */
+    public DaemonClient(File file, int readTimeoutMillis) {
+        super();
+        this.file = file;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+    
+    /**
+     * Generate using the daemon if one can be used, otherwise generate in process with the fallback driver.  The daemon 
+     * generates with the settings in this JVM's system properties, see JADT.configuredSettings().
+     * 
+     * @param fallback JADT driver used if the daemon can't be
+     * @param srcPath full name of the source directory or file
+     * @param destDir full name of the destination directory
+     * @throws JADTUserErrorsException if the daemon found errors in the jADT sources
+     */
+    public void parseAndEmit(JADT fallback, String srcPath, String destDir) {
+        parseAndEmit(fallback, srcPath, destDir, JADT.configuredSettings());
+    }
+
+    /**
+     * Generate using the daemon if one can be used, otherwise generate in process with the fallback driver, which 
+     * should have been configured with the same settings
+     * 
+     * @param fallback JADT driver used if the daemon can't be
+     * @param srcPath full name of the source directory or file
+     * @param destDir full name of the destination directory
+     * @param settings settings the daemon generates with, see JADT.standardConfigDriver(int, Properties)
+     * @throws JADTUserErrorsException if the daemon found errors in the jADT sources
+     */
+    public void parseAndEmit(JADT fallback, String srcPath, String destDir, Properties settings) {
+        parseAndEmit(fallback, Util.list(srcPath), destDir, settings);
+    }
+
+    /**
+     * Generate from several source directories or files using the daemon if one can be used, otherwise generate in 
+     * process with the fallback driver, which should have been configured with the same settings
+     * 
+     * @param fallback JADT driver used if the daemon can't be
+     * @param srcPaths full names of the source directories or files
+     * @param destDir full name of the destination directory
+     * @param settings settings the daemon generates with, see JADT.standardConfigDriver(int, Properties)
+     * @throws JADTUserErrorsException if the daemon found errors in the jADT sources
+     * @throws DaemonException if the daemon was reached but failed to generate or didn't answer
+     * @see JADT#parseAndEmit(List, String)
+     */
+    public void parseAndEmit(JADT fallback, List<String> srcPaths, String destDir, Properties settings) {
+        if (!generate(srcPaths, destDir, settings)) {
+            fallback.parseAndEmit(srcPaths, destDir);
+        }
+    }
+
+    /**
+     * Ask the daemon to generate with the settings in this JVM's system properties.  The paths are resolved by the 
+     * daemon so they should be absolute.
+     * 
+     * @param srcPath full name of the source directory or file
+     * @param destDir full name of the destination directory
+     * @return true if the daemon generated everything, false if there is no daemon that can be used
+     * @throws JADTUserErrorsException if the daemon found errors in the jADT sources
+     * @throws DaemonException if the daemon failed to generate for any other reason
+     */
+    public boolean generate(String srcPath, String destDir) {
+        return generate(srcPath, destDir, JADT.configuredSettings());
+    }
+    
+    /**
+     * Ask the daemon to generate.  The paths are resolved by the daemon so they should be absolute.
+     * 
+     * @param srcPath full name of the source directory or file
+     * @param destDir full name of the destination directory
+     * @param settings settings the daemon generates with, see JADT.standardConfigDriver(int, Properties)
+     * @return true if the daemon generated everything, false if there is no daemon that can be used
+     * @throws JADTUserErrorsException if the daemon found errors in the jADT sources
+     * @throws DaemonException if the daemon failed to generate for any other reason
+     */
+    public boolean generate(String srcPath, String destDir, Properties settings) {
+        return generate(Util.list(srcPath), destDir, settings);
+    }
+    
+    /**
+     * Ask the daemon to generate from several source directories or files.  The paths are resolved by the daemon so 
+     * they should be absolute.
+     * 
+     * @param srcPaths full names of the source directories or files
+     * @param destDir full name of the destination directory
+     * @param settings settings the daemon generates with, see JADT.standardConfigDriver(int, Properties)
+     * @return true if the daemon generated everything, false if there is no daemon that can be used
+     * @throws JADTUserErrorsException if the daemon found errors in the jADT sources
+     * @throws DaemonException if the daemon failed to generate for any other reason
+     */
+    public boolean generate(List<String> srcPaths, String destDir, Properties settings) {
+        return send(Protocol.GENERATE, srcPaths, destDir, settings);
+    }
+    
+    /**
+     * Ask the daemon to stop
+     * 
+     * @return true if the daemon is stopping, false if there is no daemon that can be reached
+     * @throws DaemonException if the daemon was reached but didn't answer
+     */
+    public boolean stop() {
+        return send(Protocol.STOP, null, null, null);
+    }
+    
+    /**
+     * Send a command with, for GENERATE, its source paths, destination directory and settings
+     */
+    private boolean send(String command, List<String> srcPaths, String destDir, Properties settings) {
+        if (!file.exists()) {
+            logger.fine("No jADT daemon file at " + file + ".");
+            return false;
+        }
+        try {
+            final Properties properties = new Properties();
+            final InputStream fileIn = new FileInputStream(file);
+            try {
+                properties.load(fileIn);
+            } finally {
+                fileIn.close();
+            }
+            final String key = properties.getProperty(Protocol.KEY);
+            final String port = properties.getProperty(Protocol.PORT);
+            if (key == null || port == null) {
+                logger.warning("jADT daemon file " + file + " is missing its key or port.");
+                return false;
+            }
+            
+            final Socket socket = new Socket();
+            try {
+                try {
+                    socket.connect(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), Integer.parseInt(port)), CONNECT_TIMEOUT_MILLIS);
+                } catch (IOException e) {
+                    logger.log(Level.INFO, "Could not connect to the jADT daemon described by " + file + ".", e);
+                    return false;
+                }
+                return send(socket, port, key, command, srcPaths, destDir, settings);
+            } finally {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // the answer has already been read, if there was one
+                    logger.log(Level.FINE, "Could not close the connection to the jADT daemon.", e);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.INFO, "Could not read the jADT daemon file " + file + ".", e);
+            return false;
+        } catch (NumberFormatException e) {
+            logger.warning("jADT daemon file " + file + " has a bad port.");
+            return false;
+        }
+    }
+    
+    /**
+     * Send a command over a connected socket and wait for the answer
+     * 
+     * @throws DaemonException if the connection fails or the daemon doesn't answer in time
+     */
+    private boolean send(Socket socket, String port, String key, String command, List<String> srcPaths, String destDir, Properties settings) {
+        try {
+            socket.setSoTimeout(readTimeoutMillis);
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            Protocol.write(out, key);
+            Protocol.write(out, new Version().getVersion());
+            Protocol.write(out, command);
+            if (srcPaths != null) {
+                Protocol.writeStrings(out, srcPaths);
+                Protocol.write(out, destDir);
+                Protocol.writeSettings(out, settings);
+            }
+            out.flush();
+            
+            final String status = Protocol.read(in);
+            final String message = Protocol.read(in);
+            if (Protocol.OK.equals(status)) {
+                logger.info("jADT daemon on port " + port + " handled " + command + ".");
+                return true;
+            } else if (Protocol.USER_ERRORS.equals(status)) {
+                throw new JADTUserErrorsException(Protocol.readErrors(in));
+            } else if (Protocol.FAILED.equals(status)) {
+                throw new DaemonException(message);
+            } else if (Protocol.WRONG_VERSION.equals(status)) {
+                logger.info("jADT daemon is version " + message + ", not using it.");
+            } else {
+                logger.warning("jADT daemon refused the request: " + status + " " + message);
+            }
+            return false;
+        } catch (SocketTimeoutException e) {
+            throw new DaemonException("jADT daemon on port " + port + " didn't answer " + command + " within " + readTimeoutMillis + " ms", e);
+        } catch (IOException e) {
+            throw new DaemonException("Lost the connection to the jADT daemon on port " + port + " during " + command + ": " + e, e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.daemon;
+
+/**
+ * Exception thrown by a DaemonClient when a daemon was reached but failed to generate for some reason other than errors in
+ * the jADT sources, e.g. a source that couldn't be read, or when the connection to the daemon failed part way through a request.  The
+ * message is the one the daemon's driver failed with, or says what went wrong with the connection.
+ */
+public class DaemonException extends RuntimeException {
+
+    private static final long serialVersionUID = -2178327140129853547L;
+
+    public DaemonException(String message) {
+        super(message);
+    }
+
+    public DaemonException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
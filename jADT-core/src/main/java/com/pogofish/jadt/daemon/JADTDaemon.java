@@ -0,0 +1,293 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.JADT;
+import com.pogofish.jadt.JADTUserErrorsException;
+import com.pogofish.jadt.Version;
+
+/**
+ * Long running server that keeps warmed up JADT drivers around and generates on behalf of DaemonClients, so repeated 
+ * builds don't each pay for class loading and an unwarmed JIT.  Each request carries the client's settings, see
+ * JADT.configuredSettings(), and the daemon keeps a driver for each different set of settings it has been sent.  Errors 
+ * in the jADT sources are sent back so the client can throw the same JADTUserErrorsException a driver would have.
+ * 
+ * The daemon only listens on the loopback interface.  When started it writes its port and a random key to its file, 
+ * readable only by its owner, and it refuses any request that doesn't carry that key.  Requests are handled one at a time
+ * so the driver is never used by two builds at once; a driver with worker threads still uses them within a request.
+ */
+public class JADTDaemon {
+    private static final Logger logger = Logger.getLogger(JADTDaemon.class.toString());
+    
+    /**
+     * How long the daemon waits for a client to finish sending a request
+     */
+    static final int READ_TIMEOUT_MILLIS = 10000;
+    
+    /**
+     * The driver every request uses whatever its settings, or null to use one configured by the request
+     */
+    private final JADT jadt;
+    private final int threads;
+    private final Map<Properties, JADT> drivers = new HashMap<Properties, JADT>();
+    private final File file;
+    private final String version;
+    private volatile ServerSocket serverSocket = null;
+    private String key = null;
+    
+    /**
+     * Start a daemon with the standard configuration that writes its port and key to DaemonClient.defaultFile() and 
+     * serves until it is stopped.
+     * 
+     * @param args optionally the number of worker threads the driver uses, defaults to the number of processors
+     * @throws IOException if the daemon can't be started
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 1) {
+            throw new IllegalArgumentException("usage: java com.pogofish.jadt.daemon.JADTDaemon [threads]");
+        }
+        final int threads = args.length == 0 ? Runtime.getRuntime().availableProcessors() : Integer.parseInt(args[0]);
+        final JADTDaemon daemon = new JADTDaemon(threads, DaemonClient.defaultFile());
+        daemon.start();
+        daemon.serve();
+    }
+    
+    /**
+     * @param threads maximum number of worker threads each standard driver uses, must be at least 1
+     * @param file where the port and key are written so clients can find the daemon
+     */
+    public JADTDaemon(int threads, File file) {
+        this(null, threads, file);
+    }
+    
+    /**
+     * @param jadt the driver that does all the generating, whatever settings the clients send
+     * @param file where the port and key are written so clients can find the daemon
+     */
+    public JADTDaemon(JADT jadt, File file) {
+        this(jadt, 1, file);
+    }
+    
+    private JADTDaemon(JADT jadt, int threads, File file) {
+        super();
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1 but was " + threads);
+        }
+        this.jadt = jadt;
+        this.threads = threads;
+        this.file = file;
+        this.version = new Version().getVersion();
+    }
+
+    /**
+     * Bind to a free port on the loopback interface and write the daemon's file
+     * 
+     * @throws IOException if the socket can't be bound or the file can't be written
+     */
+    public void start() throws IOException {
+        final byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        final StringBuilder builder = new StringBuilder();
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        key = builder.toString();
+        
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        try {
+            writeFile();
+        } catch (IOException e) {
+            serverSocket.close();
+            throw e;
+        }
+        logger.info("jADT daemon version " + version + " listening on port " + getPort() + ".");
+    }
+    
+    private void writeFile() throws IOException {
+        final File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+        final Properties properties = new Properties();
+        properties.setProperty(Protocol.PORT, Integer.toString(getPort()));
+        properties.setProperty(Protocol.KEY, key);
+        
+        // lock the file down before the key goes into it
+        file.delete();
+        if (!file.createNewFile()) {
+            throw new IOException("Could not create " + file);
+        }
+        file.setReadable(false, false);
+        file.setWritable(false, false);
+        file.setReadable(true, true);
+        file.setWritable(true, true);
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            properties.store(out, "jADT daemon");
+        } finally {
+            out.close();
+        }
+    }
+    
+    /**
+     * The port the daemon is listening on
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Handle requests until the daemon is stopped, either by a client or by stop()
+     */
+    public void serve() {
+        while (true) {
+            final Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    logger.info("jADT daemon stopped.");
+                    return;
+                }
+                logger.log(Level.WARNING, "Could not accept a connection.", e);
+                continue;
+            }
+            try {
+                handle(socket);
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not handle a request.", e);
+            } finally {
+                close(socket);
+            }
+        }
+    }
+
+    /**
+     * Stop serving and delete the daemon's file.  A request that is being handled is finished first.
+     */
+    public void stop() {
+        file.delete();
+        final ServerSocket serverSocket = this.serverSocket;
+        if (serverSocket != null) {
+            close(serverSocket);
+        }
+    }
+    
+    private void handle(Socket socket) throws IOException {
+        socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        
+        if (!MessageDigest.isEqual(key.getBytes("UTF-8"), Protocol.read(in).getBytes("UTF-8"))) {
+            logger.warning("Refusing a request with the wrong key.");
+            respond(out, Protocol.DENIED, "wrong key");
+            return;
+        }
+        final String clientVersion = Protocol.read(in);
+        if (!version.equals(clientVersion)) {
+            logger.info("Refusing a request from jADT version " + clientVersion + ".");
+            respond(out, Protocol.WRONG_VERSION, version);
+            return;
+        }
+        
+        final String command = Protocol.read(in);
+        if (Protocol.STOP.equals(command)) {
+            respond(out, Protocol.OK, "");
+            stop();
+        } else if (Protocol.GENERATE.equals(command)) {
+            final List<String> srcPaths = Protocol.readStrings(in);
+            final String destDir = Protocol.read(in);
+            final Properties settings = Protocol.readSettings(in);
+            // generating can take a while, that's not the client's fault
+            socket.setSoTimeout(0);
+            try {
+                driver(settings).parseAndEmit(srcPaths, destDir);
+            } catch (JADTUserErrorsException e) {
+                logger.log(Level.FINE, "Errors in " + srcPaths + ".", e);
+                Protocol.write(out, Protocol.USER_ERRORS);
+                Protocol.write(out, e.getMessage());
+                Protocol.writeErrors(out, e.getErrors());
+                out.flush();
+                return;
+            } catch (RuntimeException e) {
+                logger.log(Level.FINE, "Generating from " + srcPaths + " failed.", e);
+                respond(out, Protocol.FAILED, e.getMessage() == null ? e.toString() : e.getMessage());
+                return;
+            }
+            respond(out, Protocol.OK, "");
+        } else {
+            respond(out, Protocol.FAILED, "Unknown command " + command);
+        }
+    }
+    
+    /**
+     * The driver for a request with the given settings
+     */
+    JADT driver(Properties settings) {
+        if (jadt != null) {
+            return jadt;
+        }
+        JADT driver = drivers.get(settings);
+        if (driver == null) {
+            logger.info("Starting a jADT driver with settings " + settings + ".");
+            driver = JADT.standardConfigDriver(threads, settings);
+            drivers.put(settings, driver);
+        }
+        return driver;
+    }
+    
+    private static void respond(DataOutputStream out, String status, String message) throws IOException {
+        Protocol.write(out, status);
+        Protocol.write(out, message);
+        out.flush();
+    }
+    
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not close socket.", e);
+        }
+    }
+    
+    private static void close(ServerSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not close server socket.", e);
+        }
+    }
+}
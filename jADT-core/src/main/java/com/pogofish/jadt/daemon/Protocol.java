@@ -0,0 +1,242 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import com.pogofish.jadt.errors.SemanticError;
+import com.pogofish.jadt.errors.SemanticError.ConstructorDataTypeConflict;
+import com.pogofish.jadt.errors.SemanticError.DuplicateArgName;
+import com.pogofish.jadt.errors.SemanticError.DuplicateConstructor;
+import com.pogofish.jadt.errors.SemanticError.DuplicateDataType;
+import com.pogofish.jadt.errors.SemanticError.DuplicateDataTypeInSources;
+import com.pogofish.jadt.errors.SemanticError.DuplicateModifier;
+import com.pogofish.jadt.errors.SemanticError.UnresolvedType;
+import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.errors.UserError;
+import com.pogofish.jadt.errors.UserError.Semantic;
+import com.pogofish.jadt.errors.UserError.Syntactic;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * The little wire protocol spoken between a DaemonClient and a JADTDaemon.  A request is the daemon's key, the client's
+ * jADT version, a command, and the command's arguments.  A response is a status followed by a message, and for
+ * USER_ERRORS the errors themselves.  Every string is sent as its length in bytes followed by its UTF-8 bytes, and
+ * lists of source paths, settings and errors are sent as a count followed by that many entries.
+ */
+final class Protocol {
+    static final String GENERATE = "GENERATE";
+    static final String STOP = "STOP";
+    
+    static final String OK = "OK";
+    static final String FAILED = "FAILED";
+    static final String USER_ERRORS = "USER_ERRORS";
+    static final String DENIED = "DENIED";
+    static final String WRONG_VERSION = "WRONG_VERSION";
+    
+    /**
+     * Names of the properties in a daemon's file
+     */
+    static final String PORT = "port";
+    static final String KEY = "key";
+    
+    /**
+     * Longest string either side will read, anything longer means the other end isn't speaking this protocol
+     */
+    static final int MAX_LENGTH = 16 * 1024 * 1024;
+    
+    /**
+     * Most source paths, settings or errors either side will read
+     */
+    static final int MAX_COUNT = 64 * 1024;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    
+    private Protocol() {
+        // not meant to be instantiated
+    }
+
+    static void write(DataOutputStream out, String string) throws IOException {
+        final byte[] bytes = string.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    static String read(DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0 || length > MAX_LENGTH) {
+            throw new IOException("Bad string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF8);
+    }
+    
+    static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            write(out, string);
+        }
+    }
+    
+    static List<String> readStrings(DataInputStream in) throws IOException {
+        final int count = readCount(in);
+        final List<String> strings = new ArrayList<String>(count);
+        for (int n = 0; n < count; n++) {
+            strings.add(read(in));
+        }
+        return strings;
+    }
+    
+    static void writeSettings(DataOutputStream out, Properties settings) throws IOException {
+        final Set<String> names = settings.stringPropertyNames();
+        out.writeInt(names.size());
+        for (String name : names) {
+            write(out, name);
+            write(out, settings.getProperty(name));
+        }
+    }
+    
+    static Properties readSettings(DataInputStream in) throws IOException {
+        final int count = readCount(in);
+        final Properties settings = new Properties();
+        for (int n = 0; n < count; n++) {
+            final String name = read(in);
+            settings.setProperty(name, read(in));
+        }
+        return settings;
+    }
+    
+    /**
+     * Each error is its constructor's name followed by the constructor's arguments
+     */
+    static void writeErrors(final DataOutputStream out, List<UserError> errors) throws IOException {
+        out.writeInt(errors.size());
+        for (UserError error : errors) {
+            final List<String> strings = error.match(new UserError.MatchBlock<List<String>>() {
+                @Override
+                public List<String> _case(Semantic x) {
+                    return strings(x.error);
+                }
+
+                @Override
+                public List<String> _case(Syntactic x) {
+                    return Util.list("UnexpectedToken", x.error.expected, x.error.found, Integer.toString(x.error.line));
+                }
+            });
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                write(out, string);
+            }
+        }
+    }
+    
+    private static List<String> strings(SemanticError error) {
+        return error.match(new SemanticError.MatchBlock<List<String>>() {
+            @Override
+            public List<String> _case(DuplicateDataType x) {
+                return Util.list("DuplicateDataType", x.dataTypeName);
+            }
+
+            @Override
+            public List<String> _case(ConstructorDataTypeConflict x) {
+                return Util.list("ConstructorDataTypeConflict", x.dataTypeName);
+            }
+
+            @Override
+            public List<String> _case(DuplicateConstructor x) {
+                return Util.list("DuplicateConstructor", x.dataTypeName, x.constructorName);
+            }
+
+            @Override
+            public List<String> _case(DuplicateArgName x) {
+                return Util.list("DuplicateArgName", x.dataTypeName, x.constructorName, x.argName);
+            }
+
+            @Override
+            public List<String> _case(DuplicateModifier x) {
+                return Util.list("DuplicateModifier", x.dataTypeName, x.constructorName, x.argName, x.modifier);
+            }
+
+            @Override
+            public List<String> _case(DuplicateDataTypeInSources x) {
+                return Util.list("DuplicateDataTypeInSources", x.dataTypeName, x.srcInfo, x.otherSrcInfo);
+            }
+
+            @Override
+            public List<String> _case(UnresolvedType x) {
+                return Util.list("UnresolvedType", x.dataTypeName, x.typeName);
+            }
+        });
+    }
+    
+    static List<UserError> readErrors(DataInputStream in) throws IOException {
+        final int count = readCount(in);
+        final List<UserError> errors = new ArrayList<UserError>(count);
+        for (int n = 0; n < count; n++) {
+            final int size = readCount(in);
+            final String[] args = new String[size];
+            for (int i = 0; i < size; i++) {
+                args[i] = read(in);
+            }
+            errors.add(error(args));
+        }
+        return errors;
+    }
+    
+    private static UserError error(String[] args) throws IOException {
+        try {
+            final String name = args[0];
+            if ("UnexpectedToken".equals(name)) {
+                return UserError._Syntactic(SyntaxError._UnexpectedToken(args[1], args[2], Integer.parseInt(args[3])));
+            } else if ("DuplicateDataType".equals(name)) {
+                return UserError._Semantic(SemanticError._DuplicateDataType(args[1]));
+            } else if ("ConstructorDataTypeConflict".equals(name)) {
+                return UserError._Semantic(SemanticError._ConstructorDataTypeConflict(args[1]));
+            } else if ("DuplicateConstructor".equals(name)) {
+                return UserError._Semantic(SemanticError._DuplicateConstructor(args[1], args[2]));
+            } else if ("DuplicateArgName".equals(name)) {
+                return UserError._Semantic(SemanticError._DuplicateArgName(args[1], args[2], args[3]));
+            } else if ("DuplicateModifier".equals(name)) {
+                return UserError._Semantic(SemanticError._DuplicateModifier(args[1], args[2], args[3], args[4]));
+            } else if ("DuplicateDataTypeInSources".equals(name)) {
+                return UserError._Semantic(SemanticError._DuplicateDataTypeInSources(args[1], args[2], args[3]));
+            } else if ("UnresolvedType".equals(name)) {
+                return UserError._Semantic(SemanticError._UnresolvedType(args[1], args[2]));
+            }
+            throw new IOException("Unknown error " + name);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Error is missing arguments");
+        } catch (NumberFormatException e) {
+            throw new IOException("Error has a bad line number");
+        }
+    }
+    
+    private static int readCount(DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Bad count " + count);
+        }
+        return count;
+    }
+}
@@ -15,6 +15,7 @@ limitations under the License.
 */
 package com.pogofish.jadt.emitter;
 
+import com.pogofish.jadt.ast.DataType;
 import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.sink.SinkFactory;
 
@@ -34,4 +35,13 @@ public interface DocEmitter {
      */
     public abstract void emit(SinkFactory factory, Doc doc);
 
+    /**
+     * Emits a single data type of a document that is being emitted one data type at a time
+     * 
+     * @param factory SinkFactory that will produce sinks for output
+     * @param doc Document the data type belongs to, only its srcInfo, package, and imports are used
+     * @param dataType DataType to output
+     */
+    public abstract void emit(SinkFactory factory, Doc doc, DataType dataType);
+
 }
\ No newline at end of file
@@ -15,6 +15,7 @@ limitations under the License.
 */
 package com.pogofish.jadt.emitter;
 
+import com.pogofish.jadt.ast.DataType;
 import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.sink.Sink;
 import com.pogofish.jadt.sink.SinkFactory;
@@ -53,4 +54,20 @@ public class DummyDocEmitter implements DocEmitter {
         }
     }
 
+    /**
+     * Outputs the srcInfo of the doc once per data type.  The doc only has to match the test doc's srcInfo, package, and imports
+     */
+    @Override
+    public void emit(SinkFactory factory, Doc doc, DataType dataType) {
+        if (!testDoc.srcInfo.equals(doc.srcInfo) || !testDoc.pkg.equals(doc.pkg) || !testDoc.imports.equals(doc.imports)) {
+            throw new RuntimeException("testDoc and doc argument did not have the same srcInfo, package, and imports");
+        }
+        final Sink sink = factory.createSink(className);
+        try {
+            sink.write(doc.srcInfo);
+        } finally {
+            sink.close();
+        }
+    }
+
 }
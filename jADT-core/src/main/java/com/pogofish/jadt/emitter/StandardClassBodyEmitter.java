@@ -15,15 +15,11 @@ limitations under the License.
 */
 package com.pogofish.jadt.emitter;
 
-import static com.pogofish.jadt.util.Util.set;
-
 import java.util.List;
-import java.util.Set;
 import java.util.logging.Logger;
 
 import com.pogofish.jadt.ast.Arg;
 import com.pogofish.jadt.ast.Constructor;
-import com.pogofish.jadt.ast.JavaComment;
 import com.pogofish.jadt.ast.PrimitiveType;
 import com.pogofish.jadt.ast.PrimitiveType.BooleanType;
 import com.pogofish.jadt.ast.PrimitiveType.ByteType;
@@ -36,13 +32,11 @@ import com.pogofish.jadt.ast.RefType.ClassType;
 import com.pogofish.jadt.ast.Type;
 import com.pogofish.jadt.ast.Type.Primitive;
 import com.pogofish.jadt.ast.Type.Ref;
-import com.pogofish.jadt.comments.CommentProcessor;
+import com.pogofish.jadt.comments.ConstructorComments;
 import com.pogofish.jadt.printer.ASTPrinter;
 import com.pogofish.jadt.sink.Sink;
 
 public class StandardClassBodyEmitter implements ClassBodyEmitter {
-    private static final Set<String> CONSTRUCTOR_METHOD_STRIP = set("@return");
-    private static final CommentProcessor commentProcessor = new CommentProcessor();
 	private static final Logger logger = Logger.getLogger(StandardClassBodyEmitter.class.toString());
     
     /* (non-Javadoc)
@@ -58,7 +52,7 @@ public class StandardClassBodyEmitter implements ClassBodyEmitter {
         		sink.write("   @SuppressWarnings(\"rawtypes\")\n");
         	}
             sink.write("   private static final " + dataTypeName + " _" + factoryName + " = new " + constructor.name + "();\n");
-            sink.write(ASTPrinter.printComments("   ", commentProcessor.leftAlign(commentProcessor.javaDocOnly(constructor.comments))));
+            ASTPrinter.printComments(sink, "   ", ConstructorComments.of(constructor.comments).javaDoc);
         	if (!typeParametrs.isEmpty()) {
         		sink.write("   @SuppressWarnings(\"unchecked\")\n");
         	}
@@ -70,7 +64,7 @@ public class StandardClassBodyEmitter implements ClassBodyEmitter {
         	sink.write(" _" + factoryName + "() { return _" + factoryName + "; }");
         } else {
         	logger.finest("Generating args factory for " + constructor.name);
-            sink.write(ASTPrinter.printComments("   ", commentProcessor.leftAlign(constructor.comments)));
+            ASTPrinter.printComments(sink, "   ", ConstructorComments.of(constructor.comments).aligned);
             sink.write("   public static final ");
             emitParameterizedTypeName(sink, typeParametrs);
         	sink.write(" ");
@@ -94,7 +88,7 @@ public class StandardClassBodyEmitter implements ClassBodyEmitter {
             } else {
                 sink.write(", ");
             }
-            sink.write(constructorArg(arg, withTypes));
+            constructorArg(sink, arg, withTypes);
         }
     }
     
@@ -105,16 +99,19 @@ public class StandardClassBodyEmitter implements ClassBodyEmitter {
     @Override
     public void emitConstructorMethod(Sink sink, String indent, Constructor constructor) {
     	logger.finest("Generating constructor method for " + constructor.name);
-    	final List<JavaComment> javaDoc = commentProcessor.leftAlign(commentProcessor.javaDocOnly(constructor.comments));
+    	final ConstructorComments comments = ConstructorComments.of(constructor.comments);
     	for (Arg arg : constructor.args) {
-    	    final List<JavaComment> paramDoc = commentProcessor.paramDoc(arg.name, javaDoc);
-    	    sink.write(ASTPrinter.printComments(indent, paramDoc));
-            sink.write(indent + "public ");
-            sink.write(ASTPrinter.printArgModifiers(arg.modifiers));
-            sink.write(ASTPrinter.print(arg.type) + " " + arg.name + ";\n");
+    	    ASTPrinter.printComments(sink, indent, comments.paramDoc(arg.name));
+            sink.write(indent);
+            sink.write("public ");
+            ASTPrinter.printArgModifiers(sink, arg.modifiers);
+            ASTPrinter.print(sink, arg.type);
+            sink.write(" ");
+            sink.write(arg.name);
+            sink.write(";\n");
         }
     	sink.write("\n");
-        sink.write(ASTPrinter.printComments(indent, commentProcessor.leftAlign(commentProcessor.stripTags(CONSTRUCTOR_METHOD_STRIP, commentProcessor.javaDocOnly(constructor.comments)))));    	
+        ASTPrinter.printComments(sink, indent, comments.constructorDoc);
         sink.write(indent + "public " + constructor.name + "("); 
         constructorArgs(sink, constructor, true);        
         sink.write(") {");
@@ -287,7 +284,11 @@ public class StandardClassBodyEmitter implements ClassBodyEmitter {
 		}
 		
 	}    
-	private String constructorArg(Arg arg, boolean withType) {
-        return withType ? (ASTPrinter.print(arg.type) + " " + arg.name) : arg.name;
+	private void constructorArg(Sink sink, Arg arg, boolean withType) {
+	    if (withType) {
+	        ASTPrinter.print(sink, arg.type);
+	        sink.write(" ");
+	    }
+	    sink.write(arg.name);
     }    
 }
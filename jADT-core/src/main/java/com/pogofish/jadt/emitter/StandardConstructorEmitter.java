@@ -15,15 +15,12 @@ limitations under the License.
 */
 package com.pogofish.jadt.emitter;
 
-import static com.pogofish.jadt.util.Util.set;
-
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import java.util.logging.Logger;
 
 import com.pogofish.jadt.ast.Constructor;
-import com.pogofish.jadt.comments.CommentProcessor;
+import com.pogofish.jadt.comments.ConstructorComments;
 import com.pogofish.jadt.printer.ASTPrinter;
 import com.pogofish.jadt.sink.Sink;
 
@@ -32,8 +29,6 @@ public class StandardConstructorEmitter implements ConstructorEmitter {
 	private static final String INDENT = "      ";
     private static final Logger logger = Logger.getLogger(StandardConstructorEmitter.class.toString());
     private final ClassBodyEmitter classBodyEmitter;
-    private final CommentProcessor commentProcessor = new CommentProcessor();
-    private static final Set<String> CONSTRUCTOR_CLASS_STRIP = set("@return", "@param");
     
     public StandardConstructorEmitter(ClassBodyEmitter classBodyEmitter) {
         super();
@@ -48,7 +43,7 @@ public class StandardConstructorEmitter implements ConstructorEmitter {
     @Override
     public void constructorDeclaration(Sink sink, Constructor constructor, String dataTypeName, List<String> typeParameters) {
     	logger.finer("Generating constructor class for " + constructor.name + " in datatype " + dataTypeName);
-    	sink.write(ASTPrinter.printComments("   ", commentProcessor.leftAlign(commentProcessor.stripTags(CONSTRUCTOR_CLASS_STRIP, constructor.comments))));
+    	ASTPrinter.printComments(sink, "   ", ConstructorComments.of(constructor.comments).classDoc);
     	sink.write("   public static final class " + constructor.name);
         classBodyEmitter.emitParameterizedTypeName(sink, typeParameters);
         sink.write(" extends " + dataTypeName);
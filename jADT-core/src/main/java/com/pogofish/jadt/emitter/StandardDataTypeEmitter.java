@@ -53,12 +53,12 @@ public class StandardDataTypeEmitter implements DataTypeEmitter {
     public void emit(Sink sink, DataType dataType, String header) {
     	logger.fine("Generating data type " + dataType.name + ".");
         sink.write(header);
-        sink.write(ASTPrinter.print(dataType));
+        ASTPrinter.print(sink, dataType);
         sink.write("\n*/\n");
 
-        sink.write(ASTPrinter.printComments("", commentProcessor.leftAlign(dataType.comments)));
+        ASTPrinter.printComments(sink, "", commentProcessor.leftAlign(dataType.comments));
         for (Annotation annotation : dataType.annotations) {
-            sink.write(ASTPrinter.print(annotation));
+            ASTPrinter.print(sink, annotation);
             sink.write("\n");
         }
         if (dataType.constructors.size() == 1) {
@@ -74,7 +74,7 @@ public class StandardDataTypeEmitter implements DataTypeEmitter {
             @Override
             public void _case(Some<RefType> x) {
                 sink.write(" extends ");
-                sink.write(ASTPrinter.print(x.value));
+                ASTPrinter.print(sink, x.value);
             }
 
             @Override
@@ -90,7 +90,7 @@ public class StandardDataTypeEmitter implements DataTypeEmitter {
                 } else {
                     sink.write(", ");
                 }
-                sink.write(ASTPrinter.print(type));
+                ASTPrinter.print(sink, type);
             }
         }
     }
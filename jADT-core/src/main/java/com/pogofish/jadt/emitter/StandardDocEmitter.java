@@ -15,6 +15,10 @@ limitations under the License.
 */
 package com.pogofish.jadt.emitter;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import com.pogofish.jadt.Version;
@@ -25,6 +29,8 @@ import com.pogofish.jadt.comments.CommentProcessor;
 import com.pogofish.jadt.printer.ASTPrinter;
 import com.pogofish.jadt.sink.Sink;
 import com.pogofish.jadt.sink.SinkFactory;
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
 
 
 
@@ -32,10 +38,31 @@ public class StandardDocEmitter implements DocEmitter {
 	private static final Logger logger = Logger.getLogger(StandardConstructorEmitter.class.toString());
     private final DataTypeEmitter dataTypeEmitter;
     private final CommentProcessor commentProcessor = new CommentProcessor();
+    /**
+     * Executor used to emit DataTypes concurrently, null means everything is emitted on the calling thread
+     */
+    private final ExecutorService executor;
+    /**
+     * The last Doc emitted a DataType at a time and its header.  Streaming emits many DataTypes from the same Doc one after 
+     * another, so this keeps the header from being rebuilt for each of them.
+     */
+    private volatile Header lastHeader = null;
         
     public StandardDocEmitter(DataTypeEmitter dataTypeEmitter) {
+        this(dataTypeEmitter, null);
+    }
+    
+    /**
+     * Creates a StandardDocEmitter that emits each DataType of a Doc as a separate task on the given executor.
+     * Sinks are always created on the calling thread so SinkFactories don't need to be thread safe.
+     * 
+     * @param dataTypeEmitter DataTypeEmitter used for each DataType
+     * @param executor ExecutorService to emit on, or null to emit on the calling thread
+     */
+    public StandardDocEmitter(DataTypeEmitter dataTypeEmitter, ExecutorService executor) {
         super();
         this.dataTypeEmitter = dataTypeEmitter;
+        this.executor = executor;
     }
 
     /* (non-Javadoc)
@@ -44,12 +71,76 @@ public class StandardDocEmitter implements DocEmitter {
     @Override
     public void emit(SinkFactory factory, Doc doc) {
     	logger.fine("Generating Java source based on " + doc.srcInfo);
+        final String header = header(doc);
+        
+        if (executor == null || doc.dataTypes.size() < 2) {
+            for (DataType dataType : doc.dataTypes) {
+                final Sink sink = factory.createSink(className(doc, dataType));
+                emit(sink, dataType, header);
+            }
+        } else {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>(doc.dataTypes.size());
+            try {
+                for (final DataType dataType : doc.dataTypes) {
+                    final Sink sink = factory.createSink(className(doc, dataType));
+                    futures.add(Util.submit(executor, new ExceptionAction<Void>() {
+                        @Override
+                        public Void doAction() throws Throwable {
+                            emit(sink, dataType, header);
+                            return null;
+                        }
+                    }));
+                }
+            } finally {
+                // wait for everything that was submitted, the first failure in DataType order wins
+                RuntimeException failure = null;
+                for (Future<Void> future : futures) {
+                    try {
+                        Util.get(future);
+                    } catch (RuntimeException e) {
+                        if (failure == null) {
+                            failure = e;
+                        }
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Emits a single DataType on the calling thread
+     */
+    @Override
+    public void emit(SinkFactory factory, Doc doc, DataType dataType) {
+        Header header = lastHeader;
+        if (header == null || header.doc != doc) {
+            header = new Header(doc, header(doc));
+            lastHeader = header;
+        }
+        emit(factory.createSink(className(doc, dataType)), dataType, header.header);
+    }
+    
+    /**
+     * The full name of the class generated for a DataType
+     */
+    private static String className(Doc doc, DataType dataType) {
+        return doc.pkg.name.isEmpty() ? dataType.name : doc.pkg.name + "." + dataType.name;
+    }
+    
+    /**
+     * The header that starts every file generated from a Doc: package, imports, and the beginning of a comment
+     * that the DataTypeEmitter finishes
+     */
+    private String header(Doc doc) {
         final StringBuilder header = new StringBuilder();
-        header.append(ASTPrinter.printComments("", commentProcessor.leftAlign(doc.pkg.comments)));
+        ASTPrinter.printComments(header, "", commentProcessor.leftAlign(doc.pkg.comments));
         header.append(doc.pkg.name.isEmpty() ? "" : ("package " + doc.pkg.name + ";\n\n"));
         if (!doc.imports.isEmpty()) {
             for (Imprt imp : doc.imports) {
-                header.append(ASTPrinter.printComments("", commentProcessor.leftAlign(imp.comments)));
+                ASTPrinter.printComments(header, "", commentProcessor.leftAlign(imp.comments));
                 header.append("import " + imp.name + ";\n");
             }
             header.append("\n");
@@ -57,15 +148,32 @@ public class StandardDocEmitter implements DocEmitter {
         final String version = new Version().getVersion();
         header.append("/*\nThis file was generated based on " + doc.srcInfo + " using jADT version " + version + " http://jamesiry.github.com/jADT/ . Please do not modify directly.\n\n");
         header.append("The source was parsed as: \n\n");
+        return header.toString();
+    }
+    
+    /**
+     * Emit a single DataType to a sink and close the sink
+     */
+    private void emit(Sink sink, DataType dataType, String header) {
+        logger.info("Generating " + sink.getInfo());
+        try {
+            dataTypeEmitter.emit(sink, dataType, header);
+        } finally {
+            sink.close();
+        }
+    }
+    
+    /**
+     * A Doc and the header generated for it
+     */
+    private static final class Header {
+        final Doc doc;
+        final String header;
         
-        for (DataType dataType : doc.dataTypes) {
-            final Sink sink = factory.createSink(doc.pkg.name.isEmpty() ? dataType.name : doc.pkg.name + "." + dataType.name);
-            logger.info("Generating " + sink.getInfo());
-            try {
-                dataTypeEmitter.emit(sink, dataType, header.toString());
-            } finally {
-                sink.close();
-            }
-        }        
+        Header(Doc doc, String header) {
+            super();
+            this.doc = doc;
+            this.header = header;
+        }
     }
 }
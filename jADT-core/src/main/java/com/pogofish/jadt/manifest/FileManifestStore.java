@@ -0,0 +1,149 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.manifest;
+
+import static com.pogofish.jadt.util.Util.list;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * ManifestStore that keeps the manifest as a properties file named MANIFEST_NAME in the output directory
+ */
+public class FileManifestStore implements ManifestStore {
+    private static final Logger logger = Logger.getLogger(FileManifestStore.class.toString());
+
+    /**
+     * Name of the manifest file within the output directory
+     */
+    public static final String MANIFEST_NAME = ".jadt-manifest";
+    
+    private static final String HASH = "hash:";
+    private static final String VERSION = "version:";
+    private static final String CLASSES = "classes:";
+    private static final String STARTED = "started";
+
+    @Override
+    public Manifest load(String destDir) {
+        final File file = manifestFile(destDir);
+        final Manifest manifest = new Manifest();
+        if (!file.exists()) {
+            logger.fine("No manifest found at " + file);
+            return manifest;
+        }
+        final Properties properties = Util.execute(new ExceptionAction<Properties>() {
+            @Override
+            public Properties doAction() throws IOException {
+                final InputStream stream = new FileInputStream(file);
+                try {
+                    final Properties properties = new Properties();
+                    properties.load(stream);
+                    return properties;
+                } finally {
+                    stream.close();
+                }
+            }
+        });
+        final String started = properties.getProperty(STARTED);
+        if (started != null) {
+            try {
+                manifest.setStarted(Long.parseLong(started));
+            } catch (NumberFormatException e) {
+                logger.warning("Ignoring bad start time " + started + " in " + file);
+            }
+        }
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(HASH)) {
+                final String srcInfo = key.substring(HASH.length());
+                final String hash = properties.getProperty(key);
+                final String version = properties.getProperty(VERSION + srcInfo);
+                final String classes = properties.getProperty(CLASSES + srcInfo);
+                if (version == null || classes == null) {
+                    logger.warning("Ignoring incomplete manifest entry for " + srcInfo + " in " + file);
+                } else {
+                    manifest.put(srcInfo, new Manifest.Entry(hash, version, split(classes)));
+                }
+            }
+        }
+        return manifest;
+    }
+
+    @Override
+    public void save(String destDir, Manifest manifest) {
+        final File file = manifestFile(destDir);
+        final Properties properties = new Properties();
+        if (manifest.getStarted() != 0) {
+            properties.setProperty(STARTED, Long.toString(manifest.getStarted()));
+        }
+        for (String srcInfo : manifest.srcInfos()) {
+            final Manifest.Entry entry = manifest.get(srcInfo);
+            properties.setProperty(HASH + srcInfo, entry.hash);
+            properties.setProperty(VERSION + srcInfo, entry.version);
+            properties.setProperty(CLASSES + srcInfo, join(entry.classNames));
+        }
+        Util.execute(new ExceptionAction<Void>() {
+            @Override
+            public Void doAction() throws IOException {
+                file.getParentFile().mkdirs();
+                final OutputStream stream = new FileOutputStream(file);
+                try {
+                    properties.store(stream, "jADT manifest, do not modify");
+                } finally {
+                    stream.close();
+                }
+                return null;
+            }
+        });
+    }
+    
+    /**
+     * The manifest file for a given output directory
+     */
+    File manifestFile(String destDir) {
+        return new File(destDir, MANIFEST_NAME);
+    }
+    
+    private static String join(List<String> classNames) {
+        final StringBuilder builder = new StringBuilder();
+        for (String className : classNames) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(className);
+        }
+        return builder.toString();
+    }
+    
+    private static List<String> split(String classes) {
+        final List<String> classNames = list();
+        if (!classes.isEmpty()) {
+            for (String className : classes.split(",")) {
+                classNames.add(className);
+            }
+        }
+        return classNames;
+    }
+}
@@ -0,0 +1,218 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.manifest;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.pogofish.jadt.source.Source;
+import com.pogofish.jadt.source.Sources;
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Record of what was generated from each source on a previous run.  Used to skip sources that
+ * haven't changed and to find generated classes that should be removed because their source
+ * no longer produces them. 
+ * 
+ * A Manifest is not thread safe.
+ */
+public class Manifest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    
+    private final Map<String, Entry> entries = new HashMap<String, Entry>();
+    
+    /**
+     * When the run that made this manifest started, in milliseconds since the epoch, or 0 if it isn't known
+     */
+    private long started = 0;
+
+    /**
+     * What was generated from a single source
+     */
+    public static final class Entry {
+        /**
+         * Hash of the content of the source, see Manifest.hash
+         */
+        public final String hash;
+        /**
+         * Version of jADT that did the generation
+         */
+        public final String version;
+        /**
+         * Fully qualified names of the classes generated from the source
+         */
+        public final List<String> classNames;
+
+        public Entry(String hash, String version, List<String> classNames) {
+            super();
+            this.hash = hash;
+            this.version = version;
+            this.classNames = Collections.unmodifiableList(new ArrayList<String>(classNames));
+        }
+        
+        /**
+         * True if this entry was made from a source with the given hash using the given version of jADT
+         */
+        public boolean matches(String hash, String version) {
+            return this.hash.equals(hash) && this.version.equals(version);
+        }
+
+        @Override
+        public String toString() {
+            return "Entry(" + hash + ", " + version + ", " + classNames + ")";
+        }
+    }
+    
+    /**
+     * The entry for the given srcInfo, or null if there isn't one
+     */
+    public Entry get(String srcInfo) {
+        return entries.get(srcInfo);
+    }
+    
+    /**
+     * Record an entry for the given srcInfo, replacing any previous one
+     */
+    public void put(String srcInfo, Entry entry) {
+        entries.put(srcInfo, entry);
+    }
+    
+    /**
+     * Remove the entry for the given srcInfo
+     */
+    public void remove(String srcInfo) {
+        entries.remove(srcInfo);
+    }
+    
+    /**
+     * When the run that made this manifest started, in milliseconds since the epoch, or 0 if it isn't known.  Sources 
+     * that haven't been modified since then are exactly what the manifest records.
+     */
+    public long getStarted() {
+        return started;
+    }
+    
+    /**
+     * Record when the run that made this manifest started
+     */
+    public void setStarted(long started) {
+        this.started = started;
+    }
+    
+    /**
+     * All of the srcInfos that have entries
+     */
+    public Set<String> srcInfos() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+    
+    /**
+     * All of the class names recorded in all entries
+     */
+    public Set<String> classNames() {
+        final Set<String> classNames = new HashSet<String>();
+        for (Entry entry : entries.values()) {
+            classNames.addAll(entry.classNames);
+        }
+        return classNames;
+    }
+    
+    /**
+     * Hash the content of a source.  The hash is taken over the UTF-8 encoding of the characters read from the source.
+     * 
+     * @param source Source to be hashed
+     * @return a hex string
+     */
+    public static String hash(Source source) {
+        return hash(Sources.buffered(source).getCharBuffer());
+    }
+    
+    /**
+     * Hash some text the same way hash(Source) hashes the content of a source.  Several pieces of text are hashed as if 
+     * they had been concatenated, without actually concatenating them.
+     * 
+     * @param texts characters to be hashed
+     * @return a hex string
+     */
+    public static String hash(final CharSequence... texts) {
+        return Util.execute(new ExceptionAction<String>() {
+            @Override
+            public String doAction() throws Throwable {
+                final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+                // replacement is what String.getBytes does with bad input
+                final CharsetEncoder encoder = UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+                final ByteBuffer bytes = ByteBuffer.allocate(8 * 1024);
+                for (CharSequence text : texts) {
+                    final CharBuffer chars = text instanceof CharBuffer ? ((CharBuffer)text).duplicate() : CharBuffer.wrap(text);
+                    encoder.reset();
+                    CoderResult result;
+                    do {
+                        result = encoder.encode(chars, bytes, true);
+                        if (result.isOverflow()) {
+                            update(digest, bytes);
+                        }
+                    } while (result.isOverflow());
+                    while (encoder.flush(bytes).isOverflow()) {
+                        update(digest, bytes);
+                    }
+                }
+                update(digest, bytes);
+                return toHex(digest.digest());
+            }
+        });
+    }
+    
+    /**
+     * Add the bytes in the buffer to the digest and empty the buffer
+     */
+    private static void update(MessageDigest digest, ByteBuffer bytes) {
+        bytes.flip();
+        digest.update(bytes);
+        bytes.clear();
+    }
+    
+    /**
+     * Convert bytes to a lower case hex string
+     */
+    private static String toHex(byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    @Override
+    public String toString() {
+        return "Manifest(" + started + ", " + entries + ")";
+    }
+}
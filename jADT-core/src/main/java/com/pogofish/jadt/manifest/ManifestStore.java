@@ -0,0 +1,31 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.manifest;
+
+/**
+ * Loads and saves the Manifest associated with an output directory
+ */
+public interface ManifestStore {
+    /**
+     * Load the manifest for the given output directory.  If there is no usable manifest then an empty one is returned
+     */
+    public Manifest load(String destDir);
+    
+    /**
+     * Save the manifest for the given output directory
+     */
+    public void save(String destDir, Manifest manifest);
+}
@@ -0,0 +1,235 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser;
+
+/**
+ * A quick scan that finds where top level data types start without really parsing, so a big document can be split 
+ * into chunks that are parsed separately.  Every data type has a '=' outside of any parentheses, so each one of those 
+ * after the first is a data type header.  From there the scan walks back over the data type's name and annotations to
+ * the end of the last token of the previous data type.
+ * 
+ * The scan only needs to be right about well formed documents.  Anything it gets wrong leaves chunks that don't parse 
+ * cleanly on their own, and ParallelParser parses those documents sequentially instead.
+ */
+final class DataTypeBoundaries {
+    private static final int IDENTIFIER = -1;
+    private static final int OTHER = -2;
+    
+    private final CharSequence text;
+    private int size = 0;
+    private int[] kinds = new int[256];
+    private int[] starts = new int[256];
+    private int[] ends = new int[256];
+    /**
+     * For each ')' the index of the matching '(', or -1
+     */
+    private int[] matches = new int[256];
+    /**
+     * How many parentheses each token is inside of
+     */
+    private int[] depths = new int[256];
+    
+    private DataTypeBoundaries(CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * Offsets just after the last token of each data type that is followed by another one, in order.  The text 
+     * between two boundaries is a sequence of whole data types, comments included.
+     */
+    static int[] find(CharSequence text) {
+        final DataTypeBoundaries scanner = new DataTypeBoundaries(text);
+        scanner.scan();
+        return scanner.boundaries();
+    }
+    
+    private int[] boundaries() {
+        int[] boundaries = new int[16];
+        int count = 0;
+        boolean first = true;
+        for (int i = 0; i < size; i++) {
+            if (kinds[i] == '=' && depths[i] == 0) {
+                if (first) {
+                    first = false;
+                } else {
+                    final int boundary = boundary(i);
+                    if (boundary > 0 && (count == 0 || boundary > boundaries[count - 1])) {
+                        if (count == boundaries.length) {
+                            boundaries = copy(boundaries, count * 2);
+                        }
+                        boundaries[count++] = boundary;
+                    }
+                }
+            }
+        }
+        return copy(boundaries, count);
+    }
+    
+    /**
+     * The boundary before the data type whose '=' is at the given token index, or -1 if the tokens don't look like a 
+     * data type header
+     */
+    private int boundary(int equals) {
+        // the name is the identifier that isn't part of type arguments, extends, or implements
+        int name = equals - 1;
+        while (true) {
+            if (name < 1) {
+                return -1;
+            }
+            final int kind = kinds[name];
+            if (kind == IDENTIFIER) {
+                if (!isKeyword(name) && !isConnector(name - 1)) {
+                    break;
+                }
+            } else if (kind != '<' && kind != '>' && kind != ',' && kind != '.' && kind != '?' && kind != '&' && kind != '[' && kind != ']') {
+                return -1;
+            }
+            name--;
+        }
+        
+        // annotations belong to the data type
+        int start = name;
+        while (true) {
+            int last = start - 1;
+            if (last < 0) {
+                return -1;
+            }
+            if (kinds[last] == ')') {
+                last = matches[last] - 1;
+                if (last < 0) {
+                    return -1;
+                }
+            }
+            if (kinds[last] != IDENTIFIER) {
+                break;
+            }
+            int annotation = last;
+            while (annotation >= 2 && kinds[annotation - 1] == '.' && kinds[annotation - 2] == IDENTIFIER) {
+                annotation -= 2;
+            }
+            if (annotation < 1 || kinds[annotation - 1] != '@') {
+                break;
+            }
+            start = annotation - 1;
+        }
+        return start == 0 ? -1 : ends[start - 1];
+    }
+    
+    private boolean isConnector(int index) {
+        final int kind = kinds[index];
+        return kind == '.' || kind == ',' || kind == '<' || kind == '&' || kind == '?' || (kind == IDENTIFIER && isKeyword(index));
+    }
+    
+    private boolean isKeyword(int index) {
+        return is(index, "extends") || is(index, "implements") || is(index, "super");
+    }
+    
+    private boolean is(int index, String word) {
+        final int start = starts[index];
+        if (ends[index] - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (text.charAt(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void scan() {
+        final int length = text.length();
+        int[] open = new int[16];
+        int depth = 0;
+        int pos = 0;
+        while (pos < length) {
+            final char c = text.charAt(pos);
+            final int start = pos;
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+                pos++;
+            } else if (c == '#' || (c == '/' && pos + 1 < length && text.charAt(pos + 1) == '/')) {
+                while (pos < length && text.charAt(pos) != '\n' && text.charAt(pos) != '\r') {
+                    pos++;
+                }
+            } else if (c == '/' && pos + 1 < length && text.charAt(pos + 1) == '*') {
+                pos += 2;
+                while (pos < length && !(text.charAt(pos) == '/' && text.charAt(pos - 1) == '*' && pos - 1 > start + 1)) {
+                    pos++;
+                }
+                pos++;
+            } else if (c == '"' || c == '\'') {
+                pos++;
+                while (pos < length && text.charAt(pos) != c && text.charAt(pos) != '\n' && text.charAt(pos) != '\r') {
+                    pos += text.charAt(pos) == '\\' ? 2 : 1;
+                }
+                add(OTHER, start, Math.min(pos + 1, length), depth);
+                pos++;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                pos++;
+                while (pos < length && Character.isJavaIdentifierPart(text.charAt(pos))) {
+                    pos++;
+                }
+                add(IDENTIFIER, start, pos, depth);
+            } else if (Character.isDigit(c)) {
+                pos++;
+                while (pos < length && (Character.isJavaIdentifierPart(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                    pos++;
+                }
+                add(OTHER, start, pos, depth);
+            } else if (c == '(') {
+                if (depth == open.length) {
+                    open = copy(open, depth * 2);
+                }
+                open[depth++] = size;
+                add(c, start, ++pos, depth - 1);
+            } else if (c == ')') {
+                pos++;
+                if (depth > 0) {
+                    depth--;
+                    add(c, start, pos, depth);
+                    matches[size - 1] = open[depth];
+                } else {
+                    add(c, start, pos, depth);
+                }
+            } else {
+                add(c, start, ++pos, depth);
+            }
+        }
+    }
+    
+    private void add(int kind, int start, int end, int depth) {
+        if (size == kinds.length) {
+            final int capacity = size * 2;
+            kinds = copy(kinds, capacity);
+            starts = copy(starts, capacity);
+            ends = copy(ends, capacity);
+            matches = copy(matches, capacity);
+            depths = copy(depths, capacity);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        ends[size] = end;
+        matches[size] = -1;
+        depths[size] = depth;
+        size++;
+    }
+    
+    private static int[] copy(int[] array, int length) {
+        final int[] result = new int[length];
+        System.arraycopy(array, 0, result, 0, Math.min(array.length, length));
+        return result;
+    }
+}
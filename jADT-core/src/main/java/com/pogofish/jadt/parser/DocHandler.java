@@ -0,0 +1,44 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser;
+
+import java.util.List;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.errors.SyntaxError;
+
+/**
+ * Receives a document from a streaming parse one DataType at a time, so that a huge document never has to be held in memory
+ * all at once.
+ */
+public interface DocHandler {
+    /**
+     * Called once the package and imports have been parsed, before any data types
+     * 
+     * @param doc Doc with the srcInfo, package, and imports but no data types
+     */
+    public abstract void start(Doc doc);
+    
+    /**
+     * Called with each DataType as soon as it has been parsed.  The parser doesn't hold on to the DataType afterwards.
+     * 
+     * @param dataType the DataType that was just parsed
+     * @param errors the syntax errors found in the document so far.  If there are any then dataType may have been 
+     * made up during error recovery
+     */
+    public abstract void dataType(DataType dataType, List<SyntaxError> errors);
+}
@@ -18,8 +18,11 @@ package com.pogofish.jadt.parser;
 import java.io.BufferedReader;
 import java.io.IOException;
 
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.ast.ParseResult;
 import com.pogofish.jadt.source.Source;
+import com.pogofish.jadt.util.Util;
 
 
 /**
@@ -71,4 +74,18 @@ public class DummyParser implements Parser {
         }
         return testResult;
     }
-}
\ No newline at end of file
+
+    /**
+     * Does the same checks as parse(Source) and then hands the test doc's package, imports, and data types to the handler
+     */
+    @Override
+    public ParseResult parse(Source source, DocHandler handler) {
+        final ParseResult result = parse(source);
+        final Doc header = new Doc(result.doc.srcInfo, result.doc.pkg, result.doc.imports, Util.<DataType>list());
+        handler.start(header);
+        for (DataType dataType : result.doc.dataTypes) {
+            handler.dataType(dataType, result.errors);
+        }
+        return new ParseResult(header, result.errors);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser;
+
+import com.pogofish.jadt.ast.ParseResult;
+
+/**
+ * The result of an IncrementalParser parse along with what it needs to reparse the document after an edit: the text that
+ * was parsed and where its header and each of its data types end.
+ * 
+ * The text is split into regions.  The header region runs from the start of the text to the end of the last package or
+ * import token.  Each data type's region runs from the end of the region before it to the end of its own last token, 
+ * so comments before a data type are in its region, and the last data type's region runs to the end of the text.
+ */
+public final class IncrementalParse {
+    /**
+     * What was parsed
+     */
+    public final ParseResult result;
+    /**
+     * The text that was parsed
+     */
+    final String text;
+    /**
+     * End of the header region
+     */
+    final int headerEnd;
+    /**
+     * End of each data type's region, in the same order as result.doc.dataTypes
+     */
+    final int[] ends;
+    /**
+     * Whether the regions can be trusted.  They can't when the parse had errors, when the parser didn't say where 
+     * things end, or when the text has unicode escapes, which make the parser's offsets differ from the text's
+     */
+    final boolean reusable;
+    
+    IncrementalParse(ParseResult result, String text, int headerEnd, int[] ends, boolean reusable) {
+        super();
+        this.result = result;
+        this.text = text;
+        this.headerEnd = headerEnd;
+        this.ends = ends;
+        this.reusable = reusable;
+    }
+    
+    /**
+     * The text that was parsed
+     */
+    public String getText() {
+        return text;
+    }
+}
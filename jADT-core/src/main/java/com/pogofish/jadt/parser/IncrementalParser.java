@@ -0,0 +1,249 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser;
+
+import static com.pogofish.jadt.ast.ASTConstants.EMPTY_PKG;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.parser.javacc.generated.TokenMgrError;
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Parser for documents that are edited a little at a time, e.g. in an editor.  Top level data types don't depend on 
+ * each other, so after an edit only the regions of the data types the edit touched are reparsed.  The new Doc shares 
+ * every other DataType with the previous one.
+ * 
+ * A reparse always gives the same result a full parse of the new text would.  Whenever that can't be guaranteed cheaply 
+ * the whole document is parsed instead: when the edit touches the package or imports, when the previous parse or the 
+ * reparsed regions have syntax errors, when the text has unicode escapes, or when the reparsed regions stop short of 
+ * where they used to end.
+ */
+public class IncrementalParser {
+    private static final Logger logger = Logger.getLogger(IncrementalParser.class.toString());
+    
+    private static final String UNICODE_ESCAPE = "\\u";
+    
+    private final ParserImplFactory factory;
+    
+    public IncrementalParser(ParserImplFactory factory) {
+        super();
+        this.factory = factory;
+    }
+
+    /**
+     * Parse a whole document
+     */
+    public IncrementalParse parse(String srcInfo, CharSequence text) {
+        final String string = text.toString();
+        final Regions regions = regions(srcInfo, string);
+        final Doc doc = new Doc(srcInfo, regions.header.pkg, regions.header.imports, regions.dataTypes);
+        final boolean reusable = regions.errors.isEmpty() && regions.tracked && string.indexOf(UNICODE_ESCAPE) < 0;
+        final int[] ends = new int[regions.ends.size()];
+        for (int i = 0; i < ends.length; i++) {
+            ends[i] = i == ends.length - 1 ? string.length() : regions.ends.get(i);
+        }
+        return new IncrementalParse(new ParseResult(doc, regions.errors), string, regions.headerEnd, ends, reusable);
+    }
+    
+    /**
+     * Reparse a document whose text differs from the previously parsed text, finding the edit by comparing the two
+     */
+    public IncrementalParse reparse(IncrementalParse previous, CharSequence text) {
+        final String oldText = previous.text;
+        final String newText = text.toString();
+        final int limit = Math.min(oldText.length(), newText.length());
+        int prefix = 0;
+        while (prefix < limit && oldText.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < limit - prefix && oldText.charAt(oldText.length() - 1 - suffix) == newText.charAt(newText.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return reparse(previous, prefix, oldText.length() - suffix, newText.substring(prefix, newText.length() - suffix));
+    }
+
+    /**
+     * Reparse a document after the text between start and end in the previously parsed text is replaced
+     * 
+     * @param previous the parse of the text before the edit
+     * @param start offset where the replaced text started
+     * @param end offset just after the replaced text
+     * @param replacement the new text
+     */
+    public IncrementalParse reparse(IncrementalParse previous, int start, int end, CharSequence replacement) {
+        final String oldText = previous.text;
+        if (start < 0 || end < start || end > oldText.length()) {
+            throw new IllegalArgumentException("Bad edit from " + start + " to " + end + " of a " + oldText.length() + " character document");
+        }
+        final String newText = new StringBuilder(oldText.length() - (end - start) + replacement.length()).append(oldText, 0, start).append(replacement).append(oldText, end, oldText.length()).toString();
+        final String srcInfo = previous.result.doc.srcInfo;
+        final int[] ends = previous.ends;
+        if (!previous.reusable || ends.length == 0 || (previous.headerEnd > 0 && start <= previous.headerEnd)) {
+            return parse(srcInfo, newText);
+        }
+        
+        // the first region that ends at or after the start of the edit and the last that starts before its end, or 
+        // right at its end unless there's whitespace to keep the edit from running into the region's first token 
+        int first = 0;
+        while (ends[first] < start) {
+            first++;
+        }
+        int last = first;
+        while (last + 1 < ends.length && (ends[last] < end || (ends[last] == end && !Character.isWhitespace(oldText.charAt(end))))) {
+            last++;
+        }
+        final int delta = replacement.length() - (end - start);
+        final int regionStart = first == 0 ? previous.headerEnd : ends[first - 1];
+        final int regionEnd = ends[last] + delta;
+        final String region = newText.substring(regionStart, regionEnd);
+        if (region.indexOf(UNICODE_ESCAPE) >= 0) {
+            return parse(srcInfo, newText);
+        }
+        if (isWhitespace(region)) {
+            // the data types were deleted, which is fine as long as there are others left
+            if (last - first + 1 == ends.length) {
+                return parse(srcInfo, newText);
+            }
+            return result(previous, newText, first, last, regionStart, delta, Collections.<DataType>emptyList(), Collections.<Integer>emptyList());
+        }
+        
+        final Regions regions;
+        try {
+            regions = regions(srcInfo, region);
+        } catch (RuntimeException e) {
+            return parse(srcInfo, newText);
+        } catch (TokenMgrError e) {
+            // a lexical error, the full parse reports it with the right line number
+            return parse(srcInfo, newText);
+        }
+        final boolean atEnd = last == ends.length - 1;
+        if (!regions.errors.isEmpty() || !regions.tracked || regions.headerEnd != 0 || !EMPTY_PKG.equals(regions.header.pkg) 
+                || !regions.header.imports.isEmpty() || (!atEnd && regions.ends.get(regions.ends.size() - 1) != region.length())) {
+            return parse(srcInfo, newText);
+        }
+        
+        return result(previous, newText, first, last, regionStart, delta, regions.dataTypes, regions.ends);
+    }
+    
+    /**
+     * Put together the result of a reparse in which the regions first through last were replaced by the given data types
+     * 
+     * @param regionStart where the replaced regions start
+     * @param delta how much longer the text got
+     * @param ends where each new data type ends, relative to regionStart
+     */
+    private static IncrementalParse result(IncrementalParse previous, String newText, int first, int last, int regionStart, int delta, List<DataType> newDataTypes, List<Integer> ends) {
+        final String srcInfo = previous.result.doc.srcInfo;
+        final List<DataType> oldDataTypes = previous.result.doc.dataTypes;
+        final int size = oldDataTypes.size() - (last - first + 1) + newDataTypes.size();
+        final List<DataType> dataTypes = new ArrayList<DataType>(size);
+        final int[] newEnds = new int[size];
+        int n = 0;
+        for (int i = 0; i < first; i++) {
+            dataTypes.add(oldDataTypes.get(i));
+            newEnds[n++] = previous.ends[i];
+        }
+        for (int i = 0; i < newDataTypes.size(); i++) {
+            dataTypes.add(newDataTypes.get(i));
+            newEnds[n++] = regionStart + ends.get(i);
+        }
+        for (int i = last + 1; i < oldDataTypes.size(); i++) {
+            dataTypes.add(oldDataTypes.get(i));
+            newEnds[n++] = previous.ends[i] + delta;
+        }
+        newEnds[n - 1] = newText.length();
+        logger.fine("Reparsed " + newDataTypes.size() + " data type(s) of " + dataTypes.size() + " in " + srcInfo);
+        
+        final Doc oldDoc = previous.result.doc;
+        final Doc doc = new Doc(srcInfo, oldDoc.pkg, oldDoc.imports, dataTypes);
+        return new IncrementalParse(new ParseResult(doc, Collections.<SyntaxError>emptyList()), newText, previous.headerEnd, newEnds, true);
+    }
+    
+    private static boolean isWhitespace(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Parse some text, recording where the header and each data type end
+     */
+    private Regions regions(final String srcInfo, final String text) {
+        return Util.execute(new ExceptionAction<Regions>() {
+            @Override
+            public Regions doAction() throws Throwable {
+                final ParserImpl impl = factory.create(srcInfo, text);
+                final Regions regions = new Regions(impl);
+                impl.doc(regions);
+                regions.errors = impl.errors();
+                return regions;
+            }
+        });
+    }
+    
+    /**
+     * DocHandler that collects the data types of a document along with where each of them ends
+     */
+    private static final class Regions implements DocHandler {
+        private final ParserImpl impl;
+        Doc header = null;
+        int headerEnd = 0;
+        final List<DataType> dataTypes = new ArrayList<DataType>();
+        final List<Integer> ends = new ArrayList<Integer>();
+        /**
+         * false if the parser didn't know where something ended
+         */
+        boolean tracked = true;
+        List<SyntaxError> errors = null;
+        
+        Regions(ParserImpl impl) {
+            this.impl = impl;
+        }
+
+        @Override
+        public void start(Doc doc) {
+            header = doc;
+            headerEnd = offset();
+        }
+
+        @Override
+        public void dataType(DataType dataType, List<SyntaxError> errors) {
+            dataTypes.add(dataType);
+            ends.add(offset());
+        }
+        
+        private int offset() {
+            final int offset = impl.offset();
+            if (offset < 0) {
+                tracked = false;
+            }
+            return offset;
+        }
+    }
+}
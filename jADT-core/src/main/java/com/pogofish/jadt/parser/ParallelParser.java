@@ -0,0 +1,261 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser;
+
+import static com.pogofish.jadt.ast.ASTConstants.EMPTY_PKG;
+
+import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.parser.javacc.generated.TokenMgrError;
+import com.pogofish.jadt.source.CharBufferSource;
+import com.pogofish.jadt.source.Source;
+import com.pogofish.jadt.source.Sources;
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Parser that splits a big document into chunks of whole data types and parses the chunks concurrently, each with its 
+ * own ParserImpl.  The chunks are found with a quick scan for data type boundaries and the results are stitched back 
+ * together in order.
+ * 
+ * The result is always the same as a sequential parse.  A chunk can only be parsed on its own when it is a clean 
+ * sequence of data types, so if any chunk has syntax errors, a package or imports (other than the first), or fails 
+ * outright then the document is parsed sequentially instead, which also gives errors their proper line numbers.  
+ * Documents with unicode escapes and documents too small to be worth splitting are always parsed sequentially.
+ * 
+ * The calling thread parses the first chunk and then any chunks the executor hasn't gotten to yet, so the executor can 
+ * be the same one that the parser is called from without risk of deadlock.
+ */
+public class ParallelParser implements Parser {
+    private static final Logger logger = Logger.getLogger(ParallelParser.class.toString());
+    
+    /**
+     * Chunks smaller than this many characters aren't worth handing to another thread
+     */
+    static final int MIN_CHUNK_SIZE = 16 * 1024;
+    
+    private static final String UNICODE_ESCAPE = "\\u";
+    
+    private final ParserImplFactory factory;
+    private final ExecutorService executor;
+    private final int threads;
+    private final int minChunkSize;
+
+    /**
+     * Creates a ParallelParser that splits each document into as many chunks as there are threads
+     * 
+     * @param factory ParserImplFactory used for each chunk
+     * @param executor ExecutorService that parses chunks
+     * @param threads number of threads the executor has, must be at least 1
+     */
+    public ParallelParser(ParserImplFactory factory, ExecutorService executor, int threads) {
+        this(factory, executor, threads, MIN_CHUNK_SIZE);
+    }
+    
+    ParallelParser(ParserImplFactory factory, ExecutorService executor, int threads, int minChunkSize) {
+        super();
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1 but was " + threads);
+        }
+        this.factory = factory;
+        this.executor = executor;
+        this.threads = threads;
+        this.minChunkSize = minChunkSize;
+    }
+
+    @Override
+    public ParseResult parse(Source source) {
+        return parse(source, null);
+    }
+
+    @Override
+    public ParseResult parse(final Source source, final DocHandler handler) {
+        final String srcInfo = source.getSrcInfo();
+        logger.fine("Parsing " + srcInfo);
+        final CharSequence text = read(source);
+        final int[] splits = splits(text);
+        if (splits.length == 0) {
+            return sequential(srcInfo, text, handler, 0);
+        }
+        logger.fine("Parsing " + srcInfo + " in " + (splits.length + 1) + " chunks");
+        
+        final List<FutureTask<ParseResult>> tasks = new ArrayList<FutureTask<ParseResult>>(splits.length + 1);
+        for (int i = 0; i <= splits.length; i++) {
+            final CharSequence chunk = text.subSequence(i == 0 ? 0 : splits[i - 1], i == splits.length ? text.length() : splits[i]);
+            final FutureTask<ParseResult> task = new FutureTask<ParseResult>(new Callable<ParseResult>() {
+                @Override
+                public ParseResult call() {
+                    return chunk(srcInfo, chunk);
+                }
+            });
+            tasks.add(task);
+            if (i > 0) {
+                executor.execute(task);
+            }
+        }
+        
+        try {
+            Doc first = null;
+            final List<DataType> dataTypes = new ArrayList<DataType>();
+            int streamed = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                final FutureTask<ParseResult> task = tasks.get(i);
+                // does nothing if the executor has already started it
+                task.run();
+                final ParseResult result = Util.get(task);
+                if (result == null || !result.errors.isEmpty() || result.doc.dataTypes.isEmpty() 
+                        || (i > 0 && (!EMPTY_PKG.equals(result.doc.pkg) || !result.doc.imports.isEmpty()))) {
+                    logger.fine("Chunk " + i + " of " + srcInfo + " can't be parsed on its own, parsing sequentially");
+                    return sequential(srcInfo, text, handler, streamed);
+                }
+                if (i == 0) {
+                    first = result.doc;
+                    if (handler != null) {
+                        handler.start(new Doc(srcInfo, first.pkg, first.imports, Collections.<DataType>emptyList()));
+                    }
+                }
+                for (DataType dataType : result.doc.dataTypes) {
+                    if (handler == null) {
+                        dataTypes.add(dataType);
+                    } else {
+                        handler.dataType(dataType, Collections.<SyntaxError>emptyList());
+                        streamed++;
+                    }
+                }
+            }
+            return new ParseResult(new Doc(srcInfo, first.pkg, first.imports, dataTypes), Collections.<SyntaxError>emptyList());
+        } finally {
+            for (FutureTask<ParseResult> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+    
+    /**
+     * Where to split the text, which is nowhere if it's too small or can't be split safely
+     */
+    int[] splits(CharSequence text) {
+        final int length = text.length();
+        if (threads < 2 || length < 2 * minChunkSize || indexOf(text, UNICODE_ESCAPE) >= 0) {
+            return new int[0];
+        }
+        final int target = Math.max(minChunkSize, length / threads);
+        final int[] boundaries = DataTypeBoundaries.find(text);
+        final int[] splits = new int[Math.min(boundaries.length, threads - 1)];
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i < boundaries.length && count < splits.length; i++) {
+            if (boundaries[i] - start >= target && length - boundaries[i] >= minChunkSize) {
+                splits[count++] = boundaries[i];
+                start = boundaries[i];
+            }
+        }
+        final int[] result = new int[count];
+        System.arraycopy(splits, 0, result, 0, count);
+        return result;
+    }
+    
+    /**
+     * Parse one chunk, or null if it failed outright
+     */
+    private ParseResult chunk(String srcInfo, CharSequence chunk) {
+        try {
+            final ParserImpl impl = factory.create(srcInfo, chunk);
+            return Util.execute(new ExceptionAction<ParseResult>() {
+                @Override
+                public ParseResult doAction() throws Throwable {
+                    return new ParseResult(impl.doc(), impl.errors());
+                }
+            });
+        } catch (RuntimeException e) {
+            return null;
+        } catch (TokenMgrError e) {
+            // a lexical error, the sequential parse reports it properly
+            return null;
+        }
+    }
+    
+    /**
+     * Parse the whole text on the calling thread.  The first few data types may already have been streamed to the 
+     * handler, in which case the handler doesn't get them or the start of the document again.
+     */
+    private ParseResult sequential(final String srcInfo, final CharSequence text, final DocHandler handler, final int streamed) {
+        return Util.execute(new ExceptionAction<ParseResult>() {
+            @Override
+            public ParseResult doAction() throws Throwable {
+                final ParserImpl impl = factory.create(srcInfo, text);
+                if (handler == null) {
+                    return new ParseResult(impl.doc(), impl.errors());
+                }
+                final Doc doc = impl.doc(streamed == 0 ? handler : new DocHandler() {
+                    private int skipped = 0;
+
+                    @Override
+                    public void start(Doc doc) {
+                        // already started
+                    }
+
+                    @Override
+                    public void dataType(DataType dataType, List<SyntaxError> errors) {
+                        if (skipped < streamed) {
+                            skipped++;
+                        } else {
+                            handler.dataType(dataType, errors);
+                        }
+                    }
+                });
+                return new ParseResult(doc, impl.errors());
+            }
+        });
+    }
+    
+    /**
+     * The complete text of a source
+     */
+    private static CharSequence read(final Source source) {
+        if (source instanceof CharBufferSource) {
+            return ((CharBufferSource)source).getCharBuffer();
+        }
+        return Sources.read(source);
+    }
+    
+    private static int indexOf(CharSequence text, String string) {
+        if (text instanceof String) {
+            return ((String)text).indexOf(string);
+        }
+        final int last = text.length() - string.length();
+        outer: for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < string.length(); j++) {
+                if (text.charAt(i + j) != string.charAt(j)) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+}
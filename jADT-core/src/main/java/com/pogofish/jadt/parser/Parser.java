@@ -36,4 +36,15 @@ public interface Parser {
      */
     public abstract ParseResult parse(Source source);
 
+    /**
+     * Parse a complete document, streaming each data type to a handler as soon as it has been parsed instead of
+     * collecting them all into the document.
+     * 
+     * @param source Source to be parsed
+     * @param handler DocHandler that gets the package and imports and then each data type
+     * @return ParseResult with a document that has no data types and the list of all syntax errors
+     * @throws RuntimeException with an IOExceptino if there are any problems reading
+     */
+    public abstract ParseResult parse(Source source, DocHandler handler);
+
 }
\ No newline at end of file
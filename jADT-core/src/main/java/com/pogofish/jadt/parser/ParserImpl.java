@@ -53,6 +53,18 @@ public interface ParserImpl {
      */
     public abstract Doc doc() throws Exception;
 
+    /**
+     * Like doc(), but the handler gets the package and imports and then each data type as soon as it's parsed.  The 
+     * resulting Doc has no data types.
+     */
+    public abstract Doc doc(DocHandler handler) throws Exception;
+
+    /**
+     * The offset in the input just after the last token that was parsed, 0 if nothing has been parsed yet, or -1 if 
+     * this implementation doesn't know.  Offsets count characters after unicode escapes have been decoded.
+     */
+    public abstract int offset();
+
     /**
      * The package declaration (if it exists) is the keyword "package" followed by a package name.  No semicolon required.
      */
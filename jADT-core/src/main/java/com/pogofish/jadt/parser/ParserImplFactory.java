@@ -24,4 +24,9 @@ import java.io.Reader;
  */
 public interface ParserImplFactory {
     public ParserImpl create(String srcInfo, Reader reader);
+    
+    /**
+     * Create a ParserImpl that reads directly from the given characters
+     */
+    public ParserImpl create(String srcInfo, CharSequence chars);
 }
@@ -20,6 +20,7 @@ import java.util.logging.Logger;
 
 import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.source.CharBufferSource;
 import com.pogofish.jadt.source.Source;
 import com.pogofish.jadt.util.ExceptionAction;
 import com.pogofish.jadt.util.Util;
@@ -47,20 +48,36 @@ public class StandardParser implements Parser {
      */
     @Override
     public ParseResult parse(final Source source) {
+        return parse(source, null);
+    }
+
+    @Override
+    public ParseResult parse(final Source source, final DocHandler handler) {
         return Util.execute(new ExceptionAction<ParseResult>() {
             @Override
             public ParseResult doAction() throws Throwable {
                 logger.fine("Parsing " + source.getSrcInfo());
+                if (source instanceof CharBufferSource) {
+                    final ParserImpl impl = factory.create(source.getSrcInfo(), ((CharBufferSource)source).getCharBuffer());
+                    return parse(impl, handler);
+                }
                 final BufferedReader reader = source.createReader();
                 try {
                     final ParserImpl impl = factory.create(source.getSrcInfo(),
                             reader);
-                    final Doc doc = impl.doc();
-                    return new ParseResult(doc, impl.errors());
+                    return parse(impl, handler);
                 } finally {
                     reader.close();
                 }
             }
         });
     }
+    
+    /**
+     * Parse a whole document with a ParserImpl, streaming to the handler if there is one
+     */
+    private static ParseResult parse(ParserImpl impl, DocHandler handler) throws Exception {
+        final Doc doc = handler == null ? impl.doc() : impl.doc(handler);
+        return new ParseResult(doc, impl.errors());
+    }
 }
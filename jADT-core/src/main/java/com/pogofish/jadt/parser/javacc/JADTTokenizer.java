@@ -0,0 +1,680 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser.javacc;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+
+import com.pogofish.jadt.parser.javacc.generated.BaseJavaCCParserImplTokenManager;
+import com.pogofish.jadt.parser.javacc.generated.JavaCharStream;
+import com.pogofish.jadt.parser.javacc.generated.Token;
+import com.pogofish.jadt.parser.javacc.generated.TokenMgrError;
+
+/**
+ * Hand written tokenizer that produces exactly the same tokens, images, positions, special tokens and lexical errors
+ * as the token manager JavaCC generates from jADT.jj, but much more cheaply.
+ *
+ * The input is scanned in place using int offsets, so a CharBuffer over a mapped file is never copied.  Whitespace 
+ * and internal comments are skipped without creating anything, line and column numbers are only worked out for the 
+ * first and last character of each token, and a Token with its image is only created when the parser asks for it.  
+ * Tokens with a fixed image (punctuation and keywords) share a constant image.
+ *
+ * It extends the generated token manager only so it can be handed to the generated parser; none of the inherited
+ * state is used.
+ */
+public class JADTTokenizer extends BaseJavaCCParserImplTokenManager {
+    private static final int TAB_SIZE = 8;
+    
+    /**
+     * The reason code for lexical errors, TokenMgrError.LEXICAL_ERROR isn't visible outside its package
+     */
+    private static final int LEXICAL_ERROR = 0;
+
+    /**
+     * Keywords grouped by length, and their token kinds
+     */
+    private static final String[][] KEYWORDS = new String[13][];
+    private static final int[][] KEYWORD_KINDS = new int[13][];
+    static {
+        final String[] keywords = {"import", "package", "final", "transient", "volatile", "extends", "implements", "class",
+                "true", "false", "null",
+                "boolean", "byte", "char", "short", "int", "long", "float", "double",
+                "abstract", "assert", "break", "case", "catch", "const", "continue", "default", "do", "else", "enum",
+                "finally", "for", "goto", "if", "instanceof", "interface", "native", "new", "private", "protected",
+                "public", "return", "static", "strictfp", "super", "switch", "synchronized", "this", "throw", "throws",
+                "try", "void", "while"};
+        final int[] kinds = {IMPORT, PACKAGE, FINAL, TRANSIENT, VOLATILE, EXTENDS, IMPLEMENTS, CLASS,
+                TRUE, FALSE, NULL,
+                BOOLEAN, BYTE, CHAR, SHORT, INT, LONG, FLOAT, DOUBLE};
+        for (int length = 0; length < KEYWORDS.length; length++) {
+            int count = 0;
+            for (String keyword : keywords) {
+                if (keyword.length() == length) {
+                    count++;
+                }
+            }
+            KEYWORDS[length] = new String[count];
+            KEYWORD_KINDS[length] = new int[count];
+            count = 0;
+            for (int i = 0; i < keywords.length; i++) {
+                if (keywords[i].length() == length) {
+                    KEYWORDS[length][count] = keywords[i];
+                    KEYWORD_KINDS[length][count] = i < kinds.length ? kinds[i] : JAVA_KEYWORD;
+                    count++;
+                }
+            }
+        }
+    }
+
+    /**
+     * The input, with any unicode escapes already decoded.  Input without escapes is used as is, not copied
+     */
+    private final CharSequence text;
+    private final int end;
+
+    /**
+     * Decoded index and raw length of each unicode escape in the input, in order, or null if there aren't any
+     */
+    private final int[] escapeIndexes;
+    private final int[] escapeLengths;
+
+    /**
+     * Index of the next character to scan
+     */
+    private int pos = 0;
+
+    /**
+     * Line and column of the character before index cursor, tracked the same way JavaCharStream does it
+     */
+    private int cursor = 0;
+    private int line = 1;
+    private int column = 0;
+    private boolean prevCharIsCR = false;
+    private boolean prevCharIsLF = false;
+    private int nextEscape = 0;
+    /**
+     * Columns taken up by the rest of an escape that was the last character tracked
+     */
+    private int escapeColumns = 0;
+
+    /**
+     * Create a tokenizer over the given input.  The input is read in place unless it has unicode escapes, in which 
+     * case it is decoded once into an array.  It must not change while it's being tokenized.
+     */
+    public JADTTokenizer(CharSequence input) {
+        super(null);
+        final int length = input.length();
+        int escapes = 0;
+        int backslashes = 0;
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(i) != '\\') {
+                backslashes = 0;
+            } else if ((backslashes & 1) == 0 && i + 1 < length && input.charAt(i + 1) == 'u') {
+                escapes++;
+                backslashes = 0;
+            } else {
+                backslashes++;
+            }
+        }
+
+        if (escapes == 0) {
+            text = input;
+            end = length;
+            escapeIndexes = null;
+            escapeLengths = null;
+        } else {
+            final char[] decoded = new char[length];
+            escapeIndexes = new int[escapes];
+            escapeLengths = new int[escapes];
+            end = decode(input, decoded);
+            text = CharBuffer.wrap(decoded, 0, end);
+        }
+    }
+
+    /**
+     * Decode unicode escapes from raw into decoded, recording where they were.  The rules are the same as
+     * JavaCharStream's, including the error for a bad escape which is reported by running the
+     * input through a JavaCharStream.
+     * 
+     * @return the number of decoded characters
+     */
+    private int decode(CharSequence raw, char[] decoded) {
+        final int length = raw.length();
+        int count = 0;
+        int escape = 0;
+        int backslashes = 0;
+        int i = 0;
+        while (i < length) {
+            final char c = raw.charAt(i);
+            if (c != '\\') {
+                backslashes = 0;
+                decoded[count++] = c;
+                i++;
+            } else if ((backslashes & 1) == 0 && i + 1 < length && raw.charAt(i + 1) == 'u') {
+                backslashes = 0;
+                int j = i + 1;
+                while (j < length && raw.charAt(j) == 'u') {
+                    j++;
+                }
+                int value = 0;
+                for (int k = 0; k < 4; k++) {
+                    if (j == length || !isHexDigit(raw.charAt(j))) {
+                        throw invalidEscape(raw);
+                    }
+                    value = (value << 4) | Character.digit(raw.charAt(j), 16);
+                    j++;
+                }
+                escapeIndexes[escape] = count;
+                escapeLengths[escape] = j - i;
+                escape++;
+                decoded[count++] = (char)value;
+                i = j;
+            } else {
+                backslashes++;
+                decoded[count++] = c;
+                i++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the error JavaCharStream gives for the first bad escape in the input
+     */
+    private static Error invalidEscape(CharSequence raw) {
+        final JavaCharStream stream = new JavaCharStream(new StringReader(raw.toString()));
+        try {
+            while (true) {
+                stream.BeginToken();
+            }
+        } catch (Error e) {
+            return e;
+        } catch (IOException e) {
+            return new Error("Invalid escape character");
+        }
+    }
+
+    @Override
+    public Token getNextToken() {
+        Token specialToken = null;
+        while (true) {
+            skipWhiteSpace();
+            if (pos == end) {
+                final Token token = token(EOF, pos, pos);
+                token.specialToken = specialToken;
+                return token;
+            }
+            final int start = pos;
+            final int kind = scan();
+            final Token token = token(kind, start, pos);
+            if (kind == JAVADOC_COMMENT || kind == JAVA_ML_COMMENT || kind == JAVA_EOL_COMMENT) {
+                if (specialToken != null) {
+                    token.specialToken = specialToken;
+                    specialToken.next = token;
+                }
+                specialToken = token;
+            } else {
+                token.specialToken = specialToken;
+                return token;
+            }
+        }
+    }
+
+    /**
+     * Skip whitespace and internal (#) end of line comments
+     */
+    private void skipWhiteSpace() {
+        while (pos < end) {
+            final char c = text.charAt(pos);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+                pos++;
+            } else if (c == '#') {
+                pos++;
+                while (pos < end && text.charAt(pos) != '\n' && text.charAt(pos) != '\r') {
+                    pos++;
+                }
+                if (pos < end) {
+                    pos += (text.charAt(pos) == '\r' && pos + 1 < end && text.charAt(pos + 1) == '\n') ? 2 : 1;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Scan one token starting at pos, leaving pos just after it, and return its kind
+     */
+    private int scan() {
+        final int start = pos;
+        final char c = text.charAt(pos++);
+        switch (c) {
+        case '|':
+            return next('|') ? LOGICAL_OR : BAR;
+        case '&':
+            return next('&') ? LOGICAL_AND : AMPERSAND;
+        case '<':
+            return next('<') ? LEFT_SHIFT : next('=') ? LESS_THAN_EQUAL : LANGLE;
+        case '>':
+            if (next('>')) {
+                return next('>') ? ZERO_EXTENDED_RIGHT_SHIFT : RIGHT_SHIFT;
+            }
+            return next('=') ? GREATER_THAN_EQUAL : RANGLE;
+        case '!':
+            if (!next('=')) {
+                throw lexicalError(start, pos);
+            }
+            return NOT_EQUALS;
+        case '=':
+            return next('=') ? DOUBLE_EQUALS : EQUALS;
+        case '*': return SPLAT;
+        case '+': return PLUS;
+        case '-': return MINUS;
+        case '%': return PERCENT;
+        case '^': return CARET;
+        case '(': return LPAREN;
+        case ')': return RPAREN;
+        case '{': return LCURLY;
+        case '}': return RCURLY;
+        case ',': return COMMA;
+        case '[': return LBRACKET;
+        case ']': return RBRACKET;
+        case '@': return AT;
+        case '?': return QUESTION;
+        case ':': return COLON;
+        case '/':
+            return next('*') ? blockComment(start) : next('/') ? eolComment() : DIVIDE;
+        case '.':
+            if (pos < end && isDigit(text.charAt(pos))) {
+                pos = start;
+                return number();
+            }
+            return DOT;
+        case '"':
+            return stringLiteral(start);
+        case '\'':
+            return characterLiteral(start);
+        default:
+            if (c >= '0' && c <= '9') {
+                pos = start;
+                return number();
+            }
+            if (IdentifierChars.isStart(c)) {
+                while (pos < end && IdentifierChars.isPart(text.charAt(pos))) {
+                    pos++;
+                }
+                return keywordOrIdentifier(start);
+            }
+            throw lexicalError(start, start);
+        }
+    }
+
+    /**
+     * If the next char is c then consume it and return true
+     */
+    private boolean next(char c) {
+        if (pos < end && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private int keywordOrIdentifier(int start) {
+        final int length = pos - start;
+        if (length < KEYWORDS.length) {
+            final String[] keywords = KEYWORDS[length];
+            for (int i = 0; i < keywords.length; i++) {
+                if (matches(keywords[i], start)) {
+                    return KEYWORD_KINDS[length][i];
+                }
+            }
+        }
+        return IDENTIFIER;
+    }
+
+    private boolean matches(String keyword, int start) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (text.charAt(start + i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Scan a comment that starts with '/' '*'.  It's a JavaDoc comment if it starts with '/' '*' '*' followed by any
+     * more '*'s and something that isn't a '/'.  It's an unterminated comment if it has no closing '*' '/', in which
+     * case it goes up to the end of input except for any trailing '*'s
+     */
+    private int blockComment(int start) {
+        while (pos < end) {
+            if (text.charAt(pos) == '*' && pos + 1 < end && text.charAt(pos + 1) == '/') {
+                pos += 2;
+                int stars = start + 2;
+                while (text.charAt(stars) == '*') {
+                    stars++;
+                }
+                return stars > start + 2 && text.charAt(stars) != '/' ? JAVADOC_COMMENT : JAVA_ML_COMMENT;
+            }
+            pos++;
+        }
+        while (pos > start + 2 && text.charAt(pos - 1) == '*') {
+            pos--;
+        }
+        return UNTERMINATED_COMMENT;
+    }
+
+    private int eolComment() {
+        while (pos < end && text.charAt(pos) != '\n' && text.charAt(pos) != '\r') {
+            pos++;
+        }
+        return JAVA_EOL_COMMENT;
+    }
+
+    private int stringLiteral(int start) {
+        while (pos < end) {
+            final char c = text.charAt(pos);
+            if (c == '"') {
+                pos++;
+                return STRING_LITERAL;
+            } else if (c == '\\') {
+                if (pos + 1 == end) {
+                    throw lexicalError(start, end);
+                }
+                pos += 2;
+            } else if (c == '\n' || c == '\r') {
+                throw lexicalError(start, pos);
+            } else {
+                pos++;
+            }
+        }
+        throw lexicalError(start, end);
+    }
+
+    private int characterLiteral(int start) {
+        if (pos == end) {
+            throw lexicalError(start, end);
+        }
+        final char c = text.charAt(pos);
+        if (c == '\\') {
+            pos += 2;
+        } else if (c == '\'' || c == '\n' || c == '\r') {
+            throw lexicalError(start, pos);
+        } else {
+            pos++;
+        }
+        if (pos >= end) {
+            throw lexicalError(start, end);
+        }
+        if (text.charAt(pos) != '\'') {
+            throw lexicalError(start, pos);
+        }
+        pos++;
+        return CHARACTER_LITERAL;
+    }
+
+    /**
+     * Scan an integer or floating point literal starting at pos.  Like JavaCC this takes the longest possible match
+     */
+    private int number() {
+        final int start = pos;
+        final int integerEnd = integerEnd(start);
+        final int floatEnd = Math.max(decimalFloatEnd(start), hexFloatEnd(start));
+        if (floatEnd > integerEnd) {
+            pos = floatEnd;
+            return FLOATING_POINT_LITERAL;
+        } else {
+            pos = integerEnd;
+            return INTEGER_LITERAL;
+        }
+    }
+
+    /**
+     * End of the longest decimal, hex, or octal literal starting at i, or -1 if there isn't one
+     */
+    private int integerEnd(int i) {
+        if (text.charAt(i) == '.') {
+            return -1;
+        }
+        if (text.charAt(i) != '0') {
+            i = digits(i);
+        } else if (i + 2 < end && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X') && isHexDigit(text.charAt(i + 2))) {
+            i = hexDigits(i + 2);
+        } else {
+            i++;
+            while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '7') {
+                i++;
+            }
+        }
+        return i < end && (text.charAt(i) == 'l' || text.charAt(i) == 'L') ? i + 1 : i;
+    }
+
+    /**
+     * End of the longest decimal floating point literal starting at i, or -1 if there isn't one
+     */
+    private int decimalFloatEnd(int i) {
+        final int start = i;
+        i = digits(i);
+        final boolean leadingDigits = i > start;
+        if (i < end && text.charAt(i) == '.') {
+            final int fractionStart = i + 1;
+            i = digits(fractionStart);
+            if (!leadingDigits && i == fractionStart) {
+                return -1;
+            }
+            i = optionalExponent(i, 'e', 'E');
+            return optionalSuffix(i);
+        }
+        if (!leadingDigits) {
+            return -1;
+        }
+        final int exponentEnd = exponent(i, 'e', 'E');
+        if (exponentEnd >= 0) {
+            return optionalSuffix(exponentEnd);
+        }
+        return isFloatSuffix(i) ? i + 1 : -1;
+    }
+
+    /**
+     * End of the longest hexadecimal floating point literal starting at i, or -1 if there isn't one
+     */
+    private int hexFloatEnd(int i) {
+        if (!(i + 1 < end && text.charAt(i) == '0' && (text.charAt(i + 1) == 'x' || text.charAt(i + 1) == 'X'))) {
+            return -1;
+        }
+        final int wholeStart = i + 2;
+        i = hexDigits(wholeStart);
+        final boolean wholeDigits = i > wholeStart;
+        boolean fractionDigits = false;
+        if (i < end && text.charAt(i) == '.') {
+            final int fractionStart = i + 1;
+            i = hexDigits(fractionStart);
+            fractionDigits = i > fractionStart;
+        }
+        if (!wholeDigits && !fractionDigits) {
+            return -1;
+        }
+        final int exponentEnd = exponent(i, 'p', 'P');
+        return exponentEnd < 0 ? -1 : optionalSuffix(exponentEnd);
+    }
+
+    /**
+     * End of an exponent starting at i with e1 or e2, or -1 if there isn't one
+     */
+    private int exponent(int i, char e1, char e2) {
+        if (i < end && (text.charAt(i) == e1 || text.charAt(i) == e2)) {
+            i++;
+            if (i < end && (text.charAt(i) == '+' || text.charAt(i) == '-')) {
+                i++;
+            }
+            final int digitsStart = i;
+            i = digits(i);
+            return i > digitsStart ? i : -1;
+        }
+        return -1;
+    }
+
+    private int optionalExponent(int i, char e1, char e2) {
+        final int exponentEnd = exponent(i, e1, e2);
+        return exponentEnd < 0 ? i : exponentEnd;
+    }
+
+    private int optionalSuffix(int i) {
+        return isFloatSuffix(i) ? i + 1 : i;
+    }
+
+    private boolean isFloatSuffix(int i) {
+        if (i >= end) {
+            return false;
+        }
+        final char c = text.charAt(i);
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+
+    private int digits(int i) {
+        while (i < end && isDigit(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private int hexDigits(int i) {
+        while (i < end && isHexDigit(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    /**
+     * Create a token of the given kind from the characters between start and finish
+     */
+    private Token token(int kind, int start, int finish) {
+        final String literalImage = jjstrLiteralImages[kind];
+        final String image;
+        if (literalImage != null) {
+            image = literalImage;
+        } else if (kind == JAVA_KEYWORD) {
+            image = KEYWORDS[finish - start][keywordIndex(start, finish)];
+        } else {
+            image = text.subSequence(start, finish).toString();
+        }
+        final Token token = new OffsetToken(kind, image, finish);
+        if (start == finish) {
+            // only EOF is empty, and it is positioned just after everything else
+            advanceTo(finish);
+            token.beginLine = token.endLine = line;
+            token.beginColumn = token.endColumn = column + escapeColumns;
+        } else {
+            advanceTo(start + 1);
+            token.beginLine = line;
+            token.beginColumn = column;
+            advanceTo(finish);
+            token.endLine = line;
+            token.endColumn = column;
+        }
+        return token;
+    }
+
+    private int keywordIndex(int start, int finish) {
+        final String[] keywords = KEYWORDS[finish - start];
+        int i = 0;
+        while (!matches(keywords[i], start)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Build the same error the generated token manager gives when it has read from start up to failed, which is
+     * either the character it couldn't use or the end of input.  Like the generated token manager, the error is
+     * reported differently if the last character read was the last character of input
+     */
+    private TokenMgrError lexicalError(int start, int failed) {
+        final int last = Math.min(failed, end - 1);
+        advanceTo(last + 1);
+        final char lastChar = text.charAt(last);
+        if (last < end - 1) {
+            return new TokenMgrError(false, DEFAULT, line, column, text.subSequence(start, last).toString(), lastChar, LEXICAL_ERROR);
+        } else {
+            final boolean newLine = lastChar == '\n' || lastChar == '\r';
+            final String after = last == start ? "" : text.subSequence(start, end).toString();
+            return new TokenMgrError(true, DEFAULT, newLine ? line + 1 : line, newLine ? 0 : column + 1, after, lastChar, LEXICAL_ERROR);
+        }
+    }
+
+    /**
+     * Move the line and column tracking forward so it describes the character just before index
+     */
+    private void advanceTo(int index) {
+        while (cursor < index) {
+            column += escapeColumns;
+            escapeColumns = 0;
+            if (escapeIndexes != null && nextEscape < escapeIndexes.length && escapeIndexes[nextEscape] == cursor) {
+                // an escape is positioned at its backslash, the rest of it pushes along the next character
+                updateLineColumn('\\');
+                escapeColumns = escapeLengths[nextEscape] - 1;
+                nextEscape++;
+            } else {
+                updateLineColumn(text.charAt(cursor));
+            }
+            cursor++;
+        }
+    }
+
+    /**
+     * Same logic as JavaCharStream uses to track lines and columns
+     */
+    private void updateLineColumn(char c) {
+        column++;
+
+        if (prevCharIsLF) {
+            prevCharIsLF = false;
+            line += (column = 1);
+        } else if (prevCharIsCR) {
+            prevCharIsCR = false;
+            if (c == '\n') {
+                prevCharIsLF = true;
+            } else {
+                line += (column = 1);
+            }
+        }
+
+        switch (c) {
+        case '\r':
+            prevCharIsCR = true;
+            break;
+        case '\n':
+            prevCharIsLF = true;
+            break;
+        case '\t':
+            column--;
+            column += (TAB_SIZE - (column % TAB_SIZE));
+            break;
+        default:
+            break;
+        }
+    }
+}
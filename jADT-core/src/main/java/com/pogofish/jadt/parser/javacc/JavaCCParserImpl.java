@@ -15,22 +15,30 @@ limitations under the License.
  */
 package com.pogofish.jadt.parser.javacc;
 
-import static com.pogofish.jadt.ast.JavaComment._JavaEOLComment;
+import static com.pogofish.jadt.ast.ASTConstants.NO_COMMENTS;
 
+import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import com.pogofish.jadt.ast.ArgModifier;
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.Imprt;
+import com.pogofish.jadt.ast.Interner;
 import com.pogofish.jadt.ast.JavaComment;
-import com.pogofish.jadt.comments.BlockCommentParser;
-import com.pogofish.jadt.comments.JavaDocParser;
+import com.pogofish.jadt.ast.Pkg;
+import com.pogofish.jadt.ast.RefType;
+import com.pogofish.jadt.ast.Type;
 import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.parser.DocHandler;
 import com.pogofish.jadt.parser.ParserImpl;
 import com.pogofish.jadt.parser.javacc.generated.BaseJavaCCParserImpl;
 import com.pogofish.jadt.parser.javacc.generated.Token;
+import com.pogofish.jadt.util.ExceptionAction;
 import com.pogofish.jadt.util.Util;
 
 /**
@@ -46,10 +54,6 @@ public class JavaCCParserImpl extends BaseJavaCCParserImpl implements ParserImpl
 
     private static final String EOF_STRING = "<EOF>";
     
-    private static final JavaDocParser javaDocParser = new JavaDocParser();
-    
-    private static final BlockCommentParser blockCommentParser = new BlockCommentParser();
-
     /**
      * Whether this parser is currently recovering from a problem.  While
      * recovering errors are not recorded
@@ -59,13 +63,23 @@ public class JavaCCParserImpl extends BaseJavaCCParserImpl implements ParserImpl
     /**
      * Information about the source that created this parser
      */
-    private final String srcInfo;;
+    private final String srcInfo;
+
+    /**
+     * Shares identifiers, types, and modifiers among everything this parser creates
+     */
+    final Interner interner;
 
     /**
      * Errors found while using this parser
      */
     private final List<SyntaxError> errors = new ArrayList<SyntaxError>();
 
+    /**
+     * Where data types go during a streaming parse, null if data types should be kept in the Doc
+     */
+    private DocHandler handler = null;
+
     /**
      * The next id used to create a fake identifier
      */
@@ -82,8 +96,52 @@ public class JavaCCParserImpl extends BaseJavaCCParserImpl implements ParserImpl
      * Create a parser implementation based on the given srcInfo and input reader
      */
     public JavaCCParserImpl(String srcInfo, Reader stream) {
-        super(new JavaCCReader(stream));
+        this(srcInfo, stream, new Interner());
+    }
+    
+    /**
+     * Create a parser implementation based on the given srcInfo and input reader that shares AST bits with
+     * the given Interner
+     */
+    public JavaCCParserImpl(String srcInfo, Reader stream, Interner interner) {
+        this(srcInfo, readAll(new JavaCCReader(stream)), interner);
+    }
+    
+    /**
+     * Create a parser implementation based on the given srcInfo and input characters, tokenized by
+     * the hand written JADTTokenizer
+     */
+    public JavaCCParserImpl(String srcInfo, CharSequence chars) {
+        this(srcInfo, chars, new Interner());
+    }
+    
+    /**
+     * Create a parser implementation based on the given srcInfo and input characters, tokenized by
+     * the hand written JADTTokenizer, that shares AST bits with the given Interner
+     */
+    public JavaCCParserImpl(String srcInfo, CharSequence chars, Interner interner) {
+        super(new JADTTokenizer(chars));
         this.srcInfo = srcInfo;
+        this.interner = interner;
+    }
+    
+    /**
+     * Read everything from a Reader
+     */
+    private static CharSequence readAll(final Reader reader) {
+        return Util.execute(new ExceptionAction<CharSequence>() {
+            @Override
+            public CharSequence doAction() throws IOException {
+                final StringBuilder builder = new StringBuilder();
+                final char[] buffer = new char[4096];
+                int read = reader.read(buffer);
+                while (read >= 0) {
+                    builder.append(buffer, 0, read);
+                    read = reader.read(buffer);
+                }
+                return builder;
+            }
+        });
     }
 
 
@@ -142,6 +200,58 @@ public class JavaCCParserImpl extends BaseJavaCCParserImpl implements ParserImpl
         return errors;
     }
 
+    @Override
+    public Doc doc(DocHandler handler) throws Exception {
+        this.handler = handler;
+        try {
+            return doc();
+        } finally {
+            this.handler = null;
+        }
+    }
+
+    @Override
+    protected void docStarted(Pkg pkg, List<Imprt> imports) {
+        if (handler != null) {
+            handler.start(new Doc(srcInfo, pkg, imports, Collections.<DataType>emptyList()));
+        }
+    }
+
+    @Override
+    protected boolean streamDataType(DataType dataType) {
+        if (handler == null) {
+            return false;
+        }
+        handler.dataType(dataType, errors);
+        return true;
+    }
+
+    @Override
+    protected String intern(String string) {
+        return interner.intern(string);
+    }
+
+    @Override
+    protected Type intern(Type type) {
+        return interner.intern(type);
+    }
+
+    @Override
+    protected RefType intern(RefType refType) {
+        return interner.intern(refType);
+    }
+
+    @Override
+    protected List<ArgModifier> intern(List<ArgModifier> modifiers) {
+        return interner.intern(modifiers);
+    }
+
+    @Override
+    public int offset() {
+        // before anything has been parsed the current token is the parser's own placeholder
+        return token instanceof OffsetToken ? ((OffsetToken)token).endOffset : 0;
+    }
+
     @Override
     public String getSrcInfo() {
         return srcInfo;
@@ -212,29 +322,40 @@ public class JavaCCParserImpl extends BaseJavaCCParserImpl implements ParserImpl
     }
     
     /**
-     * Return all the comments attached to the current token (the last token matched)
+     * Return all the comments attached to the current token (the last token matched).  The comments
+     * aren't parsed until somebody looks at them
      */
     protected List<JavaComment> tokenComments(Token token) {
-        final List<JavaComment> comments = new ArrayList<JavaComment>();
-        Token comment = token.specialToken;
-        while(comment != null) {
-            switch(comment.kind) {
-            case JAVA_EOL_COMMENT:
-                comments.add(_JavaEOLComment(comment.image));
-                break;
-            case JAVA_ML_COMMENT:
-                comments.add(blockCommentParser.parse(new StringReader(comment.image)));
-                break;
-            case JAVADOC_COMMENT:
-                comments.add(javaDocParser.parse(new StringReader(comment.image)));
-                break;
-            default:
-                // anything else is not a comment and not our problem.
-                break;
+        int count = 0;
+        for (Token special = token.specialToken; special != null; special = special.specialToken) {
+            if (isComment(special)) {
+                count++;
             }
-            comment = comment.specialToken;
         }
-        Collections.reverse(comments);
-        return comments;
-    }    
+        if (count == 0) {
+            return NO_COMMENTS;
+        }
+        final int[] kinds = new int[count];
+        final String[] images = new String[count];
+        for (Token special = token.specialToken; special != null; special = special.specialToken) {
+            if (isComment(special)) {
+                count--;
+                kinds[count] = special.kind;
+                images[count] = special.image;
+            }
+        }
+        return new LazyCommentList(kinds, images);
+    }
+    
+    /**
+     * Comments from one list followed by comments from another.  Comments that haven't been parsed yet stay that way
+     */
+    @Override
+    protected List<JavaComment> concat(List<JavaComment> first, List<JavaComment> second) {
+        return LazyCommentList.concat(first, second);
+    }
+    
+    private static boolean isComment(Token token) {
+        return token.kind == JAVA_EOL_COMMENT || token.kind == JAVA_ML_COMMENT || token.kind == JAVADOC_COMMENT;
+    }
 }
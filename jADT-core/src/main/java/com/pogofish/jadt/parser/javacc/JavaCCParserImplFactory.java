@@ -17,6 +17,7 @@ package com.pogofish.jadt.parser.javacc;
 
 import java.io.Reader;
 
+import com.pogofish.jadt.ast.Interner;
 import com.pogofish.jadt.parser.ParserImplFactory;
 
 /**
@@ -25,11 +26,40 @@ import com.pogofish.jadt.parser.ParserImplFactory;
  * @author jiry
  */
 public class JavaCCParserImplFactory implements ParserImplFactory {
+    /**
+     * Interner shared by every parser this factory creates, or null if each parser gets its own
+     */
+    final Interner interner;
+    
+    /**
+     * Create a factory whose parsers each intern into their own Interner
+     */
+    public JavaCCParserImplFactory() {
+        this(null);
+    }
+    
+    /**
+     * Create a factory whose parsers all intern into the same Interner, e.g. so that the documents of a build
+     * share their common types
+     */
+    public JavaCCParserImplFactory(Interner interner) {
+        super();
+        this.interner = interner;
+    }
 
     @Override
     public JavaCCParserImpl create(String srcInfo, Reader reader) {
-        final JavaCCParserImpl impl = new JavaCCParserImpl(srcInfo, reader);
+        final JavaCCParserImpl impl = new JavaCCParserImpl(srcInfo, reader, interner());
         return impl;
     }
 
+    @Override
+    public JavaCCParserImpl create(String srcInfo, CharSequence chars) {
+        return new JavaCCParserImpl(srcInfo, chars, interner());
+    }
+    
+    private Interner interner() {
+        return interner == null ? new Interner() : interner;
+    }
+
 }
@@ -0,0 +1,126 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser.javacc;
+
+import static com.pogofish.jadt.ast.JavaComment._JavaEOLComment;
+
+import java.io.StringReader;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.pogofish.jadt.ast.JavaComment;
+import com.pogofish.jadt.comments.BlockCommentParser;
+import com.pogofish.jadt.comments.JavaDocParser;
+import com.pogofish.jadt.parser.javacc.generated.BaseJavaCCParserImplConstants;
+
+/**
+ * An immutable list of the comments attached to a token that keeps the raw comment images and only parses
+ * a comment into a JavaComment the first time it's asked for.  The parser itself only ever needs to know
+ * whether there are comments, so comments are only parsed once something like the emitter looks at them.
+ * 
+ * Safe to share between threads.
+ */
+final class LazyCommentList extends AbstractList<JavaComment> {
+    private static final JavaDocParser javaDocParser = new JavaDocParser();
+    
+    private static final BlockCommentParser blockCommentParser = new BlockCommentParser();
+
+    /**
+     * Token kinds and images of the comments, in order
+     */
+    private final int[] kinds;
+    private final String[] images;
+    
+    /**
+     * Comments that have been parsed so far
+     */
+    private final JavaComment[] comments;
+    
+    LazyCommentList(int[] kinds, String[] images) {
+        super();
+        this.kinds = kinds;
+        this.images = images;
+        this.comments = new JavaComment[kinds.length];
+    }
+
+    /**
+     * Comments from one list followed by comments from another.  Two LazyCommentLists are put together without parsing
+     * any of their comments, so this should only be used while parsing, before anything has looked at them.
+     */
+    static List<JavaComment> concat(List<JavaComment> first, List<JavaComment> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        if (first.isEmpty()) {
+            return second;
+        }
+        if (first instanceof LazyCommentList && second instanceof LazyCommentList) {
+            final LazyCommentList lazyFirst = (LazyCommentList)first;
+            final LazyCommentList lazySecond = (LazyCommentList)second;
+            final int length = lazyFirst.kinds.length + lazySecond.kinds.length;
+            final int[] kinds = new int[length];
+            final String[] images = new String[length];
+            System.arraycopy(lazyFirst.kinds, 0, kinds, 0, lazyFirst.kinds.length);
+            System.arraycopy(lazySecond.kinds, 0, kinds, lazyFirst.kinds.length, lazySecond.kinds.length);
+            System.arraycopy(lazyFirst.images, 0, images, 0, lazyFirst.images.length);
+            System.arraycopy(lazySecond.images, 0, images, lazyFirst.images.length, lazySecond.images.length);
+            return new LazyCommentList(kinds, images);
+        }
+        final List<JavaComment> comments = new ArrayList<JavaComment>(first);
+        comments.addAll(second);
+        return comments;
+    }
+
+    @Override
+    public synchronized JavaComment get(int index) {
+        if (comments[index] == null) {
+            comments[index] = parse(kinds[index], images[index]);
+        }
+        return comments[index];
+    }
+
+    @Override
+    public int size() {
+        return kinds.length;
+    }
+    
+    /**
+     * How many of the comments have been parsed so far
+     */
+    synchronized int parsed() {
+        int parsed = 0;
+        for (JavaComment comment : comments) {
+            if (comment != null) {
+                parsed++;
+            }
+        }
+        return parsed;
+    }
+    
+    private static JavaComment parse(int kind, String image) {
+        switch(kind) {
+        case BaseJavaCCParserImplConstants.JAVA_EOL_COMMENT:
+            return _JavaEOLComment(image);
+        case BaseJavaCCParserImplConstants.JAVA_ML_COMMENT:
+            return blockCommentParser.parse(new StringReader(image));
+        case BaseJavaCCParserImplConstants.JAVADOC_COMMENT:
+            return javaDocParser.parse(new StringReader(image));
+        default:
+            throw new IllegalArgumentException("Token kind " + kind + " is not a comment");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser.javacc;
+
+import com.pogofish.jadt.parser.javacc.generated.Token;
+
+/**
+ * A Token that also knows where it ends in the tokenizer's input, so the parser can tell where things it parsed end
+ */
+final class OffsetToken extends Token {
+    private static final long serialVersionUID = 4410957035931487213L;
+    
+    /**
+     * Index just after the token in the input, after unicode escapes have been decoded
+     */
+    final int endOffset;
+
+    OffsetToken(int kind, String image, int endOffset) {
+        super(kind, image);
+        this.endOffset = endOffset;
+    }
+}
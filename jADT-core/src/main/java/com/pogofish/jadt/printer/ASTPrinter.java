@@ -15,6 +15,7 @@ limitations under the License.
 */
 package com.pogofish.jadt.printer;
 
+import java.io.IOException;
 import java.util.List;
 
 import com.pogofish.jadt.ast.Annotation;
@@ -105,6 +106,10 @@ import com.pogofish.jadt.ast.Type.Ref;
 
 /**
  * Pretty printer for the jADT AST.  Note that in the context of pretty printers "print" just means "make a nice looking string"
+ * 
+ * Every print method comes in two flavors: one that returns a String and one that streams its output into an Appendable
+ * such as a Sink or StringBuilder.  The streaming versions do the real work so that printing a deeply nested tree doesn't 
+ * build up and throw away a String for every node.  IOExceptions from the Appendable are rethrown as RuntimeExceptions.
  *
  * @author jiry
  */
@@ -121,19 +126,34 @@ public class ASTPrinter  {
      * @return pretty string
      */
     public static String print(Doc doc) {
-        final StringBuilder builder = new StringBuilder(doc.pkg.name.isEmpty() ? "" : ("package " + doc.pkg.name + "\n\n"));
+        final StringBuilder builder = new StringBuilder();
+        print(builder, doc);
+        return builder.toString();
+    }
+    
+    /**
+     * Prints a Doc to an Appendable
+     * 
+     * @see #print(Doc)
+     */
+    public static void print(Appendable out, Doc doc) {
+        if (!doc.pkg.name.isEmpty()) {
+            append(out, "package ");
+            append(out, doc.pkg.name);
+            append(out, "\n\n");
+        }
         if (!doc.imports.isEmpty()) {
             for (Imprt imp : doc.imports) {
-                builder.append("import " + imp.name + "\n");
+                append(out, "import ");
+                append(out, imp.name);
+                append(out, "\n");
             }
-            builder.append("\n");
+            append(out, "\n");
         }
         for (DataType dataType : doc.dataTypes) {
-            builder.append(print(dataType));
-            builder.append("\n");
+            print(out, dataType);
+            append(out, "\n");
         }
-        return builder.toString();  
-        
     }
     
     /**
@@ -141,66 +161,85 @@ public class ASTPrinter  {
      */
     public static String printComments(String indent, List<JavaComment> comments) {
         final StringBuilder builder = new StringBuilder();
+        printComments(builder, indent, comments);
+        return builder.toString();
+    }
+
+    /**
+     * Prints a list of comments to an Appendable
+     * 
+     * @see #printComments(String, List)
+     */
+    public static void printComments(Appendable out, String indent, List<JavaComment> comments) {
         for (JavaComment comment : comments) {
-            builder.append(print(indent, comment));
-            builder.append("\n");
+            print(out, indent, comment);
+            append(out, "\n");
         }
-        return builder.toString();
     }
 
     /**
      * Prints a single comment pretty much unmolested
      */
-    public static String print(final String indent, JavaComment comment) {
-        return comment.match(new JavaComment.MatchBlock<String>() {
+    public static String print(String indent, JavaComment comment) {
+        final StringBuilder builder = new StringBuilder();
+        print(builder, indent, comment);
+        return builder.toString();
+    }
+    
+    /**
+     * Prints a single comment to an Appendable
+     * 
+     * @see #print(String, JavaComment)
+     */
+    public static void print(final Appendable out, final String indent, JavaComment comment) {
+        comment._switch(new JavaComment.SwitchBlock() {
 
             @Override
-            public String _case(JavaDocComment x) {
-                final StringBuilder builder = new StringBuilder(indent);
-                builder.append(x.start);
+            public void _case(JavaDocComment x) {
+                append(out, indent);
+                append(out, x.start);
                 for (JDToken token : x.generalSection) {
-                    builder.append(print(indent, token));
+                    print(out, indent, token);
                 }
                 for (JDTagSection tagSection : x.tagSections) {
                     for (JDToken token : tagSection.tokens) {
-                        builder.append(print(indent, token));
+                        print(out, indent, token);
                     }
                 }
                 
-                builder.append(x.end);
-                return builder.toString();
+                append(out, x.end);
             }
 
             @Override
-            public String _case(JavaBlockComment comment) {
-                final StringBuilder builder = new StringBuilder(indent);
+            public void _case(JavaBlockComment comment) {
+                append(out, indent);
                 for (List<BlockToken> line : comment.lines) {
                     for (BlockToken token : line) {
-                        builder.append(token.match(new BlockToken.MatchBlock<String>() {
+                        token._switch(new BlockToken.SwitchBlock() {
 
                             @Override
-                            public String _case(BlockWord x) {
-                                return x.word;
+                            public void _case(BlockWord x) {
+                                append(out, x.word);
                             }
 
                             @Override
-                            public String _case(BlockWhiteSpace x) {
-                                return x.ws;
+                            public void _case(BlockWhiteSpace x) {
+                                append(out, x.ws);
                             }
 
                             @Override
-                            public String _case(BlockEOL x) {
-                                return x.content + indent;
+                            public void _case(BlockEOL x) {
+                                append(out, x.content);
+                                append(out, indent);
                             }
-                        }));
+                        });
                     }
                 }
-                return builder.toString();
             }
 
             @Override
-            public String _case(JavaEOLComment x) {
-                return x.comment;
+            public void _case(JavaEOLComment x) {
+                append(out, x.comment);
             }
         });
     }
@@ -215,16 +254,26 @@ public class ASTPrinter  {
      */
     public static String print(DataType dataType) {
         final StringBuilder builder = new StringBuilder();
+        print(builder, dataType);
+        return builder.toString();
+    }
+    
+    /**
+     * Prints a dataType to an Appendable
+     * 
+     * @see #print(DataType)
+     */
+    public static void print(final Appendable out, DataType dataType) {
         for(Annotation annotation : dataType.annotations) {
-            builder.append(print(annotation));
-            builder.append("\n");
+            print(out, annotation);
+            append(out, "\n");
         }
-        builder.append(dataType.name);
+        append(out, dataType.name);
         dataType.extendedType._switch(new Optional.SwitchBlock<RefType>() {
             @Override
             public void _case(Some<RefType> x) {
-                builder.append(" extends ");
-                builder.append(print(x.value));
+                append(out, " extends ");
+                print(out, x.value);
             }
 
             @Override
@@ -232,28 +281,27 @@ public class ASTPrinter  {
             }
         });
         if (!dataType.implementedTypes.isEmpty()) {
-            builder.append(" implements ");
+            append(out, " implements ");
             boolean first = true;
             for (RefType type : dataType.implementedTypes) {
                 if (first) {
                     first = false;
                 } else {
-                    builder.append(", ");
+                    append(out, ", ");
                 }
-                builder.append(print(type));
+                print(out, type);
             }
         }
-        builder.append(" =\n    ");
+        append(out, " =\n    ");
         boolean first = true;
         for (Constructor constructor : dataType.constructors) {
             if (first) {
                 first = false;
             } else {
-                builder.append("\n  | ");
+                append(out, "\n  | ");
             }
-            builder.append(print(constructor));
+            print(out, constructor);
         }
-        return builder.toString();
     }
 
     /**
@@ -264,21 +312,31 @@ public class ASTPrinter  {
      * @return pretty string
      */
     public static String print(Constructor constructor) {
-        final StringBuilder builder = new StringBuilder(constructor.name);
+        final StringBuilder builder = new StringBuilder();
+        print(builder, constructor);
+        return builder.toString();
+    }
+
+    /**
+     * Prints a constructor to an Appendable
+     * 
+     * @see #print(Constructor)
+     */
+    public static void print(Appendable out, Constructor constructor) {
+        append(out, constructor.name);
         if (! constructor.args.isEmpty()) {
-            builder.append("(");
+            append(out, "(");
             boolean first = true;
             for (Arg arg : constructor.args) {
                 if (first) {
                     first = false;
                 } else {
-                    builder.append(", ");
+                    append(out, ", ");
                 }
-                builder.append(print(arg));
+                print(out, arg);
             }
-            builder.append(")");
+            append(out, ")");
         }
-        return builder.toString();
     }
 
     /**
@@ -289,7 +347,21 @@ public class ASTPrinter  {
      * @return pretty string
      */
     public static String print(Arg arg) {
-        return printArgModifiers(arg.modifiers) + print(arg.type) + " " + arg.name;
+        final StringBuilder builder = new StringBuilder();
+        print(builder, arg);
+        return builder.toString();
+    }
+    
+    /**
+     * Prints an arg to an Appendable
+     * 
+     * @see #print(Arg)
+     */
+    public static void print(Appendable out, Arg arg) {
+        printArgModifiers(out, arg.modifiers);
+        print(out, arg.type);
+        append(out, " ");
+        append(out, arg.name);
     }
     
     /**
@@ -299,19 +371,28 @@ public class ASTPrinter  {
      */
     public static String printArgModifiers(List<ArgModifier> modifiers) {
         final StringBuilder builder = new StringBuilder();
+        printArgModifiers(builder, modifiers);
+        return builder.toString();
+    }
+    
+    /**
+     * Prints a list of arg modifiers to an Appendable
+     * 
+     * @see #printArgModifiers(List)
+     */
+    public static void printArgModifiers(Appendable out, List<ArgModifier> modifiers) {
         if (modifiers.contains(ArgModifier._Final())) {
-            builder.append(print(ArgModifier._Final()));
-            builder.append(" ");
+            append(out, print(ArgModifier._Final()));
+            append(out, " ");
         }
         if (modifiers.contains(ArgModifier._Transient())) {
-            builder.append(print(ArgModifier._Transient()));
-            builder.append(" ");
+            append(out, print(ArgModifier._Transient()));
+            append(out, " ");
         }
         if (modifiers.contains(ArgModifier._Volatile())) {
-            builder.append(print(ArgModifier._Volatile()));
-            builder.append(" ");
+            append(out, print(ArgModifier._Volatile()));
+            append(out, " ");
         }
-        return builder.toString();
     }
     
     /**
@@ -321,15 +402,26 @@ public class ASTPrinter  {
      * @return pretty string
      */
     public static String print(Type type) {
-        return type.match(new Type.MatchBlock<String>(){
+        final StringBuilder builder = new StringBuilder();
+        print(builder, type);
+        return builder.toString();
+    }
+    
+    /**
+     * Prints a type to an Appendable
+     * 
+     * @see #print(Type)
+     */
+    public static void print(final Appendable out, Type type) {
+        type._switch(new Type.SwitchBlock(){
             @Override
-            public String _case(Ref x) {
-                return print(x.type);
+            public void _case(Ref x) {
+                print(out, x.type);
             }
 
             @Override
-            public String _case(Primitive x) {
-                return print(x.type);
+            public void _case(Primitive x) {
+                append(out, print(x.type));
             }
             
         });
@@ -342,36 +434,47 @@ public class ASTPrinter  {
      * type[]
      * 
      * For a class it prints as
-     * className("<" refType(", " refType)*">")?
+     * {@code className("<" refType(", " refType)*">")?}
      * 
      * @param type RefType to be printed
      * @return pretty string
      */
     public static String print(RefType type) {
-        return type.match(new RefType.MatchBlock<String>() {
+        final StringBuilder builder = new StringBuilder();
+        print(builder, type);
+        return builder.toString();
+    }
+    
+    /**
+     * Prints a RefType to an Appendable
+     * 
+     * @see #print(RefType)
+     */
+    public static void print(final Appendable out, RefType type) {
+        type._switch(new RefType.SwitchBlock() {
 
             @Override
-            public String _case(ClassType x) {
-                final StringBuilder builder = new StringBuilder(x.baseName);
+            public void _case(ClassType x) {
+                append(out, x.baseName);
                 if (!x.typeArguments.isEmpty()) {
-                    builder.append("<");
+                    append(out, "<");
                     boolean first = true;
                     for (RefType typeArgument : x.typeArguments) {
                         if (first) {
                             first = false;
                         } else {
-                            builder.append(", ");
+                            append(out, ", ");
                         }
-                        builder.append(print(typeArgument));
+                        print(out, typeArgument);
                     }
-                    builder.append(">");
+                    append(out, ">");
                 }
-                return builder.toString();
             }
 
             @Override
-            public String _case(ArrayType x) {
-                return print(x.heldType) + "[]";
+            public void _case(ArrayType x) {
+                print(out, x.heldType);
+                append(out, "[]");
             }});
     }
     
@@ -450,32 +553,33 @@ public class ASTPrinter  {
     /**
      * Print a single JavaDoc token
      */
-    private static String print(final String indent, JDToken token) {
-        return token.match(new JDToken.MatchBlock<String>() {
+    private static void print(final Appendable out, final String indent, JDToken token) {
+        token._switch(new JDToken.SwitchBlock() {
 
             @Override
-            public String _case(JDAsterisk x) {
-                return "*";
+            public void _case(JDAsterisk x) {
+                append(out, "*");
             }
 
             @Override
-            public String _case(JDEOL x) {
-                return x.content + indent;
+            public void _case(JDEOL x) {
+                append(out, x.content);
+                append(out, indent);
             }
 
             @Override
-            public String _case(JDTag x) {
-                return x.name;
+            public void _case(JDTag x) {
+                append(out, x.name);
             }
 
             @Override
-            public String _case(JDWord x) {
-                return x.word;
+            public void _case(JDWord x) {
+                append(out, x.word);
             }
 
             @Override
-            public String _case(JDWhiteSpace x) {
-                return x.ws;
+            public void _case(JDWhiteSpace x) {
+                append(out, x.ws);
             }
         });
     }
@@ -521,117 +625,156 @@ public class ASTPrinter  {
      * Print an expression
      */
     public static String print(Expression expression) {
-        return expression.match(new Expression.MatchBlock<String>() {
+        final StringBuilder builder = new StringBuilder();
+        print(builder, expression);
+        return builder.toString();
+    }
+    
+    /**
+     * Print an expression to an Appendable
+     */
+    public static void print(final Appendable out, Expression expression) {
+        expression._switch(new Expression.SwitchBlock() {
 
             @Override
-            public String _case(LiteralExpression x) {
-                return print(x.literal);
+            public void _case(LiteralExpression x) {
+                append(out, print(x.literal));
             }
 
             @Override
-            public String _case(VariableExpression x) {
-                return x.selector.match(new Optional.MatchBlock<Expression, String>() {
+            public void _case(VariableExpression x) {
+                x.selector._switch(new Optional.SwitchBlock<Expression>() {
                     @Override
-                    public String _case(Some<Expression> x) {
-                        return print(x.value) + ".";
+                    public void _case(Some<Expression> x) {
+                        print(out, x.value);
+                        append(out, ".");
                     }
 
                     @Override
-                    public String _case(None<Expression> x) {
-                        return "";
+                    public void _case(None<Expression> x) {
                     }
-                }) + x.identifier;
+                });
+                append(out, x.identifier);
             }
 
             @Override
-            public String _case(NestedExpression x) {
-                return "( " + print(x.expression) + " )";
+            public void _case(NestedExpression x) {
+                append(out, "( ");
+                print(out, x.expression);
+                append(out, " )");
             }
 
             @Override
-            public String _case(ClassReference x) {
-                return print(x.type) + ".class";
+            public void _case(ClassReference x) {
+                print(out, x.type);
+                append(out, ".class");
             }
 
             @Override
-            public String _case(TernaryExpression x) {
-                return print(x.cond) + " ? " + print(x.trueExpression) + " : " + print (x.falseExpression);
+            public void _case(TernaryExpression x) {
+                print(out, x.cond);
+                append(out, " ? ");
+                print(out, x.trueExpression);
+                append(out, " : ");
+                print(out, x.falseExpression);
             }
 
             @Override
-            public String _case(BinaryExpression x) {
-                return print(x.left) + " " + print(x.op) + " " +  print(x.right);
+            public void _case(BinaryExpression x) {
+                print(out, x.left);
+                append(out, " ");
+                append(out, print(x.op));
+                append(out, " ");
+                print(out, x.right);
             }
         });
     }
     
     public static String print(Annotation annotation) {
-        return "@" + annotation.name + annotation.element.match(new Optional.MatchBlock<AnnotationElement, String>() {
+        final StringBuilder builder = new StringBuilder();
+        print(builder, annotation);
+        return builder.toString();
+    }
+    
+    public static void print(final Appendable out, Annotation annotation) {
+        append(out, "@");
+        append(out, annotation.name);
+        annotation.element._switch(new Optional.SwitchBlock<AnnotationElement>() {
 
             @Override
-            public String _case(Some<AnnotationElement> x) {
-                return "( " + print(x.value) + " )";
+            public void _case(Some<AnnotationElement> x) {
+                append(out, "( ");
+                print(out, x.value);
+                append(out, " )");
             }
 
             @Override
-            public String _case(None<AnnotationElement> x) {
-                return "";
+            public void _case(None<AnnotationElement> x) {
             }
         });
     }
     
     public static String print(AnnotationElement value) {
-        return value.match(new AnnotationElement.MatchBlock<String>() {
+        final StringBuilder builder = new StringBuilder();
+        print(builder, value);
+        return builder.toString();
+    }
+    
+    public static void print(final Appendable out, AnnotationElement value) {
+        value._switch(new AnnotationElement.SwitchBlock() {
             @Override
-            public String _case(ElementValue x) {
-                return print(x.value);
+            public void _case(ElementValue x) {
+                print(out, x.value);
             }
 
             @Override
-            public String _case(ElementValuePairs x) {
-                final StringBuilder builder = new StringBuilder();
+            public void _case(ElementValuePairs x) {
                 boolean first = true;
                 for (AnnotationKeyValue kv : x.keyValues) {
                     if (first) {
                         first = false;
                     } else {
-                        builder.append(", ");
+                        append(out, ", ");
                     }
-                    builder.append(kv.key);
-                    builder.append(" = ");
-                    builder.append(print(kv.value));
+                    append(out, kv.key);
+                    append(out, " = ");
+                    print(out, kv.value);
                 }
-                return builder.toString();
             }
         });
     }
 
     public static String print(AnnotationValue value) {
-        return value.match(new AnnotationValue.MatchBlock<String>() {
+        final StringBuilder builder = new StringBuilder();
+        print(builder, value);
+        return builder.toString();
+    }
+    
+    public static void print(final Appendable out, AnnotationValue value) {
+        value._switch(new AnnotationValue.SwitchBlock() {
 
             @Override
-            public String _case(AnnotationValueAnnotation x) {
-                return print(x.annotation);
+            public void _case(AnnotationValueAnnotation x) {
+                print(out, x.annotation);
             }
 
             @Override
-            public String _case(AnnotationValueExpression x) {
-                return print(x.expression);
+            public void _case(AnnotationValueExpression x) {
+                print(out, x.expression);
             }
 
             @Override
-            public String _case(AnnotationValueArray x) {
-                final StringBuilder builder = new StringBuilder("{ ");
+            public void _case(AnnotationValueArray x) {
+                append(out, "{ ");
                 boolean first = true;
                 for (AnnotationValue value : x.values) {
                     if (first) {
                         first = false;
                     } else {
-                        builder.append(", ");
+                        append(out, ", ");
                     }
-                    builder.append(print(value));
+                    print(out, value);
                 }
-                return builder.toString();
             }
         });
     }
@@ -735,4 +878,15 @@ public class ASTPrinter  {
             }
         });
     }
+    
+    /**
+     * Append to an Appendable, turning any IOException into a RuntimeException
+     */
+    private static void append(Appendable out, CharSequence chars) {
+        try {
+            out.append(chars);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
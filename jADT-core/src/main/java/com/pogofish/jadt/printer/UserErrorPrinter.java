@@ -20,7 +20,9 @@ import com.pogofish.jadt.errors.SemanticError.ConstructorDataTypeConflict;
 import com.pogofish.jadt.errors.SemanticError.DuplicateArgName;
 import com.pogofish.jadt.errors.SemanticError.DuplicateConstructor;
 import com.pogofish.jadt.errors.SemanticError.DuplicateDataType;
+import com.pogofish.jadt.errors.SemanticError.DuplicateDataTypeInSources;
 import com.pogofish.jadt.errors.SemanticError.DuplicateModifier;
+import com.pogofish.jadt.errors.SemanticError.UnresolvedType;
 import com.pogofish.jadt.errors.SyntaxError;
 import com.pogofish.jadt.errors.UserError;
 import com.pogofish.jadt.errors.UserError.Semantic;
@@ -77,6 +79,16 @@ public class UserErrorPrinter {
             public String _case(DuplicateModifier x) {
                 return "Duplicated modifier " + x.modifier +" on arg name " + x.argName + " in constructor " + x.constructorName + " of data type " + x.dataTypeName + ".";
             }
+
+            @Override
+            public String _case(DuplicateDataTypeInSources x) {
+                return "Data type " + x.dataTypeName + " in " + x.srcInfo + " is also defined in " + x.otherSrcInfo + ".  Both would generate the same class.";
+            }
+
+            @Override
+            public String _case(UnresolvedType x) {
+                return "Data type " + x.dataTypeName + " refers to " + x.typeName + ", which is not imported, in the same package, or on the classpath.";
+            }
         });
     }
 }
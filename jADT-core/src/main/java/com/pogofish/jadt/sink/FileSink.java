@@ -9,22 +9,67 @@
 package com.pogofish.jadt.sink;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.logging.Logger;
 
 import com.pogofish.jadt.util.ExceptionAction;
 import com.pogofish.jadt.util.Util;
 
 
 /**
- * Sink that writes to a specified file in UTF-8
+ * Sink that writes to a specified file in UTF-8.  Everything written is buffered in memory, encoded once, and
+ * written to the file with a single channel write when the sink is closed.
+ * 
+ * A FileSink created with WriteCounts only writes the file if its contents have changed, leaving the timestamp of 
+ * unchanged files alone.
  *
  * @author jiry
  */
 public class FileSink implements Sink {
-    private final Writer writer;
+    private static final Logger logger = Logger.getLogger(FileSink.class.toString());
+    
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    
+    /**
+     * Encode buffers bigger than this aren't kept around for reuse
+     */
+    private static final int MAX_REUSED_CAPACITY = 1024 * 1024;
+    
+    /**
+     * Encoders are not thread safe so each thread gets its own.  Replacement matches what an OutputStreamWriter does with bad input
+     */
+    private static final ThreadLocal<CharsetEncoder> ENCODER = new ThreadLocal<CharsetEncoder>() {
+        @Override
+        protected CharsetEncoder initialValue() {
+            return UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    };
+    
+    /**
+     * Byte buffer reused by each thread for encoding
+     */
+    private static final ThreadLocal<ByteBuffer> ENCODE_BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(16 * 1024);
+        }
+    };
+    
+    private final StringBuilder buffer = new StringBuilder(4096);
+    /**
+     * Where to record whether the file was written, null if the file is always written
+     */
+    private final WriteCounts counts;
     final File outputFile;
 
     @Override
@@ -33,46 +78,141 @@ public class FileSink implements Sink {
 	}
 
 	/**
-     * Creates a FileSink based on a complete file name
+     * Creates a FileSink based on a complete file name that always writes the file
      * 
      * @param outputFileName String full name of the file to be output
      */
     public FileSink(final String outputFileName) {
         super();
         outputFile = new File(outputFileName);
+        counts = null;
 
-        writer = Util.execute(new ExceptionAction<Writer>() {
+        Util.execute(new ExceptionAction<Void>() {
             @Override
-            public Writer doAction() throws IOException {
+            public Void doAction() throws IOException {
                 final File parentDir = outputFile.getParentFile();
                 parentDir.mkdirs();
 
                 outputFile.createNewFile();
-
-                return new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8");
+                return null;
             }
         });
     }
+    
+    /**
+     * Creates a FileSink based on a complete file name that only writes the file if the new contents are different from
+     * the existing contents
+     * 
+     * @param outputFileName String full name of the file to be output
+     * @param counts WriteCounts that records whether the file was written or skipped
+     */
+    public FileSink(final String outputFileName, WriteCounts counts) {
+        super();
+        outputFile = new File(outputFileName);
+        this.counts = counts;
+    }
 
     @Override
     public void write(final String data) {
-        Util.execute(new ExceptionAction<Writer>() {
+        buffer.append(data);
+    }
 
-            @Override
-            public Writer doAction() throws IOException {
-                writer.write(data);
-                return null;
-            }});
+    @Override
+    public Sink append(CharSequence csq) {
+        buffer.append(csq);
+        return this;
+    }
+
+    @Override
+    public Sink append(CharSequence csq, int start, int end) {
+        buffer.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public Sink append(char c) {
+        buffer.append(c);
+        return this;
     }
 
     @Override
     public void close() {
-        Util.execute(new ExceptionAction<Writer>() {
+        Util.execute(new ExceptionAction<Void>() {
 
             @Override
-            public Writer doAction() throws IOException {
-                writer.close();
+            public Void doAction() throws IOException {
+                final ByteBuffer bytes = encode(buffer);
+                if (counts == null) {
+                    writeFile(bytes);
+                } else if (hasContents(bytes)) {
+                    logger.fine("Unchanged " + outputFile.getAbsolutePath());
+                    counts.recordSkipped();
+                } else {
+                    outputFile.getParentFile().mkdirs();
+                    writeFile(bytes);
+                    counts.recordWritten();
+                }
                 return null;
             }});
     }
+    
+    /**
+     * Encode chars as UTF-8 into this thread's reusable byte buffer, growing it if needed.  The result is only good until
+     * the next call to encode on the same thread
+     */
+    private static ByteBuffer encode(CharSequence chars) throws CharacterCodingException {
+        final CharsetEncoder encoder = ENCODER.get().reset();
+        final int maxBytes = (int)Math.ceil(chars.length() * encoder.maxBytesPerChar());
+        ByteBuffer bytes = ENCODE_BUFFER.get();
+        if (bytes.capacity() < maxBytes) {
+            bytes = ByteBuffer.allocate(maxBytes);
+            if (maxBytes <= MAX_REUSED_CAPACITY) {
+                ENCODE_BUFFER.set(bytes);
+            }
+        }
+        bytes.clear();
+        final CoderResult result = encoder.encode(CharBuffer.wrap(chars), bytes, true);
+        if (result.isError()) {
+            result.throwException();
+        }
+        encoder.flush(bytes);
+        bytes.flip();
+        return bytes;
+    }
+    
+    /**
+     * Replace the contents of the output file with the remaining bytes
+     */
+    private void writeFile(ByteBuffer bytes) throws IOException {
+        final FileOutputStream stream = new FileOutputStream(outputFile);
+        try {
+            final FileChannel channel = stream.getChannel();
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } finally {
+            stream.close();
+        }
+    }
+    
+    /**
+     * True if the output file exists and contains exactly the remaining bytes
+     */
+    private boolean hasContents(ByteBuffer bytes) throws IOException {
+        if (!outputFile.isFile() || outputFile.length() != bytes.remaining()) {
+            return false;
+        }
+        final ByteBuffer existing = ByteBuffer.allocate(bytes.remaining());
+        final FileInputStream stream = new FileInputStream(outputFile);
+        try {
+            final FileChannel channel = stream.getChannel();
+            while (existing.hasRemaining() && channel.read(existing) >= 0) {
+                // keep reading
+            }
+        } finally {
+            stream.close();
+        }
+        existing.flip();
+        return existing.equals(bytes);
+    }
 }
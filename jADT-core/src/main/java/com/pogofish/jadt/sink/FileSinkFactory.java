@@ -24,6 +24,10 @@ import java.io.File;
  */
 public class FileSinkFactory implements SinkFactory {
     final String destDirName;
+    /**
+     * If not null then sinks only write files that have changed and record what they did here
+     */
+    final WriteCounts counts;
 
     /**
      * Creates a FileSinkFactory that will output to the given directory
@@ -31,12 +35,37 @@ public class FileSinkFactory implements SinkFactory {
      * @param destDirName
      */
     public FileSinkFactory(String destDirName) {
+        this(destDirName, null);
+    }
+    
+    /**
+     * Creates a FileSinkFactory that will output to the given directory.  If counts is not null then
+     * files are only written when their contents change and the number written and skipped are recorded in counts
+     * 
+     * @param destDirName
+     * @param counts WriteCounts or null to always write files
+     */
+    public FileSinkFactory(String destDirName, WriteCounts counts) {
         this.destDirName = destDirName;
+        this.counts = counts;
     }
 
     @Override
     public Sink createSink(String className) {
-        return new FileSink(convertToPath(className));
+        return counts == null ? new FileSink(convertToPath(className)) : new FileSink(convertToPath(className), counts);
+    }
+    
+    @Override
+    public boolean exists(String className) {
+        return new File(convertToPath(className)).exists();
+    }
+    
+    @Override
+    public void delete(String className) {
+        final File file = new File(convertToPath(className));
+        if (file.exists() && !file.delete()) {
+            throw new RuntimeException("Could not delete " + file.getAbsolutePath());
+        }
     }
 
     /**
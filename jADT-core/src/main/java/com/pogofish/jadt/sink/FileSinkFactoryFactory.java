@@ -21,10 +21,38 @@ package com.pogofish.jadt.sink;
  * @author jiry
  */
 public class FileSinkFactoryFactory implements SinkFactoryFactory {
+    /**
+     * If not null then files are only written when they change and the number written and skipped are recorded here
+     */
+    final WriteCounts counts;
+    
+    /**
+     * Creates a FileSinkFactoryFactory whose sinks always write their files
+     */
+    public FileSinkFactoryFactory() {
+        this(null);
+    }
+    
+    /**
+     * Creates a FileSinkFactoryFactory whose sinks only write files that have changed
+     * 
+     * @param counts WriteCounts shared by all the sinks to record what was written and skipped, or null to always write files
+     */
+    public FileSinkFactoryFactory(WriteCounts counts) {
+        super();
+        this.counts = counts;
+    }
 
     @Override
     public SinkFactory createSinkFactory(String baseDir) {
-        return new FileSinkFactory(baseDir);
+        return new FileSinkFactory(baseDir, counts);
+    }
+    
+    /**
+     * The counts of files written and skipped, or null if files are always written
+     */
+    public WriteCounts getWriteCounts() {
+        return counts;
     }
     
 }
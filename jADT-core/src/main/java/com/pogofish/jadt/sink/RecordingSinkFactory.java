@@ -0,0 +1,56 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.sink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SinkFactory that delegates to another SinkFactory while remembering the names of the classes it was asked to create
+ */
+public class RecordingSinkFactory implements SinkFactory {
+    private final SinkFactory delegate;
+    private final List<String> classNames = new ArrayList<String>();
+    
+    public RecordingSinkFactory(SinkFactory delegate) {
+        super();
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Sink createSink(String className) {
+        classNames.add(className);
+        return delegate.createSink(className);
+    }
+
+    @Override
+    public boolean exists(String className) {
+        return delegate.exists(className);
+    }
+
+    @Override
+    public void delete(String className) {
+        delegate.delete(className);
+    }
+
+    /**
+     * Names of the classes created so far, in the order they were created
+     */
+    public List<String> getClassNames() {
+        return Collections.unmodifiableList(classNames);
+    }
+}
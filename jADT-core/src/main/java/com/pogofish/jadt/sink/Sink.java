@@ -16,11 +16,12 @@ limitations under the License.
 package com.pogofish.jadt.sink;
 
 /**
- * A sink represents a location to emit java
+ * A sink represents a location to emit java.  A sink is also an Appendable so that things like the ASTPrinter can
+ * stream straight into it.  Unlike most Appendables, appending to a Sink never throws an IOException.
  *
  * @author jiry
  */
-public interface Sink {
+public interface Sink extends Appendable {
 	/**
 	 * Information about where this sink is going
 	 */
@@ -37,5 +38,14 @@ public interface Sink {
      * @param data String to write
      */
     public abstract void write(String data);
+    
+    @Override
+    public abstract Sink append(CharSequence csq);
+
+    @Override
+    public abstract Sink append(CharSequence csq, int start, int end);
+
+    @Override
+    public abstract Sink append(char c);
 
 }
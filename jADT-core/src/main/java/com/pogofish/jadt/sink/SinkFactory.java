@@ -22,4 +22,14 @@ package com.pogofish.jadt.sink;
  */
 public interface SinkFactory {
     public Sink createSink(String className);
+    
+    /**
+     * Whether output for the given class name exists already
+     */
+    public boolean exists(String className);
+    
+    /**
+     * Remove any existing output for the given class name
+     */
+    public void delete(String className);
 }
@@ -47,6 +47,24 @@ public class StringSink implements Sink {
     public void write(String data) {
         writer.write(data);
     }
+
+    @Override
+    public Sink append(CharSequence csq) {
+        writer.append(csq);
+        return this;
+    }
+
+    @Override
+    public Sink append(CharSequence csq, int start, int end) {
+        writer.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public Sink append(char c) {
+        writer.append(c);
+        return this;
+    }
     
     @Override
     public void close() {
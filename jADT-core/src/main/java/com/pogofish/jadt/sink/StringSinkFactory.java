@@ -45,6 +45,16 @@ public class StringSinkFactory implements SinkFactory {
         return sink;
     }
     
+    @Override
+    public boolean exists(String className) {
+        return sinks.containsKey(className);
+    }
+    
+    @Override
+    public void delete(String className) {
+        sinks.remove(className);
+    }
+    
     /**
      * Get the results as a Map from names to String data.  The names are composed of
      * @return Map with results
@@ -0,0 +1,71 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.sink;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread safe count of how many files were written and how many were skipped because they were unchanged
+ */
+public class WriteCounts {
+    private final AtomicInteger written = new AtomicInteger(0);
+    private final AtomicInteger skipped = new AtomicInteger(0);
+    
+    /**
+     * Record that a file was written
+     */
+    public void recordWritten() {
+        written.incrementAndGet();
+    }
+    
+    /**
+     * Record that a file was not written because its contents were unchanged
+     */
+    public void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+    
+    /**
+     * Number of files written
+     */
+    public int getWritten() {
+        return written.get();
+    }
+    
+    /**
+     * Number of files not written because they were unchanged
+     */
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Start counting again from zero
+     * 
+     * @return WriteCounts with the counts from before the reset
+     */
+    public WriteCounts reset() {
+        final WriteCounts previous = new WriteCounts();
+        previous.written.set(written.getAndSet(0));
+        previous.skipped.set(skipped.getAndSet(0));
+        return previous;
+    }
+
+    @Override
+    public String toString() {
+        return getWritten() + " file(s) written, " + getSkipped() + " file(s) unchanged";
+    }
+}
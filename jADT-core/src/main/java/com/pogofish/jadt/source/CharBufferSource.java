@@ -0,0 +1,29 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.source;
+
+import java.nio.CharBuffer;
+
+/**
+ * A Source whose entire content is available as a CharBuffer so that it can be read without going through a Reader
+ */
+public interface CharBufferSource extends Source {
+    /**
+     * A read only CharBuffer, positioned at the start, with the complete content of the source.  Each call returns
+     * a buffer with its own position and limit so callers don't interfere with each other.
+     */
+    public CharBuffer getCharBuffer();
+}
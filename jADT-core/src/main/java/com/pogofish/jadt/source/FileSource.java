@@ -47,4 +47,9 @@ public class FileSource implements Source {
     public String getSrcInfo() {
         return srcFile.getAbsolutePath();
     }
+
+    @Override
+    public long lastModified() {
+        return srcFile.lastModified();
+    }
 }
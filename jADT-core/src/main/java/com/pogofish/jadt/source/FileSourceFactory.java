@@ -16,45 +16,88 @@ limitations under the License.
 package com.pogofish.jadt.source;
 
 import java.io.File;
-import java.io.FilenameFilter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import com.pogofish.jadt.util.Util;
 
 /**
- * Factory to create a FileSource given a file name
+ * Factory to create FileSources given a file or directory name.  Directories are searched for files matching
+ * include and exclude Globs, by default only the .jadt files directly in the directory.
  *
  * @author jiry
  */
 public class FileSourceFactory implements SourceFactory {
-    private static final FilenameFilter FILTER = new FilenameFilter() {            
-        @Override
-        public boolean accept(File dir, String name) {
-            return name.endsWith(".jadt");
-        }
-    };
+    /**
+     * Include pattern used by the default constructor, .jadt files directly in the source directory
+     */
+    public static final String DEFAULT_INCLUDE = "*.jadt";
+    /**
+     * Include pattern for .jadt files anywhere under the source directory
+     */
+    public static final String RECURSIVE_INCLUDE = "**/*.jadt";
     
+    private final List<Glob> includes;
+    private final List<Glob> excludes;
     /**
-     * Return sa list of FileSources based on the name.  If the name
-     * is a directory then it returns all the files in that directory
-     * ending with .jadt.  Otherwise it is assumed that the name
+     * Executor used to list directories concurrently, null if directories are listed on the calling thread
+     */
+    private final ExecutorService executor;
+    
+    /**
+     * Creates a FileSourceFactory that finds the .jadt files directly in a directory
+     */
+    public FileSourceFactory() {
+        this(Util.list(DEFAULT_INCLUDE), Collections.<String>emptyList(), null);
+    }
+    
+    /**
+     * Creates a FileSourceFactory that walks directories looking for files that match at least one include pattern and 
+     * no exclude patterns.  See Glob for the pattern syntax.  Directories are only walked as deep as the include patterns
+     * need and directories that are completely excluded are not walked at all.
+     * 
+     * @param includes include patterns, relative to the source directory
+     * @param excludes exclude patterns, relative to the source directory
+     * @param executor ExecutorService used to list directories concurrently, or null to list them on the calling thread
+     */
+    public FileSourceFactory(List<String> includes, List<String> excludes, ExecutorService executor) {
+        super();
+        this.includes = globs(includes);
+        this.excludes = globs(excludes);
+        this.executor = executor;
+    }
+    
+    /**
+     * Return the FileSources based on the name.  If the name
+     * is a directory then the result lazily walks the directory 
+     * each time it is iterated.  Otherwise it is assumed that the name
      * is a file.
      */
     @Override
-    public List<FileSource> createSources(String srcName) {
+    public Iterable<FileSource> createSources(String srcName) {
         final File dirOrFile = new File(srcName);
 
-        final File[] files = dirOrFile.listFiles(FILTER);
-        if (files != null) {
-            final List<FileSource> sources = new ArrayList<FileSource>(files.length);
-            for (File file : files) {
-                sources.add(new FileSource(file));
-            }
-            return sources;
+        if (dirOrFile.isDirectory()) {
+            return new Iterable<FileSource>() {
+                @Override
+                public Iterator<FileSource> iterator() {
+                    return new FileSourceIterator(dirOrFile, includes, excludes, executor);
+                }
+            };
         } else {
-            return Util.list(new FileSource(dirOrFile));
+            return Util.<FileSource>list(new MappedFileSource(dirOrFile));
+        }
+    }
+    
+    private static List<Glob> globs(List<String> patterns) {
+        final List<Glob> globs = new ArrayList<Glob>(patterns.size());
+        for (String pattern : patterns) {
+            globs.add(new Glob(pattern));
         }
+        return globs;
     }
 
 }
@@ -0,0 +1,212 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Iterator that lazily walks a directory tree depth first and returns a FileSource for each file that matches at
+ * least one include Glob and no exclude Glob.  Entries within a directory are visited in name order so the
+ * result doesn't depend on the file system.
+ * 
+ * If an executor is supplied then whenever a directory is expanded the listings of all its subdirectories are
+ * started on the executor so that they are ready, or nearly so, by the time the walk gets to them.
+ */
+class FileSourceIterator implements Iterator<FileSource> {
+    private static final Logger logger = Logger.getLogger(FileSourceIterator.class.toString());
+    
+    private final List<Glob> includes;
+    private final List<Glob> excludes;
+    private final ExecutorService executor;
+    /**
+     * Canonical paths of the directories already listed, protects against cycles made with links
+     */
+    private final Set<String> visited = Collections.synchronizedSet(new HashSet<String>());
+    /**
+     * Entries still to be visited, next one first
+     */
+    private final LinkedList<Entry> pending = new LinkedList<Entry>();
+    private FileSource next = null;
+    
+    /**
+     * A file or directory found during the walk
+     */
+    private final class Entry {
+        final File file;
+        /**
+         * Path relative to the root using '/' as the separator
+         */
+        final String path;
+        final boolean directory;
+        /**
+         * For directories being listed on the executor, the listing. Otherwise null
+         */
+        Future<List<Entry>> listing = null;
+        
+        Entry(File file, String path, boolean directory) {
+            this.file = file;
+            this.path = path;
+            this.directory = directory;
+        }
+        
+        /**
+         * Start listing this directory on the executor if there is one
+         */
+        void prefetch() {
+            if (executor != null) {
+                listing = Util.submit(executor, new ExceptionAction<List<Entry>>() {
+                    @Override
+                    public List<Entry> doAction() throws IOException {
+                        return list(Entry.this);
+                    }
+                });
+            }
+        }
+        
+        /**
+         * The interesting children of this directory
+         */
+        List<Entry> children() throws IOException {
+            return listing == null ? list(this) : Util.get(listing);
+        }
+    }
+    
+    FileSourceIterator(File root, List<Glob> includes, List<Glob> excludes, ExecutorService executor) {
+        super();
+        this.includes = includes;
+        this.excludes = excludes;
+        this.executor = executor;
+        final Entry rootEntry = new Entry(root, "", true);
+        rootEntry.prefetch();
+        pending.add(rootEntry);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !pending.isEmpty()) {
+            final Entry entry = pending.removeFirst();
+            if (entry.directory) {
+                final List<Entry> children = Util.execute(new ExceptionAction<List<Entry>>() {
+                    @Override
+                    public List<Entry> doAction() throws IOException {
+                        return entry.children();
+                    }
+                });
+                for (Entry child : children) {
+                    if (child.directory) {
+                        child.prefetch();
+                    }
+                }
+                pending.addAll(0, children);
+            } else {
+                next = new MappedFileSource(entry.file);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public FileSource next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final FileSource result = next;
+        next = null;
+        return result;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+    
+    /**
+     * List the children of a directory that are worth visiting, in name order.  Safe to call from any thread
+     */
+    private List<Entry> list(Entry dir) throws IOException {
+        if (!visited.add(dir.file.getCanonicalPath())) {
+            logger.fine("Skipping already visited directory " + dir.file);
+            return Collections.emptyList();
+        }
+        final File[] files = dir.file.listFiles();
+        if (files == null) {
+            throw new IOException("Could not list directory " + dir.file.getAbsolutePath());
+        }
+        Arrays.sort(files);
+        final List<Entry> children = new ArrayList<Entry>(files.length);
+        for (File file : files) {
+            final String path = dir.path.isEmpty() ? file.getName() : dir.path + "/" + file.getName();
+            if (file.isDirectory()) {
+                if (couldContainSources(path)) {
+                    children.add(new Entry(file, path, true));
+                }
+            } else if (isSource(path)) {
+                children.add(new Entry(file, path, false));
+            }
+        }
+        return children;
+    }
+    
+    /**
+     * True if the relative directory path could have something included and not excluded under it
+     */
+    private boolean couldContainSources(String dirPath) {
+        for (Glob exclude : excludes) {
+            if (exclude.matchesEverythingUnder(dirPath)) {
+                return false;
+            }
+        }
+        for (Glob include : includes) {
+            if (include.couldMatchUnder(dirPath)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if the relative file path is included and not excluded
+     */
+    private boolean isSource(String path) {
+        for (Glob exclude : excludes) {
+            if (exclude.matches(path)) {
+                return false;
+            }
+        }
+        for (Glob include : includes) {
+            if (include.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.source;
+
+import java.util.regex.Pattern;
+
+/**
+ * Ant style glob for matching paths relative to a source directory.  Paths and patterns use '/' as the separator.
+ * Within a path segment '*' matches any number of characters and '?' matches exactly one character.  A "**" segment
+ * matches any number of whole segments, including none.  A pattern ending in '/' is treated as if it ended in "/**".
+ * 
+ * So "*.jadt" matches only .jadt files directly in the source directory, "**&#47;*.jadt" matches .jadt files at any depth,
+ * and "**&#47;test/**" matches everything that is somewhere under a directory named test.
+ */
+public class Glob {
+    private static final String ANY_SEGMENTS = "**";
+    
+    private final String pattern;
+    /**
+     * One Pattern per segment of the glob, null for "**" segments
+     */
+    private final Pattern[] segments;
+    
+    public Glob(String pattern) {
+        super();
+        String normalized = pattern.replace('\\', '/');
+        while (normalized.startsWith("/")) {
+            normalized = normalized.substring(1);
+        }
+        if (normalized.endsWith("/")) {
+            normalized = normalized + ANY_SEGMENTS;
+        }
+        this.pattern = normalized;
+        final String[] parts = normalized.split("/");
+        segments = new Pattern[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            segments[i] = parts[i].equals(ANY_SEGMENTS) ? null : compile(parts[i]);
+        }
+    }
+    
+    /**
+     * Does this glob match the given relative path?
+     */
+    public boolean matches(String path) {
+        return matches(0, split(path), 0);
+    }
+    
+    /**
+     * Could this glob match anything under the given relative directory path?  Used to avoid walking
+     * directories that can't contain anything interesting.  An empty path is the source directory itself.
+     */
+    public boolean couldMatchUnder(String dirPath) {
+        return couldMatchUnder(0, split(dirPath), 0);
+    }
+    
+    /**
+     * Does this glob match everything under the given relative directory path?  Used to avoid walking
+     * directories that are completely excluded.
+     */
+    public boolean matchesEverythingUnder(String dirPath) {
+        return matchesEverythingUnder(0, split(dirPath), 0);
+    }
+    
+    private boolean matches(int segment, String[] path, int part) {
+        if (segment == segments.length) {
+            return part == path.length;
+        }
+        if (segments[segment] == null) {
+            return matches(segment + 1, path, part) || (part < path.length && matches(segment, path, part + 1));
+        }
+        return part < path.length && segments[segment].matcher(path[part]).matches() && matches(segment + 1, path, part + 1);
+    }
+    
+    private boolean couldMatchUnder(int segment, String[] dir, int part) {
+        if (part == dir.length) {
+            return segment < segments.length;
+        }
+        if (segment == segments.length) {
+            return false;
+        }
+        if (segments[segment] == null) {
+            return true;
+        }
+        return segments[segment].matcher(dir[part]).matches() && couldMatchUnder(segment + 1, dir, part + 1);
+    }
+    
+    private boolean matchesEverythingUnder(int segment, String[] dir, int part) {
+        if (part == dir.length) {
+            if (segment == segments.length) {
+                return false;
+            }
+            for (int i = segment; i < segments.length; i++) {
+                if (segments[i] != null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (segment == segments.length) {
+            return false;
+        }
+        if (segments[segment] == null) {
+            return matchesEverythingUnder(segment + 1, dir, part) || matchesEverythingUnder(segment, dir, part + 1);
+        }
+        return segments[segment].matcher(dir[part]).matches() && matchesEverythingUnder(segment + 1, dir, part + 1);
+    }
+    
+    private static String[] split(String path) {
+        return path.isEmpty() ? new String[0] : path.split("/");
+    }
+    
+    /**
+     * Turn a single segment with * and ? into a regex Pattern
+     */
+    private static Pattern compile(String segment) {
+        final StringBuilder regex = new StringBuilder();
+        final StringBuilder literal = new StringBuilder();
+        for (char c : segment.toCharArray()) {
+            if (c == '*' || c == '?') {
+                if (literal.length() > 0) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(c == '*' ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        if (literal.length() > 0) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.source;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * A FileSource that decodes its file from UTF-8 exactly once into a CharBuffer. Large files are memory mapped rather than 
+ * read so the bytes are never copied onto the heap.  Small files are just read since mapping them costs more than it saves.
+ * 
+ * The file is read the first time the content is needed and the decoded content is kept for the life of the source.
+ */
+public class MappedFileSource extends FileSource implements CharBufferSource {
+    /**
+     * Files at least this big are memory mapped
+     */
+    static final int MAP_THRESHOLD = 64 * 1024;
+    
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    
+    private final File srcFile;
+    private CharBuffer content = null;
+
+    public MappedFileSource(File srcFile) {
+        super(srcFile);
+        this.srcFile = srcFile;
+    }
+
+    @Override
+    public BufferedReader createReader() {
+        return new BufferedReader(new CharBufferReader(getCharBuffer()));
+    }
+
+    @Override
+    public CharBuffer getCharBuffer() {
+        synchronized (this) {
+            if (content == null) {
+                content = decode();
+            }
+            return content.asReadOnlyBuffer();
+        }
+    }
+    
+    private CharBuffer decode() {
+        return Util.execute(new ExceptionAction<CharBuffer>() {
+            @Override
+            public CharBuffer doAction() throws IOException {
+                final FileInputStream stream = new FileInputStream(srcFile);
+                try {
+                    final FileChannel channel = stream.getChannel();
+                    final long size = channel.size();
+                    final ByteBuffer bytes;
+                    if (size >= MAP_THRESHOLD) {
+                        bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    } else {
+                        bytes = ByteBuffer.allocate((int)size);
+                        while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                            // keep reading
+                        }
+                        bytes.flip();
+                    }
+                    // replacement is what an InputStreamReader does with bad input
+                    return UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE).decode(bytes);
+                } finally {
+                    stream.close();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Reader over a CharBuffer
+     */
+    private static final class CharBufferReader extends Reader {
+        private final CharBuffer buffer;
+        
+        CharBufferReader(CharBuffer buffer) {
+            super();
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int n = Math.min(len, buffer.remaining());
+            buffer.get(cbuf, off, n);
+            return n;
+        }
+        
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() : -1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
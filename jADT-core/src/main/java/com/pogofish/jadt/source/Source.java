@@ -29,4 +29,10 @@ public interface Source {
     public BufferedReader createReader();
     
     public String getSrcInfo();
+    
+    /**
+     * When the source was last modified, in milliseconds since the epoch, or 0 if that isn't known.  A source whose 
+     * modification time isn't known is never considered to be up to date.
+     */
+    public long lastModified();
 }
@@ -15,8 +15,6 @@ limitations under the License.
 */
 package com.pogofish.jadt.source;
 
-import java.util.List;
-
 /**
  * Factory for creating sources
  *
@@ -24,10 +22,11 @@ import java.util.List;
  */
 public interface SourceFactory {
     /**
-     * Returns all the sources for the given name
+     * Returns all the sources for the given name.  The sources may be found lazily as the result is iterated, 
+     * and each iteration finds them again.
      *
      * @param sourceFileName
-     * @return a Source
+     * @return the Sources
      */
-    public List<? extends Source> createSources(String sourceFileName);
+    public Iterable<? extends Source> createSources(String sourceFileName);
 }
@@ -0,0 +1,61 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.source;
+
+import java.io.Reader;
+
+import com.pogofish.jadt.util.ExceptionAction;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Static helpers for getting at the content of Sources
+ */
+public class Sources {
+    /**
+     * A CharBufferSource with the complete content of a source so that it can be hashed and parsed without reading it
+     * again.  A source that already is a CharBufferSource is returned as is, anything else is read once into a StringSource.
+     */
+    public static CharBufferSource buffered(Source source) {
+        if (source instanceof CharBufferSource) {
+            return (CharBufferSource)source;
+        }
+        return new StringSource(source.getSrcInfo(), read(source));
+    }
+    
+    /**
+     * Read the complete content of a source
+     */
+    public static String read(final Source source) {
+        return Util.execute(new ExceptionAction<String>() {
+            @Override
+            public String doAction() throws Throwable {
+                final Reader reader = source.createReader();
+                try {
+                    final StringBuilder builder = new StringBuilder();
+                    final char[] buffer = new char[4096];
+                    int read = reader.read(buffer);
+                    while (read >= 0) {
+                        builder.append(buffer, 0, read);
+                        read = reader.read(buffer);
+                    }
+                    return builder.toString();
+                } finally {
+                    reader.close();
+                }
+            }
+        });
+    }
+}
@@ -17,14 +17,15 @@ package com.pogofish.jadt.source;
 
 import java.io.BufferedReader;
 import java.io.StringReader;
+import java.nio.CharBuffer;
 
 
 /**
- * A Source that reads from a supplied string, mostly useful for testing
+ * A Source that reads from a supplied string, mostly useful for testing and for holding text that has already been read
  *
  * @author jiry
  */
-public class StringSource implements Source {
+public class StringSource implements CharBufferSource {
     /**
      * text to be read from this string source
      */
@@ -45,8 +46,18 @@ public class StringSource implements Source {
         return new BufferedReader(new StringReader(source));
     }
 
+    @Override
+    public CharBuffer getCharBuffer() {
+        return CharBuffer.wrap(source);
+    }
+
     @Override
     public String getSrcInfo() {
         return srcInfo;
     }
+
+    @Override
+    public long lastModified() {
+        return 0;
+    }
 }
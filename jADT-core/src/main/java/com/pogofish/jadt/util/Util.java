@@ -19,6 +19,15 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Some convenient static utility methods
@@ -52,7 +61,8 @@ public class Util {
      * delegate to your to an ExceptionAction and wraps checked exceptions in RuntimExceptions, leaving unchecked exceptions alone.
      * 
      * @return A
-     * @throws Either Error or RuntimeException.  Error on Errors in doAction and RuntimeException if doError throws a RuntimeException or an Exception.  In the latter case
+     * @throws Error if doAction throws an Error
+     * @throws RuntimeException if doAction throws a RuntimeException or an Exception.  In the latter case
      * the RuntimeException will contain the original Exception as its cause
      */
     public static <A> A execute(ExceptionAction<A> action) {
@@ -66,4 +76,66 @@ public class Util {
             throw new RuntimeException(e);
         }
     }
+    
+    /**
+     * Submit an ExceptionAction to an executor.  Use get(Future) to retrieve the result with the same
+     * exception handling as execute(ExceptionAction)
+     */
+    public static <A> Future<A> submit(ExecutorService executor, final ExceptionAction<A> action) {
+        return executor.submit(new Callable<A>() {
+            @Override
+            public A call() throws Exception {
+                return execute(action);
+            }
+        });
+    }
+    
+    /**
+     * Wait for a Future created by submit and return its result.  Failures are unwrapped from the ExecutionException
+     * and treated the same way as execute(ExceptionAction) treats them.
+     * 
+     * @return A
+     * @throws Error if the action threw an Error
+     * @throws RuntimeException if the action threw a RuntimeException or an Exception, wrapped as execute(ExceptionAction)
+     * wraps it.  If the waiting thread is interrupted the interrupt flag is restored and a RuntimeException containing 
+     * the InterruptedException is thrown
+     */
+    public static <A> A get(Future<A> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+    
+    /**
+     * Creates a fixed size pool of daemon threads. Idle threads time out so a pool that is no longer being used 
+     * does not need to be explicitly shut down.
+     * 
+     * @param name used as a prefix for the thread names
+     * @param threads maximum number of threads in the pool
+     */
+    public static ExecutorService daemonPool(final String name, int threads) {
+        final AtomicInteger count = new AtomicInteger(0);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 }
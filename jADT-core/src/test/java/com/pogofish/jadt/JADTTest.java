@@ -18,6 +18,7 @@ package com.pogofish.jadt;
 import static com.pogofish.jadt.errors.SemanticError._ConstructorDataTypeConflict;
 import static com.pogofish.jadt.errors.SemanticError._DuplicateConstructor;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -29,20 +30,44 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
 
 import org.junit.Test;
 
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.cache.CachingParser;
+import com.pogofish.jadt.cache.MemoryParseCache;
+import com.pogofish.jadt.cache.ParseCache;
+import com.pogofish.jadt.checker.CachingChecker;
 import com.pogofish.jadt.checker.StandardChecker;
+import com.pogofish.jadt.checker.TypeResolver;
+import com.pogofish.jadt.classpath.ClasspathIndexer;
+import com.pogofish.jadt.emitter.StandardClassBodyEmitter;
+import com.pogofish.jadt.emitter.StandardConstructorEmitter;
+import com.pogofish.jadt.emitter.StandardDataTypeEmitter;
 import com.pogofish.jadt.emitter.StandardDocEmitter;
 import com.pogofish.jadt.errors.SemanticError;
 import com.pogofish.jadt.errors.SyntaxError;
 import com.pogofish.jadt.errors.UserError;
+import com.pogofish.jadt.manifest.FileManifestStore;
+import com.pogofish.jadt.parser.ParallelParser;
 import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
 import com.pogofish.jadt.sink.FileSinkFactoryFactory;
+import com.pogofish.jadt.sink.StringSinkFactory;
 import com.pogofish.jadt.sink.StringSinkFactoryFactory;
 import com.pogofish.jadt.source.FileSourceFactory;
+import com.pogofish.jadt.source.Source;
+import com.pogofish.jadt.source.SourceFactory;
 import com.pogofish.jadt.util.TestUtil;
 import com.pogofish.jadt.util.Util;
 
@@ -68,6 +93,145 @@ public class JADTTest {
         assertTrue("Standard driver had wrong checker", driver.checker instanceof StandardChecker);
         assertTrue("Standard driver had wrong emitter", driver.emitter instanceof StandardDocEmitter);
         assertTrue("Standard driver had wrong sink factory factory", driver.factoryFactory instanceof FileSinkFactoryFactory);
+        assertTrue("Standard driver should only write changed files", ((FileSinkFactoryFactory)driver.factoryFactory).getWriteCounts() != null);
+        assertEquals("Standard driver should not have an executor", null, driver.executor);
+        assertTrue("Standard driver had wrong manifest store", driver.manifestStore instanceof FileManifestStore);
+    }
+    
+    /**
+     * Ensure that a multi-threaded standard config jADT gets an executor and that a bad thread count is rejected
+     */
+    @Test
+    public void testStandardConfigThreads() {
+        final JADT driver = JADT.standardConfigDriver(2);
+        assertTrue("Multi-threaded standard driver had no executor", driver.executor != null);
+        assertTrue("Multi-threaded standard driver had wrong parser", driver.parser instanceof ParallelParser);
+        assertFalse("Standard driver should not stream", driver.streaming);
+        driver.executor.shutdown();
+        final JADT streaming = JADT.standardConfigDriver(1, true);
+        assertTrue("Streaming standard driver should stream", streaming.streaming);
+        assertEquals("Single threaded streaming driver should not have an executor", null, streaming.executor);
+        try {
+            JADT.standardConfigDriver(0);
+            fail("Did not get an exception for 0 threads");
+        } catch (IllegalArgumentException e) {
+            // yay
+        }
+    }
+    
+    /**
+     * The streaming property makes the standard driver stream
+     */
+    @Test
+    public void testStreamingProperty() {
+        System.setProperty(JADT.STREAMING_PROPERTY, "true");
+        try {
+            assertTrue("Standard driver should stream", JADT.standardConfigDriver().streaming);
+        } finally {
+            System.clearProperty(JADT.STREAMING_PROPERTY);
+        }
+        assertFalse("Standard driver should not stream", JADT.standardConfigDriver().streaming);
+    }
+    
+    /**
+     * The parse cache property wraps the standard parser in a CachingParser
+     */
+    @Test
+    public void testParseCacheProperty() {
+        System.setProperty(JADT.PARSE_CACHE_PROPERTY, "some cache dir");
+        try {
+            assertTrue("Standard driver should cache parses", JADT.standardConfigDriver().parser instanceof CachingParser);
+        } finally {
+            System.clearProperty(JADT.PARSE_CACHE_PROPERTY);
+        }
+    }
+    
+    /**
+     * Make sure several source paths are generated together, each source only once, and that sources that haven't been 
+     * modified since the last run aren't read again
+     */
+    @Test
+    public void testSrcPaths() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            final File dirA = new File(srcDir, "a");
+            final File dirB = new File(srcDir, "b");
+            dirA.mkdirs();
+            dirB.mkdirs();
+            final File srcA = new File(dirA, "A.jadt");
+            final File srcB = new File(dirB, "B.jadt");
+            writeFile(srcA, "Foo = Foo");
+            writeFile(srcB, "Bar = Bar");
+            final long old = System.currentTimeMillis() - 10000;
+            srcA.setLastModified(old);
+            srcB.setLastModified(old);
+            final List<String> srcPaths = Util.list(dirA.getAbsolutePath(), srcB.getAbsolutePath(), srcA.getAbsolutePath());
+            final String dest = destDir.getAbsolutePath();
+            
+            final JADT jadt = JADT.standardConfigDriver();
+            assertFalse(jadt.isUpToDate(srcPaths, dest));
+            jadt.parseAndEmit(srcPaths, dest);
+            assertTrue(new File(destDir, "Foo.java").exists());
+            assertTrue(new File(destDir, "Bar.java").exists());
+            assertTrue(jadt.isUpToDate(srcPaths, dest));
+            // B's source isn't under a, so a run over a alone has nothing to do
+            assertTrue(jadt.isUpToDate(Util.list(dirA.getAbsolutePath()), dest));
+            
+            // a source that claims not to have been modified isn't even read 
+            writeFile(srcB, "Baz = Baz");
+            srcB.setLastModified(old);
+            jadt.parseAndEmit(srcPaths, dest);
+            assertTrue(new File(destDir, "Bar.java").exists());
+            assertFalse(new File(destDir, "Baz.java").exists());
+            
+            srcB.setLastModified(System.currentTimeMillis());
+            jadt.parseAndEmit(srcPaths, dest);
+            assertFalse(new File(destDir, "Bar.java").exists());
+            assertTrue(new File(destDir, "Baz.java").exists());
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Drivers that share a MemoryParseCache and CachingChecker only parse and check a source once between them
+     */
+    @Test
+    public void testSharedCaches() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir1 = TestUtil.createTmpDir();
+        final File destDir2 = TestUtil.createTmpDir();
+        try {
+            writeFile(new File(srcDir, "A.jadt"), "Foo = Foo");
+            writeFile(new File(srcDir, "B.jadt"), "Bar = Bar");
+            final List<String> puts = new ArrayList<String>();
+            final MemoryParseCache parseCache = new MemoryParseCache(new ParseCache() {
+                @Override
+                public ParseResult get(String key, String srcInfo) {
+                    return null;
+                }
+
+                @Override
+                public void put(String key, ParseResult result) {
+                    puts.add(result.doc.srcInfo);
+                }
+            });
+            final CachingChecker checker = new CachingChecker(new StandardChecker());
+            
+            JADT.standardConfigDriver(1, false, parseCache, checker).parseAndEmit(srcDir.getAbsolutePath(), destDir1.getAbsolutePath());
+            JADT.standardConfigDriver(2, false, parseCache, checker).parseAndEmit(srcDir.getAbsolutePath(), destDir2.getAbsolutePath());
+            assertEquals(2, puts.size());
+            assertEquals(2, parseCache.size());
+            assertEquals(2, checker.size());
+            assertTrue(new File(destDir1, "Foo.java").exists());
+            assertTrue(new File(destDir2, "Bar.java").exists());
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir1);
+            TestUtil.deleteRecursively(destDir2);
+        }
     }
     
     /**
@@ -176,6 +340,7 @@ public class JADTTest {
                        outputFile.delete();
                    }
                 } finally {
+                    new File(tmpDir, FileManifestStore.MANIFEST_NAME).delete();
                     tmpDir.delete();
                 }
             } finally {
@@ -186,6 +351,569 @@ public class JADTTest {
         }
     }
     
+    /**
+     * Make sure a concurrent driver produces the same results and the same errors as a sequential one
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testConcurrent() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File[] srcFiles = new File[] {new File(srcDir, "A.jadt"), new File(srcDir, "B.jadt"), new File(srcDir, "C.jadt"), new File(srcDir, "D.jadt")};
+        try {
+            writeFile(srcFiles[0], "package a\nFoo = Foo1(int x) | Bar\nBaz = Baz");
+            writeFile(srcFiles[1], "package b\nFoo = Foo(String y)");
+            writeFile(srcFiles[2], "Whatever = Whatever");
+            writeFile(srcFiles[3], "Quux = Quux");
+            
+            final Map<String, String> sequential = runDriver(srcDir, null);
+            assertEquals(5, sequential.size());
+            final ExecutorService executor = Util.daemonPool("JADTTest", 3);
+            try {
+                assertEquals(sequential, runDriver(srcDir, executor));
+                
+                // errors in two sources, both drivers must report the same one
+                writeFile(srcFiles[1], "Foo = Foo | Foo");
+                writeFile(srcFiles[3], "Quux = Quux | Quux");
+                String sequentialMessage = null;
+                try {
+                    runDriver(srcDir, null);
+                    fail("Sequential driver did not report an error");
+                } catch (JADTUserErrorsException e) {
+                    sequentialMessage = e.getMessage();
+                }
+                try {
+                    runDriver(srcDir, executor);
+                    fail("Concurrent driver did not report an error");
+                } catch (JADTUserErrorsException e) {
+                    assertEquals(sequentialMessage, e.getMessage());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            for (File srcFile : srcFiles) {
+                srcFile.delete();
+            }
+            srcDir.delete();
+        }
+    }
+    
+    /**
+     * Make sure a streaming driver produces the same results and errors as one that isn't, and that it emits the
+     * data types before the first error
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testStreaming() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File[] srcFiles = new File[] {new File(srcDir, "A.jadt"), new File(srcDir, "B.jadt")};
+        try {
+            writeFile(srcFiles[0], "package a\nimport java.util.List\n/** Foo */\nFoo = Foo1(List<String> x) | Bar\nBaz = Baz");
+            writeFile(srcFiles[1], "Whatever = Whatever\nQuux = Quux");
+            
+            final Map<String, String> expected = runDriver(srcDir, null);
+            assertEquals(4, expected.size());
+            assertEquals(expected, runDriver(srcDir, null, true, new StringSinkFactoryFactory()));
+            final ExecutorService executor = Util.daemonPool("JADTTest", 2);
+            try {
+                assertEquals(expected, runDriver(srcDir, executor, true, new StringSinkFactoryFactory()));
+            } finally {
+                executor.shutdown();
+            }
+            
+            // a duplicate data type after a good one and a bad constructor after that
+            writeFile(srcFiles[1], "Whatever = Whatever\nQuux = Quux\nWhatever = Other\nLast = Last | Last");
+            String expectedMessage = null;
+            try {
+                runDriver(srcDir, null);
+                fail("Driver did not report an error");
+            } catch (JADTUserErrorsException e) {
+                expectedMessage = e.getMessage();
+            }
+            final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();
+            try {
+                runDriver(srcDir, null, true, factory);
+                fail("Streaming driver did not report an error");
+            } catch (JADTUserErrorsException e) {
+                assertEquals(expectedMessage, e.getMessage());
+            }
+            final Map<String, String> partial = results(factory);
+            assertEquals(Util.set("a.Foo", "a.Baz", "Whatever", "Quux"), partial.keySet());
+            assertEquals(expected.get("Quux"), partial.get("Quux"));
+        } finally {
+            for (File srcFile : srcFiles) {
+                srcFile.delete();
+            }
+            srcDir.delete();
+        }
+    }
+    
+    /**
+     * Make sure data types defined in the same package by more than one source are reported, whether the sources are 
+     * parsed sequentially, concurrently, streamed, or skipped because they haven't changed, and that nothing is emitted
+     * when they are
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testDuplicatesInSources() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            final File srcA = new File(srcDir, "A.jadt");
+            final File srcB = new File(srcDir, "B.jadt");
+            writeFile(srcA, "package a\nFoo = Foo\nBar = Bar");
+            writeFile(srcB, "package b\nFoo = Foo");
+            
+            // the same name in different packages is fine
+            assertEquals(3, runDriver(srcDir, null).size());
+            
+            writeFile(srcB, "package a\nBaz = Baz\nFoo = Foo");
+            final String message = "Data type a.Foo in " + srcA.getAbsolutePath() + " is also defined in " + srcB.getAbsolutePath() + ".  Both would generate the same class.";
+            final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();
+            try {
+                runDriver(srcDir, null, false, factory);
+                fail("Driver did not report a duplicate data type");
+            } catch (JADTUserErrorsException e) {
+                assertEquals(2, e.getErrors().size());
+                assertTrue(e.getMessage(), e.getMessage().contains(message));
+            }
+            assertTrue(factory.results().isEmpty());
+            final ExecutorService executor = Util.daemonPool("JADTTest", 2);
+            try {
+                runDriver(srcDir, executor);
+                fail("Concurrent driver did not report a duplicate data type");
+            } catch (JADTUserErrorsException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(message));
+            }
+            try {
+                runDriver(srcDir, executor, true, new StringSinkFactoryFactory());
+                fail("Streaming driver did not report a duplicate data type");
+            } catch (JADTUserErrorsException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains(message));
+            } finally {
+                executor.shutdown();
+            }
+            
+            // with a manifest, an unchanged source still counts
+            writeFile(srcB, "package a\nBaz = Baz");
+            final JADT jadt = JADT.standardConfigDriver();
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), destDir.getAbsolutePath());
+            writeFile(srcB, "package a\nBaz = Baz\nBar = Bar");
+            try {
+                jadt.parseAndEmit(srcDir.getAbsolutePath(), destDir.getAbsolutePath());
+                fail("Incremental driver did not report a duplicate data type");
+            } catch (JADTUserErrorsException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("Data type a.Bar in " + srcB.getAbsolutePath() + " is also defined in " + srcA.getAbsolutePath()));
+            }
+            
+            // and stops counting once it's gone
+            srcA.delete();
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), destDir.getAbsolutePath());
+            assertTrue(new File(destDir, "a/Bar.java").exists());
+            assertTrue("a/Foo.java should have been deleted", !new File(destDir, "a/Foo.java").exists());
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Make sure class types that aren't on the classpath or generated from any source are reported before anything is emitted
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testUnresolvedTypes() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File classDir = TestUtil.createTmpDir();
+        try {
+            final File srcA = new File(srcDir, "A.jadt");
+            writeFile(srcA, "package a\nimport lib.*\nFoo = Foo(Bar b, List<String> l, Thing t)");
+            writeFile(new File(srcDir, "B.jadt"), "package a\nBar = Bar(Foo f)");
+            new File(classDir, "lib").mkdirs();
+            writeFile(new File(classDir, "lib/Thing.java"), "");
+            
+            final StandardClassBodyEmitter classBodyEmitter = new StandardClassBodyEmitter();
+            final StandardDataTypeEmitter dataTypeEmitter = new StandardDataTypeEmitter(classBodyEmitter, new StandardConstructorEmitter(classBodyEmitter));
+            final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();
+            final JADT jadt = new JADT(new FileSourceFactory(), new StandardParser(new JavaCCParserImplFactory()), new StandardChecker(), new StandardDocEmitter(dataTypeEmitter, null), factory, null, null, false,
+                    new TypeResolver(new ClasspathIndexer(null), Util.list(classDir)));
+            try {
+                jadt.parseAndEmit(srcDir.getAbsolutePath(), JADT.TEST_DIR);
+                fail("Driver did not report an unresolved type");
+            } catch (JADTUserErrorsException e) {
+                assertEquals(Util.list(UserError._Semantic(SemanticError._UnresolvedType("Foo", "List"))), e.getErrors());
+            }
+            assertTrue(factory.results().isEmpty());
+            
+            // the classpath is looked at again on each run
+            writeFile(new File(classDir, "lib/List.java"), "");
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), JADT.TEST_DIR);
+            assertEquals(Util.set("a.Foo", "a.Bar"), results(factory).keySet());
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(classDir);
+        }
+    }
+    
+    /**
+     * Make sure a driver with a manifest skips unchanged sources, regenerates changed or missing output, and
+     * deletes output that is no longer generated
+     * 
+     * @throws IOException
+     */
+    @Test
+    public void testIncremental() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            final File srcA = new File(srcDir, "A.jadt");
+            final File srcB = new File(srcDir, "B.jadt");
+            writeFile(srcA, "Foo = Foo\nBar = Bar");
+            writeFile(srcB, "Baz = Baz");
+            final File foo = new File(destDir, "Foo.java");
+            final File bar = new File(destDir, "Bar.java");
+            final File baz = new File(destDir, "Baz.java");
+            
+            final JADT jadt = JADT.standardConfigDriver();
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), destDir.getAbsolutePath());
+            assertTrue(foo.exists());
+            assertTrue(bar.exists());
+            assertTrue(baz.exists());
+            
+            // nothing changed so nothing should be regenerated
+            writeFile(foo, "marker");
+            writeFile(baz, "marker");
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), destDir.getAbsolutePath());
+            assertEquals("marker", readFile(foo));
+            assertEquals("marker", readFile(baz));
+            
+            // A changed so it gets regenerated and Bar goes away, B is untouched
+            writeFile(srcA, "Foo = Foo");
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), destDir.getAbsolutePath());
+            assertStartsWith("/*", readFile(foo));
+            assertTrue("Bar.java should have been deleted", !bar.exists());
+            assertEquals("marker", readFile(baz));
+            
+            // missing output gets regenerated even if the source is unchanged
+            baz.delete();
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), destDir.getAbsolutePath());
+            assertStartsWith("/*", readFile(baz));
+            
+            // Bar moves from A to B and B's old output goes away when A is removed
+            writeFile(srcB, "Bar = Bar");
+            srcA.delete();
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), destDir.getAbsolutePath());
+            assertTrue("Foo.java should have been deleted", !foo.exists());
+            assertTrue("Baz.java should have been deleted", !baz.exists());
+            assertTrue(bar.exists());
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Make sure runs over different source directories can share a destination directory without deleting
+     * each other's output
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testSharedDestDir() throws IOException {
+        final File srcDirA = TestUtil.createTmpDir();
+        final File srcDirB = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            final File srcA = new File(srcDirA, "A.jadt");
+            final File srcB = new File(srcDirB, "B.jadt");
+            writeFile(srcA, "Foo = Foo");
+            writeFile(srcB, "Bar = Bar");
+            final File foo = new File(destDir, "Foo.java");
+            final File bar = new File(destDir, "Bar.java");
+            final String a = srcDirA.getAbsolutePath();
+            final String b = srcDirB.getAbsolutePath();
+            final String dest = destDir.getAbsolutePath();
+            final long old = System.currentTimeMillis() - 10000;
+            srcA.setLastModified(old);
+            srcB.setLastModified(old);
+
+            final JADT jadt = JADT.standardConfigDriver();
+            jadt.parseAndEmit(a, dest);
+            jadt.parseAndEmit(b, dest);
+            assertTrue("Foo.java should not have been deleted", foo.exists());
+            assertTrue(bar.exists());
+            assertTrue(jadt.isUpToDate(a, dest));
+            assertTrue(jadt.isUpToDate(b, dest));
+
+            // removing a source from one directory only deletes its own output
+            srcA.delete();
+            assertFalse(jadt.isUpToDate(a, dest));
+            assertTrue(jadt.isUpToDate(b, dest));
+            jadt.parseAndEmit(a, dest);
+            assertTrue("Foo.java should have been deleted", !foo.exists());
+            assertTrue(bar.exists());
+
+            // and the other directory's output survives a run over a single file too
+            writeFile(srcA, "Foo = Foo");
+            jadt.parseAndEmit(srcA.getAbsolutePath(), dest);
+            assertTrue(foo.exists());
+            assertTrue(bar.exists());
+        } finally {
+            TestUtil.deleteRecursively(srcDirA);
+            TestUtil.deleteRecursively(srcDirB);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+
+    /**
+     * The standard configuration finds sources with the given patterns, or the ones in the system properties
+     */
+    @Test
+    public void testPatterns() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            new File(srcDir, "sub/test").mkdirs();
+            writeFile(new File(srcDir, "Foo.jadt"), "Foo = Foo");
+            writeFile(new File(srcDir, "sub/Bar.jadt"), "Bar = Bar");
+            writeFile(new File(srcDir, "sub/test/Baz.jadt"), "Baz = Baz");
+            final String src = srcDir.getAbsolutePath();
+            final String dest = destDir.getAbsolutePath();
+            
+            JADT.standardConfigDriver(1, false, null, new StandardChecker(), Util.list("**/*.jadt"), Util.list("**/test/**")).parseAndEmit(src, dest);
+            assertTrue(new File(destDir, "Foo.java").exists());
+            assertTrue(new File(destDir, "Bar.java").exists());
+            assertFalse(new File(destDir, "Baz.java").exists());
+            
+            TestUtil.deleteRecursively(destDir);
+            System.setProperty(JADT.INCLUDES_PROPERTY, "sub/**/*.jadt, ");
+            System.setProperty(JADT.EXCLUDES_PROPERTY, "sub/Bar.jadt");
+            try {
+                JADT.standardConfigDriver().parseAndEmit(src, dest);
+            } finally {
+                System.clearProperty(JADT.INCLUDES_PROPERTY);
+                System.clearProperty(JADT.EXCLUDES_PROPERTY);
+            }
+            assertFalse(new File(destDir, "Foo.java").exists());
+            assertFalse(new File(destDir, "Bar.java").exists());
+            assertTrue(new File(destDir, "Baz.java").exists());
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Each run logs how many files it wrote and left unchanged, not counting earlier runs
+     */
+    @Test
+    public void testWriteCounts() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        final Logger logger = Logger.getLogger(JADT.class.toString());
+        final List<String> messages = new ArrayList<String>();
+        final Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                messages.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        logger.addHandler(handler);
+        try {
+            writeFile(new File(srcDir, "A.jadt"), "Foo = Foo\nBar = Bar");
+            final String dest = destDir.getAbsolutePath();
+            final JADT jadt = JADT.standardConfigDriver();
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), dest);
+            assertEquals("2 file(s) written, 0 file(s) unchanged in " + dest + ".", messages.get(messages.size() - 1));
+            
+            // without the manifest everything is generated again but nothing changed
+            new File(destDir, FileManifestStore.MANIFEST_NAME).delete();
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), dest);
+            assertEquals("0 file(s) written, 2 file(s) unchanged in " + dest + ".", messages.get(messages.size() - 1));
+            
+            jadt.parseAndEmit(srcDir.getAbsolutePath(), dest);
+            assertEquals("0 file(s) written, 0 file(s) unchanged in " + dest + ".", messages.get(messages.size() - 1));
+        } finally {
+            logger.removeHandler(handler);
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * A source that has to be hashed for the manifest is only read once, even when the parse goes through a cache
+     */
+    @Test
+    public void testReadOnce() throws IOException {
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            final int[] reads = {0};
+            final Source source = new Source() {
+                @Override
+                public BufferedReader createReader() {
+                    reads[0]++;
+                    return new BufferedReader(new StringReader("Foo = Foo"));
+                }
+
+                @Override
+                public String getSrcInfo() {
+                    return "counted";
+                }
+
+                @Override
+                public long lastModified() {
+                    return 0;
+                }
+            };
+            final SourceFactory sourceFactory = new SourceFactory() {
+                @Override
+                public Iterable<? extends Source> createSources(String sourceFileName) {
+                    return Util.list(source);
+                }
+            };
+            final StandardClassBodyEmitter classBodyEmitter = new StandardClassBodyEmitter();
+            final StandardDataTypeEmitter dataTypeEmitter = new StandardDataTypeEmitter(classBodyEmitter, new StandardConstructorEmitter(classBodyEmitter));
+            for (boolean streaming : new boolean[] {false, true}) {
+                final CachingParser parser = new CachingParser(new StandardParser(new JavaCCParserImplFactory()), new MemoryParseCache());
+                final JADT jadt = new JADT(sourceFactory, parser, new StandardChecker(), new StandardDocEmitter(dataTypeEmitter), 
+                        new StringSinkFactoryFactory(), null, new FileManifestStore(), streaming);
+                reads[0] = 0;
+                jadt.parseAndEmit("ignored", destDir.getAbsolutePath());
+                assertEquals("streaming " + streaming, 1, reads[0]);
+                new File(destDir, FileManifestStore.MANIFEST_NAME).delete();
+            }
+        } finally {
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Make sure output is only up to date when a run would have nothing to do
+     */
+    @Test
+    public void testIsUpToDate() throws IOException {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            final String src = srcDir.getAbsolutePath();
+            final String dest = destDir.getAbsolutePath();
+            final File srcA = new File(srcDir, "A.jadt");
+            final File srcB = new File(srcDir, "B.jadt");
+            writeFile(srcA, "Foo = Foo");
+            writeFile(srcB, "Bar = Bar");
+            final long old = System.currentTimeMillis() - 10000;
+            srcA.setLastModified(old);
+            srcB.setLastModified(old);
+            
+            final JADT jadt = JADT.standardConfigDriver();
+            assertFalse("Up to date without a manifest", jadt.isUpToDate(src, dest));
+            jadt.parseAndEmit(src, dest);
+            assertTrue(jadt.isUpToDate(src, dest));
+            
+            // modified since the last run
+            srcA.setLastModified(System.currentTimeMillis());
+            assertFalse(jadt.isUpToDate(src, dest));
+            jadt.parseAndEmit(src, dest);
+            srcA.setLastModified(old);
+            assertTrue(jadt.isUpToDate(src, dest));
+            
+            // output missing
+            new File(destDir, "Foo.java").delete();
+            assertFalse(jadt.isUpToDate(src, dest));
+            jadt.parseAndEmit(src, dest);
+            assertTrue(jadt.isUpToDate(src, dest));
+            
+            // source removed
+            srcB.delete();
+            assertFalse(jadt.isUpToDate(src, dest));
+            jadt.parseAndEmit(src, dest);
+            assertTrue(jadt.isUpToDate(src, dest));
+            
+            // source added, even one older than the last run
+            writeFile(srcB, "Bar = Bar");
+            srcB.setLastModified(old);
+            assertFalse(jadt.isUpToDate(src, dest));
+            
+            // nothing is up to date without a manifest store
+            final JADT dummy = JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), src, new StringSinkFactoryFactory());
+            assertFalse(dummy.isUpToDate(src, dest));
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Read a UTF-8 file into a String
+     */
+    private String readFile(File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            final StringBuilder builder = new StringBuilder();
+            int c = reader.read();
+            while (c >= 0) {
+                builder.append((char)c);
+                c = reader.read();
+            }
+            return builder.toString();
+        } finally {
+            reader.close();
+        }
+    }
+    
+    /**
+     * Run a standard driver, other than the sinks, on the given directory and return a map of all the generated results
+     */
+    private Map<String, String> runDriver(File srcDir, ExecutorService executor) {
+        return runDriver(srcDir, executor, false, new StringSinkFactoryFactory());
+    }
+    
+    /**
+     * Run a standard driver that may stream over a source directory, emitting to the given factory, and return the results
+     */
+    private Map<String, String> runDriver(File srcDir, ExecutorService executor, boolean streaming, StringSinkFactoryFactory factory) {
+        final StandardClassBodyEmitter classBodyEmitter = new StandardClassBodyEmitter();
+        final StandardDataTypeEmitter dataTypeEmitter = new StandardDataTypeEmitter(classBodyEmitter, new StandardConstructorEmitter(classBodyEmitter));
+        final JADT jadt = new JADT(new FileSourceFactory(), new StandardParser(new JavaCCParserImplFactory()), new StandardChecker(), new StandardDocEmitter(dataTypeEmitter, executor), factory, executor, null, streaming);
+        jadt.parseAndEmit(srcDir.getAbsolutePath(), JADT.TEST_DIR);
+        return results(factory);
+    }
+    
+    /**
+     * Everything emitted to a StringSinkFactoryFactory for the test dir
+     */
+    private Map<String, String> results(StringSinkFactoryFactory factory) {
+        final Map<String, String> results = new HashMap<String, String>();
+        for (StringSinkFactory sinkFactory : factory.results().get(JADT.TEST_DIR)) {
+            results.putAll(sinkFactory.getResults());
+        }
+        return results;
+    }
+    
+    /**
+     * Write a String to a file as UTF-8
+     */
+    private void writeFile(File file, String contents) throws IOException {
+        final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+    
     /**
      * Assert that the actual string provided starts with the expected string
      * @param expected
@@ -0,0 +1,134 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.util.TestUtil;
+
+/**
+ * Make sure the SourceWatcher notices changes and keeps going after errors
+ */
+public class SourceWatcherTest {
+    /**
+     * Changes, bad sources, and removed sources should all be picked up by a poll
+     */
+    @Test
+    public void testPoll() throws Exception {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            final File srcFile = new File(srcDir, "A.jadt");
+            final File fooFile = new File(destDir, "a/Foo.java");
+            final File barFile = new File(destDir, "a/Bar.java");
+            writeFile(srcFile, "package a\nFoo = Foo");
+            final SourceWatcher watcher = new SourceWatcher(JADT.standardConfigDriver(), srcDir.getAbsolutePath(), destDir.getAbsolutePath(), 0, 0);
+            
+            assertTrue(watcher.poll());
+            assertTrue(fooFile.exists());
+            assertFalse(watcher.poll());
+            
+            writeFile(srcFile, "package a\nFoo = Foo\nBar = Bar");
+            assertTrue(watcher.poll());
+            assertTrue(barFile.exists());
+            assertFalse(watcher.poll());
+            
+            // errors are logged, not thrown
+            writeFile(srcFile, "package a\nFoo = Foo | Foo");
+            assertTrue(watcher.poll());
+            assertTrue(barFile.exists());
+            assertFalse(watcher.poll());
+            
+            writeFile(srcFile, "package a\nBar = Bar");
+            assertTrue(watcher.poll());
+            assertFalse(fooFile.exists());
+            assertTrue(barFile.exists());
+
+            assertTrue(srcFile.delete());
+            assertTrue(watcher.poll());
+            assertFalse(barFile.exists());
+            assertFalse(watcher.poll());
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * The watch loop should generate up front and pick up changes until it's stopped
+     */
+    @Test
+    public void testWatch() throws Exception {
+        final File srcDir = TestUtil.createTmpDir();
+        final File destDir = TestUtil.createTmpDir();
+        try {
+            final File srcFile = new File(srcDir, "A.jadt");
+            writeFile(srcFile, "package a\nFoo = Foo");
+            final SourceWatcher watcher = new SourceWatcher(JADT.standardConfigDriver(), srcDir.getAbsolutePath(), destDir.getAbsolutePath(), 10, 10);
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    watcher.watch();
+                }
+            }, "SourceWatcherTest");
+            thread.setDaemon(true);
+            thread.start();
+            try {
+                waitFor(new File(destDir, "a/Foo.java"));
+                writeFile(srcFile, "package a\nFoo = Foo\nBar = Bar");
+                waitFor(new File(destDir, "a/Bar.java"));
+            } finally {
+                watcher.stop();
+                thread.join(10000);
+            }
+            assertFalse(thread.isAlive());
+        } finally {
+            TestUtil.deleteRecursively(srcDir);
+            TestUtil.deleteRecursively(destDir);
+        }
+    }
+
+    private static void waitFor(File file) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10000;
+        while (!file.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("never generated " + file, file.exists());
+    }
+    
+    /**
+     * Write a file and make sure it looks changed even on file systems with coarse timestamps
+     */
+    private static void writeFile(File file, String contents) throws IOException {
+        final long previous = file.lastModified();
+        final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+        file.setLastModified(Math.max(file.lastModified(), previous + 2000));
+    }
+}
@@ -0,0 +1,170 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.ast;
+
+import static com.pogofish.jadt.ast.ArgModifier._Final;
+import static com.pogofish.jadt.ast.ArgModifier._Transient;
+import static com.pogofish.jadt.ast.PrimitiveType._IntType;
+import static com.pogofish.jadt.ast.RefType._ArrayType;
+import static com.pogofish.jadt.ast.RefType._ClassType;
+import static com.pogofish.jadt.ast.Type._Primitive;
+import static com.pogofish.jadt.ast.Type._Ref;
+import static com.pogofish.jadt.util.Util.list;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.RefType.ClassType;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure the Interner shares equal things and nothing else
+ */
+public class InternerTest {
+    @Test
+    public void testStrings() {
+        final Interner interner = new Interner();
+        final String hello = new String("hello");
+        assertSame(hello, interner.intern(hello));
+        assertSame(hello, interner.intern(new String("hello")));
+        assertEquals("world", interner.intern(new String("world")));
+        assertEquals(2, interner.size());
+    }
+    
+    @Test
+    public void testTypes() {
+        final Interner interner = new Interner();
+        final Type string = interner.intern(_Ref(_ClassType("String", Util.<RefType>list())));
+        assertEquals(_Ref(_ClassType("String", Util.<RefType>list())), string);
+        assertSame(string, interner.intern(string));
+        assertSame(string, interner.intern(_Ref(_ClassType("String", Util.<RefType>list()))));
+        
+        final Type integer = _Primitive(_IntType());
+        assertSame(integer, interner.intern(integer));
+        assertSame(integer, interner.intern(_Primitive(_IntType())));
+        assertNotSame(string, interner.intern(_Ref(_ClassType("Integer", Util.<RefType>list()))));
+    }
+    
+    @Test
+    public void testRefTypes() {
+        final Interner interner = new Interner();
+        final RefType list = interner.intern(_ClassType("List", list(_ClassType("String", Util.<RefType>list()))));
+        assertEquals(_ClassType("List", list(_ClassType("String", Util.<RefType>list()))), list);
+        assertSame(list, interner.intern(list));
+        assertSame(list, interner.intern(_ClassType("List", list(_ClassType("String", Util.<RefType>list())))));
+        
+        final RefType array = _ArrayType(_Primitive(_IntType()));
+        assertSame(array, interner.intern(array));
+        assertSame(array, interner.intern(_ArrayType(_Primitive(_IntType()))));
+        assertNotSame(array, interner.intern(_ArrayType(_Ref(array))));
+    }
+    
+    /**
+     * Interned type arguments can't be changed, neither through the interned type nor through the list it was made from
+     */
+    @Test
+    public void testImmutableTypeArguments() {
+        final Interner interner = new Interner();
+        final List<RefType> typeArguments = new ArrayList<RefType>();
+        typeArguments.add(_ClassType("String", new ArrayList<RefType>()));
+        final ClassType interned = (ClassType)interner.intern(_ClassType("List", typeArguments));
+        typeArguments.clear();
+        assertEquals(_ClassType("List", list(_ClassType("String", Util.<RefType>list()))), interned);
+        try {
+            interned.typeArguments.clear();
+            fail("interned type arguments could be changed");
+        } catch (UnsupportedOperationException e) {
+            // yay
+        }
+        try {
+            ((ClassType)interned.typeArguments.get(0)).typeArguments.add(_ClassType("Integer", Util.<RefType>list()));
+            fail("nested type arguments could be changed");
+        } catch (UnsupportedOperationException e) {
+            // yay
+        }
+        assertSame(interned, interner.intern(_ClassType("List", list(_ClassType("String", Util.<RefType>list())))));
+    }
+    
+    @Test
+    public void testArgModifiers() {
+        final Interner interner = new Interner();
+        final List<ArgModifier> empty = interner.intern(new ArrayList<ArgModifier>());
+        assertEquals(Util.<ArgModifier>list(), empty);
+        assertSame(empty, interner.intern(new ArrayList<ArgModifier>()));
+        
+        final List<ArgModifier> modifiers = list(_Final(), _Transient());
+        final List<ArgModifier> interned = interner.intern(modifiers);
+        assertEquals(modifiers, interned);
+        assertNotSame(modifiers, interned);
+        assertSame(interned, interner.intern(list(_Final(), _Transient())));
+        assertNotSame(interned, interner.intern(list(_Transient(), _Final())));
+        
+        // the interned list is shared so it had better not change
+        modifiers.clear();
+        assertEquals(list(_Final(), _Transient()), interned);
+        try {
+            interned.clear();
+            fail("interned list could be modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+    
+    /**
+     * Several threads interning the same things all get the same instances
+     */
+    @Test
+    public void testThreads() throws Exception {
+        final Interner interner = new Interner();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(executor.submit(new Callable<List<Object>>() {
+                    @Override
+                    public List<Object> call() {
+                        final List<Object> results = new ArrayList<Object>();
+                        for (int j = 0; j < 1000; j++) {
+                            results.add(interner.intern(new String("name" + j)));
+                            results.add(interner.intern(_ClassType("Type" + j, Util.<RefType>list())));
+                        }
+                        return results;
+                    }
+                }));
+            }
+            final List<Object> first = futures.get(0).get();
+            for (Future<List<Object>> future : futures) {
+                final List<Object> results = future.get();
+                for (int i = 0; i < first.size(); i++) {
+                    assertSame(first.get(i), results.get(i));
+                }
+            }
+            assertEquals(2000, interner.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.StringSource;
+
+/**
+ * Make sure everything in the AST survives encoding and decoding and that bad encodings are rejected
+ */
+public class ASTCodecTest {
+    /**
+     * A document with some of everything the AST can hold
+     */
+    static final String DOC = "/* header\n * block comment\n */\npackage a.b // eol comment\n\n/** import comment */\nimport java.util.List\nimport java.io.*\n\n"
+            + "/**\n * JavaDoc *\n * @author me\n * @param <A> stuff\n */\n"
+            + "@SuppressWarnings(\"unchecked\") @Deprecated @a.b.Foo(x = 1 + 2 * 3 - 4 / 5 % 6, y = {'a', \"b\", 1.5e3f, 0x1FL, true, null, @Bar(2), String.class, int[].class, a.b.c},\n"
+            + "  z = (1 << 2 >> 3 >>> 4), w = 1 < 2 ? 1 > 2 : 1 <= 2 || 1 >= 2 && 1 == 2 | 1 != 2 & 3 ^ 4)\n"
+            + "Foo<A, B> extends Base<A> implements java.io.Serializable, Comparable<Foo<A, B> > =\n"
+            + "  /* constructor */ Bar(final int x, volatile transient boolean[][] y, List<A> z, byte b, char c, short s, long l, float f, double d, List<String[]>[] e)\n"
+            + "  | Baz\n"
+            + "Plain = Plain";
+
+    @Test
+    public void testRoundTrip() {
+        final ParseResult result = parse(DOC);
+        assertTrue(result.errors.toString(), result.errors.isEmpty());
+        check(result);
+        
+        // the srcInfo comes from the caller
+        assertEquals("other", ASTCodec.decode(ASTCodec.encode(result), "other").doc.srcInfo);
+        
+        // strings are only written once
+        final ParseResult twice = parse(DOC + "\n" + DOC.substring(DOC.indexOf("@Supp")).replace("Foo<", "Foo2<").replace("Plain", "Plain2"));
+        assertTrue(ASTCodec.encode(twice).length < 2 * ASTCodec.encode(result).length);
+    }
+    
+    @Test
+    public void testErrors() {
+        final ParseResult result = parse("package\nFoo = \nBar = Bar(int)");
+        assertTrue(result.errors.size() > 1);
+        check(result);
+    }
+    
+    @Test
+    public void testLongStrings() {
+        final StringBuilder builder = new StringBuilder("/*");
+        for (int i = 0; i < 100000; i++) {
+            builder.append((char)('a' + i % 26));
+        }
+        builder.append("é中 */ Foo = Foo");
+        check(parse(builder.toString()));
+    }
+    
+    @Test
+    public void testBadEncodings() {
+        final byte[] bytes = ASTCodec.encode(parse(DOC));
+        
+        final byte[] truncated = new byte[bytes.length - 1];
+        System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+        checkBad(truncated);
+        
+        final byte[] extra = new byte[bytes.length + 1];
+        System.arraycopy(bytes, 0, extra, 0, bytes.length);
+        checkBad(extra);
+        
+        final byte[] magic = bytes.clone();
+        magic[0]++;
+        checkBad(magic);
+        
+        checkBad(new byte[0]);
+        
+        // random damage either fails cleanly or decodes to something
+        final Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            final byte[] damaged = bytes.clone();
+            damaged[random.nextInt(damaged.length)] = (byte)random.nextInt();
+            try {
+                ASTCodec.decode(damaged, "test");
+            } catch (IllegalArgumentException e) {
+                // fine
+            }
+        }
+    }
+    
+    private static ParseResult parse(String text) {
+        return new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource("test", text));
+    }
+
+    private static void check(ParseResult result) {
+        assertEquals(result, ASTCodec.decode(ASTCodec.encode(result), "test"));
+    }
+    
+    private static void checkBad(byte[] bytes) {
+        try {
+            ASTCodec.decode(bytes, "test");
+            fail("decoded a bad encoding");
+        } catch (IllegalArgumentException e) {
+            // yay
+        }
+    }
+}
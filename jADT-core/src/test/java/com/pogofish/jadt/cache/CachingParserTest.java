@@ -0,0 +1,175 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.parser.DocHandler;
+import com.pogofish.jadt.parser.Parser;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.Source;
+import com.pogofish.jadt.source.StringSource;
+
+/**
+ * Test the CachingParser
+ */
+public class CachingParserTest {
+    private final CountingParser counting = new CountingParser();
+    private final MapParseCache cache = new MapParseCache();
+    private final CachingParser parser = new CachingParser(counting, cache);
+    
+    /**
+     * Content that has been parsed before comes from the cache, whatever the source is called
+     */
+    @Test
+    public void testCaching() {
+        final ParseResult first = parser.parse(new StringSource("first", "Foo = Foo"));
+        assertEquals(1, counting.count);
+        final ParseResult second = parser.parse(new StringSource("first", "Foo = Foo"));
+        assertEquals(1, counting.count);
+        assertEquals(first, second);
+        
+        final ParseResult renamed = parser.parse(new StringSource("second", "Foo = Foo"));
+        assertEquals(1, counting.count);
+        assertEquals("second", renamed.doc.srcInfo);
+        
+        parser.parse(new StringSource("first", "Foo = Bar"));
+        assertEquals(2, counting.count);
+    }
+    
+    /**
+     * Streaming doesn't cache since that would mean holding the whole document, but a cached document is replayed to 
+     * later handlers
+     */
+    @Test
+    public void testStreaming() {
+        final String text = "package a\nFoo = Foo\nBar = Bar";
+        final List<String> expected = new ArrayList<String>();
+        new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource("test", text), new RecordingHandler(expected));
+        
+        final List<String> streamed = new ArrayList<String>();
+        final ParseResult first = parser.parse(new StringSource("test", text), new RecordingHandler(streamed));
+        assertEquals(expected, streamed);
+        assertEquals(1, counting.count);
+        parser.parse(new StringSource("test", text), new RecordingHandler(new ArrayList<String>()));
+        assertEquals(2, counting.count);
+        
+        assertEquals(new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource("test", text)), parser.parse(new StringSource("test", text)));
+        assertEquals(3, counting.count);
+        
+        final List<String> replayed = new ArrayList<String>();
+        assertEquals(first, parser.parse(new StringSource("test", text), new RecordingHandler(replayed)));
+        assertEquals(expected, replayed);
+        assertEquals(3, counting.count);
+    }
+    
+    /**
+     * A cached result with errors can't be replayed to a handler
+     */
+    @Test
+    public void testErrors() {
+        final String text = "Foo = Foo\nBar = \nBaz = Baz";
+        final ParseResult result = parser.parse(new StringSource("test", text));
+        assertFalse(result.errors.isEmpty());
+        assertEquals(result, parser.parse(new StringSource("test", text)));
+        assertEquals(1, counting.count);
+        
+        final List<String> expected = new ArrayList<String>();
+        new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource("test", text), new RecordingHandler(expected));
+        final List<String> streamed = new ArrayList<String>();
+        parser.parse(new StringSource("test", text), new RecordingHandler(streamed));
+        assertEquals(expected, streamed);
+        assertEquals(2, counting.count);
+    }
+    
+    /**
+     * Not being able to write to the cache doesn't stop parsing
+     */
+    @Test
+    public void testBrokenCache() {
+        cache.broken = true;
+        assertEquals(1, parser.parse(new StringSource("test", "Foo = Foo")).doc.dataTypes.size());
+        assertEquals(1, parser.parse(new StringSource("test", "Foo = Foo")).doc.dataTypes.size());
+        assertEquals(2, counting.count);
+    }
+    
+    private static final class CountingParser implements Parser {
+        private final Parser parser = new StandardParser(new JavaCCParserImplFactory());
+        int count = 0;
+
+        @Override
+        public ParseResult parse(Source source) {
+            count++;
+            return parser.parse(source);
+        }
+
+        @Override
+        public ParseResult parse(Source source, DocHandler handler) {
+            count++;
+            return parser.parse(source, handler);
+        }
+    }
+    
+    private static final class MapParseCache implements ParseCache {
+        private final Map<String, byte[]> entries = new HashMap<String, byte[]>();
+        boolean broken = false;
+
+        @Override
+        public ParseResult get(String key, String srcInfo) {
+            final byte[] bytes = entries.get(key);
+            return bytes == null ? null : ASTCodec.decode(bytes, srcInfo);
+        }
+
+        @Override
+        public void put(String key, ParseResult result) {
+            if (broken) {
+                throw new RuntimeException("broken");
+            }
+            entries.put(key, ASTCodec.encode(result));
+        }
+    }
+    
+    private static final class RecordingHandler implements DocHandler {
+        private final List<String> events;
+
+        RecordingHandler(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void start(Doc doc) {
+            events.add("start " + doc);
+        }
+
+        @Override
+        public void dataType(DataType dataType, List<SyntaxError> errors) {
+            events.add(dataType + " " + errors);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.StringSource;
+import com.pogofish.jadt.util.TestUtil;
+
+/**
+ * Test the FileParseCache
+ */
+public class FileParseCacheTest {
+    /**
+     * Missing entries are null and stored entries come back the same, with the caller's srcInfo
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final File tmpDir = TestUtil.createTmpDir();
+        try {
+            final FileParseCache cache = new FileParseCache(new File(tmpDir, "cache"));
+            assertNull(cache.get("key", "test"));
+            
+            final ParseResult result = new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource("test", ASTCodecTest.DOC));
+            cache.put("key", result);
+            assertTrue(cache.file("key").isFile());
+            assertEquals(result, cache.get("key", "test"));
+            assertEquals("other", cache.get("key", "other").doc.srcInfo);
+            
+            // replacing
+            final ParseResult other = new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource("test", "Foo = Foo"));
+            cache.put("key", other);
+            assertEquals(other, cache.get("key", "test"));
+            
+            // nothing left behind
+            assertEquals(1, cache.directory.listFiles().length);
+        } finally {
+            TestUtil.deleteRecursively(tmpDir);
+        }
+    }
+    
+    /**
+     * A damaged entry is treated as missing
+     */
+    @Test
+    public void testCorrupt() throws IOException {
+        final File tmpDir = TestUtil.createTmpDir();
+        try {
+            final FileParseCache cache = new FileParseCache(tmpDir);
+            final OutputStream stream = new FileOutputStream(cache.file("key"));
+            try {
+                stream.write(new byte[]{1, 2, 3});
+            } finally {
+                stream.close();
+            }
+            assertNull(cache.get("key", "test"));
+        } finally {
+            TestUtil.deleteRecursively(tmpDir);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.StringSource;
+import com.pogofish.jadt.util.TestUtil;
+
+/**
+ * Test the MemoryParseCache
+ */
+public class MemoryParseCacheTest {
+    /**
+     * Missing entries are null and stored entries come back shared for the same srcInfo and renamed for another
+     */
+    @Test
+    public void testMemory() {
+        final MemoryParseCache cache = new MemoryParseCache();
+        assertNull(cache.get("key", "test"));
+        
+        final ParseResult result = parse("test", ASTCodecTest.DOC);
+        cache.put("key", result);
+        assertSame(result, cache.get("key", "test"));
+        final ParseResult renamed = cache.get("key", "other");
+        assertEquals("other", renamed.doc.srcInfo);
+        assertSame(result.doc.dataTypes, renamed.doc.dataTypes);
+        assertEquals(result.errors, renamed.errors);
+        assertEquals(1, cache.size());
+    }
+    
+    /**
+     * Results are passed on to the backing cache and found there when they aren't in memory
+     */
+    @Test
+    public void testBacking() throws IOException {
+        final File tmpDir = TestUtil.createTmpDir();
+        try {
+            final ParseResult result = parse("test", ASTCodecTest.DOC);
+            new MemoryParseCache(new FileParseCache(tmpDir)).put("key", result);
+            
+            final MemoryParseCache cache = new MemoryParseCache(new FileParseCache(tmpDir));
+            assertEquals(0, cache.size());
+            assertNull(cache.get("missing", "test"));
+            final ParseResult loaded = cache.get("key", "test");
+            assertEquals(result, loaded);
+            assertEquals(1, cache.size());
+            
+            // now it comes from memory
+            TestUtil.deleteRecursively(tmpDir);
+            assertSame(loaded, cache.get("key", "test"));
+        } finally {
+            TestUtil.deleteRecursively(tmpDir);
+        }
+    }
+    
+    private static ParseResult parse(String srcInfo, String text) {
+        return new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource(srcInfo, text));
+    }
+}
@@ -0,0 +1,84 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.checker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.errors.SemanticError;
+import com.pogofish.jadt.parser.StandardParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.StringSource;
+
+/**
+ * Make sure the CachingChecker only checks a document's content once
+ */
+public class CachingCheckerTest {
+    /**
+     * The same content is only checked once, whatever source it came from, and data types are always checked
+     */
+    @Test
+    public void testCaching() {
+        final CountingChecker counting = new CountingChecker();
+        final CachingChecker checker = new CachingChecker(counting);
+        
+        final List<SemanticError> errors = checker.check(parse("first", "Foo = Foo | Foo"));
+        assertFalse(errors.isEmpty());
+        assertEquals(1, counting.count);
+        assertSame(errors, checker.check(parse("first", "Foo = Foo | Foo")));
+        assertSame(errors, checker.check(parse("second", "Foo = Foo | Foo")));
+        assertEquals(1, counting.count);
+        
+        assertEquals(0, checker.check(parse("first", "Foo = Bar | Baz")).size());
+        assertEquals(2, counting.count);
+        assertEquals(2, checker.size());
+        
+        final Doc doc = parse("first", "Foo = Foo");
+        checker.check(doc.dataTypes.get(0), new HashSet<String>());
+        checker.check(doc.dataTypes.get(0), new HashSet<String>());
+        assertEquals(4, counting.count);
+    }
+    
+    private static Doc parse(String srcInfo, String text) {
+        return new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource(srcInfo, text)).doc;
+    }
+    
+    private static final class CountingChecker implements Checker {
+        private final Checker checker = new StandardChecker();
+        int count = 0;
+
+        @Override
+        public List<SemanticError> check(Doc doc) {
+            count++;
+            return checker.check(doc);
+        }
+
+        @Override
+        public List<SemanticError> check(DataType dataType, Set<String> dataTypeNames) {
+            count++;
+            return checker.check(dataType, dataTypeNames);
+        }
+    }
+}
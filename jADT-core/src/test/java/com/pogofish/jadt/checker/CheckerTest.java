@@ -26,7 +26,10 @@ import static com.pogofish.jadt.util.Util.list;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -66,6 +69,26 @@ public class CheckerTest {
         assertTrue(errors.contains(_DuplicateDataType(dataType.name)));
     }
     
+    /**
+     * Checking one data type at a time should find the same errors as checking the whole doc
+     */
+    @Test
+    public void testDataTypeAtATime() {
+        final Checker checker = new StandardChecker();
+        final Constructor constructor = new Constructor(NO_COMMENTS, "Bar", Util.<Arg>list());
+        final DataType dataType1 = new DataType(NO_COMMENTS, NO_ANNOTATIONS, "Foo", Util.<String>list(), NO_EXTENDS, NO_IMPLEMENTS, list(constructor, constructor));
+        final DataType dataType2 = new DataType(NO_COMMENTS, NO_ANNOTATIONS, "Bar", Util.<String>list(), NO_EXTENDS, NO_IMPLEMENTS, list(constructor));
+        final Doc doc = new Doc("CheckerTest", Pkg._Pkg(NO_COMMENTS, ""), NO_IMPORTS, list(dataType1, dataType2, dataType1));
+        final List<SemanticError> errors = new ArrayList<SemanticError>();
+        final Set<String> dataTypeNames = new HashSet<String>();
+        for (DataType dataType : doc.dataTypes) {
+            errors.addAll(checker.check(dataType, dataTypeNames));
+        }
+        assertEquals(checker.check(doc), errors);
+        assertEquals(list(_DuplicateConstructor("Foo", "Bar"), _DuplicateDataType("Foo"), _DuplicateConstructor("Foo", "Bar")), errors);
+        assertEquals(Util.set("Foo", "Bar"), dataTypeNames);
+    }
+    
     /**
      * Check with duplicate constructors for one data type
      */
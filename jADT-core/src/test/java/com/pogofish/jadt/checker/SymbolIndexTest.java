@@ -0,0 +1,142 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.checker;
+
+import static com.pogofish.jadt.ast.ASTConstants.NO_COMMENTS;
+import static com.pogofish.jadt.ast.ASTConstants.NO_IMPORTS;
+import static com.pogofish.jadt.errors.SemanticError._DuplicateDataTypeInSources;
+import static com.pogofish.jadt.util.Util.list;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.Annotation;
+import com.pogofish.jadt.ast.Constructor;
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.Optional;
+import com.pogofish.jadt.ast.Pkg;
+import com.pogofish.jadt.ast.RefType;
+import com.pogofish.jadt.errors.SemanticError;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure the SymbolIndex finds data types defined by more than one source and keeps up as sources change
+ */
+public class SymbolIndexTest {
+    private static final List<SemanticError> NO_ERRORS = Util.<SemanticError>list();
+    
+    @Test
+    public void testDuplicates() {
+        final SymbolIndex index = new SymbolIndex();
+        index.update("A.jadt", doc("a", "Foo", "Bar"));
+        index.update("B.jadt", doc("b", "Foo"));
+        index.update("C.jadt", doc("a", "Bar", "Baz"));
+        index.update("D.jadt", doc("", "Bar"));
+        
+        assertEquals(list(_DuplicateDataTypeInSources("a.Bar", "A.jadt", "C.jadt")), index.check("A.jadt"));
+        assertEquals(NO_ERRORS, index.check("B.jadt"));
+        assertEquals(list(_DuplicateDataTypeInSources("a.Bar", "C.jadt", "A.jadt")), index.check("C.jadt"));
+        assertEquals(NO_ERRORS, index.check("D.jadt"));
+        assertEquals(NO_ERRORS, index.check("unknown"));
+        
+        // the first other source in order is named
+        index.update("0.jadt", list("a.Bar", "a.Baz"));
+        assertEquals(list(_DuplicateDataTypeInSources("a.Bar", "0.jadt", "A.jadt"), _DuplicateDataTypeInSources("a.Baz", "0.jadt", "C.jadt")), index.check("0.jadt"));
+        assertEquals(list(_DuplicateDataTypeInSources("a.Bar", "C.jadt", "0.jadt"), _DuplicateDataTypeInSources("a.Baz", "C.jadt", "0.jadt")), index.check("C.jadt"));
+    }
+    
+    @Test
+    public void testChanges() {
+        final SymbolIndex index = new SymbolIndex();
+        index.update("A.jadt", doc("a", "Foo", "Bar"));
+        index.update("B.jadt", doc("a", "Foo"));
+        assertEquals(list(_DuplicateDataTypeInSources("a.Foo", "B.jadt", "A.jadt")), index.check("B.jadt"));
+        
+        // Foo moves out of A
+        index.update("A.jadt", doc("a", "Bar"));
+        assertEquals(NO_ERRORS, index.check("A.jadt"));
+        assertEquals(NO_ERRORS, index.check("B.jadt"));
+        
+        // and back in again, one data type at a time
+        index.remove("A.jadt");
+        index.add("A.jadt", "a.Bar");
+        assertEquals(NO_ERRORS, index.check("B.jadt"));
+        index.add("A.jadt", "a.Foo");
+        assertEquals(list(_DuplicateDataTypeInSources("a.Foo", "B.jadt", "A.jadt")), index.check("B.jadt"));
+        
+        // until A goes away altogether
+        index.remove("A.jadt");
+        assertEquals(NO_ERRORS, index.check("A.jadt"));
+        assertEquals(NO_ERRORS, index.check("B.jadt"));
+        index.remove("A.jadt");
+    }
+    
+    /**
+     * Sources updated from several threads at once all end up in the index
+     */
+    @Test
+    public void testThreads() throws Exception {
+        final SymbolIndex index = new SymbolIndex();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 20; i++) {
+                final String srcInfo = "S" + i + ".jadt";
+                final String name = "Type" + (i % 10);
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (int j = 0; j < 100; j++) {
+                            index.update(srcInfo, doc("p", "Other" + j, name));
+                        }
+                        index.update(srcInfo, doc("p", name));
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < 20; i++) {
+            assertEquals(list(_DuplicateDataTypeInSources("p.Type" + (i % 10), "S" + i + ".jadt", "S" + (i < 10 ? i + 10 : i - 10) + ".jadt")), index.check("S" + i + ".jadt"));
+        }
+    }
+    
+    @Test
+    public void testQualifiedName() {
+        assertEquals("Foo", SymbolIndex.qualifiedName("", "Foo"));
+        assertEquals("a.b.Foo", SymbolIndex.qualifiedName("a.b", "Foo"));
+    }
+    
+    private static Doc doc(String pkg, String... names) {
+        final List<DataType> dataTypes = new ArrayList<DataType>();
+        for (String name : names) {
+            dataTypes.add(DataType._DataType(NO_COMMENTS, Util.<Annotation>list(), name, Util.<String>list(), Optional.<RefType>_None(), Util.<RefType>list(), Util.<Constructor>list()));
+        }
+        return new Doc("test", Pkg._Pkg(NO_COMMENTS, pkg), NO_IMPORTS, dataTypes);
+    }
+}
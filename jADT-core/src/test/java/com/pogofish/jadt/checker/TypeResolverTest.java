@@ -0,0 +1,79 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.checker;
+
+import static com.pogofish.jadt.errors.SemanticError._UnresolvedType;
+import static com.pogofish.jadt.util.Util.list;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.classpath.ClassIndex;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure class types resolve the way javac would resolve them in generated code
+ */
+public class TypeResolverTest {
+    private static final ClassIndex INDEX = new ClassIndex(Util.set("lib.Thing", "lib.Thing.Part", "other.Thing", "other.Widget"), Util.<String>set());
+    
+    @Test
+    public void testResolved() throws Exception {
+        assertEquals("[]", resolve("package p\nimport java.util.*\nimport lib.Thing\n"
+                + "Foo<A> extends Object implements Comparable<Foo<A>> = Foo(A a, String s, List<Map.Entry<A, Integer>> l, int[] i, Thing t, Thing.Part[][] p, Bar b, Bar.Quux q)"
+                + " | Bar(Foo.Bar b, java.util.concurrent.Future<A> f, lib.Thing.Part p, other.Widget w) | Quux"));
+    }
+    
+    @Test
+    public void testUnresolved() throws Exception {
+        assertEquals("[Unresolved(Foo, Lsit, [p.Lsit, java.lang.Lsit]), Unresolved(Foo, Sting, [p.Sting, java.lang.Sting]), "
+                + "Unresolved(Foo, java.utl.List, [p.java.utl.List, java.lang.java.utl.List, java.utl.List]), Unresolved(Foo, Thing.Whole, [p.Thing.Whole, java.lang.Thing.Whole, Thing.Whole])]",
+                resolve("package p\nFoo = Foo(Lsit<Sting> x, java.utl.List y, Lsit z, Thing.Whole w)"));
+        // single type imports hide everything else, on demand imports don't
+        assertEquals("[Unresolved(Foo, Widget, [lib.Widget])]", resolve("import lib.Widget\nimport other.*\nFoo = Foo(Widget w, Thing t)"));
+        assertEquals("[Unresolved(Foo, Whatsit, [Whatsit, other.Whatsit, java.lang.Whatsit])]", resolve("import other.*\nFoo = Foo(Whatsit w)"));
+        // types in extends and implements count too
+        assertEquals("[Unresolved(Foo, Base, [Base, java.lang.Base]), Unresolved(Foo, Iface, [Iface, java.lang.Iface])]", resolve("Foo extends Base implements Iface = Foo"));
+    }
+    
+    @Test
+    public void testCheck() throws Exception {
+        final Doc doc = new JavaCCParserImplFactory().create("test", "package p\nimport q.*\nFoo = Foo(Bar b, Baz.Some s, Lsit l)").doc();
+        final List<TypeResolver.Unresolved> unresolved = new TypeResolver(INDEX).resolve(doc, doc.dataTypes.get(0));
+        final SymbolIndex symbols = new SymbolIndex();
+        symbols.update("bar", list("p.Bar"));
+        symbols.update("baz", list("q.Baz"));
+        assertEquals(list(_UnresolvedType("Foo", "Lsit")), TypeResolver.check(unresolved, symbols));
+        symbols.remove("baz");
+        assertEquals(list(_UnresolvedType("Foo", "Baz.Some"), _UnresolvedType("Foo", "Lsit")), TypeResolver.check(unresolved, symbols));
+    }
+    
+    private static String resolve(String text) throws Exception {
+        final Doc doc = new JavaCCParserImplFactory().create("test", text).doc();
+        final TypeResolver resolver = new TypeResolver(INDEX);
+        final List<TypeResolver.Unresolved> unresolved = new ArrayList<TypeResolver.Unresolved>();
+        for (DataType dataType : doc.dataTypes) {
+            unresolved.addAll(resolver.resolve(doc, dataType));
+        }
+        return unresolved.toString();
+    }
+}
@@ -0,0 +1,56 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.classpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure ClassIndex knows the classes it was given, the classes nested in source files, and the platform classes
+ */
+public class ClassIndexTest {
+    @Test
+    public void testClasses() {
+        final ClassIndex index = new ClassIndex(Util.set("a.b.Foo", "a.b.Foo.Inner"), Util.set("c.Bar"));
+        assertEquals(3, index.size());
+        assertTrue(index.contains("a.b.Foo"));
+        assertTrue(index.contains("a.b.Foo.Inner"));
+        assertFalse(index.contains("a.b.Foo.Other"));
+        assertFalse(index.contains("a.b"));
+        assertTrue(index.contains("c.Bar"));
+        // whatever might be nested in a source file
+        assertTrue(index.contains("c.Bar.Inner"));
+        assertFalse(index.contains("c.Baz"));
+    }
+    
+    @Test
+    public void testPlatform() {
+        final ClassIndex index = ClassIndex.PLATFORM;
+        assertTrue(index.contains("java.lang.String"));
+        assertTrue(index.contains("java.util.Map.Entry"));
+        assertTrue(index.contains("java.util.Map.Entry"));
+        assertFalse(index.contains("java.util.Lsit"));
+        assertFalse(index.contains("java.util.Map.Entri"));
+        assertFalse(index.contains("String"));
+        // the platform doesn't include the application's classpath
+        assertFalse(index.contains(ClassIndexTest.class.getName()));
+    }
+}
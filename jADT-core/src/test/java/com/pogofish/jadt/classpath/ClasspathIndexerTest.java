@@ -0,0 +1,135 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.classpath;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.util.TestUtil;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure the ClasspathIndexer finds classes in directories and jars and only reads jars again when they change
+ */
+public class ClasspathIndexerTest {
+    @Test
+    public void testDirectory() throws IOException {
+        final File dir = TestUtil.createTmpDir();
+        try {
+            touch(new File(dir, "a/b/Foo.class"));
+            touch(new File(dir, "a/b/Foo$Inner.class"));
+            touch(new File(dir, "a/b/Foo$1.class"));
+            touch(new File(dir, "a/b/package-info.class"));
+            touch(new File(dir, "a/Bar.java"));
+            touch(new File(dir, "a/readme.txt"));
+            touch(new File(dir, "Top.class"));
+            
+            final ClassIndex index = new ClasspathIndexer(null).index(Util.list(dir, new File(dir, "missing.jar")));
+            assertEquals(4, index.size());
+            assertTrue(index.contains("a.b.Foo"));
+            assertTrue(index.contains("a.b.Foo.Inner"));
+            assertTrue(index.contains("a.Bar"));
+            assertTrue(index.contains("a.Bar.Whatever"));
+            assertTrue(index.contains("Top"));
+            assertFalse(index.contains("a.b.package-info"));
+            assertFalse(index.contains("a.readme"));
+            
+            // new classes show up the next time
+            touch(new File(dir, "a/b/Baz.class"));
+            assertFalse(index.contains("a.b.Baz"));
+            assertTrue(new ClasspathIndexer(null).index(Util.list(dir)).contains("a.b.Baz"));
+        } finally {
+            TestUtil.deleteRecursively(dir);
+        }
+    }
+    
+    @Test
+    public void testJar() throws IOException {
+        final File dir = TestUtil.createTmpDir();
+        try {
+            final File jar = new File(dir, "lib.jar");
+            final File cacheDir = new File(dir, "cache");
+            jar(jar, "x/y/Foo.class", "x/y/Foo$Bar.class", "x/y/", "META-INF/MANIFEST.MF", "META-INF/versions/9/x/y/Foo.class", "module-info.class");
+            
+            final ClasspathIndexer indexer = new ClasspathIndexer(cacheDir);
+            final ClassIndex index = indexer.index(Util.list(jar));
+            assertEquals(2, index.size());
+            assertTrue(index.contains("x.y.Foo"));
+            assertTrue(index.contains("x.y.Foo.Bar"));
+            
+            final File cached = new File(cacheDir, ClasspathIndexer.checksum(jar));
+            assertTrue(cached.isFile());
+            assertTrue(new File(cacheDir, ClasspathIndexer.STAMPS_NAME).isFile());
+            
+            // an unchanged jar isn't read again, by this indexer or a new one using the same cache
+            write(cached, "x.y.Foo\nx.y.Cached\n");
+            assertTrue(new ClasspathIndexer(cacheDir).index(Util.list(jar)).contains("x.y.Cached"));
+            assertEquals(2, indexer.index(Util.list(jar)).size());
+            
+            // a changed jar is
+            jar(jar, "x/y/Foo.class", "x/y/Quux.class");
+            jar.setLastModified(jar.lastModified() + 2000);
+            final ClassIndex changed = new ClasspathIndexer(cacheDir).index(Util.list(jar));
+            assertTrue(changed.contains("x.y.Quux"));
+            assertFalse(changed.contains("x.y.Cached"));
+            assertTrue(indexer.index(Util.list(jar)).contains("x.y.Quux"));
+        } finally {
+            TestUtil.deleteRecursively(dir);
+        }
+    }
+    
+    @Test
+    public void testSplit() {
+        assertEquals(Util.list(new File("a.jar"), new File("b")), ClasspathIndexer.split("a.jar" + File.pathSeparator + File.pathSeparator + "b"));
+    }
+    
+    private static void touch(File file) throws IOException {
+        write(file, "");
+    }
+    
+    private static void write(File file, String contents) throws IOException {
+        file.getParentFile().mkdirs();
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+    
+    private static void jar(File file, String... names) throws IOException {
+        final ZipOutputStream stream = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            for (String name : names) {
+                stream.putNextEntry(new ZipEntry(name));
+                stream.closeEntry();
+            }
+        } finally {
+            stream.close();
+        }
+    }
+}
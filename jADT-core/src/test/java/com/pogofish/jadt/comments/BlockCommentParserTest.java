@@ -43,6 +43,17 @@ public class BlockCommentParserTest {
         test("/* hello\n * goodbye */", _JavaBlockComment(list(list(START, ONEWS, _BlockWord("hello"), EOL), list(ONEWS, _BlockWord("*"), ONEWS, _BlockWord("goodbye"), ONEWS, END))));
     }
 
+    /**
+     * One BlockCommentParser reuses its underlying parser
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testReuse() {
+        final BlockCommentParser parser = new BlockCommentParser();
+        assertEquals(_JavaBlockComment(list(list(START, ONEWS, END))), parser.parse(new StringReader("/* */")));
+        assertEquals(_JavaBlockComment(list(list(START, ONEWS, _BlockWord("hello"), ONEWS, END))), parser.parse(new StringReader("/* hello */")));
+    }
+
     private void test(String string, JavaComment expected) {
         final BlockCommentParser parser = new BlockCommentParser();
         assertEquals(expected.toString(), parser.parse(new StringReader(string)).toString());       
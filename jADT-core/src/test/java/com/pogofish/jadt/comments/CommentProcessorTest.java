@@ -28,6 +28,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.junit.Test;
@@ -151,6 +152,20 @@ public class CommentProcessorTest {
      }
     
 
+    @Test
+    public void testParamDocs() {
+        final JavaDocParser parser = new JavaDocParser();
+        final CommentProcessor commentProcessor = new CommentProcessor();
+        final List<JavaComment> comments = list(parser.parse(new StringReader("/** \n * @param bar hello1\n * @param foo hello *\n * @param baz hello2\n */")), 
+                parser.parse(new StringReader("/** @param foo again */")));
+        final Map<String, List<JavaComment>> paramDocs = commentProcessor.paramDocs(comments);
+        assertEquals(set("foo", "bar", "baz"), paramDocs.keySet());
+        for (String paramName : paramDocs.keySet()) {
+            assertEquals(commentProcessor.paramDoc(paramName, comments), paramDocs.get(paramName));
+        }
+        assertEquals("/**\n * hello *\n */\n/**\n * again */\n", ASTPrinter.printComments("", paramDocs.get("foo")));
+    }
+
     @Test
     public void testParamDocNonJavaDoc() {
         final CommentProcessor commentProcessor = new CommentProcessor();
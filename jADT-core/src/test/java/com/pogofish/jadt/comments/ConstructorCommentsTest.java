@@ -0,0 +1,81 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.comments;
+
+import static com.pogofish.jadt.ast.JavaComment._JavaEOLComment;
+import static com.pogofish.jadt.util.Util.list;
+import static com.pogofish.jadt.util.Util.set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.JavaComment;
+import com.pogofish.jadt.printer.ASTPrinter;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure ConstructorComments does the same processing the emitters used to do one step at a time
+ */
+public class ConstructorCommentsTest {
+    private static final CommentProcessor commentProcessor = new CommentProcessor();
+    
+    private static List<JavaComment> comments() {
+        final JavaDocParser javaDocParser = new JavaDocParser();
+        final BlockCommentParser blockCommentParser = new BlockCommentParser();
+        return list(_JavaEOLComment("// eol"), 
+                blockCommentParser.parse(new StringReader("/* block\n      * comment */")),
+                javaDocParser.parse(new StringReader("/** Some doc\n     * @param foo the foo\n    * @param bar the bar\n     *   on two lines\n     * @return whatever\n     * @author me */")));
+    }
+    
+    @Test
+    public void testVariants() {
+        final List<JavaComment> comments = comments();
+        final ConstructorComments processed = ConstructorComments.of(comments);
+        
+        assertEquals(commentProcessor.leftAlign(comments), processed.aligned);
+        assertEquals(commentProcessor.leftAlign(commentProcessor.javaDocOnly(comments)), processed.javaDoc);
+        assertEquals(commentProcessor.leftAlign(commentProcessor.stripTags(set("@return", "@param"), comments)), processed.classDoc);
+        assertEquals(commentProcessor.leftAlign(commentProcessor.stripTags(set("@return"), commentProcessor.javaDocOnly(comments))), processed.constructorDoc);
+    }
+    
+    @Test
+    public void testParamDoc() {
+        final List<JavaComment> comments = comments();
+        final ConstructorComments processed = ConstructorComments.of(comments);
+        final List<JavaComment> javaDoc = commentProcessor.leftAlign(commentProcessor.javaDocOnly(comments));
+        
+        for (String paramName : list("foo", "bar", "baz")) {
+            assertEquals(commentProcessor.paramDoc(paramName, javaDoc), processed.paramDoc(paramName));
+        }
+        assertEquals("/**\n * the bar\n *   on two lines\n*/\n", ASTPrinter.printComments("", processed.paramDoc("bar")));
+        assertEquals(Util.<JavaComment>list(), processed.paramDoc("baz"));
+    }
+    
+    @Test
+    public void testCaching() {
+        final List<JavaComment> comments = comments();
+        final ConstructorCommentList commentList = new ConstructorCommentList(comments);
+        
+        assertEquals(comments, commentList);
+        assertSame(ConstructorComments.of(commentList), ConstructorComments.of(commentList));
+        assertNotSame(ConstructorComments.of(comments), ConstructorComments.of(comments));
+    }
+}
@@ -24,6 +24,7 @@ import static com.pogofish.jadt.ast.JDToken._JDWord;
 import static com.pogofish.jadt.ast.JavaComment._JavaDocComment;
 import static com.pogofish.jadt.util.Util.list;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
 
 import java.io.StringReader;
 import java.util.List;
@@ -103,6 +104,22 @@ public class JavaDocParserTest {
         testRoundTrip("/**@Foo hello\n * world\n@Bar whatever*/");        
     }
 
+    /**
+     * One JavaDocParser reuses its underlying parser, which has to work even after a failure
+     */
+    @Test
+    public void testReuse() {
+        final JavaDocParser parser = new JavaDocParser();
+        assertEquals("/** hello */", ASTPrinter.print("", parser.parse(new StringReader("/** hello */"))));
+        try {
+            parser.parse(new StringReader("not a comment"));
+            fail("no exception parsing a bad comment");
+        } catch (RuntimeException e) {
+            // yay
+        }
+        assertEquals("/**@Foo world*/", ASTPrinter.print("", parser.parse(new StringReader("/**@Foo world*/"))));
+    }
+
     private void testRoundTrip(String string) {
         final JavaDocParser parser = new JavaDocParser();
         assertEquals(string, ASTPrinter.print("", parser.parse(new StringReader(string))));
@@ -0,0 +1,330 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.daemon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.JADT;
+import com.pogofish.jadt.JADTUserErrorsException;
+import com.pogofish.jadt.errors.SemanticError;
+import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.sink.StringSinkFactoryFactory;
+import com.pogofish.jadt.util.TestUtil;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure the daemon and its client talk to each other and that the client gives up gracefully when it should
+ */
+public class JADTDaemonTest {
+    /**
+     * A daemon should generate for a client, report failures back to it, and stop when asked
+     */
+    @Test
+    public void testGenerate() throws Exception {
+        final File dir = TestUtil.createTmpDir();
+        try {
+            final File file = new File(dir, "daemon.properties");
+            final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();
+            final JADTDaemon daemon = new JADTDaemon(JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), JADT.TEST_SRC_INFO, factory), file);
+            final Thread thread = serve(daemon);
+            final DaemonClient client = new DaemonClient(file);
+            
+            assertTrue(client.generate(JADT.TEST_SRC_INFO, JADT.TEST_DIR));
+            assertEquals(JADT.TEST_SRC_INFO, factory.results().get(JADT.TEST_DIR).get(0).getResults().get(JADT.TEST_CLASS_NAME));
+            
+            // the same daemon keeps serving
+            assertTrue(client.generate(JADT.TEST_SRC_INFO, JADT.TEST_DIR));
+            assertEquals(2, factory.results().get(JADT.TEST_DIR).size());
+            
+            try {
+                client.generate("some other source", JADT.TEST_DIR);
+                fail("Daemon did not report a failure");
+            } catch (DaemonException e) {
+                // yay
+            }
+            
+            assertTrue(client.stop());
+            thread.join(10000);
+            assertFalse(thread.isAlive());
+            assertFalse(file.exists());
+            assertFalse(client.generate(JADT.TEST_SRC_INFO, JADT.TEST_DIR));
+        } finally {
+            TestUtil.deleteRecursively(dir);
+        }
+    }
+    
+    /**
+     * User errors found by the daemon come back to the client as the same JADTUserErrorsException
+     */
+    @Test
+    public void testUserErrors() throws Exception {
+        final File dir = TestUtil.createTmpDir();
+        try {
+            final File file = new File(dir, "daemon.properties");
+            final List<SyntaxError> syntaxErrors = Collections.singletonList(SyntaxError._UnexpectedToken("this", "that", 42));
+            final List<SemanticError> semanticErrors = Util.list(SemanticError._DuplicateDataType("A"), SemanticError._ConstructorDataTypeConflict("B"), 
+                    SemanticError._DuplicateConstructor("C", "D"), SemanticError._DuplicateArgName("E", "F", "G"), 
+                    SemanticError._DuplicateModifier("H", "I", "J", "final"), SemanticError._DuplicateDataTypeInSources("K", "L", "M"), 
+                    SemanticError._UnresolvedType("N", "O"));
+            
+            JADTUserErrorsException expected = null;
+            try {
+                JADT.createDummyJADT(syntaxErrors, semanticErrors, JADT.TEST_SRC_INFO, new StringSinkFactoryFactory()).parseAndEmit(JADT.TEST_SRC_INFO, JADT.TEST_DIR);
+                fail("Driver did not report an error");
+            } catch (JADTUserErrorsException e) {
+                expected = e;
+            }
+            
+            final JADTDaemon daemon = new JADTDaemon(JADT.createDummyJADT(syntaxErrors, semanticErrors, JADT.TEST_SRC_INFO, new StringSinkFactoryFactory()), file);
+            final Thread thread = serve(daemon);
+            try {
+                new DaemonClient(file).generate(JADT.TEST_SRC_INFO, JADT.TEST_DIR);
+                fail("Daemon did not report an error");
+            } catch (JADTUserErrorsException e) {
+                assertEquals(expected.getErrors(), e.getErrors());
+                assertEquals(expected.getMessage(), e.getMessage());
+            } finally {
+                daemon.stop();
+                thread.join(10000);
+            }
+        } finally {
+            TestUtil.deleteRecursively(dir);
+        }
+    }
+    
+    /**
+     * A daemon with the standard configuration generates with the settings each client sends, keeping a driver for each
+     */
+    @Test
+    public void testSettings() throws Exception {
+        final File dir = TestUtil.createTmpDir();
+        try {
+            final File file = new File(dir, "daemon.properties");
+            final File srcDir = new File(dir, "src");
+            final File destDir = new File(dir, "dest");
+            new File(srcDir, "sub").mkdirs();
+            writeFile(new File(srcDir, "Foo.jadt"), "Foo = Foo");
+            writeFile(new File(srcDir, "sub/Bar.jadt"), "Bar = Bar");
+            
+            final JADTDaemon daemon = new JADTDaemon(1, file);
+            final Thread thread = serve(daemon);
+            try {
+                final DaemonClient client = new DaemonClient(file);
+                assertTrue(client.generate(srcDir.getAbsolutePath(), destDir.getAbsolutePath(), new Properties()));
+                assertTrue(new File(destDir, "Foo.java").exists());
+                assertFalse(new File(destDir, "Bar.java").exists());
+                
+                final Properties settings = new Properties();
+                settings.setProperty(JADT.INCLUDES_PROPERTY, "**/*.jadt");
+                settings.setProperty(JADT.EXCLUDES_PROPERTY, "Foo.jadt");
+                assertTrue(client.generate(srcDir.getAbsolutePath(), destDir.getAbsolutePath(), settings));
+                assertTrue(new File(destDir, "Bar.java").exists());
+                
+                // several source paths are generated together
+                final File otherDestDir = new File(dir, "other");
+                assertTrue(client.generate(Util.list(new File(srcDir, "Foo.jadt").getAbsolutePath(), new File(srcDir, "sub").getAbsolutePath()), 
+                        otherDestDir.getAbsolutePath(), new Properties()));
+                assertTrue(new File(otherDestDir, "Foo.java").exists());
+                assertTrue(new File(otherDestDir, "Bar.java").exists());
+                
+                final Properties same = new Properties();
+                same.putAll(settings);
+                assertSame(daemon.driver(settings), daemon.driver(same));
+                assertNotSame(daemon.driver(settings), daemon.driver(new Properties()));
+                
+                writeFile(new File(srcDir, "sub/Bar.jadt"), "Bar = Bar | Bar");
+                try {
+                    client.generate(srcDir.getAbsolutePath(), destDir.getAbsolutePath(), settings);
+                    fail("Daemon did not report an error");
+                } catch (JADTUserErrorsException e) {
+                    assertFalse(e.getErrors().isEmpty());
+                }
+            } finally {
+                daemon.stop();
+                thread.join(10000);
+            }
+        } finally {
+            TestUtil.deleteRecursively(dir);
+        }
+    }
+    
+    /**
+     * A client that can't use a daemon falls back to its own driver
+     */
+    @Test
+    public void testFallback() throws Exception {
+        final File dir = TestUtil.createTmpDir();
+        try {
+            final File file = new File(dir, "daemon.properties");
+            final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();
+            final JADT fallback = JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), JADT.TEST_SRC_INFO, factory);
+            final DaemonClient client = new DaemonClient(file);
+            
+            // no file
+            client.parseAndEmit(fallback, JADT.TEST_SRC_INFO, JADT.TEST_DIR);
+            assertEquals(1, factory.results().get(JADT.TEST_DIR).size());
+            
+            // a file left behind by a daemon that's gone
+            final ServerSocket socket = new ServerSocket(0);
+            final int port = socket.getLocalPort();
+            socket.close();
+            writeFile(file, Integer.toString(port), "key");
+            client.parseAndEmit(fallback, JADT.TEST_SRC_INFO, JADT.TEST_DIR);
+            assertEquals(2, factory.results().get(JADT.TEST_DIR).size());
+            
+            // garbage
+            writeFile(file, "not a port", "key");
+            assertFalse(client.generate(JADT.TEST_SRC_INFO, JADT.TEST_DIR));
+        } finally {
+            TestUtil.deleteRecursively(dir);
+        }
+    }
+    
+    /**
+     * Once a daemon has been reached, a daemon that doesn't answer or drops the connection is reported instead of
+     * falling back, since it may still be writing the output
+     */
+    @Test
+    public void testNoAnswer() throws Exception {
+        final File dir = TestUtil.createTmpDir();
+        final ServerSocket server = new ServerSocket(0);
+        try {
+            final File file = new File(dir, "daemon.properties");
+            writeFile(file, Integer.toString(server.getLocalPort()), "key");
+            final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();
+            final JADT fallback = JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), JADT.TEST_SRC_INFO, factory);
+            final DaemonClient client = new DaemonClient(file, 200);
+
+            // connected but never answered, the request just sits in the server's backlog
+            try {
+                client.parseAndEmit(fallback, JADT.TEST_SRC_INFO, JADT.TEST_DIR);
+                fail("Did not get an exception from a daemon that didn't answer");
+            } catch (DaemonException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("didn't answer"));
+            }
+
+            // the daemon hangs up without answering
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        server.accept().close();
+                        server.accept().close();
+                    } catch (IOException e) {
+                        // the test is over
+                    }
+                }
+            }, "JADTDaemonTest");
+            thread.setDaemon(true);
+            thread.start();
+            try {
+                client.parseAndEmit(fallback, JADT.TEST_SRC_INFO, JADT.TEST_DIR);
+                fail("Did not get an exception from a daemon that hung up");
+            } catch (DaemonException e) {
+                // yay
+            }
+            assertTrue("Fell back after reaching the daemon", factory.results().isEmpty());
+        } finally {
+            server.close();
+            TestUtil.deleteRecursively(dir);
+        }
+    }
+
+    /**
+     * A daemon refuses clients that don't know its key
+     */
+    @Test
+    public void testWrongKey() throws Exception {
+        final File dir = TestUtil.createTmpDir();
+        try {
+            final File file = new File(dir, "daemon.properties");
+            final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();
+            final JADTDaemon daemon = new JADTDaemon(JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), JADT.TEST_SRC_INFO, factory), file);
+            final Thread thread = serve(daemon);
+            try {
+                final File otherFile = new File(dir, "other.properties");
+                writeFile(otherFile, Integer.toString(daemon.getPort()), "not the key");
+                final DaemonClient client = new DaemonClient(otherFile);
+                assertFalse(client.generate(JADT.TEST_SRC_INFO, JADT.TEST_DIR));
+                assertFalse(client.stop());
+                assertTrue(factory.results().isEmpty());
+                assertTrue(thread.isAlive());
+            } finally {
+                daemon.stop();
+                thread.join(10000);
+            }
+        } finally {
+            TestUtil.deleteRecursively(dir);
+        }
+    }
+    
+    private static Thread serve(final JADTDaemon daemon) throws IOException {
+        daemon.start();
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                daemon.serve();
+            }
+        }, "JADTDaemonTest");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+    
+    /**
+     * Write a file and make sure it looks changed even on file systems with coarse timestamps
+     */
+    private static void writeFile(File file, String contents) throws IOException {
+        final long previous = file.lastModified();
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+        file.setLastModified(Math.max(file.lastModified(), previous + 2000));
+    }
+    
+    private static void writeFile(File file, String port, String key) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(Protocol.PORT, port);
+        properties.setProperty(Protocol.KEY, key);
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            properties.store(out, null);
+        } finally {
+            out.close();
+        }
+    }
+}
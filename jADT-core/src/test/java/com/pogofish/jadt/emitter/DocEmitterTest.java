@@ -33,6 +33,7 @@ import static org.junit.Assert.assertEquals;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.Test;
 
@@ -131,6 +132,33 @@ public class DocEmitterTest {
         assertEquals(FULL_HEADER+WHATEVER, results.get("some.package.Whatever"));
     }
 
+    /**
+     * Test that emitting a doc one data type at a time gives the same results as emitting it all at once
+     */
+    @Test
+    public void testSingleDataType() {
+        @SuppressWarnings("unchecked")
+        final Doc doc = new Doc("EmitterTest", Pkg._Pkg(Util.list(_JavaDocComment("/**", list(_JDWhiteSpace(" "), _JDWord("hello"), _JDWhiteSpace(" ")), Util.<JDTagSection>list(), "*/")), "some.package"), list(Imprt._Imprt(Util.list(_JavaBlockComment(list(list(_BlockWord("/* hello */"))))), "wow.man"), Imprt._Imprt(Util.list(_JavaEOLComment("// hello")), "flim.flam")), Util.<DataType>list());
+        final DataType fooBar = new DataType(NO_COMMENTS, NO_ANNOTATIONS, "FooBar", Util.<String>list(), NO_EXTENDS, NO_IMPLEMENTS, list(
+                new Constructor(NO_COMMENTS, "Foo", list(
+                        new Arg(Util.<ArgModifier>list(), _Primitive(_IntType()), "yeah"),
+                        new Arg(Util.<ArgModifier>list(), _Ref(_ClassType("String", Util.<RefType>list())), "hmmm")
+                )),
+                new Constructor(NO_COMMENTS, "Bar", Util.<Arg>list())
+        ));
+        final DataType whatever = new DataType(NO_COMMENTS, NO_ANNOTATIONS, "Whatever", Util.<String>list(), NO_EXTENDS, NO_IMPLEMENTS, list(
+                new Constructor(NO_COMMENTS, "Whatever", Util.<Arg>list())
+        ));
+        final StringSinkFactory factory = new StringSinkFactory("whatever");
+        final DocEmitter emitter = new StandardDocEmitter(new DummyDataTypeEmitter());
+        emitter.emit(factory, doc, fooBar);
+        emitter.emit(factory, doc, whatever);
+        final Map<String, String> results = factory.getResults();
+        assertEquals("Got the wrong number of results", 2, results.size());
+        assertEquals(FULL_HEADER+FOOBAR, results.get("some.package.FooBar"));
+        assertEquals(FULL_HEADER+WHATEVER, results.get("some.package.Whatever"));
+    }
+
     /**
      * Test a doc with no imports
      */
@@ -186,4 +214,33 @@ public class DocEmitterTest {
         assertEquals(NO_PACKAGE_HEADER+FOOBAR, foobar);
         assertEquals(NO_PACKAGE_HEADER+WHATEVER, results.get("Whatever"));
     }
+    
+    /**
+     * Test that emitting DataTypes concurrently gives the same results as emitting them sequentially
+     */
+    @Test
+    public void testConcurrent() {
+        final Doc doc = new Doc("EmitterTest", Pkg._Pkg(NO_COMMENTS, "some.package"), NO_IMPORTS, list(
+                new DataType(NO_COMMENTS, NO_ANNOTATIONS, "FooBar", Util.<String>list(), NO_EXTENDS, NO_IMPLEMENTS, list(
+                        new Constructor(NO_COMMENTS, "Foo", Util.<Arg>list()),
+                        new Constructor(NO_COMMENTS, "Bar", Util.<Arg>list())
+                )),
+                new DataType(NO_COMMENTS, NO_ANNOTATIONS, "Whatever", Util.<String>list(), NO_EXTENDS, NO_IMPLEMENTS, list(
+                        new Constructor(NO_COMMENTS, "Whatever", Util.<Arg>list())
+                ))
+                
+        ));
+        final ExecutorService executor = Util.daemonPool("DocEmitterTest", 2);
+        try {
+            final StringSinkFactory factory = new StringSinkFactory("whatever");
+            final DocEmitter emitter = new StandardDocEmitter(new DummyDataTypeEmitter(), executor);
+            emitter.emit(factory, doc);
+            final Map<String, String> results = factory.getResults();
+            assertEquals("Got the wrong number of results", 2, results.size());
+            assertEquals(NO_IMPORTS_HEADER+FOOBAR, results.get("some.package.FooBar"));
+            assertEquals(NO_IMPORTS_HEADER+WHATEVER, results.get("some.package.Whatever"));
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,65 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.manifest;
+
+import static com.pogofish.jadt.util.Util.list;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.util.TestUtil;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Test the FileManifestStore
+ */
+public class FileManifestStoreTest {
+    /**
+     * A missing manifest should be empty and a saved manifest should load back the same
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final File tmpDir = TestUtil.createTmpDir();
+        try {
+            final String destDir = new File(tmpDir, "some dir").getAbsolutePath();
+            final FileManifestStore store = new FileManifestStore();
+            assertTrue(store.load(destDir).srcInfos().isEmpty());
+            assertEquals(0, store.load(destDir).getStarted());
+            
+            final Manifest manifest = new Manifest();
+            manifest.setStarted(1234567890000L);
+            manifest.put("/some/path:with=odd chars.jadt", new Manifest.Entry("hash1", "1.0 beta", list("foo.Foo", "foo.Bar")));
+            manifest.put("other", new Manifest.Entry("hash2", "1.0", Util.<String>list()));
+            store.save(destDir, manifest);
+            assertTrue(store.manifestFile(destDir).exists());
+            
+            final Manifest loaded = store.load(destDir);
+            assertEquals(manifest.srcInfos(), loaded.srcInfos());
+            assertEquals(1234567890000L, loaded.getStarted());
+            final Manifest.Entry entry1 = loaded.get("/some/path:with=odd chars.jadt");
+            assertEquals("hash1", entry1.hash);
+            assertEquals("1.0 beta", entry1.version);
+            assertEquals(list("foo.Foo", "foo.Bar"), entry1.classNames);
+            assertEquals(Util.<String>list(), loaded.get("other").classNames);
+        } finally {
+            TestUtil.deleteRecursively(tmpDir);
+        }
+    }
+}
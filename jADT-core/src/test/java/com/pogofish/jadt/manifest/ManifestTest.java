@@ -0,0 +1,91 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.manifest;
+
+import static com.pogofish.jadt.util.Util.list;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.CharBuffer;
+import java.security.MessageDigest;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.source.StringSource;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Test the Manifest
+ */
+public class ManifestTest {
+    /**
+     * Hashes should depend on content only
+     */
+    @Test
+    public void testHash() {
+        final String hash1 = Manifest.hash(new StringSource("a", "Foo = Foo"));
+        final String hash2 = Manifest.hash(new StringSource("b", "Foo = Foo"));
+        final String hash3 = Manifest.hash(new StringSource("a", "Foo = Bar"));
+        assertEquals(hash1, hash2);
+        assertFalse(hash1.equals(hash3));
+        assertEquals(40, hash1.length());
+        // sha-1 of the empty string
+        assertEquals("da39a3ee5e6b4b0d3255bfef95601890afd80709", Manifest.hash(new StringSource("a", "")));
+    }
+    
+    /**
+     * Pieces of text hash like their concatenation and big or odd text hashes like its UTF-8 bytes
+     */
+    @Test
+    public void testHashPieces() throws Exception {
+        assertEquals(Manifest.hash("Foo = Foo"), Manifest.hash("Foo ", "", "= Foo"));
+        assertEquals(Manifest.hash(new StringSource("a", "Foo = Foo")), Manifest.hash(CharBuffer.wrap("Foo = Foo")));
+        
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            builder.append("Foo\u00e9\u4e2d\ud83d\ude00 = Bar").append(i);
+        }
+        // a lone surrogate is replaced the way String.getBytes replaces it
+        builder.append('\ud800');
+        final String text = builder.toString();
+        final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+        final StringBuilder expected = new StringBuilder();
+        for (byte b : digest.digest(text.getBytes("UTF-8"))) {
+            expected.append(String.format("%02x", b & 0xFF));
+        }
+        assertEquals(expected.toString(), Manifest.hash(text));
+    }
+    
+    /**
+     * Make sure entries can be added, found, and removed
+     */
+    @Test
+    public void testEntries() {
+        final Manifest manifest = new Manifest();
+        assertTrue(manifest.srcInfos().isEmpty());
+        manifest.put("a", new Manifest.Entry("hash", "version", list("foo.Foo", "foo.Bar")));
+        manifest.put("b", new Manifest.Entry("hash", "version", list("Baz")));
+        assertEquals(Util.set("a", "b"), manifest.srcInfos());
+        assertEquals(Util.set("foo.Foo", "foo.Bar", "Baz"), manifest.classNames());
+        assertTrue(manifest.get("a").matches("hash", "version"));
+        assertFalse(manifest.get("a").matches("hash", "other version"));
+        assertFalse(manifest.get("a").matches("other hash", "version"));
+        manifest.remove("a");
+        assertEquals(null, manifest.get("a"));
+        assertEquals(Util.set("Baz"), manifest.classNames());
+    }
+}
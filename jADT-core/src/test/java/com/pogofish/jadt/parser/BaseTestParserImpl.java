@@ -22,6 +22,7 @@ import com.pogofish.jadt.ast.Arg;
 import com.pogofish.jadt.ast.ArgModifier;
 import com.pogofish.jadt.ast.Constructor;
 import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.ast.Expression;
 import com.pogofish.jadt.ast.Imprt;
 import com.pogofish.jadt.ast.JavaComment;
@@ -233,6 +234,20 @@ public abstract class BaseTestParserImpl implements ParserImpl {
     
     }
 
+    @Override
+    public Doc doc(DocHandler handler) throws Exception {
+        throw new RuntimeException(
+                "This should not have been called");
+    
+    }
+
+    @Override
+    public int offset() {
+        throw new RuntimeException(
+                "This should not have been called");
+    
+    }
+
     @Override
     public List<SyntaxError> errors() {
         throw new RuntimeException(
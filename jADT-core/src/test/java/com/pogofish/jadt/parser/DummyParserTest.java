@@ -134,6 +134,11 @@ public class DummyParserTest {
                 public String getSrcInfo() {
                     return "some source";
                 }
+
+                @Override
+                public long lastModified() {
+                    return 0;
+                }
                 
             });
             fail("did not get exception, got " + resultDoc);
@@ -0,0 +1,189 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.StringSource;
+
+/**
+ * Make sure incremental reparsing gives exactly what a full parse would and shares what it can
+ */
+public class IncrementalParserTest {
+    private static final String DOC = "/* header */\npackage a.b\n\nimport java.util.List\n\n"
+            + "/** one */\nOne = One(int x)\n"
+            + "Two<A> extends Base<A> =\n    /** first */\n    First(A a)\n  | Second(final List<A> as)\n"
+            + "# internal comment\n"
+            + "@Deprecated\nThree = Three\n"
+            + "Four = Four | Five(String s)\n";
+
+    private final IncrementalParser parser = new IncrementalParser(new JavaCCParserImplFactory());
+    
+    /**
+     * Editing inside one data type reparses just that data type
+     */
+    @Test
+    public void testReuse() {
+        final IncrementalParse previous = parser.parse("test", DOC);
+        assertTrue(previous.reusable);
+        assertEquals(4, previous.result.doc.dataTypes.size());
+        
+        final int start = DOC.indexOf("Second");
+        final IncrementalParse result = check(previous, start, start + "Second".length(), "Deuxieme");
+        final List<DataType> before = previous.result.doc.dataTypes;
+        final List<DataType> after = result.result.doc.dataTypes;
+        assertSame(before.get(0), after.get(0));
+        assertNotSame(before.get(1), after.get(1));
+        assertSame(before.get(2), after.get(2));
+        assertSame(before.get(3), after.get(3));
+        assertSame(previous.result.doc.imports, result.result.doc.imports);
+        
+        // and the same again, finding the edit by comparing texts
+        final IncrementalParse again = parser.reparse(result, result.getText().replace("First(A a)", "First(A a, A b)"));
+        assertEquals(parser.parse("test", again.getText()).result, again.result);
+        assertSame(after.get(0), again.result.doc.dataTypes.get(0));
+        assertNotSame(after.get(1), again.result.doc.dataTypes.get(1));
+        assertSame(after.get(3), again.result.doc.dataTypes.get(3));
+    }
+    
+    /**
+     * Data types can be added, removed, and merged
+     */
+    @Test
+    public void testAddAndRemove() {
+        final IncrementalParse previous = parser.parse("test", DOC);
+        
+        final int three = DOC.indexOf("@Deprecated");
+        IncrementalParse result = check(previous, three, three, "New = New\n");
+        assertEquals(5, result.result.doc.dataTypes.size());
+        assertSame(previous.result.doc.dataTypes.get(3), result.result.doc.dataTypes.get(4));
+        
+        final int one = DOC.indexOf("/** one */");
+        result = check(previous, one, DOC.indexOf("\nTwo<A>"), "");
+        assertEquals(3, result.result.doc.dataTypes.size());
+        assertSame(previous.result.doc.dataTypes.get(1), result.result.doc.dataTypes.get(0));
+        
+        // the last one
+        final int four = DOC.indexOf("Four =");
+        result = check(previous, four, DOC.length(), "");
+        assertEquals(3, result.result.doc.dataTypes.size());
+        assertSame(previous.result.doc.dataTypes.get(2), result.result.doc.dataTypes.get(2));
+        
+        // Four's constructors merge into Three
+        result = check(previous, four, four + "Four = Four".length(), "| Four");
+        assertEquals(3, result.result.doc.dataTypes.size());
+        
+        // at the very end
+        result = check(previous, DOC.length(), DOC.length(), "Last = Last");
+        assertEquals(5, result.result.doc.dataTypes.size());
+    }
+    
+    /**
+     * Things that can't be reparsed a piece at a time still give the right result
+     */
+    @Test
+    public void testFallback() {
+        final IncrementalParse previous = parser.parse("test", DOC);
+        
+        // the header
+        final int pkg = DOC.indexOf("a.b");
+        IncrementalParse result = check(previous, pkg, pkg + 1, "c");
+        assertNotSame(previous.result.doc.dataTypes.get(0), result.result.doc.dataTypes.get(0));
+        // right after the header
+        final int imports = DOC.indexOf("List\n") + "List".length();
+        check(previous, imports, imports, "x = x");
+        check(previous, imports + 1, imports + 1, "import java.util.Map\n");
+        
+        // errors
+        final int three = DOC.indexOf("Three = Three");
+        result = check(previous, three, three + "Three = Three".length(), "Three = ");
+        assertFalse(result.result.errors.isEmpty());
+        assertFalse(result.reusable);
+        result = check(result, three, three + "Three = ".length(), "Three = Three");
+        assertTrue(result.result.errors.isEmpty());
+        assertTrue(result.reusable);
+        
+        // a comment left at the end of a region belongs to the next data type
+        final int bar = DOC.indexOf(" | Second(final List<A> as)");
+        check(previous, bar, bar + " | Second(final List<A> as)".length(), " /** moved */");
+        
+        // unicode escapes
+        final int one = DOC.indexOf("One(int x)");
+        result = check(previous, one, one + 1, "\\u004F");
+        assertFalse(result.reusable);
+        
+        // an unterminated comment swallows everything after it
+        check(previous, one, one, "/* ");
+    }
+    
+    /**
+     * Lots of random edits, each checked against a full parse
+     */
+    @Test
+    public void testRandom() {
+        final String[] fragments = {"", " ", "\n", "X", "Y = Y", "|", "| Z", "(", ")", "int x", ",", "/**", "*/", "/* c */", "//", "#", 
+                "<A>", "=", "\"", "@Foo", "package", "import", "extends", "final", "New = New(int i)\n"};
+        final Random random = new Random(42);
+        IncrementalParse previous = parser.parse("test", DOC);
+        for (int i = 0; i < 3000; i++) {
+            final String text = previous.getText();
+            if (i % 100 == 0 || text.length() > 2000) {
+                previous = parser.parse("test", DOC);
+                continue;
+            }
+            final int start = random.nextInt(text.length() + 1);
+            final int end = Math.min(text.length(), start + random.nextInt(4));
+            previous = check(previous, start, end, fragments[random.nextInt(fragments.length)]);
+        }
+    }
+    
+    /**
+     * Reparse after an edit and make sure the result is the same as a full parse
+     */
+    private IncrementalParse check(IncrementalParse previous, int start, int end, String replacement) {
+        final String text = previous.getText();
+        final String expectedText = text.substring(0, start) + replacement + text.substring(end);
+        try {
+            parser.parse("test", expectedText);
+        } catch (Throwable expected) {
+            // lexical errors are thrown, and should be thrown the same way
+            try {
+                final IncrementalParse result = parser.reparse(previous, start, end, replacement);
+                fail("expected " + expected + " but got " + result.result);
+            } catch (Throwable actual) {
+                assertEquals(expected.toString(), actual.toString());
+            }
+            return previous;
+        }
+        final IncrementalParse result = parser.reparse(previous, start, end, replacement);
+        assertEquals(expectedText, result.getText());
+        assertEquals("editing " + expectedText, parser.parse("test", expectedText).result, result.result);
+        assertEquals(new StandardParser(new JavaCCParserImplFactory()).parse(new StringSource("test", expectedText)), result.result);
+        return result;
+    }
+}
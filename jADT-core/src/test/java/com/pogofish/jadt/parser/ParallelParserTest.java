@@ -0,0 +1,254 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.DataType;
+import com.pogofish.jadt.ast.Doc;
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.source.StringSource;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure parsing in chunks gives exactly what a sequential parse would
+ */
+public class ParallelParserTest {
+    private static final String DOC = "/* header */\npackage a.b\n\nimport java.util.List\n\n"
+            + "/** one */\nOne = One(int x)\n"
+            + "Two<A> extends Base<A> implements java.io.Serializable, Comparable<Two<A> > =\n    /** first */\n    First(A a)\n  | Second(final List<A> as)\n"
+            + "# internal comment = (\n"
+            + "@Deprecated\n@a.b.C(x = \"=)\", y = {1, 2})\nThree = Three\n"
+            + "// Four = Four\nFour = Four | Five(String s)\n"
+            + "/* ) = */ @Six Six<A, B extends Comparable<? super A> > = Six(int[] x)";
+
+    private final ExecutorService executor = Util.daemonPool("test", 3);
+    
+    /**
+     * Lots of threads and tiny chunks so every data type gets a chunk of its own
+     */
+    private final ParallelParser parser = new ParallelParser(new JavaCCParserImplFactory(), executor, 100, 1);
+    
+    private final Parser sequential = new StandardParser(new JavaCCParserImplFactory());
+    
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * The boundaries are right after the last token of each data type
+     */
+    @Test
+    public void testBoundaries() {
+        final int[] boundaries = DataTypeBoundaries.find(DOC);
+        assertArrayEquals(new int[]{DOC.indexOf("One(int x)") + "One(int x)".length(), DOC.indexOf("(final List<A> as)") + "(final List<A> as)".length(), 
+                DOC.indexOf("Three = Three") + "Three = Three".length(), DOC.indexOf("Five(String s)") + "Five(String s)".length()}, boundaries);
+        // the same place a sequential parse ends each data type
+        final IncrementalParse parse = new IncrementalParser(new JavaCCParserImplFactory()).parse("test", DOC);
+        for (int i = 0; i < boundaries.length; i++) {
+            assertEquals(parse.ends[i], boundaries[i]);
+        }
+        
+        assertArrayEquals(new int[0], DataTypeBoundaries.find(""));
+        assertArrayEquals(new int[0], DataTypeBoundaries.find("Foo = Foo"));
+        assertArrayEquals(new int[0], DataTypeBoundaries.find("Foo = Foo(int x = 1)"));
+        assertArrayEquals(new int[]{9}, DataTypeBoundaries.find("Foo = Foo Bar = Bar"));
+    }
+    
+    /**
+     * Chunks are only as big as they need to be and documents with escapes aren't split
+     */
+    @Test
+    public void testSplits() {
+        assertArrayEquals(new int[0], new ParallelParser(new JavaCCParserImplFactory(), executor, 1, 1).splits(DOC));
+        assertArrayEquals(new int[0], new ParallelParser(new JavaCCParserImplFactory(), executor, 4, DOC.length()).splits(DOC));
+        assertArrayEquals(new int[]{DOC.indexOf("(final List<A> as)") + "(final List<A> as)".length()}, 
+                new ParallelParser(new JavaCCParserImplFactory(), executor, 2, 1).splits(DOC));
+        assertEquals(4, parser.splits(DOC).length);
+        assertEquals(0, parser.splits(DOC.replace("Four = Four", "\\u0046our = Four")).length);
+    }
+
+    /**
+     * Documents that split cleanly and ones that have to fall back to a sequential parse
+     */
+    @Test
+    public void testSameAsSequential() {
+        check(DOC);
+        check("Foo = Foo");
+        check("package x Foo = Foo Bar = Bar");
+        check("Foo = Foo\nBar = \nBaz = Baz");
+        check("Foo = Foo\nimport x.y\nBaz = Baz");
+        check("Foo = Foo\npackage x\nBaz = Baz");
+        check("Foo = Foo\nBar = Bar ~\nBaz = Baz");
+        check("Foo = Foo\nBar = B\\u0061r\nBaz = Baz");
+        check("Foo = Foo\n@Bar(x = 1)\nBaz = Baz\n/* trailing */");
+        check("Foo = Foo | Bar\n(int x) Baz = Baz");
+    }
+    
+    /**
+     * Lots of random damage to a document, making sure results, errors, and anything thrown match a sequential parse
+     */
+    @Test
+    public void testRandom() {
+        final String[] fragments = {"=", "(", ")", "@", "|", "<", ">", ",", ".", " ", "\n", "Foo", "extends", "import", "/*", "*/", "#", "\"", "'", "1"};
+        final Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            final StringBuilder builder = new StringBuilder(DOC);
+            final int edits = random.nextInt(3) + 1;
+            for (int j = 0; j < edits; j++) {
+                final int start = random.nextInt(builder.length());
+                final int end = Math.min(builder.length(), start + random.nextInt(4));
+                builder.replace(start, end, random.nextBoolean() ? "" : fragments[random.nextInt(fragments.length)]);
+            }
+            check(builder.toString());
+        }
+    }
+    
+    /**
+     * Streaming gets the same data types and errors in the same order, even when a chunk after the first has to fall back
+     */
+    @Test
+    public void testStreaming() {
+        checkStreaming(DOC);
+        checkStreaming("Foo = Foo\nBar = Bar\nBaz = \nQux = Qux");
+        checkStreaming("Foo = Foo\nBar = Bar\nimport x.y\nQux = Qux");
+        checkStreaming("Foo = \nBar = Bar");
+    }
+    
+    /**
+     * The calling thread parses anything the executor hasn't gotten to, so a busy executor can't deadlock a parse
+     */
+    @Test
+    public void testBusyExecutor() throws Exception {
+        final ExecutorService busy = Util.daemonPool("busy", 1);
+        final CountDownLatch latch = new CountDownLatch(1);
+        try {
+            busy.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            final ParallelParser busyParser = new ParallelParser(new JavaCCParserImplFactory(), busy, 100, 1);
+            assertEquals(sequential.parse(new StringSource("test", DOC)), busyParser.parse(new StringSource("test", DOC)));
+        } finally {
+            latch.countDown();
+            busy.shutdown();
+        }
+    }
+
+    /**
+     * Only lexical errors make a chunk fall back to a sequential parse, something like running out of stack isn't
+     * hidden even if a sequential parse might have gotten away with it
+     */
+    @Test
+    public void testVirtualMachineError() {
+        final ParserImplFactory factory = new JavaCCParserImplFactory();
+        final ParallelParser failing = new ParallelParser(new ParserImplFactory() {
+            private boolean failed = false;
+            
+            @Override
+            public ParserImpl create(String srcInfo, Reader reader) {
+                return factory.create(srcInfo, reader);
+            }
+
+            @Override
+            public synchronized ParserImpl create(String srcInfo, CharSequence chars) {
+                if (!failed) {
+                    failed = true;
+                    throw new StackOverflowError();
+                }
+                return factory.create(srcInfo, chars);
+            }
+        }, executor, 100, 1);
+        try {
+            failing.parse(new StringSource("test", DOC));
+            fail("StackOverflowError was swallowed");
+        } catch (StackOverflowError e) {
+            // yay
+        }
+    }
+
+    private void check(String text) {
+        ParseResult expected = null;
+        Throwable thrown = null;
+        try {
+            expected = sequential.parse(new StringSource("test", text));
+        } catch (Throwable e) {
+            thrown = e;
+        }
+        try {
+            final ParseResult actual = parser.parse(new StringSource("test", text));
+            if (thrown != null) {
+                fail("parsing " + text + " expected " + thrown + " but got " + actual);
+            }
+            assertEquals("parsing " + text, expected, actual);
+        } catch (Throwable e) {
+            if (thrown == null) {
+                throw new RuntimeException("parsing " + text, e);
+            }
+            assertEquals("parsing " + text, thrown.toString(), e.toString());
+        }
+    }
+    
+    private void checkStreaming(String text) {
+        final List<String> expected = new ArrayList<String>();
+        final ParseResult expectedResult = sequential.parse(new StringSource("test", text), new RecordingHandler(expected));
+        final List<String> actual = new ArrayList<String>();
+        final ParseResult actualResult = parser.parse(new StringSource("test", text), new RecordingHandler(actual));
+        assertEquals(expectedResult, actualResult);
+        assertEquals(expected, actual);
+        assertTrue(actual.size() > 1);
+    }
+    
+    private static final class RecordingHandler implements DocHandler {
+        private final List<String> events;
+
+        RecordingHandler(List<String> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void start(Doc doc) {
+            events.add("start " + doc);
+        }
+
+        @Override
+        public void dataType(DataType dataType, List<SyntaxError> errors) {
+            events.add(dataType + " " + errors);
+        }
+    }
+}
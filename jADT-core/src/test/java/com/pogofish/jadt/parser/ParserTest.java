@@ -23,6 +23,7 @@ import static org.junit.Assert.fail;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.Test;
@@ -33,6 +34,7 @@ import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.ast.Imprt;
 import com.pogofish.jadt.ast.ParseResult;
 import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
 import com.pogofish.jadt.source.Source;
 import com.pogofish.jadt.source.StringSource;
 import com.pogofish.jadt.util.Util;
@@ -57,6 +59,11 @@ public class ParserTest {
                 return "whatever";
             }
             
+            @Override
+            public long lastModified() {
+                return 0;
+            }
+            
             @Override
             public BufferedReader createReader() {
                 return new BufferedReader(new Reader() { 
@@ -90,6 +97,11 @@ public class ParserTest {
                     }
                 };
             }
+
+            @Override
+            public ParserImpl create(String srcInfo, CharSequence chars) {
+                throw new RuntimeException("This should not have been called");
+            }
         });
         
         try {
@@ -134,6 +146,37 @@ public class ParserTest {
         }
     }
 
+    /**
+     * Parsing with a DocHandler should hand over the header and then each data type, in order, along with the errors so far
+     */
+    @Test
+    public void testDocHandler() {
+        final String text = "package hello.world\nimport foo.bar\nFoo = Foo\nBar = Bar(int x)\nBaz = Baz | Quux";
+        final Parser parser = new StandardParser(new JavaCCParserImplFactory());
+        final ParseResult expected = parser.parse(new StringSource("ParserTest", text));
+        
+        final List<Doc> starts = new ArrayList<Doc>();
+        final List<DataType> dataTypes = new ArrayList<DataType>();
+        final ParseResult result = parser.parse(new StringSource("ParserTest", text), new DocHandler() {
+            @Override
+            public void start(Doc doc) {
+                starts.add(doc);
+            }
+
+            @Override
+            public void dataType(DataType dataType, List<SyntaxError> errors) {
+                assertEquals(1, starts.size());
+                assertEquals(Util.<SyntaxError>list(), errors);
+                dataTypes.add(dataType);
+            }
+        });
+        
+        final Doc header = new Doc(expected.doc.srcInfo, expected.doc.pkg, expected.doc.imports, Util.<DataType>list());
+        assertEquals(Util.list(header), starts);
+        assertEquals(expected.doc.dataTypes, dataTypes);
+        assertEquals(new ParseResult(header, expected.errors), result);
+    }
+    
     
     private final static class ThrowingParserImplFactory implements ParserImplFactory {
         final Throwable exception;
@@ -162,6 +205,11 @@ public class ParserTest {
                 }
             };
         }
+
+        @Override
+        public ParserImpl create(String srcInfo, CharSequence chars) {
+            return create(srcInfo, (Reader)null);
+        }
     }
 
 }
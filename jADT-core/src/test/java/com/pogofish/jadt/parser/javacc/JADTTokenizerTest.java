@@ -0,0 +1,155 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser.javacc;
+
+import static com.pogofish.jadt.parser.javacc.generated.BaseJavaCCParserImplConstants.*;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.parser.javacc.generated.BaseJavaCCParserImplTokenManager;
+import com.pogofish.jadt.parser.javacc.generated.JavaCharStream;
+import com.pogofish.jadt.parser.javacc.generated.Token;
+
+/**
+ * Make sure JADTTokenizer produces exactly what the JavaCC generated token manager does
+ */
+public class JADTTokenizerTest {
+    /**
+     * Bits and pieces that random inputs are made of
+     */
+    private static final String[] FRAGMENTS = {"import", "package", "Foo", "x1", "$", "_", "int", "true", "abstract", "while",
+            "instanceofx", " ", "\t", "\n", "\r", "\r\n", "\f", "#comment\n", "#", "/*", "*/", "**", "*", "/", "//", "/**",
+            "\"", "\\", "'", "a", "0", "1", "8", "0x", "0X1f", ".", "e", "E", "+", "-", "p", "L", "f", "d", "<", ">", "=",
+            "!", "|", "&", "(", ")", "{", "}", "[", "]", ",", "@", "?", ":", "%", "^", "\\u0041", "\\uu005c", "\\u000a",
+            "\u00e9", "\u00b5", "\u0300", "\u0000", "~", ";"};
+
+    /**
+     * A plausible document with a bit of everything
+     */
+    @Test
+    public void testDocument() {
+        compare("/* a header */\npackage hello.world\n\nimport foo.bar.*\n# internal comment\r\n"
+                + "/**\n * JavaDoc\n * @author me\n */\n@SuppressWarnings(\"unchecked\") @Foo(x = 1, y = {'a', '\\n'})\n"
+                + "FooBar<A, B> extends Baz<A> implements Serializable =\n"
+                + "\t// constructor comment\n\tFoo(final int x, List<List<A>> y, double[] z)\n"
+                + "\t| Bar(boolean b, byte c, char d, short e, long f, float g, String h)\n"
+                + "\t| Baz(@Nullable transient volatile Object o)\n"
+                + "Literals = Literals(int x = 0x1F + 077 - 12L * 1.5e10 / .5f % 0x1.8p1, String s = \"a\\\"b\" || a && b)\n"
+                + "Ops = Ops(boolean a = 1 << 2 >> 3 >>> 4 >= 5 <= 6 != 7 == 8 | 9 ^ 10 & 11 ? true : false, Object n = null)\n"
+                + "Unicode = \\u0055nicode\u00e9(int \u00b5) // eol comment");
+    }
+
+    /**
+     * The edges of comments, numbers, and literals
+     */
+    @Test
+    public void testEdges() {
+        final String[] inputs = {"", " ", "\n", "hello", "/**/", "/***/", "/** */", "/*** */", "/* ***/", "/* **/", "/*/", "/*",
+                "/* unterminated **", "/** unterminated", "//", "// eol\r\nnext", "#", "#\r", "#\r\n", "0", "00", "09", "0x", "0xg",
+                "0x1", "0x1L", "0x1p", "0x1p1", "0x.1p-1d", "0x1.p+1F", "1.", ".1", "1e", "1e+", "1e5", "1.e5", "1f", "1D", "1.2.3",
+                "..", "1l", "'a'", "'\\''", "\"\"", "\"\\\"\"", "\"\\u0022\"", "\\u0041\\\\u0041", "\\\\\\u0041", "a\\u000ab", "\\u0009x",
+                "\tx\t\ty", "import importx", "a\u0000b", "x\r\r\ny\n\rz"};
+        for (String input : inputs) {
+            compare(input);
+        }
+    }
+
+    /**
+     * Both tokenizers should fail the same way on bad input
+     */
+    @Test
+    public void testErrors() {
+        final String[] inputs = {"~", "a ~", "!", "!x", "\"abc", "\"abc\n", "\"abc\\", "'", "''", "'ab'", "'a", "'\\", "\"\n",
+                "\\u00g1", "hello\\u00", ";", "\n\n  \\"};
+        for (String input : inputs) {
+            compare(input);
+        }
+    }
+
+    /**
+     * Lots of random inputs built out of troublesome fragments
+     */
+    @Test
+    public void testRandom() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            final StringBuilder builder = new StringBuilder();
+            final int length = random.nextInt(20) + 1;
+            for (int j = 0; j < length; j++) {
+                builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            compare(builder.toString());
+        }
+    }
+
+    /**
+     * Input that isn't a String gets copied out properly
+     */
+    @Test
+    public void testCharBuffer() {
+        final JADTTokenizer tokenizer = new JADTTokenizer(CharBuffer.wrap("xx hello world").subSequence(3, 14));
+        assertEquals("hello", tokenizer.getNextToken().image);
+        assertEquals("world", tokenizer.getNextToken().image);
+        assertEquals(EOF, tokenizer.getNextToken().kind);
+    }
+
+    /**
+     * Tokenize the input with both tokenizers and make sure they agree on everything, including errors
+     */
+    private static void compare(String input) {
+        final List<String> expected = new ArrayList<String>();
+        final List<String> actual = new ArrayList<String>();
+        tokenize(expected, input, false);
+        tokenize(actual, input, true);
+        assertEquals("tokenizing " + input, expected, actual);
+    }
+
+    private static void tokenize(List<String> results, String input, boolean hand) {
+        try {
+            final BaseJavaCCParserImplTokenManager tokenizer = hand ? new JADTTokenizer(input)
+                    : new BaseJavaCCParserImplTokenManager(new JavaCharStream(new StringReader(input)));
+            Token token;
+            do {
+                token = tokenizer.getNextToken();
+                final List<String> specials = new ArrayList<String>();
+                Token special = token.specialToken;
+                while (special != null) {
+                    specials.add(0, describe(special));
+                    if (special.specialToken != null && special.specialToken.next != special) {
+                        fail("special tokens aren't linked both ways in " + input);
+                    }
+                    special = special.specialToken;
+                }
+                results.add(specials + describe(token));
+            } while (token.kind != EOF);
+        } catch (Error e) {
+            results.add(e.getClass().getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static String describe(Token token) {
+        return tokenImage[token.kind] + " " + token.image + " " + token.beginLine + ":" + token.beginColumn + "-"
+                + token.endLine + ":" + token.endColumn;
+    }
+}
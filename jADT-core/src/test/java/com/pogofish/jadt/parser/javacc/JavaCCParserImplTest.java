@@ -60,6 +60,7 @@ import static com.pogofish.jadt.ast.Type._Ref;
 import static com.pogofish.jadt.errors.SyntaxError._UnexpectedToken;
 import static com.pogofish.jadt.util.Util.list;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.util.List;
 
@@ -76,6 +77,7 @@ import com.pogofish.jadt.ast.DataType;
 import com.pogofish.jadt.ast.Doc;
 import com.pogofish.jadt.ast.Expression;
 import com.pogofish.jadt.ast.Imprt;
+import com.pogofish.jadt.ast.Interner;
 import com.pogofish.jadt.ast.JDTagSection;
 import com.pogofish.jadt.ast.JavaComment;
 import com.pogofish.jadt.ast.Literal;
@@ -861,4 +863,55 @@ public class JavaCCParserImplTest {
         assertEquals("[]", p.errors().toString());
         assertEquals(expected.toString(), ca.toString());
     }
+    
+    /**
+     * Comments that get put together while parsing stay unparsed until something looks at them
+     */
+    @Test
+    public void testCommentsNotParsed() throws Exception {
+        final ParserImpl p1 = parserImpl("/** docs */ @foo /* a */ @bar // b\n Foo = /* c */ Foo | /* d */ Bar");
+        final DataType dataType = p1.dataType();
+        assertEquals("[]", p1.errors().toString());
+        final LazyCommentList dataTypeComments = (LazyCommentList)dataType.comments;
+        assertEquals(3, dataTypeComments.size());
+        assertEquals(0, dataTypeComments.parsed());
+        assertEquals(_JavaEOLComment("// b"), dataTypeComments.get(2));
+        assertEquals(1, dataTypeComments.parsed());
+
+        final JavaCCParserImpl p2 = parserImpl("/* a */ @foo /* b */ @bar");
+        final Tuple<List<JavaComment>, List<Annotation>> annotations = p2.annotations();
+        assertEquals("[]", p2.errors().toString());
+        final LazyCommentList annotationComments = (LazyCommentList)annotations._1;
+        assertEquals(2, annotationComments.size());
+        assertEquals(0, annotationComments.parsed());
+    }
+    
+    /**
+     * Equal types, modifiers, and names parsed more than once are shared, within a document and across 
+     * documents parsed with the same Interner
+     */
+    @Test
+    public void testInterning() throws Exception {
+        final JavaCCParserImplFactory factory = new JavaCCParserImplFactory(new Interner());
+        final Doc doc1 = factory.create("1", "Foo = Foo(String x, int y, List<String> z) | Bar(String y, int x, List<String> z)").doc();
+        final Doc doc2 = factory.create("2", "Baz = Baz(String x, final int y)").doc();
+        
+        final List<Constructor> constructors = doc1.dataTypes.get(0).constructors;
+        final List<Arg> foo = constructors.get(0).args;
+        final List<Arg> bar = constructors.get(1).args;
+        final List<Arg> baz = doc2.dataTypes.get(0).constructors.get(0).args;
+        for (int i = 0; i < 3; i++) {
+            assertSame(foo.get(i).type, bar.get(i).type);
+            assertSame(foo.get(i).modifiers, bar.get(i).modifiers);
+        }
+        assertSame(foo.get(0).name, bar.get(1).name);
+        assertSame(foo.get(0).type, baz.get(0).type);
+        assertSame(foo.get(1).type, baz.get(1).type);
+        assertSame(foo.get(0).name, baz.get(0).name);
+        assertEquals(list(_Final()), baz.get(1).modifiers);
+        
+        // a factory without an Interner still shares within a document
+        final Doc doc3 = PARSER_IMPL_FACTORY.create("3", "Foo = Foo(List<String> x) | Bar(List<String> x)").doc();
+        assertSame(doc3.dataTypes.get(0).constructors.get(0).args.get(0).type, doc3.dataTypes.get(0).constructors.get(1).args.get(0).type);
+    }
 }
@@ -0,0 +1,94 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.parser.javacc;
+
+import static com.pogofish.jadt.ast.BlockToken._BlockWhiteSpace;
+import static com.pogofish.jadt.ast.BlockToken._BlockWord;
+import static com.pogofish.jadt.ast.JDToken._JDWhiteSpace;
+import static com.pogofish.jadt.ast.JavaComment._JavaBlockComment;
+import static com.pogofish.jadt.ast.JavaComment._JavaDocComment;
+import static com.pogofish.jadt.ast.JavaComment._JavaEOLComment;
+import static com.pogofish.jadt.parser.javacc.generated.BaseJavaCCParserImplConstants.*;
+import static com.pogofish.jadt.util.Util.list;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.ast.JDTagSection;
+import com.pogofish.jadt.ast.JavaComment;
+import com.pogofish.jadt.util.Util;
+
+/**
+ * Make sure LazyCommentList parses comments properly, and only when asked
+ */
+public class LazyCommentListTest {
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testParse() {
+        final List<JavaComment> comments = new LazyCommentList(new int[]{JAVA_EOL_COMMENT, JAVA_ML_COMMENT, JAVADOC_COMMENT}, new String[] {"// eol", "/* ml */", "/** */"});
+        assertEquals(3, comments.size());
+        final List<JavaComment> expected = list(_JavaEOLComment("// eol"), 
+                _JavaBlockComment(list(list(_BlockWord("/*"), _BlockWhiteSpace(" "), _BlockWord("ml"), _BlockWhiteSpace(" "), _BlockWord("*/")))), 
+                _JavaDocComment("/**", list(_JDWhiteSpace(" ")), Util.<JDTagSection>list(), "*/"));
+        assertEquals(expected, comments);
+        assertEquals(comments, expected);
+        assertEquals(expected.hashCode(), comments.hashCode());
+        // once parsed, the same comment comes back
+        assertEquals(System.identityHashCode(comments.get(2)), System.identityHashCode(comments.get(2)));
+    }
+    
+    /**
+     * Nothing is parsed until a comment is asked for, which shows up here because the "comment" isn't valid
+     */
+    @Test
+    public void testLazy() {
+        final List<JavaComment> comments = new LazyCommentList(new int[]{JAVADOC_COMMENT}, new String[] {"not a comment"});
+        assertEquals(1, comments.size());
+        assertEquals(false, comments.isEmpty());
+        try {
+            comments.get(0);
+            fail("no exception parsing a bad comment");
+        } catch (RuntimeException e) {
+            // yay
+        }
+    }
+    
+    /**
+     * Putting lazy lists together doesn't parse anything, and the result parses just like the originals
+     */
+    @SuppressWarnings("unchecked")
+    @Test
+    public void testConcat() {
+        final List<JavaComment> first = new LazyCommentList(new int[]{JAVA_EOL_COMMENT}, new String[] {"// one"});
+        final List<JavaComment> second = new LazyCommentList(new int[]{JAVA_EOL_COMMENT, JAVADOC_COMMENT}, new String[] {"// two", "not a comment"});
+        final LazyCommentList both = (LazyCommentList)LazyCommentList.concat(first, second);
+        assertEquals(3, both.size());
+        assertEquals(0, both.parsed());
+        assertEquals(_JavaEOLComment("// two"), both.get(1));
+        assertEquals(1, both.parsed());
+
+        final List<JavaComment> empty = Util.<JavaComment>list();
+        assertSame(first, LazyCommentList.concat(first, empty));
+        assertSame(first, LazyCommentList.concat(empty, first));
+        
+        final List<JavaComment> eager = list(_JavaEOLComment("// eager"));
+        assertEquals(list(_JavaEOLComment("// eager"), _JavaEOLComment("// one")), LazyCommentList.concat(eager, first));
+    }
+}
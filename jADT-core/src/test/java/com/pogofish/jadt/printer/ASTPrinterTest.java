@@ -64,8 +64,11 @@ import static com.pogofish.jadt.printer.ASTPrinter.printComments;
 import static com.pogofish.jadt.util.Util.list;
 import static junit.framework.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
 import static com.pogofish.jadt.ast.BinaryOperator.*;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.junit.Test;
@@ -88,6 +91,7 @@ import com.pogofish.jadt.ast.Literal;
 import com.pogofish.jadt.ast.Optional;
 import com.pogofish.jadt.ast.Pkg;
 import com.pogofish.jadt.ast.RefType;
+import com.pogofish.jadt.sink.StringSink;
 import com.pogofish.jadt.util.Util;
 
 /**
@@ -231,6 +235,58 @@ public class ASTPrinterTest {
     }
 
     
+    /**
+     * Printing to an Appendable should add exactly what the String version returns to whatever is already there
+     */
+    @Test
+    public void testAppendable() {
+        final Doc doc = new Doc("PrinterTest", Pkg._Pkg(NO_COMMENTS, "some.package"), list(Imprt._Imprt(NO_COMMENTS, "number.one")), list(new DataType(NO_COMMENTS, 
+                list(_Annotation("foo", Optional.<AnnotationElement>_None())), "Foo", Util.<String>list(), Optional.<RefType>_Some(_ClassType("Bar", list(_ClassType("Baz", NO_TYPE_ARGS)))), 
+                list(_ClassType("java.io.Serializable", NO_TYPE_ARGS)), list(new Constructor(NO_COMMENTS, "Bar", list(new Arg(list(_Final()), _Ref(_ArrayType(_Primitive(_IntType()))), "x")))))));
+        final StringBuilder builder = new StringBuilder("before ");
+        ASTPrinter.print(builder, doc);
+        assertEquals("before " + print(doc), builder.toString());
+        
+        final StringSink sink = new StringSink("test");
+        try {
+            sink.write("before ");
+            ASTPrinter.printComments(sink, "  ", list(_JavaEOLComment("// hello"), _JavaDocComment("/**", list(ONEEOL, ONEWS, _JDWord("world")), NO_TAG_SECTIONS, "*/")));
+        } finally {
+            sink.close();
+        }
+        assertEquals("before // hello\n  /**\n   world*/\n", sink.result());
+    }
+    
+    /**
+     * IOExceptions from the Appendable come out as RuntimeExceptions
+     */
+    @Test
+    public void testAppendableException() {
+        final IOException exception = new IOException("oops");
+        final Appendable appendable = new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) throws IOException {
+                throw exception;
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) throws IOException {
+                throw exception;
+            }
+
+            @Override
+            public Appendable append(char c) throws IOException {
+                throw exception;
+            }
+        };
+        try {
+            ASTPrinter.print(appendable, _Ref(_ClassType("String", NO_TYPE_ARGS)));
+            fail("expected an exception");
+        } catch (RuntimeException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+    
     @Test
     public void testJDGeneralSection() {
         testComment("/** */", _JavaDocComment("/**", list(ONEWS), NO_TAG_SECTIONS, "*/"));
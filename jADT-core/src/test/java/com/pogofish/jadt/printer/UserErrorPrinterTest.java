@@ -19,7 +19,9 @@ import static com.pogofish.jadt.errors.SemanticError._ConstructorDataTypeConflic
 import static com.pogofish.jadt.errors.SemanticError._DuplicateArgName;
 import static com.pogofish.jadt.errors.SemanticError._DuplicateConstructor;
 import static com.pogofish.jadt.errors.SemanticError._DuplicateDataType;
+import static com.pogofish.jadt.errors.SemanticError._DuplicateDataTypeInSources;
 import static com.pogofish.jadt.errors.SemanticError._DuplicateModifier;
+import static com.pogofish.jadt.errors.SemanticError._UnresolvedType;
 import static com.pogofish.jadt.errors.SyntaxError._UnexpectedToken;
 import static com.pogofish.jadt.errors.UserError._Semantic;
 import static com.pogofish.jadt.errors.UserError._Syntactic;
@@ -54,5 +56,7 @@ public class UserErrorPrinterTest {
         assertEquals("Data type foo cannot have multiple constructors named bar.", print(_Semantic(_DuplicateConstructor("foo", "bar"))));
         assertEquals("Duplicated arg name baz in constructor bar of data type foo.", print(_Semantic(_DuplicateArgName("foo", "bar", "baz"))));
         assertEquals("Duplicated modifier quux on arg name baz in constructor bar of data type foo.", print(_Semantic(_DuplicateModifier("foo", "bar", "baz", "quux"))));
+        assertEquals("Data type a.foo in b.jadt is also defined in c.jadt.  Both would generate the same class.", print(_Semantic(_DuplicateDataTypeInSources("a.foo", "b.jadt", "c.jadt"))));
+        assertEquals("Data type foo refers to Lsit, which is not imported, in the same package, or on the classpath.", print(_Semantic(_UnresolvedType("foo", "Lsit"))));
     }
 }
@@ -16,6 +16,8 @@ limitations under the License.
 package com.pogofish.jadt.sink;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 import org.junit.Test;
 
@@ -34,5 +36,19 @@ public class FileSinkFactoryFactoryTest {
         final FileSinkFactoryFactory factoryFactory = new FileSinkFactoryFactory();
         final FileSinkFactory sinkFactory = (FileSinkFactory)factoryFactory.createSinkFactory("whatever");
         assertEquals("whatever", sinkFactory.destDirName);
+        assertNull(sinkFactory.counts);
+        assertNull(factoryFactory.getWriteCounts());
+    }
+    
+    /**
+     * Make sure FileSinkFactories share the factory factory's WriteCounts
+     */
+    @Test
+    public void testWriteCounts() {
+        final WriteCounts counts = new WriteCounts();
+        final FileSinkFactoryFactory factoryFactory = new FileSinkFactoryFactory(counts);
+        final FileSinkFactory sinkFactory = (FileSinkFactory)factoryFactory.createSinkFactory("whatever");
+        assertSame(counts, sinkFactory.counts);
+        assertSame(counts, factoryFactory.getWriteCounts());
     }
 }
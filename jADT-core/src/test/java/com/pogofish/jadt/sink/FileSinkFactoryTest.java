@@ -17,6 +17,7 @@ package com.pogofish.jadt.sink;
 
 import static com.pogofish.jadt.util.TestUtil.assertEqualsBarringFileSeparators;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -24,6 +25,8 @@ import java.io.IOException;
 
 import org.junit.Test;
 
+import com.pogofish.jadt.util.TestUtil;
+
 
 /**
  * Test that the FileTargeFacotry 
@@ -48,6 +51,26 @@ public class FileSinkFactoryTest {
         }
     }
 
+    /**
+     * Test that exists and delete work on real files
+     */
+    @Test
+    public void testExistsAndDelete() throws IOException {
+        final File tempDir = TestUtil.createTmpDir();
+        try {
+            final FileSinkFactory factory = new FileSinkFactory(tempDir.getAbsolutePath());
+            assertFalse(factory.exists("bar.baz.Blah"));
+            factory.createSink("bar.baz.Blah").close();
+            assertTrue(factory.exists("bar.baz.Blah"));
+            factory.delete("bar.baz.Blah");
+            assertFalse(factory.exists("bar.baz.Blah"));
+            // deleting something that isn't there is fine
+            factory.delete("bar.baz.Blah");
+        } finally {
+            TestUtil.deleteRecursively(tempDir);
+        }
+    }
+
     /**
      * Make sure that the factory translates base directory without trailing slash properly
      */
@@ -16,6 +16,7 @@ limitations under the License.
 package com.pogofish.jadt.sink;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
@@ -28,6 +29,8 @@ import java.io.OutputStreamWriter;
 
 import org.junit.Test;
 
+import com.pogofish.jadt.util.TestUtil;
+
 
 /**
  * Test the file sink.  That means writing real files to the real file system
@@ -60,6 +63,34 @@ public class FileSinkTest {
         }
     }
     
+    /**
+     * Test that appending to a FileSink ends up in the file along with anything written
+     */
+    @Test
+    public void testAppend() throws IOException {
+        final File temp = File.createTempFile("testFactory", "java");
+        try {
+            final FileSink sink = new FileSink(temp.getAbsolutePath());
+            try {
+                sink.write("hello");
+                sink.append(' ').append("big world", 4, 9).append("!");
+            } finally {
+                sink.close();
+            }
+            
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(temp), "UTF-8"));
+            try {
+                assertEquals("hello world!", reader.readLine());
+            } finally {
+                reader.close();
+            }
+        } finally {
+            if (temp.exists()) {
+                temp.delete();
+            }
+        }
+    }
+    
     /**
      * Test that when a sink factory mentions a file that does exist it gets clobbered properly
      * @throws IOException
@@ -92,4 +123,86 @@ public class FileSinkTest {
         }
     }
     
+    /**
+     * Test that a write-if-changed sink creates missing files, leaves identical files alone, and rewrites changed files
+     */
+    @Test
+    public void testWriteIfChanged() throws IOException {
+        final File tmpDir = TestUtil.createTmpDir();
+        try {
+            final File file = new File(tmpDir, "some/dir/Foo.java");
+            final WriteCounts counts = new WriteCounts();
+            
+            writeSink(file, counts, "hello \u00e9");
+            assertEquals("hello \u00e9", readFile(file));
+            assertEquals(1, counts.getWritten());
+            assertEquals(0, counts.getSkipped());
+            
+            // make the timestamp distinguishable from a rewrite
+            file.setLastModified(10000);
+            writeSink(file, counts, "hello \u00e9");
+            assertEquals(10000, file.lastModified());
+            assertEquals(1, counts.getWritten());
+            assertEquals(1, counts.getSkipped());
+            
+            // same length, different content
+            writeSink(file, counts, "jello \u00e9");
+            assertEquals("jello \u00e9", readFile(file));
+            assertFalse(10000 == file.lastModified());
+            assertEquals(2, counts.getWritten());
+            assertEquals(1, counts.getSkipped());
+            assertEquals("2 file(s) written, 1 file(s) unchanged", counts.toString());
+        } finally {
+            TestUtil.deleteRecursively(tmpDir);
+        }
+    }
+    
+    /**
+     * Test that many small writes adding up to more than the initial encoding buffer, including multi-byte characters,
+     * come out intact and that a following smaller file doesn't pick up leftovers from the reused buffer
+     */
+    @Test
+    public void testLargeOutput() throws IOException {
+        final File tmpDir = TestUtil.createTmpDir();
+        try {
+            final File big = new File(tmpDir, "Big.java");
+            final FileSink sink = new FileSink(big.getAbsolutePath());
+            final StringBuilder expected = new StringBuilder();
+            try {
+                for (int i = 0; i < 20000; i++) {
+                    final String data = (i % 2 == 0) ? "a\u00e9" : "\u4e2d\ud834\udd1e";
+                    sink.write(data);
+                    expected.append(data);
+                }
+            } finally {
+                sink.close();
+            }
+            assertEquals(expected.toString(), readFile(big));
+            
+            final File small = new File(tmpDir, "Small.java");
+            writeSink(small, new WriteCounts(), "small");
+            assertEquals("small", readFile(small));
+            assertEquals(5, small.length());
+        } finally {
+            TestUtil.deleteRecursively(tmpDir);
+        }
+    }
+    
+    private void writeSink(File file, WriteCounts counts, String contents) {
+        final FileSink sink = new FileSink(file.getAbsolutePath(), counts);
+        try {
+            sink.write(contents);
+        } finally {
+            sink.close();
+        }
+    }
+    
+    private String readFile(File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            return reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
 }
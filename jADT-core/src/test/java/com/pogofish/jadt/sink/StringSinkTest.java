@@ -41,6 +41,21 @@ public class StringSinkTest {
         assertEquals("world", sink.result());
     }
     
+    /**
+     * Test that a StringSink can be appended to like any other Appendable
+     */
+    @Test
+    public void testAppend() {
+        final StringSink sink = new StringSink("test");
+        try {
+            sink.write("hello");
+            sink.append(' ').append("big world", 4, 9).append("!");
+        } finally {
+            sink.close();
+        }
+        assertEquals("hello world!", sink.result());
+    }
+    
     /**
      * Test that a StringSink throws an exception if not closed before fetching its result
      */
@@ -29,10 +29,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.Test;
 
 import com.pogofish.jadt.util.TestUtil;
+import com.pogofish.jadt.util.Util;
 
 
 /**
@@ -69,7 +71,7 @@ public class FileSourceFactoryTest {
             }
             
             final SourceFactory factory = new FileSourceFactory();
-            final List<? extends Source> sources = factory.createSources(temp.getAbsolutePath());
+            final List<Source> sources = toList(factory.createSources(temp.getAbsolutePath()));
             assertEquals(1, sources.size());
             final Source source = sources.get(0);
             final BufferedReader reader = source.createReader();
@@ -93,7 +95,7 @@ public class FileSourceFactoryTest {
         temp.delete();
         
         final SourceFactory factory = new FileSourceFactory();
-        final List<? extends Source> sources = factory.createSources(temp.getAbsolutePath());
+        final List<Source> sources = toList(factory.createSources(temp.getAbsolutePath()));
         final Source source = sources.get(0);
         try {
             final BufferedReader reader = source.createReader();
@@ -123,7 +125,7 @@ public class FileSourceFactoryTest {
                 }
                 
                 final SourceFactory factory = new FileSourceFactory();
-                final List<? extends Source> sources = factory.createSources(tempDir.getAbsolutePath());
+                final List<Source> sources = toList(factory.createSources(tempDir.getAbsolutePath()));
                 assertEquals(5, sources.size());
                 
                 // sort them so that we look at them in 0...4 order
@@ -143,6 +145,74 @@ public class FileSourceFactoryTest {
         }      
     }
 
+    /**
+     * Test recursive discovery with includes and excludes, both with and without concurrent directory listing. Results should
+     * be in a predictable order regardless
+     */
+    @Test
+    public void testRecursive() throws IOException {
+        final File tempDir = TestUtil.createTmpDir();
+        try {
+            final File a = new File(tempDir, "a");
+            final File ab = new File(a, "b");
+            final File generated = new File(tempDir, "generated");
+            final File nested = new File(generated, "nested");
+            ab.mkdirs();
+            nested.mkdirs();
+            createTempFile(tempDir, 0);
+            createTempFile(a, 1);
+            createTempFile(ab, 2);
+            createTempFile(ab, 3);
+            createTempFile(nested, 4);
+            createFile(new File(ab, "notes.txt"), "not a source");
+            createFile(new File(a, "skip.jadt"), "excluded");
+            
+            // the default factory doesn't recurse
+            final List<Source> flat = toList(new FileSourceFactory().createSources(tempDir.getAbsolutePath()));
+            assertEquals(1, flat.size());
+            checkSource(0, tempDir, flat.get(0));
+            
+            final List<String> includes = Util.list(FileSourceFactory.RECURSIVE_INCLUDE);
+            final List<String> excludes = Util.list("generated/", "**/skip.jadt");
+            final ExecutorService executor = Util.daemonPool("FileSourceFactoryTest", 3);
+            try {
+                for (ExecutorService exec : Util.list(null, executor)) {
+                    final Iterable<? extends Source> iterable = new FileSourceFactory(includes, excludes, exec).createSources(tempDir.getAbsolutePath());
+                    // iterate twice to make sure each iteration does a fresh walk
+                    for (int iteration = 0; iteration < 2; iteration++) {
+                        final List<Source> sources = toList(iterable);
+                        assertEquals(4, sources.size());
+                        checkSource(0, tempDir, sources.get(0));
+                        checkSource(1, a, sources.get(1));
+                        checkSource(2, ab, sources.get(2));
+                        checkSource(3, ab, sources.get(3));
+                    }
+                }
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            TestUtil.deleteRecursively(tempDir);
+        }
+    }
+    
+    private List<Source> toList(Iterable<? extends Source> iterable) {
+        final List<Source> sources = new ArrayList<Source>();
+        for (Source source : iterable) {
+            sources.add(source);
+        }
+        return sources;
+    }
+    
+    private void createFile(File file, String contents) throws IOException {
+        final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
     private void checkSource(int i, File parent, Source source) throws IOException {
         final BufferedReader reader = source.createReader();
         try {
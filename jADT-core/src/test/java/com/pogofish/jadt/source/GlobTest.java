@@ -0,0 +1,101 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Test the Glob path matcher
+ */
+public class GlobTest {
+    /**
+     * Simple patterns only match within a single segment
+     */
+    @Test
+    public void testSimple() {
+        final Glob glob = new Glob("*.jadt");
+        assertTrue(glob.matches("foo.jadt"));
+        assertTrue(glob.matches(".jadt"));
+        assertFalse(glob.matches("foo.jadtx"));
+        assertFalse(glob.matches("foo/bar.jadt"));
+        
+        final Glob question = new Glob("fo?.jadt");
+        assertTrue(question.matches("foo.jadt"));
+        assertFalse(question.matches("fo.jadt"));
+        
+        // regex characters are literal
+        final Glob literal = new Glob("a+b(c).jadt");
+        assertTrue(literal.matches("a+b(c).jadt"));
+        assertFalse(literal.matches("aab(c).jadt"));
+        assertEquals("a+b(c).jadt", literal.toString());
+    }
+    
+    /**
+     * ** matches any number of segments
+     */
+    @Test
+    public void testAnySegments() {
+        final Glob glob = new Glob("**/*.jadt");
+        assertTrue(glob.matches("foo.jadt"));
+        assertTrue(glob.matches("a/foo.jadt"));
+        assertTrue(glob.matches("a/b/c/foo.jadt"));
+        assertFalse(glob.matches("a/b/c/foo.java"));
+        
+        final Glob middle = new Glob("src/**/test/*.jadt");
+        assertTrue(middle.matches("src/test/foo.jadt"));
+        assertTrue(middle.matches("src/a/b/test/foo.jadt"));
+        assertFalse(middle.matches("src/a/b/foo.jadt"));
+        assertFalse(middle.matches("other/test/foo.jadt"));
+        
+        // trailing slash and leading slash are normalized
+        final Glob dir = new Glob("/generated/");
+        assertEquals("generated/**", dir.toString());
+        assertTrue(dir.matches("generated/foo.jadt"));
+        assertTrue(dir.matches("generated/a/foo.jadt"));
+        assertFalse(dir.matches("other/foo.jadt"));
+        
+        // backslashes are treated as separators
+        assertTrue(new Glob("a\\*.jadt").matches("a/b.jadt"));
+    }
+    
+    /**
+     * Make sure directory pruning questions give the right answers
+     */
+    @Test
+    public void testDirectories() {
+        final Glob flat = new Glob("*.jadt");
+        assertTrue(flat.couldMatchUnder(""));
+        assertFalse(flat.couldMatchUnder("a"));
+        
+        final Glob deep = new Glob("src/**/*.jadt");
+        assertTrue(deep.couldMatchUnder(""));
+        assertTrue(deep.couldMatchUnder("src"));
+        assertTrue(deep.couldMatchUnder("src/a/b"));
+        assertFalse(deep.couldMatchUnder("other"));
+        
+        final Glob generated = new Glob("**/generated/**");
+        assertTrue(generated.matchesEverythingUnder("generated"));
+        assertTrue(generated.matchesEverythingUnder("a/b/generated"));
+        assertTrue(generated.matchesEverythingUnder("a/generated/b"));
+        assertFalse(generated.matchesEverythingUnder("a/b"));
+        assertFalse(generated.matchesEverythingUnder(""));
+        assertFalse(new Glob("**/*.jadt").matchesEverythingUnder("a"));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+import org.junit.Test;
+
+/**
+ * Make sure MappedFileSource reads both small (read) and large (mapped) files correctly
+ */
+public class MappedFileSourceTest {
+    
+    @Test
+    public void testSmallFile() throws IOException {
+        check("hello\nw\u00f6rld");
+    }
+    
+    @Test
+    public void testLargeFile() throws IOException {
+        final StringBuilder builder = new StringBuilder();
+        int line = 0;
+        while (builder.length() < MappedFileSource.MAP_THRESHOLD * 2) {
+            builder.append("line ").append(line++).append(" \u00e9\u4e2d\n");
+        }
+        check(builder.toString());
+    }
+    
+    /**
+     * Write the content to a file then make sure both the CharBuffer and the Reader see it, more than once
+     */
+    private void check(String content) throws IOException {
+        final File file = File.createTempFile("testMapped", "jadt");
+        try {
+            final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+                writer.write(content);
+            } finally {
+                writer.close();
+            }
+            
+            final MappedFileSource source = new MappedFileSource(file);
+            assertEquals(file.getAbsolutePath(), source.getSrcInfo());
+            
+            final CharBuffer buffer = source.getCharBuffer();
+            assertTrue(buffer.isReadOnly());
+            assertEquals(content, buffer.toString());
+            // consuming one buffer doesn't affect the next one
+            buffer.position(buffer.limit());
+            assertEquals(content, source.getCharBuffer().toString());
+            
+            assertEquals(content, readAll(source.createReader()));
+            assertEquals(content, readAll(source.createReader()));
+        } finally {
+            file.delete();
+        }
+    }
+    
+    private static String readAll(BufferedReader reader) throws IOException {
+        try {
+            final StringBuilder builder = new StringBuilder();
+            final char[] buffer = new char[1000];
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                builder.append(buffer, 0, read);
+            }
+            return builder.toString();
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -43,6 +43,19 @@ public class TestUtil {
         return tmp;
     }
 
+    /**
+     * Delete a file or a directory along with everything in it
+     */
+    public static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+
     public static void assertEqualsBarringFileSeparators(String expected, String actual) {
         assertEquals(sanitize(expected), sanitize(actual));
     }
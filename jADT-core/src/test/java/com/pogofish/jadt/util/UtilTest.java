@@ -17,11 +17,16 @@ package com.pogofish.jadt.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
 
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.junit.Test;
 
@@ -63,4 +68,48 @@ public class UtilTest {
         set.add("world");
         assertEquals(set, Util.set("hello", "world"));
     }
+    
+    /**
+     * Do submit and get return results and unwrap exceptions the same way execute does?
+     */
+    @Test
+    public void testSubmit() {
+        final ExecutorService executor = Util.daemonPool("UtilTest", 1);
+        try {
+            assertEquals("hello", Util.get(Util.submit(executor, new ExceptionAction<String>() {
+                @Override
+                public String doAction() throws Throwable {
+                    return "hello";
+                }
+            })));
+
+            final RuntimeException runtimeException = new RuntimeException("oops");
+            try {
+                Util.get(Util.submit(executor, new ExceptionAction<String>() {
+                    @Override
+                    public String doAction() throws Throwable {
+                        throw runtimeException;
+                    }
+                }));
+                fail("no exception");
+            } catch (RuntimeException e) {
+                assertSame(runtimeException, e);
+            }
+            
+            final IOException ioException = new IOException("oops");
+            try {
+                Util.get(Util.submit(executor, new ExceptionAction<String>() {
+                    @Override
+                    public String doAction() throws Throwable {
+                        throw ioException;
+                    }
+                }));
+                fail("no exception");
+            } catch (RuntimeException e) {
+                assertSame(ioException, e.getCause());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
@@ -0,0 +1,82 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.gradle;
+
+import org.gradle.api.Action;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.Transformer;
+import org.gradle.api.file.ConfigurableFileTree;
+import org.gradle.api.file.Directory;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+
+/**
+ * Gradle plugin for doing jADT code generation during a Gradle build.  It adds a task named TASK_NAME that generates 
+ * Java from the .jadt files under DEFAULT_SRC_DIR into DEFAULT_DEST_DIR in the build directory.  When the java plugin
+ * is applied the generated sources are compiled with the main source set.
+ */
+public class JADTPlugin implements Plugin<Project> {
+    /**
+     * Name of the task that generates Java
+     */
+    public static final String TASK_NAME = "generateJadt";
+    /**
+     * Directory of the project the .jadt files are found in by default
+     */
+    public static final String DEFAULT_SRC_DIR = "src/main/jadt";
+    /**
+     * Directory of the build directory the Java is generated in by default
+     */
+    public static final String DEFAULT_DEST_DIR = "generated-sources/jadt";
+
+    @Override
+    public void apply(final Project project) {
+        final TaskProvider<JADTTask> generate = project.getTasks().register(TASK_NAME, JADTTask.class, new Action<JADTTask>() {
+            @Override
+            public void execute(JADTTask task) {
+                task.setGroup("build");
+                task.setDescription("Generates Java from jADT sources.");
+                task.getSource().from(project.fileTree(DEFAULT_SRC_DIR, new Action<ConfigurableFileTree>() {
+                    @Override
+                    public void execute(ConfigurableFileTree tree) {
+                        tree.include("**/*.jadt");
+                    }
+                }));
+                task.getOutputDir().convention(project.getLayout().getBuildDirectory().dir(DEFAULT_DEST_DIR));
+                task.getThreads().convention(1);
+            }
+        });
+        
+        project.getPlugins().withType(JavaPlugin.class, new Action<JavaPlugin>() {
+            @Override
+            public void execute(JavaPlugin plugin) {
+                // the provider carries the task dependency, so compiling generates first
+                final Provider<Directory> outputDir = generate.flatMap(new Transformer<Provider<Directory>, JADTTask>() {
+                    @Override
+                    public Provider<Directory> transform(JADTTask task) {
+                        return task.getOutputDir();
+                    }
+                });
+                final SourceSetContainer sourceSets = project.getExtensions().getByType(SourceSetContainer.class);
+                sourceSets.getByName(SourceSet.MAIN_SOURCE_SET_NAME).getJava().srcDir(outputDir);
+            }
+        });
+    }
+}
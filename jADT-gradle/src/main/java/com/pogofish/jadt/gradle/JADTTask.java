@@ -0,0 +1,103 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.gradle;
+
+import javax.inject.Inject;
+
+import org.gradle.api.Action;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DeleteSpec;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.FileType;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SkipWhenEmpty;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.FileChange;
+import org.gradle.work.InputChanges;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Task that generates Java from .jadt files.  Gradle skips it when the sources and output haven't changed and can take
+ * the output from the build cache.  When Gradle can say which sources changed since the last run, the output is kept and 
+ * the manifest jADT keeps in it means only the changed sources are parsed and only their output is replaced.  Otherwise 
+ * the output is thrown away and everything is generated.  Generation runs in a worker so that it can run in parallel 
+ * with other work.
+ */
+@CacheableTask
+public abstract class JADTTask extends DefaultTask {
+    /**
+     * The .jadt files to be parsed.  Skipping when empty also makes Gradle track their changes
+     */
+    @InputFiles
+    @SkipWhenEmpty
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getSource();
+    
+    /**
+     * The base directory where files will be output
+     */
+    @OutputDirectory
+    public abstract DirectoryProperty getOutputDir();
+    
+    /**
+     * Number of threads used to parse, check, and emit
+     */
+    @Input
+    public abstract Property<Integer> getThreads();
+    
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+    
+    @Inject
+    protected abstract FileSystemOperations getFileSystemOperations();
+
+    @TaskAction
+    public void generate(InputChanges inputChanges) {
+        if (inputChanges.isIncremental()) {
+            for (FileChange change : inputChanges.getFileChanges(getSource())) {
+                if (change.getFileType() == FileType.FILE) {
+                    getLogger().info("jADT source " + change.getNormalizedPath() + " " + change.getChangeType().toString().toLowerCase());
+                }
+            }
+        } else {
+            // the output may have been changed by something else, so none of it can be trusted 
+            getLogger().info("Generating all jADT sources.");
+            getFileSystemOperations().delete(new Action<DeleteSpec>() {
+                @Override
+                public void execute(DeleteSpec spec) {
+                    spec.delete(getOutputDir());
+                }
+            });
+        }
+        
+        getWorkerExecutor().noIsolation().submit(JADTWorkAction.class, new Action<JADTWorkParameters>() {
+            @Override
+            public void execute(JADTWorkParameters parameters) {
+                parameters.getSource().from(getSource());
+                parameters.getOutputDir().set(getOutputDir());
+                parameters.getThreads().set(getThreads());
+            }
+        });
+    }
+}
@@ -0,0 +1,49 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.gradle;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.gradle.api.GradleException;
+import org.gradle.workers.WorkAction;
+
+import com.pogofish.jadt.JADT;
+
+/**
+ * Runs a standard jADT driver over all of the sources of a JADTTask.  All of the sources are needed even when only 
+ * some of them changed, because they are checked against each other and because the driver deletes the output of 
+ * sources that aren't there anymore.  The driver's manifest makes sure that only the changed sources are parsed.
+ */
+public abstract class JADTWorkAction implements WorkAction<JADTWorkParameters> {
+    @Override
+    public void execute() {
+        final JADTWorkParameters parameters = getParameters();
+        final List<String> srcPaths = new ArrayList<String>();
+        for (File file : parameters.getSource().getFiles()) {
+            srcPaths.add(file.getAbsolutePath());
+        }
+        // so that output and errors don't depend on the order Gradle found the files in
+        Collections.sort(srcPaths);
+        try {
+            JADT.standardConfigDriver(parameters.getThreads().get()).parseAndEmit(srcPaths, parameters.getOutputDir().get().getAsFile().getAbsolutePath());
+        } catch (RuntimeException e) {
+            throw new GradleException("Error in processing jADT", e);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.gradle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.gradle.testkit.runner.TaskOutcome;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Run the plugin in real builds with the Gradle TestKit
+ */
+public class JADTPluginTest {
+    private static final String TASK = ":" + JADTPlugin.TASK_NAME;
+    
+    private File projectDir;
+    private File srcDir;
+    private File destDir;
+    
+    @Before
+    public void setUp() throws IOException {
+        projectDir = File.createTempFile("jadt", "gradle");
+        projectDir.delete();
+        srcDir = new File(projectDir, JADTPlugin.DEFAULT_SRC_DIR);
+        srcDir.mkdirs();
+        destDir = new File(projectDir, "build/" + JADTPlugin.DEFAULT_DEST_DIR);
+        writeFile(new File(projectDir, "settings.gradle"), "rootProject.name = 'sample'\n"
+                + "buildCache { local { directory = new File(rootDir, 'build-cache') } }\n");
+        writeFile(new File(projectDir, "build.gradle"), "plugins {\n  id 'java'\n  id 'com.pogofish.jadt'\n}\n");
+    }
+    
+    @After
+    public void tearDown() {
+        deleteRecursively(projectDir);
+    }
+    
+    /**
+     * Generated sources are compiled, nothing runs when nothing changed, and only what changed is generated again
+     */
+    @Test
+    public void testIncremental() throws IOException {
+        final File srcA = new File(srcDir, "A.jadt");
+        writeFile(srcA, "package sample\nFoo = Foo");
+        writeFile(new File(srcDir, "sub/B.jadt"), "package sample\nBar = Bar");
+        writeFile(new File(projectDir, "src/main/java/sample/Main.java"), "package sample;\npublic class Main {\n  Foo foo = Foo._Foo();\n  Bar bar = Bar._Bar();\n}\n");
+        final File foo = new File(destDir, "sample/Foo.java");
+        final File bar = new File(destDir, "sample/Bar.java");
+        final File baz = new File(destDir, "sample/Baz.java");
+        
+        BuildResult result = run("compileJava");
+        assertEquals(TaskOutcome.SUCCESS, result.task(TASK).getOutcome());
+        assertEquals(TaskOutcome.SUCCESS, result.task(":compileJava").getOutcome());
+        assertTrue(new File(projectDir, "build/classes/java/main/sample/Foo.class").exists());
+        
+        result = run(JADTPlugin.TASK_NAME);
+        assertEquals(TaskOutcome.UP_TO_DATE, result.task(TASK).getOutcome());
+        
+        final long barModified = bar.lastModified();
+        writeFile(srcA, "package sample\nFoo = Foo\nBaz = Baz");
+        result = run(JADTPlugin.TASK_NAME, "--info");
+        assertEquals(TaskOutcome.SUCCESS, result.task(TASK).getOutcome());
+        assertTrue(result.getOutput(), result.getOutput().contains("jADT source A.jadt modified"));
+        assertTrue(foo.exists());
+        assertTrue(baz.exists());
+        assertEquals("B.jadt was generated again", barModified, bar.lastModified());
+        
+        new File(srcDir, "sub/B.jadt").delete();
+        result = run(JADTPlugin.TASK_NAME);
+        assertEquals(TaskOutcome.SUCCESS, result.task(TASK).getOutcome());
+        assertFalse(bar.exists());
+        assertTrue(foo.exists());
+    }
+    
+    /**
+     * Output comes from the build cache after it's been removed
+     */
+    @Test
+    public void testBuildCache() throws IOException {
+        writeFile(new File(srcDir, "A.jadt"), "package sample\nFoo = Foo");
+        final File foo = new File(destDir, "sample/Foo.java");
+        
+        BuildResult result = run(JADTPlugin.TASK_NAME, "--build-cache");
+        assertEquals(TaskOutcome.SUCCESS, result.task(TASK).getOutcome());
+        
+        deleteRecursively(destDir);
+        result = run(JADTPlugin.TASK_NAME, "--build-cache");
+        assertEquals(TaskOutcome.FROM_CACHE, result.task(TASK).getOutcome());
+        assertTrue(foo.exists());
+    }
+    
+    /**
+     * Errors in the sources fail the build
+     */
+    @Test
+    public void testErrors() throws IOException {
+        writeFile(new File(srcDir, "A.jadt"), "Foo = Foo | Foo");
+        
+        final BuildResult result = GradleRunner.create().withProjectDir(projectDir).withPluginClasspath().withArguments(JADTPlugin.TASK_NAME).buildAndFail();
+        assertEquals(TaskOutcome.FAILED, result.task(TASK).getOutcome());
+        assertTrue(result.getOutput(), result.getOutput().contains("Error in processing jADT"));
+    }
+    
+    private BuildResult run(String... arguments) {
+        return GradleRunner.create().withProjectDir(projectDir).withPluginClasspath().withArguments(arguments).build();
+    }
+    
+    private static void writeFile(File file, String contents) throws IOException {
+        file.getParentFile().mkdirs();
+        final OutputStream stream = new FileOutputStream(file);
+        try {
+            stream.write(contents.getBytes("UTF-8"));
+        } finally {
+            stream.close();
+        }
+    }
+    
+    private static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,412 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.lsp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.pogofish.jadt.Version;
+import com.pogofish.jadt.checker.Checker;
+import com.pogofish.jadt.checker.StandardChecker;
+import com.pogofish.jadt.checker.SymbolIndex;
+import com.pogofish.jadt.errors.SemanticError;
+import com.pogofish.jadt.errors.SemanticError.ConstructorDataTypeConflict;
+import com.pogofish.jadt.errors.SemanticError.DuplicateArgName;
+import com.pogofish.jadt.errors.SemanticError.DuplicateConstructor;
+import com.pogofish.jadt.errors.SemanticError.DuplicateDataType;
+import com.pogofish.jadt.errors.SemanticError.DuplicateDataTypeInSources;
+import com.pogofish.jadt.errors.SemanticError.DuplicateModifier;
+import com.pogofish.jadt.errors.SemanticError.UnresolvedType;
+import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.parser.IncrementalParser;
+import com.pogofish.jadt.parser.javacc.JavaCCParserImplFactory;
+import com.pogofish.jadt.printer.UserErrorPrinter;
+
+/**
+ * Language server that gives editors jADT syntax and semantic errors as diagnostics while .jadt files are edited.  It 
+ * speaks the language server protocol over a MessageConnection, normally stdin and stdout.
+ * 
+ * Open documents are kept in memory along with their last parse.  Edits are applied as they arrive but a document is 
+ * only reparsed and checked once there are no more messages waiting, so a burst of keystrokes costs one parse, and then 
+ * only the data types that were edited are reparsed.
+ * 
+ * Open documents are also checked against each other for data types that more than one of them defines.  Editing one 
+ * document can add or clear such errors in others, which then get new diagnostics too.
+ * 
+ * jADT errors don't carry columns, and semantic errors don't carry positions at all, so syntax errors cover the line they 
+ * were found on and semantic errors are placed by looking for the names they mention.
+ */
+public class JADTLanguageServer {
+    private static final Logger logger = Logger.getLogger(JADTLanguageServer.class.toString());
+    
+    static final int PARSE_ERROR = -32700;
+    static final int INVALID_REQUEST = -32600;
+    static final int METHOD_NOT_FOUND = -32601;
+    static final int INVALID_PARAMS = -32602;
+    
+    /**
+     * Incremental document sync in the protocol
+     */
+    private static final int SYNC_INCREMENTAL = 2;
+    private static final int SEVERITY_ERROR = 1;
+
+    private final MessageConnection connection;
+    private final IncrementalParser parser;
+    private final Checker checker;
+    /**
+     * The data types of every open document as of its last analysis
+     */
+    private final SymbolIndex index = new SymbolIndex();
+    /**
+     * Open documents by uri, sorted so diagnostics are published in a predictable order
+     */
+    final Map<String, TextDocument> documents = new TreeMap<String, TextDocument>();
+    private boolean shutdown = false;
+    private boolean exited = false;
+
+    /**
+     * Serve over stdin and stdout until the client says to exit
+     */
+    public static void main(String[] args) throws IOException {
+        System.exit(new JADTLanguageServer(new MessageConnection(System.in, System.out)).run());
+    }
+    
+    /**
+     * A server using the standard parser and checker
+     */
+    public JADTLanguageServer(MessageConnection connection) {
+        this(connection, new IncrementalParser(new JavaCCParserImplFactory()), new StandardChecker());
+    }
+    
+    public JADTLanguageServer(MessageConnection connection, IncrementalParser parser, Checker checker) {
+        super();
+        this.connection = connection;
+        this.parser = parser;
+        this.checker = checker;
+    }
+    
+    /**
+     * Handle messages until the client says to exit or the input ends
+     * 
+     * @return the exit code the protocol asks for, 0 if the client asked to shut down first and 1 otherwise
+     * @throws IOException if the connection fails
+     */
+    public int run() throws IOException {
+        while (!exited) {
+            final String message = connection.read();
+            if (message == null) {
+                logger.info("Input ended without an exit notification.");
+                break;
+            }
+            handle(message);
+            if (!exited && !connection.ready()) {
+                publishDiagnostics();
+            }
+        }
+        return shutdown ? 0 : 1;
+    }
+    
+    private void handle(String body) throws IOException {
+        final Object parsed;
+        try {
+            parsed = Json.parse(body);
+        } catch (IllegalArgumentException e) {
+            respondError(null, PARSE_ERROR, e.getMessage());
+            return;
+        }
+        if (!(parsed instanceof Map)) {
+            respondError(null, INVALID_REQUEST, "Message is not an object");
+            return;
+        }
+        final Map<?, ?> message = (Map<?, ?>)parsed;
+        final Object id = message.get("id");
+        final Object method = message.get("method");
+        if (method == null) {
+            // a response, this server never sends requests
+            return;
+        }
+        try {
+            dispatch(id, method.toString(), (Map<?, ?>)message.get("params"));
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Could not handle " + method + ".", e);
+            if (id != null) {
+                respondError(id, INVALID_PARAMS, String.valueOf(e.getMessage()));
+            }
+        }
+    }
+    
+    private void dispatch(Object id, String method, Map<?, ?> params) throws IOException {
+        if (shutdown && !"exit".equals(method)) {
+            if (id != null) {
+                respondError(id, INVALID_REQUEST, "Server is shut down");
+            }
+            return;
+        }
+        if ("initialize".equals(method)) {
+            final Map<String, Object> sync = new LinkedHashMap<String, Object>();
+            sync.put("openClose", Boolean.TRUE);
+            sync.put("change", SYNC_INCREMENTAL);
+            final Map<String, Object> capabilities = new LinkedHashMap<String, Object>();
+            capabilities.put("textDocumentSync", sync);
+            final Map<String, Object> serverInfo = new LinkedHashMap<String, Object>();
+            serverInfo.put("name", "jADT");
+            serverInfo.put("version", new Version().getVersion());
+            final Map<String, Object> result = new LinkedHashMap<String, Object>();
+            result.put("capabilities", capabilities);
+            result.put("serverInfo", serverInfo);
+            respond(id, result);
+        } else if ("shutdown".equals(method)) {
+            shutdown = true;
+            respond(id, null);
+        } else if ("exit".equals(method)) {
+            exited = true;
+        } else if ("textDocument/didOpen".equals(method)) {
+            final Map<?, ?> textDocument = (Map<?, ?>)params.get("textDocument");
+            final String uri = (String)textDocument.get("uri");
+            documents.put(uri, new TextDocument(uri, intValue(textDocument.get("version")), (String)textDocument.get("text")));
+        } else if ("textDocument/didChange".equals(method)) {
+            final Map<?, ?> textDocument = (Map<?, ?>)params.get("textDocument");
+            final TextDocument document = documents.get(textDocument.get("uri"));
+            if (document == null) {
+                logger.warning("Change to " + textDocument.get("uri") + " which isn't open.");
+                return;
+            }
+            final int version = intValue(textDocument.get("version"));
+            for (Object change : (List<?>)params.get("contentChanges")) {
+                final Map<?, ?> contentChange = (Map<?, ?>)change;
+                final String text = (String)contentChange.get("text");
+                final Map<?, ?> range = (Map<?, ?>)contentChange.get("range");
+                if (range == null) {
+                    document.change(version, text);
+                } else {
+                    final Map<?, ?> start = (Map<?, ?>)range.get("start");
+                    final Map<?, ?> end = (Map<?, ?>)range.get("end");
+                    document.change(version, intValue(start.get("line")), intValue(start.get("character")), intValue(end.get("line")), intValue(end.get("character")), text);
+                }
+            }
+        } else if ("textDocument/didClose".equals(method)) {
+            final Object uri = ((Map<?, ?>)params.get("textDocument")).get("uri");
+            if (documents.remove(uri) != null) {
+                index.remove(uri.toString());
+                publish(uri.toString(), null, new ArrayList<Object>());
+            }
+        } else if (id != null) {
+            respondError(id, METHOD_NOT_FOUND, "Unsupported method " + method);
+        }
+    }
+    
+    /**
+     * Analyze every document that has changed since it was last analyzed, then publish diagnostics for those documents and
+     * for any others whose errors across documents have changed
+     */
+    private void publishDiagnostics() throws IOException {
+        final Set<String> analyzed = new HashSet<String>();
+        for (TextDocument document : documents.values()) {
+            if (document.isDirty()) {
+                final long start = System.nanoTime();
+                analyze(document);
+                logger.fine("Analyzed " + document.uri + " in " + (System.nanoTime() - start) / 1000000 + " ms.");
+                analyzed.add(document.uri);
+            }
+        }
+        for (TextDocument document : documents.values()) {
+            final List<SemanticError> sourceErrors = index.check(document.uri);
+            if (analyzed.contains(document.uri) || !sourceErrors.equals(document.sourceErrors)) {
+                document.sourceErrors = sourceErrors;
+                publish(document.uri, document.getVersion(), diagnostics(document));
+            }
+        }
+    }
+    
+    /**
+     * Parse and check a document and record its data types in the index
+     */
+    void analyze(TextDocument document) {
+        document.parse = document.parse == null ? parser.parse(document.uri, document.getText()) : parser.reparse(document.parse, document.getText());
+        document.semanticErrors = checker.check(document.parse.result.doc);
+        index.update(document.uri, document.parse.result.doc);
+        document.dirty = false;
+    }
+    
+    /**
+     * Turn the errors found the last time a document was analyzed into diagnostics
+     */
+    List<Object> diagnostics(TextDocument document) {
+        final List<Object> diagnostics = new ArrayList<Object>();
+        for (SyntaxError error : document.parse.result.errors) {
+            final int line = Math.max(0, Math.min(error.line - 1, document.lineCount() - 1));
+            int start = document.offset(line, 0);
+            final int end = document.lineEnd(line);
+            while (start < end && Character.isWhitespace(document.getText().charAt(start))) {
+                start++;
+            }
+            diagnostics.add(diagnostic(document, start, end, UserErrorPrinter.print(error)));
+        }
+        final List<SemanticError> semanticErrors = new ArrayList<SemanticError>(document.semanticErrors);
+        semanticErrors.addAll(document.sourceErrors);
+        for (SemanticError error : semanticErrors) {
+            final int[] range = locate(document.getText(), error);
+            diagnostics.add(diagnostic(document, range[0], range[1], UserErrorPrinter.print(error)));
+        }
+        return diagnostics;
+    }
+    
+    /**
+     * Find the start and end offsets of the name a semantic error is about, as near as can be told from the text.  
+     * Duplicates are placed on the second occurrence.
+     */
+    static int[] locate(final String text, SemanticError error) {
+        return error.match(new SemanticError.MatchBlock<int[]>() {
+            @Override
+            public int[] _case(DuplicateDataType x) {
+                final Matcher matcher = dataTypePattern(x.dataTypeName).matcher(text);
+                int[] found = null;
+                while (matcher.find()) {
+                    found = new int[] {matcher.start(), matcher.end()};
+                }
+                return found == null ? new int[] {0, 0} : found;
+            }
+
+            @Override
+            public int[] _case(ConstructorDataTypeConflict x) {
+                return find(text, find(text, null, dataTypePattern(x.dataTypeName), 1), name(x.dataTypeName), 2);
+            }
+
+            @Override
+            public int[] _case(DuplicateConstructor x) {
+                return find(text, find(text, null, dataTypePattern(x.dataTypeName), 1), name(x.constructorName), x.dataTypeName.equals(x.constructorName) ? 3 : 2);
+            }
+
+            @Override
+            public int[] _case(DuplicateArgName x) {
+                final int[] dataType = find(text, null, dataTypePattern(x.dataTypeName), 1);
+                return find(text, find(text, dataType, name(x.constructorName), x.dataTypeName.equals(x.constructorName) ? 2 : 1), name(x.argName), 2);
+            }
+
+            @Override
+            public int[] _case(DuplicateModifier x) {
+                final int[] dataType = find(text, null, dataTypePattern(x.dataTypeName), 1);
+                return find(text, find(text, dataType, name(x.constructorName), x.dataTypeName.equals(x.constructorName) ? 2 : 1), name(x.argName), 1);
+            }
+
+            @Override
+            public int[] _case(DuplicateDataTypeInSources x) {
+                final String name = x.dataTypeName.substring(x.dataTypeName.lastIndexOf('.') + 1);
+                return find(text, null, dataTypePattern(name), 1);
+            }
+
+            @Override
+            public int[] _case(UnresolvedType x) {
+                return find(text, find(text, null, dataTypePattern(x.dataTypeName), 1), name(x.typeName), 1);
+            }
+        });
+    }
+    
+    /**
+     * Find the nth match of a pattern that starts at or after the from range, or the from range if there isn't one
+     */
+    private static int[] find(String text, int[] from, Pattern pattern, int n) {
+        final Matcher matcher = pattern.matcher(text);
+        int start = from == null ? 0 : from[0];
+        int[] found = from == null ? new int[] {0, 0} : from;
+        for (int i = 0; i < n; i++) {
+            if (!matcher.find(start)) {
+                return found;
+            }
+            found = new int[] {matcher.start(), matcher.end()};
+            start = matcher.end();
+        }
+        return found;
+    }
+    
+    private static Pattern name(String name) {
+        return Pattern.compile("(?<![\\w$])" + Pattern.quote(name) + "(?![\\w$])");
+    }
+    
+    /**
+     * A data type's name where it is defined, i.e. followed by its type parameters, extends, implements, or =
+     */
+    private static Pattern dataTypePattern(String name) {
+        return Pattern.compile("(?<![\\w$])" + Pattern.quote(name) + "(?=\\s*(<[^=]*>\\s*)?(=|extends\\b|implements\\b))");
+    }
+
+    private static Map<String, Object> diagnostic(TextDocument document, int start, int end, String message) {
+        final Map<String, Object> range = new LinkedHashMap<String, Object>();
+        range.put("start", position(document, start));
+        range.put("end", position(document, end));
+        final Map<String, Object> diagnostic = new LinkedHashMap<String, Object>();
+        diagnostic.put("range", range);
+        diagnostic.put("severity", SEVERITY_ERROR);
+        diagnostic.put("source", "jADT");
+        diagnostic.put("message", message);
+        return diagnostic;
+    }
+    
+    private static Map<String, Object> position(TextDocument document, int offset) {
+        final int line = document.line(offset);
+        final Map<String, Object> position = new LinkedHashMap<String, Object>();
+        position.put("line", line);
+        position.put("character", offset - document.offset(line, 0));
+        return position;
+    }
+    
+    private void publish(String uri, Integer version, List<Object> diagnostics) throws IOException {
+        final Map<String, Object> params = new LinkedHashMap<String, Object>();
+        params.put("uri", uri);
+        if (version != null) {
+            params.put("version", version);
+        }
+        params.put("diagnostics", diagnostics);
+        final Map<String, Object> notification = new LinkedHashMap<String, Object>();
+        notification.put("jsonrpc", "2.0");
+        notification.put("method", "textDocument/publishDiagnostics");
+        notification.put("params", params);
+        connection.write(Json.write(notification));
+    }
+
+    private void respond(Object id, Object result) throws IOException {
+        final Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        response.put("result", result);
+        connection.write(Json.write(response));
+    }
+    
+    private void respondError(Object id, int code, String message) throws IOException {
+        final Map<String, Object> error = new LinkedHashMap<String, Object>();
+        error.put("code", code);
+        error.put("message", message);
+        final Map<String, Object> response = new LinkedHashMap<String, Object>();
+        response.put("jsonrpc", "2.0");
+        response.put("id", id);
+        response.put("error", error);
+        connection.write(Json.write(response));
+    }
+    
+    private static int intValue(Object number) {
+        return ((Number)number).intValue();
+    }
+}
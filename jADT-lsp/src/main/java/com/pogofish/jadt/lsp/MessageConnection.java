@@ -0,0 +1,120 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.lsp;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * The language server protocol's base layer: messages are UTF-8 JSON bodies, each preceded by headers giving their 
+ * Content-Length and an empty line.
+ */
+public class MessageConnection {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+    private static final String CONTENT_LENGTH = "content-length:";
+    
+    private final InputStream in;
+    private final OutputStream out;
+    
+    public MessageConnection(InputStream in, OutputStream out) {
+        super();
+        this.in = new BufferedInputStream(in);
+        this.out = out;
+    }
+    
+    /**
+     * Read the next message body
+     * 
+     * @return the body or null if the input has ended
+     * @throws IOException if the input can't be read or doesn't follow the protocol
+     */
+    public String read() throws IOException {
+        int length = -1;
+        while (true) {
+            final String header = readHeader();
+            if (header == null) {
+                if (length == -1) {
+                    return null;
+                }
+                throw new IOException("Input ended in the middle of headers");
+            }
+            if (header.length() == 0) {
+                if (length == -1) {
+                    throw new IOException("Message without a Content-Length header");
+                }
+                break;
+            }
+            if (header.toLowerCase().startsWith(CONTENT_LENGTH)) {
+                try {
+                    length = Integer.parseInt(header.substring(CONTENT_LENGTH.length()).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Bad header " + header);
+                }
+            }
+        }
+        final byte[] body = new byte[length];
+        int read = 0;
+        while (read < length) {
+            final int count = in.read(body, read, length - read);
+            if (count < 0) {
+                throw new IOException("Input ended in the middle of a message");
+            }
+            read += count;
+        }
+        return new String(body, UTF8);
+    }
+    
+    /**
+     * True if there is input waiting, i.e. reading won't block for long
+     */
+    public boolean ready() throws IOException {
+        return in.available() > 0;
+    }
+
+    /**
+     * Write a message body
+     */
+    public synchronized void write(String message) throws IOException {
+        final byte[] body = message.getBytes(UTF8);
+        out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(ASCII));
+        out.write(body);
+        out.flush();
+    }
+    
+    /**
+     * Read one header line without its line terminator, or null if the input ended before any of it
+     */
+    private String readHeader() throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            final int b = in.read();
+            if (b < 0) {
+                return line.size() == 0 ? null : new String(line.toByteArray(), ASCII);
+            }
+            if (b == '\n') {
+                final byte[] bytes = line.toByteArray();
+                final int length = bytes.length > 0 && bytes[bytes.length - 1] == '\r' ? bytes.length - 1 : bytes.length;
+                return new String(bytes, 0, length, ASCII);
+            }
+            line.write(b);
+        }
+    }
+}
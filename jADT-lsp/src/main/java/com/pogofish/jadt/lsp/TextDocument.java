@@ -0,0 +1,176 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.lsp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.pogofish.jadt.errors.SemanticError;
+import com.pogofish.jadt.parser.IncrementalParse;
+
+/**
+ * The text of an open document along with what was found the last time it was analyzed.  Positions are zero based lines 
+ * and UTF-16 characters within a line, as in the language server protocol, and \n, \r\n, and \r all end lines.
+ */
+public class TextDocument {
+    final String uri;
+    private int version;
+    private String text;
+    /**
+     * offsets of the start of each line, null until needed
+     */
+    private int[] lineStarts = null;
+    
+    /**
+     * The last parse, kept after the document changes so the next parse can reuse it.  Null until the first parse.
+     */
+    IncrementalParse parse = null;
+    /**
+     * The semantic errors from the last check
+     */
+    List<SemanticError> semanticErrors = null;
+    /**
+     * The errors for data types that other open documents define too, as of the last time they were published
+     */
+    List<SemanticError> sourceErrors = Collections.emptyList();
+    /**
+     * Whether the document has changed since it was last analyzed
+     */
+    boolean dirty = true;
+
+    public TextDocument(String uri, int version, String text) {
+        super();
+        this.uri = uri;
+        this.version = version;
+        this.text = text;
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Replace the whole text
+     */
+    public void change(int version, String text) {
+        this.version = version;
+        this.text = text;
+        changed();
+    }
+
+    /**
+     * Replace the text between two positions
+     */
+    public void change(int version, int startLine, int startCharacter, int endLine, int endCharacter, String newText) {
+        final int start = offset(startLine, startCharacter);
+        final int end = Math.max(start, offset(endLine, endCharacter));
+        this.version = version;
+        this.text = new StringBuilder(text.length() - (end - start) + newText.length()).append(text, 0, start).append(newText).append(text, end, text.length()).toString();
+        changed();
+    }
+    
+    /**
+     * Whether the document has changed since it was last analyzed
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+    
+    /**
+     * Offset into the text of a position.  Positions past the end of a line or of the document are clamped to the end.
+     */
+    public int offset(int line, int character) {
+        final int[] starts = lineStarts();
+        if (line < 0) {
+            return 0;
+        }
+        if (line >= starts.length) {
+            return text.length();
+        }
+        return Math.min(starts[line] + Math.max(character, 0), lineEnd(line));
+    }
+    
+    /**
+     * The line that contains an offset
+     */
+    public int line(int offset) {
+        final int[] starts = lineStarts();
+        int low = 0;
+        int high = starts.length - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (starts[mid] <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Number of lines, an empty document has 1
+     */
+    public int lineCount() {
+        return lineStarts().length;
+    }
+    
+    /**
+     * Offset of the end of a line, not counting its terminator
+     */
+    public int lineEnd(int line) {
+        final int[] starts = lineStarts();
+        if (line + 1 >= starts.length) {
+            return text.length();
+        }
+        int end = starts[line + 1];
+        if (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (end > starts[line] && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return end;
+    }
+    
+    private void changed() {
+        lineStarts = null;
+        dirty = true;
+    }
+    
+    private int[] lineStarts() {
+        if (lineStarts == null) {
+            final List<Integer> starts = new ArrayList<Integer>();
+            starts.add(0);
+            for (int i = 0; i < text.length(); i++) {
+                final char c = text.charAt(i);
+                if (c == '\n' || (c == '\r' && (i + 1 >= text.length() || text.charAt(i + 1) != '\n'))) {
+                    starts.add(i + 1);
+                }
+            }
+            lineStarts = new int[starts.size()];
+            for (int i = 0; i < lineStarts.length; i++) {
+                lineStarts[i] = starts.get(i);
+            }
+        }
+        return lineStarts;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.lsp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.pogofish.jadt.errors.SemanticError;
+
+/**
+ * Drive the language server the way an editor would, through a scripted client on the other end of a pair of pipes
+ */
+public class JADTLanguageServerTest {
+    /**
+     * A whole editing session: open a document with a semantic error, fix it, break the syntax, and shut down
+     */
+    @Test(timeout = 10000)
+    public void testSession() throws Exception {
+        final Client client = new Client();
+        
+        final Map<?, ?> initialized = client.request(1, "initialize", "{\"processId\":null,\"rootUri\":null,\"capabilities\":{}}");
+        assertEquals(1L, initialized.get("id"));
+        assertEquals(2L, path(initialized, "result", "capabilities", "textDocumentSync", "change"));
+        client.notify("initialized", "{}");
+        
+        client.notify("textDocument/didOpen", "{\"textDocument\":{\"uri\":\"file:///a.jadt\",\"languageId\":\"jadt\",\"version\":1,\"text\":\"package a\\nFoo = Foo\\nBar = Bar\\nFoo = Baz\"}}");
+        Map<?, ?> published = client.read();
+        assertEquals("textDocument/publishDiagnostics", published.get("method"));
+        assertEquals("file:///a.jadt", path(published, "params", "uri"));
+        assertEquals(1L, path(published, "params", "version"));
+        List<?> diagnostics = (List<?>)path(published, "params", "diagnostics");
+        assertEquals(1, diagnostics.size());
+        assertEquals("Cannot have two datatypes named Foo in one jADT document.", path(diagnostics.get(0), "message"));
+        assertEquals(Json.parse("{\"start\":{\"line\":3,\"character\":0},\"end\":{\"line\":3,\"character\":3}}"), path(diagnostics.get(0), "range"));
+        
+        // rename the second Foo
+        client.notify("textDocument/didChange", "{\"textDocument\":{\"uri\":\"file:///a.jadt\",\"version\":2},\"contentChanges\":[{\"range\":{\"start\":{\"line\":3,\"character\":0},\"end\":{\"line\":3,\"character\":3}},\"text\":\"Baz\"}]}");
+        published = client.read();
+        assertEquals(2L, path(published, "params", "version"));
+        assertEquals(0, ((List<?>)path(published, "params", "diagnostics")).size());
+        
+        // break the syntax on the third line
+        client.notify("textDocument/didChange", "{\"textDocument\":{\"uri\":\"file:///a.jadt\",\"version\":3},\"contentChanges\":[{\"range\":{\"start\":{\"line\":2,\"character\":4},\"end\":{\"line\":2,\"character\":5}},\"text\":\"\"}]}");
+        published = client.read();
+        assertEquals(3L, path(published, "params", "version"));
+        diagnostics = (List<?>)path(published, "params", "diagnostics");
+        assertEquals(1, diagnostics.size());
+        assertEquals(2L, path(diagnostics.get(0), "range", "start", "line"));
+        
+        final Map<?, ?> unsupported = client.request(2, "textDocument/hover", "{}");
+        assertEquals((long)JADTLanguageServer.METHOD_NOT_FOUND, path(unsupported, "error", "code"));
+        
+        client.notify("textDocument/didClose", "{\"textDocument\":{\"uri\":\"file:///a.jadt\"}}");
+        published = client.read();
+        assertEquals(0, ((List<?>)path(published, "params", "diagnostics")).size());
+        
+        final Map<?, ?> shutdown = client.request(3, "shutdown", "null");
+        assertEquals(3L, shutdown.get("id"));
+        assertNull(shutdown.get("result"));
+        assertEquals(Json.parse("{\"code\":-32600,\"message\":\"Server is shut down\"}"), client.request(4, "shutdown", "null").get("error"));
+        client.notify("exit", "null");
+        assertEquals(0, client.exitCode());
+    }
+    
+    /**
+     * Edits that arrive together are analyzed once, and full text changes work
+     */
+    @Test(timeout = 10000)
+    public void testCoalescing() throws Exception {
+        final Client client = new Client();
+        client.send(message(null, "textDocument/didOpen", "{\"textDocument\":{\"uri\":\"file:///b.jadt\",\"version\":1,\"text\":\"Foo = Foo\"}}")
+                + message(null, "textDocument/didChange", "{\"textDocument\":{\"uri\":\"file:///b.jadt\",\"version\":2},\"contentChanges\":[{\"text\":\"Foo = Foo | Foo\"}]}")
+                + message(null, "textDocument/didChange", "{\"textDocument\":{\"uri\":\"file:///b.jadt\",\"version\":3},\"contentChanges\":[{\"text\":\"Foo = Bar | Baz\"},"
+                        + "{\"range\":{\"start\":{\"line\":0,\"character\":12},\"end\":{\"line\":0,\"character\":15}},\"text\":\"Bar\"}]}"));
+        final Map<?, ?> published = client.read();
+        assertEquals(3L, path(published, "params", "version"));
+        final List<?> diagnostics = (List<?>)path(published, "params", "diagnostics");
+        assertEquals(1, diagnostics.size());
+        assertEquals("Data type Foo cannot have multiple constructors named Bar.", path(diagnostics.get(0), "message"));
+        assertEquals(12L, path(diagnostics.get(0), "range", "start", "character"));
+        // nothing else was published before the response
+        assertEquals(5L, client.request(5, "shutdown", "null").get("id"));
+        client.notify("exit", "null");
+        assertEquals(0, client.exitCode());
+    }
+    
+    /**
+     * A data type defined by two open documents is an error in both until one of them goes away
+     */
+    @Test(timeout = 10000)
+    public void testDuplicatesInDocuments() throws Exception {
+        final Client client = new Client();
+        client.notify("textDocument/didOpen", "{\"textDocument\":{\"uri\":\"file:///a.jadt\",\"version\":1,\"text\":\"package a\\nFoo = Foo\"}}");
+        Map<?, ?> published = client.read();
+        assertEquals(0, ((List<?>)path(published, "params", "diagnostics")).size());
+        
+        client.notify("textDocument/didOpen", "{\"textDocument\":{\"uri\":\"file:///b.jadt\",\"version\":1,\"text\":\"package a\\nBar = Bar\\nFoo = Foo\"}}");
+        // a didn't change but now has an error
+        published = client.read();
+        assertEquals("file:///a.jadt", path(published, "params", "uri"));
+        List<?> diagnostics = (List<?>)path(published, "params", "diagnostics");
+        assertEquals(1, diagnostics.size());
+        assertEquals("Data type a.Foo in file:///a.jadt is also defined in file:///b.jadt.  Both would generate the same class.", path(diagnostics.get(0), "message"));
+        assertEquals(Json.parse("{\"start\":{\"line\":1,\"character\":0},\"end\":{\"line\":1,\"character\":3}}"), path(diagnostics.get(0), "range"));
+        published = client.read();
+        assertEquals("file:///b.jadt", path(published, "params", "uri"));
+        diagnostics = (List<?>)path(published, "params", "diagnostics");
+        assertEquals(1, diagnostics.size());
+        assertEquals(2L, path(diagnostics.get(0), "range", "start", "line"));
+        
+        client.notify("textDocument/didClose", "{\"textDocument\":{\"uri\":\"file:///b.jadt\"}}");
+        published = client.read();
+        assertEquals("file:///b.jadt", path(published, "params", "uri"));
+        published = client.read();
+        assertEquals("file:///a.jadt", path(published, "params", "uri"));
+        assertEquals(0, ((List<?>)path(published, "params", "diagnostics")).size());
+        
+        assertEquals(7L, client.request(7, "shutdown", "null").get("id"));
+        client.notify("exit", "null");
+        assertEquals(0, client.exitCode());
+    }
+    
+    /**
+     * Garbage gets error responses and exiting without a shutdown gives exit code 1
+     */
+    @Test(timeout = 10000)
+    public void testBadMessages() throws Exception {
+        final Client client = new Client();
+        client.send("Content-Length: 5\r\n\r\n{oops");
+        assertEquals((long)JADTLanguageServer.PARSE_ERROR, path(client.read(), "error", "code"));
+        client.send("Content-Length: 2\r\n\r\n[]");
+        assertEquals((long)JADTLanguageServer.INVALID_REQUEST, path(client.read(), "error", "code"));
+        assertEquals((long)JADTLanguageServer.INVALID_PARAMS, path(client.request(6, "textDocument/didOpen", "{}"), "error", "code"));
+        client.notify("exit", "null");
+        assertEquals(1, client.exitCode());
+    }
+    
+    /**
+     * Semantic errors are placed on the names they are about
+     */
+    @Test
+    public void testLocate() {
+        final String text = "Foo = Foo(int x, int y)\nBar<A> = Baz(A x, A x) | Quux(final final int z) | Baz\nFoo = Foo";
+        assertLocated(text, "Foo", 79, SemanticError._DuplicateDataType("Foo"));
+        // names that can't be found fall back to the last thing that could be
+        assertLocated(text, "Bar", 24, SemanticError._ConstructorDataTypeConflict("Bar"));
+        assertLocated(text, "Baz", 75, SemanticError._DuplicateConstructor("Bar", "Baz"));
+        assertLocated(text, "x", 44, SemanticError._DuplicateArgName("Bar", "Baz", "x"));
+        assertLocated(text, "z", 70, SemanticError._DuplicateModifier("Bar", "Quux", "z", "final"));
+        assertLocated(text, "y", 21, SemanticError._DuplicateArgName("Foo", "Foo", "y"));
+        assertLocated(text, "", 0, SemanticError._DuplicateDataType("Nope"));
+        assertLocated(text, "Bar", 24, SemanticError._DuplicateDataTypeInSources("a.b.Bar", "this", "that"));
+        assertLocated(text, "Foo", 0, SemanticError._DuplicateDataTypeInSources("Foo", "this", "that"));
+        assertLocated("Foo = Foo(Lsit<String> x)\nBar = Bar(java.utl.List y)", "java.utl.List", 36, SemanticError._UnresolvedType("Bar", "java.utl.List"));
+    }
+    
+    private static void assertLocated(String text, String name, int start, SemanticError error) {
+        final int[] range = JADTLanguageServer.locate(text, error);
+        assertEquals(name, text.substring(range[0], range[1]));
+        assertEquals(start, range[0]);
+    }
+    
+    private static Object path(Object json, String... keys) {
+        Object current = json;
+        for (String key : keys) {
+            current = ((Map<?, ?>)current).get(key);
+        }
+        return current;
+    }
+    
+    private static String message(Integer id, String method, String params) {
+        final String body = "{\"jsonrpc\":\"2.0\"," + (id == null ? "" : "\"id\":" + id + ",") + "\"method\":\"" + method + "\",\"params\":" + params + "}";
+        try {
+            return "Content-Length: " + body.getBytes("UTF-8").length + "\r\n\r\n" + body;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    
+    /**
+     * A scripted client talking to a server running on its own thread
+     */
+    private static final class Client {
+        private final PipedOutputStream toServer = new PipedOutputStream();
+        private final MessageConnection fromServer;
+        private final Thread thread;
+        private volatile int exitCode = -1;
+        
+        Client() throws IOException {
+            final PipedInputStream serverIn = new PipedInputStream(toServer, 1 << 20);
+            final PipedOutputStream serverOut = new PipedOutputStream();
+            fromServer = new MessageConnection(new PipedInputStream(serverOut, 1 << 20), new PipedOutputStream());
+            final JADTLanguageServer server = new JADTLanguageServer(new MessageConnection(serverIn, serverOut));
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        exitCode = server.run();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }, "JADTLanguageServerTest");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        
+        void send(String messages) throws IOException {
+            toServer.write(messages.getBytes("UTF-8"));
+            toServer.flush();
+        }
+        
+        void notify(String method, String params) throws IOException {
+            send(message(null, method, params));
+        }
+        
+        Map<?, ?> request(int id, String method, String params) throws IOException {
+            send(message(id, method, params));
+            return read();
+        }
+        
+        Map<?, ?> read() throws IOException {
+            return (Map<?, ?>)Json.parse(fromServer.read());
+        }
+        
+        int exitCode() throws InterruptedException {
+            thread.join();
+            return exitCode;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.lsp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Make sure Json reads and writes what the language server protocol needs
+ */
+public class JsonTest {
+    /**
+     * Values of every kind should survive a round trip
+     */
+    @Test
+    public void testRoundTrip() {
+        final String text = "{\"a\":[1,-2,3.5,1.0E10,true,false,null],\"b\":{},\"c\":[],\"d\":\"q\\\"b\\\\s\\n\\r\\t\\u0001\u00e9\"}";
+        final Object parsed = Json.parse(text);
+        final Map<String, Object> expected = new LinkedHashMap<String, Object>();
+        expected.put("a", Arrays.<Object>asList(1L, -2L, 3.5, 1.0E10, true, false, null));
+        expected.put("b", new LinkedHashMap<String, Object>());
+        expected.put("c", Arrays.asList());
+        expected.put("d", "q\"b\\s\n\r\t\u0001\u00e9");
+        assertEquals(expected, parsed);
+        assertEquals(text, Json.write(parsed));
+    }
+    
+    /**
+     * Whitespace and escapes that writing never produces are still read
+     */
+    @Test
+    public void testParse() {
+        assertEquals(Arrays.asList("/\b\f\u00e9", 0L), Json.parse(" [ \"\\/\\b\\f\\u00E9\" ,\r\n\t0 ] "));
+        assertEquals(Arrays.asList(), ((Map<?, ?>)Json.parse("{ \"x\" : [ ] }")).get("x"));
+        final List<?> numbers = (List<?>)Json.parse("[1e2,-0.5,12345678901]");
+        assertEquals(Arrays.asList(100.0, -0.5, 12345678901L), numbers);
+    }
+    
+    /**
+     * Bad JSON should be rejected rather than guessed at
+     */
+    @Test
+    public void testErrors() {
+        final String[] inputs = {"", "{", "[1,", "{\"a\"}", "{a:1}", "\"abc", "\"\\x\"", "\"\\u12\"", "tru", "nul", "-", "1 2", "[1}", "\"\n\"", "@"};
+        for (String input : inputs) {
+            try {
+                final Object result = Json.parse(input);
+                fail("Parsed '" + input + "' as " + result);
+            } catch (IllegalArgumentException e) {
+                // yay
+            }
+        }
+    }
+    
+    /**
+     * Things that aren't JSON values can't be written
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteError() {
+        Json.write(new Object());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+Copyright 2012 James Iry
+
+Licensed under the Apache License, Version 2.0 (the "License");
+you may not use this file except in compliance with the License.
+You may obtain a copy of the License at
+
+    http://www.apache.org/licenses/LICENSE-2.0
+
+Unless required by applicable law or agreed to in writing, software
+distributed under the License is distributed on an "AS IS" BASIS,
+WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+See the License for the specific language governing permissions and
+limitations under the License.
+*/
+package com.pogofish.jadt.lsp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Make sure TextDocument applies edits and finds lines the way the protocol expects
+ */
+public class TextDocumentTest {
+    /**
+     * All the line terminators count and positions past the end are clamped
+     */
+    @Test
+    public void testLines() {
+        final TextDocument document = new TextDocument("uri", 1, "ab\ncd\r\nef\rgh");
+        assertEquals(4, document.lineCount());
+        assertEquals(0, document.offset(0, 0));
+        assertEquals(4, document.offset(1, 1));
+        assertEquals(5, document.offset(1, 99));
+        assertEquals(7, document.offset(2, 0));
+        assertEquals(10, document.offset(3, 0));
+        assertEquals(12, document.offset(99, 0));
+        assertEquals(0, document.offset(-1, 5));
+        assertEquals(2, document.lineEnd(0));
+        assertEquals(5, document.lineEnd(1));
+        assertEquals(9, document.lineEnd(2));
+        assertEquals(12, document.lineEnd(3));
+        assertEquals(0, document.line(2));
+        assertEquals(1, document.line(3));
+        assertEquals(1, document.line(6));
+        assertEquals(3, document.line(12));
+        
+        assertEquals(1, new TextDocument("uri", 1, "").lineCount());
+        assertEquals(2, new TextDocument("uri", 1, "\n").lineCount());
+    }
+    
+    /**
+     * Edits replace ranges, including ones that span lines, and mark the document dirty
+     */
+    @Test
+    public void testChange() {
+        final TextDocument document = new TextDocument("uri", 1, "ab\ncd\nef");
+        document.dirty = false;
+        assertFalse(document.isDirty());
+        
+        document.change(2, 0, 1, 1, 1, "X");
+        assertEquals("aXd\nef", document.getText());
+        assertEquals(2, document.getVersion());
+        assertTrue(document.isDirty());
+        assertEquals(2, document.lineCount());
+        
+        document.change(3, 1, 2, 1, 2, "\ngh");
+        assertEquals("aXd\nef\ngh", document.getText());
+        assertEquals(3, document.lineCount());
+        
+        document.change(4, "new");
+        assertEquals("new", document.getText());
+        assertEquals(4, document.getVersion());
+        assertEquals(1, document.lineCount());
+    }
+}
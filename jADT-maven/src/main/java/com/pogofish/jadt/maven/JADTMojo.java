@@ -1,24 +1,53 @@
 package com.pogofish.jadt.maven;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.WeakHashMap;
 
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
+import org.sonatype.plexus.build.incremental.BuildContext;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
 
 import com.pogofish.jadt.JADT;
+import com.pogofish.jadt.cache.MemoryParseCache;
+import com.pogofish.jadt.checker.CachingChecker;
+import com.pogofish.jadt.checker.StandardChecker;
+import com.pogofish.jadt.daemon.DaemonClient;
+import com.pogofish.jadt.source.FileSourceFactory;
+import com.pogofish.jadt.util.Util;
 
 /**
- * Maven plugin for doing jADT code generation during a Maven build
+ * Maven plugin for doing jADT code generation during a Maven build.  Generation is skipped when the output is already 
+ * up to date, and when an IDE's incremental build reports no change to the sources.  All of the executions in a build, 
+ * including parallel ones, share a MemoryParseCache and CachingChecker kept for the build session, so a source that 
+ * several modules use is only parsed and checked once per build.
  * 
  * @phase generate-sources
  * @goal jADT
+ * @threadSafe
  */
 public class JADTMojo  extends AbstractMojo {
     /**
-     * This is the driver that will be executed.  It's made accessible for unit testing
+     * The caches shared by the executions in each build session.  They're kept here rather than in the session's own
+     * data, whose type changed from Sonatype's to Eclipse's Aether in Maven 3.1.  Maven loads the plugin once per build
+     * so every execution sees this map.  A reactor build hands each module its own clone of the session, so the caches 
+     * are keyed by the execution request that all the clones share, which is only weakly held so a finished build's 
+     * caches can be collected.
      */
-    JADT jadt = JADT.standardConfigDriver();
+    static final Map<MavenExecutionRequest, SessionCaches> SESSION_CACHES = new WeakHashMap<MavenExecutionRequest, SessionCaches>();
+    
+    /**
+     * This is the driver that will be executed, or null to use a standard driver that shares the session's caches.  It's 
+     * made accessible for unit testing
+     */
+    JADT jadt = null;
     
     /**
      * The jadt file or directory that will be parsed
@@ -27,6 +56,21 @@ public class JADTMojo  extends AbstractMojo {
      */
     File srcPath = new File("src/main/jadt");
     
+    /**
+     * Patterns for the files in the srcPath directory to generate from, by default only the .jadt files directly in 
+     * it.  "**&#47;*.jadt" finds them at any depth.  See com.pogofish.jadt.source.Glob for the syntax
+     * 
+     * @parameter
+     */
+    String[] includes = null;
+    
+    /**
+     * Patterns for files in the srcPath directory to leave out even though they're included
+     * 
+     * @parameter
+     */
+    String[] excludes = null;
+    
     /**
      * The base directory where files will be output
      *
@@ -45,24 +89,151 @@ public class JADTMojo  extends AbstractMojo {
      */
     MavenProject project = null;    
     
+    /**
+     * MavenSession supplied by maven at runtime.  It's used to share parsed and checked sources between executions
+     * 
+     * @parameter expression="${session}"
+     * @readonly
+     */
+    MavenSession session = null;
+    
+    /**
+     * Whether to hand the work to a running jADT daemon if there is one
+     * 
+     * @parameter expression="${jadt.daemon}" default-value="false"
+     */
+    boolean daemon = false;
+    
+    /**
+     * Client used to reach a running daemon.  It's made accessible for unit testing
+     */
+    DaemonClient daemonClient = new DaemonClient(DaemonClient.defaultFile());
+    
+    /**
+     * Whether to generate even when the output looks up to date
+     * 
+     * @parameter expression="${jadt.force}" default-value="false"
+     */
+    boolean force = false;
+    
+    /**
+     * BuildContext supplied at runtime, by Maven or by an IDE doing an incremental build.  It's used to find out whether 
+     * the sources changed and to tell the IDE about the output
+     * 
+     * @component
+     */
+    BuildContext buildContext = new DefaultBuildContext();
+    
     @Override
     public void execute() throws MojoExecutionException {
         try {
             // tell Maven that the destination dir is a location from which it needs to compile
             project.addCompileSourceRoot( destDir.getCanonicalPath() );            
             
-            jadt.parseAndEmit(srcPath.getCanonicalPath(), destDir.getCanonicalPath());
+            if (!force && buildContext.isIncremental() && !buildContext.hasDelta(srcPath)) {
+                getLog().info("No jADT sources have changed.");
+                return;
+            }
+            final JADT driver = jadt != null ? jadt : sessionDriver();
+            if (!force && driver.isUpToDate(srcPath.getCanonicalPath(), destDir.getCanonicalPath())) {
+                getLog().info("jADT output in " + destDir + " is up to date.");
+                return;
+            }
+            
+            if (daemon) {
+                daemonClient.parseAndEmit(driver, srcPath.getCanonicalPath(), destDir.getCanonicalPath(), settings());
+            } else {
+                driver.parseAndEmit(srcPath.getCanonicalPath(), destDir.getCanonicalPath());
+            }
+            buildContext.refresh(destDir);
         } catch (Exception e) {
             throw new MojoExecutionException("Error in processing jADT", e);
         }
     }
 
 
+    /**
+     * A standard driver that parses and checks through the caches shared by every execution in the session
+     */
+    JADT sessionDriver() {
+        final SessionCaches caches = sessionCaches();
+        if (includes == null && excludes == null) {
+            return JADT.standardConfigDriver(1, JADT.configuredStreaming(), caches.parseCache, caches.checker);
+        }
+        return JADT.standardConfigDriver(1, JADT.configuredStreaming(), caches.parseCache, caches.checker, 
+                includes == null ? Util.list(FileSourceFactory.DEFAULT_INCLUDE) : Arrays.asList(includes), 
+                excludes == null ? Collections.<String>emptyList() : Arrays.asList(excludes));
+    }
+    
+    /**
+     * The caches for this execution's session, which are made fresh and unshared if there is no session.  It's package
+     * private for unit testing
+     */
+    SessionCaches sessionCaches() {
+        final MavenExecutionRequest request = session == null ? null : session.getRequest();
+        if (request == null) {
+            return new SessionCaches(new MemoryParseCache(JADT.configuredParseCache()), new CachingChecker(new StandardChecker()));
+        }
+        synchronized (SESSION_CACHES) {
+            SessionCaches caches = SESSION_CACHES.get(request);
+            if (caches == null) {
+                caches = new SessionCaches(new MemoryParseCache(JADT.configuredParseCache()), new CachingChecker(new StandardChecker()));
+                SESSION_CACHES.put(request, caches);
+            }
+            return caches;
+        }
+    }
+    
+    /**
+     * The settings a daemon generates with, the same ones sessionDriver() uses
+     */
+    Properties settings() {
+        final Properties settings = JADT.configuredSettings();
+        if (includes != null || excludes != null) {
+            settings.setProperty(JADT.INCLUDES_PROPERTY, includes == null ? FileSourceFactory.DEFAULT_INCLUDE : join(includes));
+            settings.setProperty(JADT.EXCLUDES_PROPERTY, excludes == null ? "" : join(excludes));
+        }
+        return settings;
+    }
+    
+    private static String join(String[] patterns) {
+        final StringBuilder builder = new StringBuilder();
+        for (String pattern : patterns) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(pattern);
+        }
+        return builder.toString();
+    }
+    
+    /**
+     * The MemoryParseCache and CachingChecker shared by the executions in one session
+     */
+    static final class SessionCaches {
+        final MemoryParseCache parseCache;
+        final CachingChecker checker;
+        
+        SessionCaches(MemoryParseCache parseCache, CachingChecker checker) {
+            super();
+            this.parseCache = parseCache;
+            this.checker = checker;
+        }
+    }
+
     public void setSrcPath(File srcPath) {
         this.srcPath = srcPath;
     }
 
 
+    public void setIncludes(String[] includes) {
+        this.includes = includes;
+    }
+
+    public void setExcludes(String[] excludes) {
+        this.excludes = excludes;
+    }
+
     public void setDestDir(File destDir) {
         this.destDir = destDir;
     }
@@ -71,5 +242,21 @@ public class JADTMojo  extends AbstractMojo {
         this.project = project;
     }
     
+    public void setSession(MavenSession session) {
+        this.session = session;
+    }
+
+    public void setDaemon(boolean daemon) {
+        this.daemon = daemon;
+    }
+    
+    public void setForce(boolean force) {
+        this.force = force;
+    }
+    
+    public void setBuildContext(BuildContext buildContext) {
+        this.buildContext = buildContext;
+    }
+    
     
 }
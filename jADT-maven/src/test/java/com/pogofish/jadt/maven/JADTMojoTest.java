@@ -1,19 +1,41 @@
 package com.pogofish.jadt.maven;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.project.MavenProject;
 import org.junit.Test;
+import org.sonatype.aether.RepositorySystemSession;
+import org.sonatype.aether.util.DefaultRepositorySystemSession;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
 
 import com.pogofish.jadt.JADT;
+import com.pogofish.jadt.ast.ParseResult;
+import com.pogofish.jadt.cache.MemoryParseCache;
+import com.pogofish.jadt.checker.CachingChecker;
+import com.pogofish.jadt.checker.StandardChecker;
+import com.pogofish.jadt.daemon.DaemonClient;
 import com.pogofish.jadt.errors.SemanticError;
 import com.pogofish.jadt.errors.SyntaxError;
+import com.pogofish.jadt.manifest.FileManifestStore;
 import com.pogofish.jadt.sink.StringSinkFactoryFactory;
+import com.pogofish.jadt.util.Util;
 
 /**
  * Unit tests for the JADTMojo
@@ -45,6 +67,29 @@ public class JADTMojoTest {
         assertEquals(destDir.getCanonicalPath(), mojo.project.getCompileSourceRoots().get(0));
     }
     
+    /**
+     * Make sure the mojo falls back to its own driver when asked to use a daemon that isn't there
+     */
+    @Test
+    public void testDaemonFallback() throws Exception {
+        final File srcFile = new File(JADT.TEST_SRC_INFO);
+        final File destDir = new File(JADT.TEST_DIR);
+  
+        final JADTMojo mojo = new JADTMojo();
+        final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();        
+        mojo.jadt = JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), srcFile.getCanonicalPath(), factory);
+        mojo.daemonClient = new DaemonClient(new File(destDir, "no such daemon.properties"));
+        
+        mojo.setSrcPath(srcFile);
+        mojo.setDestDir(destDir);
+        mojo.setProject(new MavenProject());
+        mojo.setDaemon(true);
+        mojo.execute();
+        
+        final String result = factory.results().get(destDir.getCanonicalPath()).get(0).getResults().get(JADT.TEST_CLASS_NAME);
+        assertEquals(JADT.TEST_SRC_INFO, result);
+    }
+    
     /**
      * Make sure that exceptions are handled properly
      */
@@ -71,5 +116,291 @@ public class JADTMojoTest {
         }
     }
     
+    /**
+     * Make sure nothing is generated when an incremental build says the sources haven't changed, and that the build 
+     * context hears about the output when something is generated
+     */
+    @Test
+    public void testIncrementalBuild() throws Exception {
+        final File srcFile = new File(JADT.TEST_SRC_INFO);
+        final File destDir = new File(JADT.TEST_DIR);
+        
+        final JADTMojo mojo = new JADTMojo();
+        final StringSinkFactoryFactory factory = new StringSinkFactoryFactory();        
+        mojo.jadt = JADT.createDummyJADT(Collections.<SyntaxError>emptyList(), Collections.<SemanticError>emptyList(), srcFile.getCanonicalPath(), factory);
+        final TestBuildContext buildContext = new TestBuildContext(false);
+        
+        mojo.setSrcPath(srcFile);
+        mojo.setDestDir(destDir);
+        mojo.setProject(new MavenProject());
+        mojo.setBuildContext(buildContext);
+        mojo.execute();
+        
+        assertTrue("Generated without a change", factory.results().isEmpty());
+        assertTrue(buildContext.refreshed.isEmpty());
+        assertEquals(1, mojo.project.getCompileSourceRoots().size());
+        
+        mojo.setBuildContext(new TestBuildContext(true));
+        mojo.setForce(true);
+        mojo.execute();
+        final String result = factory.results().get(destDir.getCanonicalPath()).get(0).getResults().get(JADT.TEST_CLASS_NAME);
+        assertEquals(JADT.TEST_SRC_INFO, result);
+        
+        final TestBuildContext changed = new TestBuildContext(true);
+        mojo.setBuildContext(changed);
+        mojo.setForce(false);
+        mojo.execute();
+        assertEquals(Collections.singletonList(destDir), changed.refreshed);
+    }
     
+    /**
+     * Make sure nothing is generated while the output is up to date with the sources unless generation is forced
+     */
+    @Test
+    public void testUpToDate() throws Exception {
+        final File srcDir = createTmpDir();
+        final File destDir = createTmpDir();
+        try {
+            final File src = new File(srcDir, "Foo.jadt");
+            final OutputStream stream = new FileOutputStream(src);
+            try {
+                stream.write("Foo = Foo".getBytes("UTF-8"));
+            } finally {
+                stream.close();
+            }
+            src.setLastModified(System.currentTimeMillis() - 10000);
+            final File manifest = new File(destDir, FileManifestStore.MANIFEST_NAME);
+            final long old = 1000000000000L;
+            
+            final JADTMojo mojo = new JADTMojo();
+            mojo.setSrcPath(srcDir);
+            mojo.setDestDir(destDir);
+            mojo.setProject(new MavenProject());
+            mojo.execute();
+            assertTrue(new File(destDir, "Foo.java").exists());
+            
+            // the manifest is saved on every run that isn't skipped
+            assertTrue(manifest.setLastModified(old));
+            mojo.execute();
+            assertEquals("Ran when up to date", old, manifest.lastModified());
+            
+            mojo.setForce(true);
+            mojo.execute();
+            assertFalse("Did not run when forced", old == manifest.lastModified());
+            mojo.setForce(false);
+            
+            assertTrue(manifest.setLastModified(old));
+            src.setLastModified(System.currentTimeMillis());
+            mojo.execute();
+            assertFalse("Did not run after the source was modified", old == manifest.lastModified());
+            
+            assertTrue(manifest.setLastModified(old));
+            new File(destDir, "Foo.java").delete();
+            mojo.execute();
+            assertFalse("Did not run with output missing", old == manifest.lastModified());
+            assertTrue(new File(destDir, "Foo.java").exists());
+        } finally {
+            deleteRecursively(srcDir);
+            deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Make sure includes and excludes pick the sources in the srcPath directory
+     */
+    @Test
+    public void testPatterns() throws Exception {
+        final File srcDir = createTmpDir();
+        final File destDir = createTmpDir();
+        try {
+            new File(srcDir, "sub/test").mkdirs();
+            final String[][] sources = {{"Foo.jadt", "Foo = Foo"}, {"sub/Bar.jadt", "Bar = Bar"}, {"sub/test/Baz.jadt", "Baz = Baz"}};
+            for (String[] source : sources) {
+                final OutputStream stream = new FileOutputStream(new File(srcDir, source[0]));
+                try {
+                    stream.write(source[1].getBytes("UTF-8"));
+                } finally {
+                    stream.close();
+                }
+            }
+            
+            final JADTMojo mojo = new JADTMojo();
+            mojo.setSrcPath(srcDir);
+            mojo.setDestDir(destDir);
+            mojo.setProject(new MavenProject());
+            mojo.setIncludes(new String[] {"**/*.jadt"});
+            mojo.setExcludes(new String[] {"**/test/**"});
+            mojo.execute();
+            assertTrue(new File(destDir, "Foo.java").exists());
+            assertTrue(new File(destDir, "Bar.java").exists());
+            assertFalse(new File(destDir, "Baz.java").exists());
+            
+            // a daemon would be sent the same patterns
+            assertEquals("**/*.jadt", mojo.settings().getProperty(JADT.INCLUDES_PROPERTY));
+            assertEquals("**/test/**", mojo.settings().getProperty(JADT.EXCLUDES_PROPERTY));
+        } finally {
+            deleteRecursively(srcDir);
+            deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * Make sure executions in the same session share parsed and checked sources, and executions in other sessions don't
+     */
+    @Test
+    public void testSharedSession() throws Exception {
+        final File srcDir = createTmpDir();
+        final File destDir1 = createTmpDir();
+        final File destDir2 = createTmpDir();
+        try {
+            final OutputStream stream = new FileOutputStream(new File(srcDir, "Foo.jadt"));
+            try {
+                stream.write("Foo = Foo".getBytes("UTF-8"));
+            } finally {
+                stream.close();
+            }
+            final MavenSession session = new MavenSession(null, new DefaultRepositorySystemSession(), new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult());
+            final CountingParseCache parseCache = new CountingParseCache();
+            final CachingChecker checker = new CachingChecker(new StandardChecker());
+            synchronized (JADTMojo.SESSION_CACHES) {
+                JADTMojo.SESSION_CACHES.put(session.getRequest(), new JADTMojo.SessionCaches(parseCache, checker));
+            }
+            
+            for (File destDir : Util.list(destDir1, destDir2)) {
+                final JADTMojo mojo = new JADTMojo();
+                mojo.setSrcPath(srcDir);
+                mojo.setDestDir(destDir);
+                mojo.setProject(new MavenProject());
+                mojo.setSession(session);
+                mojo.execute();
+                assertTrue(new File(destDir, "Foo.java").exists());
+            }
+            assertEquals("Parsed more than once", 1, parseCache.puts);
+            assertEquals(1, checker.size());
+            
+            // another session gets caches of its own
+            final MavenSession otherSession = new MavenSession(null, new DefaultRepositorySystemSession(), new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult());
+            final JADTMojo mojo = new JADTMojo();
+            mojo.setSession(otherSession);
+            mojo.sessionDriver();
+            synchronized (JADTMojo.SESSION_CACHES) {
+                assertNotSame(parseCache, JADTMojo.SESSION_CACHES.get(otherSession.getRequest()).parseCache);
+            }
+        } finally {
+            deleteRecursively(srcDir);
+            deleteRecursively(destDir1);
+            deleteRecursively(destDir2);
+        }
+    }
+    
+    /**
+     * A reactor build gives each module a clone of the session, and the clones must all share the same caches
+     */
+    @Test
+    public void testClonedSessions() {
+        final MavenSession session = new MavenSession(null, new DefaultRepositorySystemSession(), new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult());
+        final JADTMojo mojo1 = new JADTMojo();
+        mojo1.setSession(session.clone());
+        final JADTMojo mojo2 = new JADTMojo();
+        mojo2.setSession(session.clone());
+        assertSame(mojo1.sessionCaches(), mojo2.sessionCaches());
+        
+        final JADTMojo other = new JADTMojo();
+        other.setSession(new MavenSession(null, new DefaultRepositorySystemSession(), new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult()));
+        assertNotSame(mojo1.sessionCaches(), other.sessionCaches());
+    }
+    
+    /**
+     * The caches are shared without going near the session's repository session, whose type changed in Maven 3.1 so 
+     * that a plugin built against Maven 3.0 gets a NoSuchMethodError from it
+     */
+    @Test
+    public void testMaven31Session() throws Exception {
+        final MavenSession session = new MavenSession(null, new DefaultRepositorySystemSession(), new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult()) {
+            @Override
+            public RepositorySystemSession getRepositorySession() {
+                throw new NoSuchMethodError("org.apache.maven.execution.MavenSession.getRepositorySession()Lorg/sonatype/aether/RepositorySystemSession;");
+            }
+        };
+        final File srcDir = createTmpDir();
+        final File destDir = createTmpDir();
+        try {
+            final OutputStream stream = new FileOutputStream(new File(srcDir, "Foo.jadt"));
+            try {
+                stream.write("Foo = Foo".getBytes("UTF-8"));
+            } finally {
+                stream.close();
+            }
+            final JADTMojo mojo = new JADTMojo();
+            mojo.setSrcPath(srcDir);
+            mojo.setDestDir(destDir);
+            mojo.setProject(new MavenProject());
+            mojo.setSession(session);
+            mojo.execute();
+            assertTrue(new File(destDir, "Foo.java").exists());
+            synchronized (JADTMojo.SESSION_CACHES) {
+                assertEquals(1, JADTMojo.SESSION_CACHES.get(session.getRequest()).checker.size());
+            }
+        } finally {
+            deleteRecursively(srcDir);
+            deleteRecursively(destDir);
+        }
+    }
+    
+    /**
+     * MemoryParseCache that counts what gets put in it
+     */
+    private static final class CountingParseCache extends MemoryParseCache {
+        int puts = 0;
+        
+        @Override
+        public void put(String key, ParseResult result) {
+            puts++;
+            super.put(key, result);
+        }
+    }
+    
+    /**
+     * BuildContext for an incremental build that records what gets refreshed
+     */
+    private static final class TestBuildContext extends DefaultBuildContext {
+        private final boolean delta;
+        final List<File> refreshed = new ArrayList<File>();
+        
+        TestBuildContext(boolean delta) {
+            this.delta = delta;
+        }
+
+        @Override
+        public boolean isIncremental() {
+            return true;
+        }
+        
+        @Override
+        public boolean hasDelta(File file) {
+            return delta;
+        }
+        
+        @Override
+        public void refresh(File file) {
+            refreshed.add(file);
+        }
+    }
+    
+    private static File createTmpDir() throws IOException {
+        final File dir = File.createTempFile("jadt", "test");
+        dir.delete();
+        dir.mkdirs();
+        return dir;
+    }
+    
+    private static void deleteRecursively(File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
 }